@@ -0,0 +1,33 @@
+CREATE TABLE m_object_ext_promoted (
+  owner_oid  VARCHAR(36)  NOT NULL,
+  date1      TIMESTAMP,
+  date2      TIMESTAMP,
+  long1      BIGINT,
+  long2      BIGINT,
+  string1    VARCHAR(255),
+  string2    VARCHAR(255),
+  string3    VARCHAR(255),
+  string4    VARCHAR(255),
+  PRIMARY KEY (owner_oid)
+);
+
+CREATE INDEX iExtPromotedString1 ON m_object_ext_promoted (string1);
+
+CREATE INDEX iExtPromotedString2 ON m_object_ext_promoted (string2);
+
+CREATE INDEX iExtPromotedString3 ON m_object_ext_promoted (string3);
+
+CREATE INDEX iExtPromotedString4 ON m_object_ext_promoted (string4);
+
+CREATE INDEX iExtPromotedLong1 ON m_object_ext_promoted (long1);
+
+CREATE INDEX iExtPromotedLong2 ON m_object_ext_promoted (long2);
+
+CREATE INDEX iExtPromotedDate1 ON m_object_ext_promoted (date1);
+
+CREATE INDEX iExtPromotedDate2 ON m_object_ext_promoted (date2);
+
+ALTER TABLE m_object_ext_promoted
+ADD CONSTRAINT fk_object_ext_promoted
+FOREIGN KEY (owner_oid)
+REFERENCES m_object;
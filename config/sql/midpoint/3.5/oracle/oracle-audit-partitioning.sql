@@ -0,0 +1,68 @@
+-- Optional time-partitioned layout of audit tables (requires Oracle 12c or newer, with partitioning option).
+--
+-- To be used together with <auditPartitioning>true</auditPartitioning> in repository configuration.
+-- m_audit_event uses monthly interval partitioning, so new partitions are created automatically.
+-- m_audit_delta is partitioned by reference, so dropping an expired event partition (done by midPoint during
+-- audit cleanup) drops the corresponding deltas as well. Existing audit records are moved to the new layout.
+
+ALTER TABLE m_audit_delta DROP CONSTRAINT fk_audit_delta;
+
+RENAME m_audit_event TO m_audit_event_old;
+RENAME m_audit_delta TO m_audit_delta_old;
+DROP INDEX iTimestampValue;
+
+UPDATE m_audit_event_old SET timestampValue = TIMESTAMP '1970-01-01 00:00:00' WHERE timestampValue IS NULL;
+
+CREATE TABLE m_audit_event (
+  id                NUMBER(19, 0) NOT NULL,
+  channel           VARCHAR2(255 CHAR),
+  eventIdentifier   VARCHAR2(255 CHAR),
+  eventStage        NUMBER(10, 0),
+  eventType         NUMBER(10, 0),
+  hostIdentifier    VARCHAR2(255 CHAR),
+  initiatorName     VARCHAR2(255 CHAR),
+  initiatorOid      VARCHAR2(36 CHAR),
+  message           VARCHAR2(1024 CHAR),
+  outcome           NUMBER(10, 0),
+  parameter         VARCHAR2(255 CHAR),
+  result            VARCHAR2(255 CHAR),
+  sessionIdentifier VARCHAR2(255 CHAR),
+  targetName        VARCHAR2(255 CHAR),
+  targetOid         VARCHAR2(36 CHAR),
+  targetOwnerName   VARCHAR2(255 CHAR),
+  targetOwnerOid    VARCHAR2(36 CHAR),
+  targetType        NUMBER(10, 0),
+  taskIdentifier    VARCHAR2(255 CHAR),
+  taskOID           VARCHAR2(255 CHAR),
+  timestampValue    TIMESTAMP     NOT NULL,
+  PRIMARY KEY (id)
+) INITRANS 30
+PARTITION BY RANGE (timestampValue) INTERVAL (NUMTOYMINTERVAL(1, 'MONTH'))
+(PARTITION p_audit_initial VALUES LESS THAN (TIMESTAMP '1970-01-02 00:00:00'));
+
+CREATE TABLE m_audit_delta (
+  checksum   VARCHAR2(32 CHAR) NOT NULL,
+  record_id  NUMBER(19, 0)     NOT NULL,
+  delta      CLOB,
+  deltaOid   VARCHAR2(36 CHAR),
+  deltaType  NUMBER(10, 0),
+  fullResult CLOB,
+  objectName_norm   VARCHAR2(255 CHAR),
+  objectName_orig   VARCHAR2(255 CHAR),
+  resourceName_norm VARCHAR2(255 CHAR),
+  resourceName_orig VARCHAR2(255 CHAR),
+  resourceOid       VARCHAR2(36 CHAR),
+  status     NUMBER(10, 0),
+  PRIMARY KEY (checksum, record_id),
+  CONSTRAINT fk_audit_delta FOREIGN KEY (record_id) REFERENCES m_audit_event
+) INITRANS 30
+PARTITION BY REFERENCE (fk_audit_delta);
+
+CREATE INDEX iTimestampValue ON m_audit_event (timestampValue) LOCAL INITRANS 30;
+
+INSERT INTO m_audit_event SELECT * FROM m_audit_event_old;
+INSERT INTO m_audit_delta SELECT * FROM m_audit_delta_old;
+COMMIT;
+
+DROP TABLE m_audit_delta_old;
+DROP TABLE m_audit_event_old;
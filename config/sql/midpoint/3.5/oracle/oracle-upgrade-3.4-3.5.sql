@@ -0,0 +1,33 @@
+CREATE TABLE m_object_ext_promoted (
+  owner_oid  VARCHAR2(36 CHAR) NOT NULL,
+  date1      TIMESTAMP,
+  date2      TIMESTAMP,
+  long1      NUMBER(19, 0),
+  long2      NUMBER(19, 0),
+  string1    VARCHAR2(255 CHAR),
+  string2    VARCHAR2(255 CHAR),
+  string3    VARCHAR2(255 CHAR),
+  string4    VARCHAR2(255 CHAR),
+  PRIMARY KEY (owner_oid)
+) INITRANS 30;
+
+CREATE INDEX iExtPromotedString1 ON m_object_ext_promoted (string1) INITRANS 30;
+
+CREATE INDEX iExtPromotedString2 ON m_object_ext_promoted (string2) INITRANS 30;
+
+CREATE INDEX iExtPromotedString3 ON m_object_ext_promoted (string3) INITRANS 30;
+
+CREATE INDEX iExtPromotedString4 ON m_object_ext_promoted (string4) INITRANS 30;
+
+CREATE INDEX iExtPromotedLong1 ON m_object_ext_promoted (long1) INITRANS 30;
+
+CREATE INDEX iExtPromotedLong2 ON m_object_ext_promoted (long2) INITRANS 30;
+
+CREATE INDEX iExtPromotedDate1 ON m_object_ext_promoted (date1) INITRANS 30;
+
+CREATE INDEX iExtPromotedDate2 ON m_object_ext_promoted (date2) INITRANS 30;
+
+ALTER TABLE m_object_ext_promoted
+ADD CONSTRAINT fk_object_ext_promoted
+FOREIGN KEY (owner_oid)
+REFERENCES m_object;
@@ -0,0 +1,62 @@
+-- Optional time-partitioned layout of audit tables (requires PostgreSQL 11 or newer).
+--
+-- To be used together with <auditPartitioning>true</auditPartitioning> in repository configuration.
+-- m_audit_event is partitioned by month (tables m_audit_event_YYYY_MM, plus a default partition).
+-- Partitions for the current and next months are created by midPoint during audit cleanup, and the expired
+-- ones are dropped. Existing audit records are moved to the new layout.
+--
+-- Note that the foreign key from m_audit_delta to m_audit_event is removed, because a partitioned table can
+-- be referenced only by a key containing the partitioning column.
+
+ALTER TABLE m_audit_delta DROP CONSTRAINT fk_audit_delta;
+
+ALTER TABLE m_audit_event RENAME TO m_audit_event_old;
+ALTER INDEX iTimestampValue RENAME TO iTimestampValue_old;
+
+UPDATE m_audit_event_old SET timestampValue = TIMESTAMP '1970-01-01 00:00:00' WHERE timestampValue IS NULL;
+
+CREATE TABLE m_audit_event (
+  id                INT8      NOT NULL,
+  channel           VARCHAR(255),
+  eventIdentifier   VARCHAR(255),
+  eventStage        INT4,
+  eventType         INT4,
+  hostIdentifier    VARCHAR(255),
+  initiatorName     VARCHAR(255),
+  initiatorOid      VARCHAR(36),
+  message           VARCHAR(1024),
+  outcome           INT4,
+  parameter         VARCHAR(255),
+  result            VARCHAR(255),
+  sessionIdentifier VARCHAR(255),
+  targetName        VARCHAR(255),
+  targetOid         VARCHAR(36),
+  targetOwnerName   VARCHAR(255),
+  targetOwnerOid    VARCHAR(36),
+  targetType        INT4,
+  taskIdentifier    VARCHAR(255),
+  taskOID           VARCHAR(255),
+  timestampValue    TIMESTAMP NOT NULL,
+  PRIMARY KEY (id, timestampValue)
+) PARTITION BY RANGE (timestampValue);
+
+CREATE INDEX iTimestampValue ON m_audit_event (timestampValue);
+
+CREATE TABLE m_audit_event_default PARTITION OF m_audit_event DEFAULT;
+
+-- monthly partitions for existing records and for the next two months
+DO $$
+DECLARE
+  period_start TIMESTAMP;
+BEGIN
+  SELECT date_trunc('month', COALESCE(MIN(timestampValue), now())) INTO period_start FROM m_audit_event_old;
+  WHILE period_start <= date_trunc('month', now()) + INTERVAL '2 months' LOOP
+    EXECUTE format('CREATE TABLE m_audit_event_%s PARTITION OF m_audit_event FOR VALUES FROM (%L) TO (%L)',
+                   to_char(period_start, 'YYYY_MM'), period_start, period_start + INTERVAL '1 month');
+    period_start := period_start + INTERVAL '1 month';
+  END LOOP;
+END $$;
+
+INSERT INTO m_audit_event SELECT * FROM m_audit_event_old;
+
+DROP TABLE m_audit_event_old;
@@ -0,0 +1,33 @@
+CREATE TABLE m_object_ext_promoted (
+  owner_oid  NVARCHAR(36) COLLATE database_default NOT NULL,
+  date1      DATETIME2,
+  date2      DATETIME2,
+  long1      BIGINT,
+  long2      BIGINT,
+  string1    NVARCHAR(255) COLLATE database_default,
+  string2    NVARCHAR(255) COLLATE database_default,
+  string3    NVARCHAR(255) COLLATE database_default,
+  string4    NVARCHAR(255) COLLATE database_default,
+  PRIMARY KEY (owner_oid)
+);
+
+CREATE INDEX iExtPromotedString1 ON m_object_ext_promoted (string1);
+
+CREATE INDEX iExtPromotedString2 ON m_object_ext_promoted (string2);
+
+CREATE INDEX iExtPromotedString3 ON m_object_ext_promoted (string3);
+
+CREATE INDEX iExtPromotedString4 ON m_object_ext_promoted (string4);
+
+CREATE INDEX iExtPromotedLong1 ON m_object_ext_promoted (long1);
+
+CREATE INDEX iExtPromotedLong2 ON m_object_ext_promoted (long2);
+
+CREATE INDEX iExtPromotedDate1 ON m_object_ext_promoted (date1);
+
+CREATE INDEX iExtPromotedDate2 ON m_object_ext_promoted (date2);
+
+ALTER TABLE m_object_ext_promoted
+ADD CONSTRAINT fk_object_ext_promoted
+FOREIGN KEY (owner_oid)
+REFERENCES m_object;
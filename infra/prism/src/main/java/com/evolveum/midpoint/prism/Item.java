@@ -31,11 +31,14 @@ import java.io.Serializable;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -52,17 +55,28 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
 
     private static final long serialVersionUID = 510000191615288733L;
 
+    /**
+     * Minimal number of values for which the value index is built. For smaller items, sequential scan
+     * of the values is cheaper (see TestItemValueIndex).
+     */
+    static final int DEFAULT_VALUE_INDEX_THRESHOLD = 16;
+
+    private static int valueIndexThreshold = DEFAULT_VALUE_INDEX_THRESHOLD;
+
     // The object should basically work without definition and prismContext. This is the
 	// usual case when it is constructed "out of the blue", e.g. as a new JAXB object
 	// It may not work perfectly, but basic things should work
     protected QName elementName;
     protected PrismValue parent;
     protected D definition;
-    private List<V> values = new ArrayList<V>();
+    private List<V> values = new TrackingArrayList<V>();
+    private transient volatile ItemValueIndex<V> valueIndex;       // built lazily for items with many values
     private transient Map<String,Object> userData = new HashMap<>();;
     
     protected transient PrismContext prismContext;          // beware, this one can easily be null
 
+    private boolean immutable;
+
     /**
      * This is used for definition-less construction, e.g. in JAXB beans.
      * 
@@ -137,7 +151,11 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
      * @param name the name to set
      */
     public void setElementName(QName elementName) {
+        checkMutability();
         this.elementName = elementName;
+        if (parent instanceof PrismContainerValue) {
+            ((PrismContainerValue<?>) parent).invalidateItemNameIndex();
+        }
     }
 
     /**
@@ -201,6 +219,9 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     	if (this.parent != null && parentValue != null && this.parent != parentValue) {
     		throw new IllegalStateException("Attempt to reset parent of item "+this+" from "+this.parent+" to "+parentValue);
     	}
+    	if (this.parent != parentValue) {
+    		checkMutability();
+    	}
     	this.parent = parentValue;
     }
     
@@ -272,7 +293,8 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
      * provided value argument may not be.
      */
     public PrismValue findValue(PrismValue value, boolean ignoreMetadata) {
-        for (PrismValue myVal : getValues()) {
+        Collection<V> candidates = getCandidateValues(value, ignoreMetadata);
+        for (PrismValue myVal : candidates != null ? candidates : getValues()) {
             if (myVal.equalsComplex(value, ignoreMetadata, false)) {
                 return myVal;
             }
@@ -348,7 +370,8 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     }
     
     public boolean contains(V value, boolean ignoreMetadata) {
-    	for (V myValue: getValues()) {
+    	Collection<V> candidates = getCandidateValues(value, ignoreMetadata);
+    	for (V myValue: candidates != null ? candidates : getValues()) {
     		if (myValue.equals(value, ignoreMetadata)) {
     			return true;
     		}
@@ -357,7 +380,8 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     }
         
     public boolean containsRealValue(V value) {
-    	for (V myValue: getValues()) {
+    	Collection<V> candidates = getCandidateValues(value, true);
+    	for (V myValue: candidates != null ? candidates : getValues()) {
     		if (myValue.equalsRealValue(value)) {
     			return true;
     		}
@@ -384,6 +408,7 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     }
     
     public boolean add(V newValue, boolean checkUniqueness) throws SchemaException {
+    	checkMutability();
     	newValue.setParent(this);
     	if (checkUniqueness && containsEquivalentValue(newValue)) {
     		return false;
@@ -391,7 +416,7 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     	if (getDefinition() != null) {
     		newValue.applyDefinition(getDefinition(), false);
     	}
-    	return values.add(newValue);
+    	return addToValues(newValue);
     }
     
     public boolean removeAll(Collection<V> newValues) {
@@ -405,38 +430,152 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     }
 
     public boolean remove(V newValue) {
-    	boolean changed = false;
-    	Iterator<V> iterator = values.iterator();
-    	while (iterator.hasNext()) {
-    		V val = iterator.next();
+    	checkMutability();
+    	List<V> toRemove = new ArrayList<>();
+    	Collection<V> candidates = getCandidateValues(newValue, true);
+    	for (V val : candidates != null ? candidates : values) {
     		if (val.representsSameValue(newValue) || val.equalsRealValue(newValue)) {
-    			iterator.remove();
-    			changed = true;
+    			toRemove.add(val);
     		}
     	}
-    	return changed;
+    	return removeFromValues(toRemove);
     }
     
     public V remove(int index) {
+    	checkMutability();
     	return values.remove(index);
     }
 
     public void replaceAll(Collection<V> newValues) throws SchemaException {
+    	checkMutability();
     	values.clear();
+    	valueIndex = null;
     	addAll(newValues);
     }
 
     public void replace(V newValue) {
+    	checkMutability();
     	values.clear();
+    	valueIndex = null;
         newValue.setParent(this);
     	values.add(newValue);
     }
     
     public void clear() {
+    	checkMutability();
     	values.clear();
+    	valueIndex = null;
+    }
+
+    /**
+     * Adds the value to the list of values, keeping the value index up to date.
+     */
+    boolean addToValues(V newValue) {
+    	checkMutability();
+    	ItemValueIndex<V> index = getCurrentValueIndex();
+    	boolean added = values.add(newValue);
+    	if (index != null) {
+    		index.add(newValue, getValuesModCount());
+    	}
+    	return added;
+    }
+
+    /**
+     * Removes given instances from the list of values, keeping the value index up to date.
+     */
+    boolean removeFromValues(Collection<V> valuesToRemove) {
+    	if (valuesToRemove.isEmpty()) {
+    		return false;
+    	}
+    	checkMutability();
+    	ItemValueIndex<V> index = getCurrentValueIndex();
+    	Set<V> toRemove = Collections.newSetFromMap(new IdentityHashMap<V, Boolean>());
+    	toRemove.addAll(valuesToRemove);
+    	Iterator<V> iterator = values.iterator();
+    	while (iterator.hasNext()) {
+    		if (toRemove.contains(iterator.next())) {
+    			iterator.remove();
+    		}
+    	}
+    	if (index != null) {
+    		for (V value : toRemove) {
+    			if (!index.remove(value, getValuesModCount())) {
+    				valueIndex = null;
+    				break;
+    			}
+    		}
+    	}
+    	return true;
+    }
+
+    /**
+     * Returns values that can be equal to the given one, or null if all the values have to be examined
+     * (because the item has not enough values to be indexed, or the given value cannot be looked up in the index).
+     */
+    Collection<V> getCandidateValues(PrismValue value, boolean ignoreMetadata) {
+    	if (value == null) {
+    		return null;
+    	}
+    	ItemValueIndex<V> index = getValueIndex();
+    	return index != null ? index.getCandidates(value, ignoreMetadata) : null;
+    }
+
+    /**
+     * Returns values having the given index key (OID of a reference value, ID of a container value)
+     * plus the values that cannot be indexed, or null if all the values have to be examined.
+     */
+    Collection<V> getCandidateValues(Object indexKey) {
+    	if (indexKey == null) {
+    		return null;
+    	}
+    	ItemValueIndex<V> index = getValueIndex();
+    	return index != null ? index.getCandidates(indexKey) : null;
+    }
+
+    private ItemValueIndex<V> getValueIndex() {
+    	if (values == null || values.size() < valueIndexThreshold || !(values instanceof TrackingArrayList)) {
+    		return null;
+    	}
+    	ItemValueIndex<V> index = getCurrentValueIndex();
+    	if (index == null) {
+    		index = new ItemValueIndex<>(values, getValuesModCount());
+    		valueIndex = index;
+    	}
+    	return index;
+    }
+
+    /**
+     * Returns the value index, if it exists and the values were not changed since it was last updated.
+     */
+    private ItemValueIndex<V> getCurrentValueIndex() {
+    	ItemValueIndex<V> index = valueIndex;
+    	if (index == null || index.getModCount() != getValuesModCount()) {
+    		return null;
+    	}
+    	return index;
+    }
+
+    private int getValuesModCount() {
+    	return ((TrackingArrayList<V>) values).getModCount();
+    }
+
+    void invalidateValueIndex() {
+    	valueIndex = null;
+    }
+
+    static int getValueIndexThreshold() {
+    	return valueIndexThreshold;
+    }
+
+    /**
+     * For tests and benchmarks only.
+     */
+    static void setValueIndexThreshold(int threshold) {
+    	valueIndexThreshold = threshold;
     }
     
     public void normalize() {
+    	checkMutability();
     	Iterator<V> iterator = values.iterator();
     	while (iterator.hasNext()) {
     		V value = iterator.next();
@@ -599,6 +738,29 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
 
     public abstract Item clone();
 
+    public boolean isImmutable() {
+    	return immutable;
+    }
+
+    /**
+     * Makes this item, its values and everything below them immutable (or mutable again). Immutable items
+     * can be safely shared, e.g. handed out from caches, without being cloned; any attempt to modify them
+     * results in an IllegalStateException. Clones of immutable items are mutable.
+     */
+    public void setImmutable(boolean immutable) {
+    	this.immutable = immutable;
+    	((TrackingArrayList<V>) values).setImmutable(immutable);
+    	for (V value : values) {
+    		value.setImmutable(immutable);
+    	}
+    }
+
+    protected void checkMutability() {
+    	if (immutable) {
+    		throw new IllegalStateException("An attempt to modify an immutable item: " + toString());
+    	}
+    }
+
     protected void copyValues(Item clone) {
         clone.elementName = this.elementName;
         clone.definition = this.definition;
@@ -893,5 +1055,4 @@ public abstract class Item<V extends PrismValue, D extends ItemDefinition> imple
     protected String getDebugDumpClassName() {
         return "Item";
     }
-    
 }
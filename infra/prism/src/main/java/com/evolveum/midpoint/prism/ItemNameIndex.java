@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.prism;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of items of a container value by the local part of their names. Items are matched using QNameUtil.match,
+ * i.e. a name without namespace matches any item with the same local part; so all the items with the same local
+ * part are candidates for a match, and the caller has to check them.
+ *
+ * The index reflects the state of the items list with given modification count. Changes of names of items
+ * that are already in the container value are reported via {@link PrismContainerValue#invalidateItemNameIndex()}.
+ */
+class ItemNameIndex {
+
+    private final Map<String, List<Item<?,?>>> itemsByLocalPart = new HashMap<>();
+    private int modCount;
+
+    ItemNameIndex(Collection<Item<?,?>> items, int modCount) {
+        for (Item<?,?> item : items) {
+            index(item);
+        }
+        this.modCount = modCount;
+    }
+
+    int getModCount() {
+        return modCount;
+    }
+
+    void add(Item<?,?> item, int modCount) {
+        index(item);
+        this.modCount = modCount;
+    }
+
+    /**
+     * Returns items whose names can match the given one, in the order they have in the container value.
+     */
+    List<Item<?,?>> getCandidates(QName name) {
+        List<Item<?,?>> candidates = itemsByLocalPart.get(name.getLocalPart());
+        return candidates != null ? candidates : Collections.<Item<?,?>>emptyList();
+    }
+
+    private void index(Item<?,?> item) {
+        QName name = item.getElementName();
+        String localPart = name != null ? name.getLocalPart() : null;
+        List<Item<?,?>> list = itemsByLocalPart.get(localPart);
+        if (list == null) {
+            list = new ArrayList<>(1);
+            itemsByLocalPart.put(localPart, list);
+        }
+        list.add(item);
+    }
+}
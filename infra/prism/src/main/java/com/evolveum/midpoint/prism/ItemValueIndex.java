@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.prism;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index over values of an item. It is used by {@link Item} to avoid sequential scans of values
+ * when the item has many of them (e.g. group membership attributes, large assignment containers or linkRefs).
+ *
+ * Values are indexed by their key (see {@link PrismValue#getIndexKey()}): real value of a property,
+ * OID of a reference, ID of a container value. Values that have no key (e.g. raw values) are kept aside
+ * and are always returned as candidates. Values in each bucket are kept in the order they have in the item.
+ *
+ * The index reflects the state of the values list with given modification count. Keys of values
+ * that are already in the item are not expected to change; if they do, the index is invalidated
+ * via {@link Item#invalidateValueIndex()}.
+ */
+class ItemValueIndex<V extends PrismValue> {
+
+    private final Map<Object, List<V>> keyedValues = new HashMap<>();
+    private final List<V> unkeyedValues = new ArrayList<>();
+    private int modCount;
+
+    ItemValueIndex(Collection<V> values, int modCount) {
+        for (V value : values) {
+            index(value);
+        }
+        this.modCount = modCount;
+    }
+
+    int getModCount() {
+        return modCount;
+    }
+
+    void add(V value, int modCount) {
+        index(value);
+        this.modCount = modCount;
+    }
+
+    /**
+     * Returns false if the value was not found in the index. The index should not be used after that.
+     */
+    boolean remove(V value, int modCount) {
+        this.modCount = modCount;
+        Object key = value.getIndexKey();
+        if (key == null) {
+            return removeIdentical(unkeyedValues, value);
+        }
+        List<V> bucket = keyedValues.get(key);
+        if (bucket == null || !removeIdentical(bucket, value)) {
+            return false;
+        }
+        if (bucket.isEmpty()) {
+            keyedValues.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Returns values that can be equal to the given one (in the sense of equalsComplex), or null if the index
+     * cannot be used to look up the value. Container IDs are considered to be metadata, so values of containers
+     * cannot be looked up if metadata are ignored.
+     */
+    Collection<V> getCandidates(PrismValue value, boolean ignoreMetadata) {
+        if (ignoreMetadata && value instanceof PrismContainerValue) {
+            return null;
+        }
+        Object key = value.getIndexKey();
+        if (key == null) {
+            return null;
+        }
+        return getCandidates(key);
+    }
+
+    /**
+     * Returns values with the given key, followed by all values that have no key.
+     */
+    Collection<V> getCandidates(Object key) {
+        List<V> bucket = keyedValues.get(key);
+        if (unkeyedValues.isEmpty()) {
+            return bucket != null ? bucket : Collections.<V>emptyList();
+        }
+        if (bucket == null) {
+            return unkeyedValues;
+        }
+        List<V> candidates = new ArrayList<>(bucket.size() + unkeyedValues.size());
+        candidates.addAll(bucket);
+        candidates.addAll(unkeyedValues);
+        return candidates;
+    }
+
+    private void index(V value) {
+        Object key = value.getIndexKey();
+        if (key == null) {
+            unkeyedValues.add(value);
+            return;
+        }
+        List<V> bucket = keyedValues.get(key);
+        if (bucket == null) {
+            bucket = new ArrayList<>(1);
+            keyedValues.put(key, bucket);
+        }
+        bucket.add(value);
+    }
+
+    private static <V> boolean removeIdentical(List<V> list, V value) {
+        Iterator<V> iterator = list.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == value) {
+                iterator.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -17,10 +17,18 @@
 package com.evolveum.midpoint.prism;
 
 import com.evolveum.midpoint.prism.parser.XNodeProcessorEvaluationMode;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.path.ItemPathSegment;
+import com.evolveum.midpoint.prism.path.NameItemPathSegment;
+import com.evolveum.midpoint.util.QNameUtil;
 import com.evolveum.midpoint.util.logging.Trace;
 
+import javax.xml.namespace.QName;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author mederly
@@ -31,6 +39,10 @@ public class ParsingContext {
 	private boolean allowMissingRefTypes;
 	private final List<String> warnings = new ArrayList<>();
 
+	// items to be parsed (null = all); the stack tracks the position in the tree while parsing
+	private IncludedItems itemsToInclude;
+	private final List<IncludedItems> includedItemsStack = new ArrayList<>();
+
 	private ParsingContext() {
 	}
 
@@ -90,4 +102,97 @@ public class ParsingContext {
 	public boolean hasWarnings() {
 		return !warnings.isEmpty();
 	}
+
+	/**
+	 * Restricts parsing of containers (objects) to the specified items. Other items are skipped without
+	 * creating any prism structures for them. Container ids are ignored in the paths, i.e. a path of
+	 * assignment/description selects descriptions of all assignments. Null means "parse everything".
+	 */
+	public void setItemsToInclude(Collection<ItemPath> paths) {
+		if (paths == null) {
+			itemsToInclude = null;
+			return;
+		}
+		itemsToInclude = new IncludedItems(new HashMap<QName, IncludedItems>());
+		for (ItemPath path : paths) {
+			IncludedItems current = itemsToInclude;
+			for (ItemPathSegment segment : path.getSegments()) {
+				if (!(segment instanceof NameItemPathSegment)) {
+					continue;
+				}
+				if (current.children == null) {
+					break;          // already included as a whole
+				}
+				QName name = ((NameItemPathSegment) segment).getName();
+				IncludedItems child = current.children.get(name);
+				if (child == null) {
+					child = new IncludedItems(new HashMap<QName, IncludedItems>());
+					current.children.put(name, child);
+				}
+				current = child;
+			}
+			current.children = null;
+		}
+	}
+
+	public boolean hasItemsToInclude() {
+		return itemsToInclude != null;
+	}
+
+	/**
+	 * Whether an item of the container value being parsed is to be parsed.
+	 */
+	public boolean isItemIncluded(QName itemName) {
+		return itemsToInclude == null || getCurrentIncludedItems().find(itemName) != null;
+	}
+
+	/**
+	 * Called when parsing of an (included) item starts. Has to be followed by {@link #leaveItem()}.
+	 */
+	public void enterItem(QName itemName) {
+		if (itemsToInclude != null) {
+			IncludedItems child = getCurrentIncludedItems().find(itemName);
+			includedItemsStack.add(child != null ? child : IncludedItems.ALL);
+		}
+	}
+
+	public void leaveItem() {
+		if (itemsToInclude != null) {
+			includedItemsStack.remove(includedItemsStack.size() - 1);
+		}
+	}
+
+	private IncludedItems getCurrentIncludedItems() {
+		return includedItemsStack.isEmpty() ? itemsToInclude : includedItemsStack.get(includedItemsStack.size() - 1);
+	}
+
+	/**
+	 * Node of the tree of items to include. Null children mean that everything below is included.
+	 */
+	private static class IncludedItems {
+
+		private static final IncludedItems ALL = new IncludedItems(null);
+
+		private Map<QName, IncludedItems> children;
+
+		private IncludedItems(Map<QName, IncludedItems> children) {
+			this.children = children;
+		}
+
+		private IncludedItems find(QName itemName) {
+			if (children == null) {
+				return this;
+			}
+			IncludedItems child = children.get(itemName);
+			if (child != null) {
+				return child;
+			}
+			for (Map.Entry<QName, IncludedItems> entry : children.entrySet()) {
+				if (QNameUtil.match(entry.getKey(), itemName)) {
+					return entry.getValue();
+				}
+			}
+			return null;
+		}
+	}
 }
@@ -145,32 +145,32 @@ public class PrismContainer<C extends Containerable> extends Item<PrismContainer
     	// We are not sure about multiplicity if there is no definition or the definition is dynamic
     	if (getDefinition() != null && !getDefinition().isDynamic()) {
 			if (getDefinition().isSingleValue()) {
-				// Insert first empty value. This simulates empty single-valued container. It the container exists
-		        // it is clear that it has at least one value (and that value is empty).
-				PrismContainerValue<C> pValue = new PrismContainerValue<C>(null, null, this, null, null, prismContext);
-		        try {
-					add(pValue);
-				} catch (SchemaException e) {
-					// This should not happen
-					throw new SystemException("Internal Error: "+e.getMessage(),e);
-				}
-		        return pValue;
+				return addEmptyValue();
 			} else {
 				throw new IllegalStateException("Attempt to get single value from a multivalued container "+ getElementName());
 			}
 		} else {
-			// Insert first empty value. This simulates empty single-valued container. It the container exists
-	        // it is clear that it has at least one value (and that value is empty).
-			PrismContainerValue<C> pValue = new PrismContainerValue<C>(null, null, this, null, null, prismContext);
-	        try {
-				add(pValue);
-			} catch (SchemaException e) {
-				// This should not happen
-				throw new SystemException("Internal Error: "+e.getMessage(),e);
-			}
-	        return pValue;
+			return addEmptyValue();
 		}
     }
+
+    // Insert first empty value. This simulates empty single-valued container. It the container exists
+    // it is clear that it has at least one value (and that value is empty).
+    private PrismContainerValue<C> addEmptyValue() {
+    	PrismContainerValue<C> pValue = new PrismContainerValue<C>(null, null, this, null, null, prismContext);
+    	if (isImmutable()) {
+    		// the value cannot be inserted; a detached (and also immutable) empty value is returned instead
+    		pValue.setImmutable(true);
+    		return pValue;
+    	}
+    	try {
+    		add(pValue);
+    	} catch (SchemaException e) {
+    		// This should not happen
+    		throw new SystemException("Internal Error: "+e.getMessage(),e);
+    	}
+    	return pValue;
+    }
     
     public void setValue(PrismContainerValue<C> value) throws SchemaException {
     	if (getDefinition() != null) {
@@ -193,7 +193,8 @@ public class PrismContainer<C extends Containerable> extends Item<PrismContainer
             prismContext.adopt(newValue);
         }
         if (newValue.getId() != null) {
-            for (PrismContainerValue existingValue : getValues()) {
+            Collection<PrismContainerValue<C>> candidates = getCandidateValues(newValue.getId());
+            for (PrismContainerValue existingValue : candidates != null ? candidates : getValues()) {
                 if (existingValue.getId() != null && existingValue.getId().equals(newValue.getId())) {
                     throw new IllegalStateException("Attempt to add a container value with an id that already exists: " + newValue.getId());
                 }
@@ -225,7 +226,8 @@ public class PrismContainer<C extends Containerable> extends Item<PrismContainer
 	}
     
     public PrismContainerValue<C> getValue(Long id) {
-    	for (PrismContainerValue<C> pval: getValues()) {
+    	Collection<PrismContainerValue<C>> candidates = getCandidateValues(id);
+    	for (PrismContainerValue<C> pval: candidates != null ? candidates : getValues()) {
     		if ((id == null && pval.getId() == null) ||
     				id.equals(pval.getId())) {
     			return pval;
@@ -467,7 +469,8 @@ public class PrismContainer<C extends Containerable> extends Item<PrismContainer
     }
     
     public PrismContainerValue<C> findValue(long id) {
-        for (PrismContainerValue<C> pval : getValues()) {
+        Collection<PrismContainerValue<C>> candidates = getCandidateValues(id);
+        for (PrismContainerValue<C> pval : candidates != null ? candidates : getValues()) {
         	if (id == pval.getId()) {
         		return pval;
         	}
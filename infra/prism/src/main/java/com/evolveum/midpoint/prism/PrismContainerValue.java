@@ -55,9 +55,19 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 
     private static final Trace LOGGER = TraceManager.getTrace(PrismContainerValue.class);
 
+    /**
+     * Minimal number of items for which the item name index is built. For smaller container values
+     * (e.g. typical assignments), sequential scan of the items is fast enough to not be worth the memory
+     * (see TestItemNameIndex).
+     */
+    static final int DEFAULT_ITEM_NAME_INDEX_THRESHOLD = 8;
+
+    private static int itemNameIndexThreshold = DEFAULT_ITEM_NAME_INDEX_THRESHOLD;
+
 	// This is list. We need to maintain the order internally to provide consistent
     // output in DOM and other ordering-sensitive representations
     private List<Item<?,?>> items = null;
+    private transient volatile ItemNameIndex itemNameIndex;        // built lazily for values with many items
     private Long id;
     
     // XNode map of all sub-elements in this container value.
@@ -205,7 +215,14 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 	}
 
 	public void setId(Long id) {
+		checkMutability();
 		this.id = id;
+		indexKeyChanged();
+	}
+
+	@Override
+	Object getIndexKey() {
+		return id;
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -347,6 +364,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
      * @throws IllegalArgumentException an attempt to add value that already exists
      */
     public <IV extends PrismValue,ID extends ItemDefinition> boolean add(Item<IV,ID> item, boolean checkUniquness) throws SchemaException {
+    	checkMutability();
     	if (item.getElementName() == null) {
     		throw new IllegalArgumentException("Cannot add item without a name to value of container "+getParent());
     	}
@@ -362,9 +380,14 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
         	item.applyDefinition((ID)determineItemDefinition(item.getElementName(), getActualDefinition()), false);
         }
         if (items == null) {
-        	items = new ArrayList<Item<?,?>>();
+        	items = new TrackingArrayList<Item<?,?>>();
+        }
+        ItemNameIndex index = getCurrentItemNameIndex();
+        boolean added = items.add(item);
+        if (index != null) {
+        	index.add(item, getItemsModCount());
         }
-        return items.add(item);
+        return added;
     }
 
     /**
@@ -415,6 +438,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
     	if (item == null){
     		return;
     	}
+    	checkMutability();
         Item<IV,ID> existingItem = findItem(item.getElementName(), Item.class);
         if (existingItem != null && items != null) {
             items.remove(existingItem);
@@ -425,6 +449,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
     
     public <IV extends PrismValue,ID extends ItemDefinition> void remove(Item<IV,ID> item) {
         Validate.notNull(item, "Item must not be null.");
+        checkMutability();
 
         Item<IV,ID> existingItem = findItem(item.getElementName(),  Item.class);
         if (existingItem != null && items != null) {
@@ -434,6 +459,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
     }
     
     public void removeAll() {
+    	checkMutability();
     	if (items == null){
     		return;
     	}
@@ -463,6 +489,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
      * @param itemsToAdd items to add
      */
     public void addAllReplaceExisting(Collection<? extends Item<?,?>> itemsToAdd) throws SchemaException {
+        checkMutability();
         // Check for conflicts, remove conflicting values
         for (Item<?,?> item : itemsToAdd) {
             Item<?,?> existingItem = findItem(item.getElementName(), Item.class);
@@ -494,6 +521,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 //    }
     
     public void clear() {
+    	checkMutability();
     	if (items != null) {
     		items.clear();
     	}
@@ -715,8 +743,9 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
         if (items == null) {
             return null;
         }
+        ItemNameIndex index = subName != null ? getItemNameIndex() : null;
         Item<IV,ID> matching = null;
-        for (Item<?,?> item : items) {
+        for (Item<?,?> item : index != null ? index.getCandidates(subName) : items) {
             if (QNameUtil.match(subName, item.getElementName())) {
                 if (matching != null) {
                     String containerName = getParent() != null ? DebugUtil.formatElementName(getParent().getElementName()) : "";
@@ -729,6 +758,48 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
         return matching;
     }
 
+    private ItemNameIndex getItemNameIndex() {
+    	if (items.size() < itemNameIndexThreshold || !(items instanceof TrackingArrayList)) {
+    		return null;
+    	}
+    	ItemNameIndex index = getCurrentItemNameIndex();
+    	if (index == null) {
+    		index = new ItemNameIndex(items, getItemsModCount());
+    		itemNameIndex = index;
+    	}
+    	return index;
+    }
+
+    /**
+     * Returns the item name index, if it exists and the items were not changed since it was last updated.
+     */
+    private ItemNameIndex getCurrentItemNameIndex() {
+    	ItemNameIndex index = itemNameIndex;
+    	if (index == null || index.getModCount() != getItemsModCount()) {
+    		return null;
+    	}
+    	return index;
+    }
+
+    private int getItemsModCount() {
+    	return ((TrackingArrayList<Item<?,?>>) items).getModCount();
+    }
+
+    void invalidateItemNameIndex() {
+    	itemNameIndex = null;
+    }
+
+    static int getItemNameIndexThreshold() {
+    	return itemNameIndexThreshold;
+    }
+
+    /**
+     * For tests and benchmarks only.
+     */
+    static void setItemNameIndexThreshold(int threshold) {
+    	itemNameIndexThreshold = threshold;
+    }
+
 	private <IV extends PrismValue,ID extends ItemDefinition,I extends Item<IV,ID>> I createSubItem(QName name, Class<I> type, ID itemDefinition) throws SchemaException {
     	// the item with specified name does not exist, create it now
 		I newItem = null;
@@ -758,7 +829,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 		}
 		
 		if (type.isAssignableFrom(newItem.getClass())) {
-			add(newItem);
+			addOrDetach(newItem, true);
 			return newItem;
     	} else {
 			throw new IllegalStateException("The " + type.getSimpleName() + " cannot be created because the item should be of type "
@@ -849,9 +920,21 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
         } else {
         	property = propertyDefinition.instantiate();
         }
-        add(property, false);
+        addOrDetach(property, false);
         return property;
     }
+
+    /**
+     * Adds a newly created (empty) item. If this value is immutable, the item is not added but made immutable instead;
+     * so read-only access via "find or create" methods (used e.g. by JAXB getters) works on immutable values as well.
+     */
+    private void addOrDetach(Item<?,?> newItem, boolean checkUniqueness) throws SchemaException {
+    	if (isImmutable()) {
+    		newItem.setImmutable(true);
+    	} else {
+    		add(newItem, checkUniqueness);
+    	}
+    }
     
     public <X> PrismProperty<X> createProperty(PrismPropertyDefinition propertyDefinition) throws SchemaException {
     	PrismProperty<X> property = propertyDefinition.instantiate();
@@ -885,6 +968,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 
     // Expects that "self" path is NOT present in propPath
 	<IV extends PrismValue,ID extends ItemDefinition,I extends Item<IV,ID>> void removeItem(ItemPath propPath, Class<I> itemType) {
+		checkMutability();
 		if (items == null){
     		return;
     	}
@@ -1059,6 +1143,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 	}
 		
 	public boolean addRawElement(Object element) throws SchemaException {
+		checkMutability();
 		PrismContainerDefinition<C> definition = getDefinition();
 		if (definition == null) {
 			// We cannot do much better. We do not even have prism context here.
@@ -1077,6 +1162,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 	}
 	
 	public boolean deleteRawElement(Object element) throws SchemaException {
+		checkMutability();
 		PrismContainerDefinition<C> definition = getDefinition();
 		if (definition == null) {
 			// We cannot do much better. We do not even have prism context here.
@@ -1093,6 +1179,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 
 	
 	public boolean removeRawElement(Object element) {
+		checkMutability();
 		return rawElements.remove(element);
 	}
 
@@ -1254,8 +1341,20 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
         return items.isEmpty();
     }
     
+	@Override
+	public void setImmutable(boolean immutable) {
+		super.setImmutable(immutable);
+		if (items != null) {
+			((TrackingArrayList<Item<?,?>>) items).setImmutable(immutable);
+			for (Item<?,?> item : items) {
+				item.setImmutable(immutable);
+			}
+		}
+	}
+    
     @Override
 	public void normalize() {
+    	checkMutability();
     	if (items != null) {
 	    	Iterator<Item<?,?>> iterator = items.iterator();
 	    	while (iterator.hasNext()) {
@@ -1329,7 +1428,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
 				Item<?,?> clonedItem = item.clone();
 				clonedItem.setParent(clone);
 				if (clone.items == null) {
-					clone.items = new ArrayList<>(this.items.size());
+					clone.items = new TrackingArrayList<>(this.items.size());
 				}
 				clone.items.add(clonedItem);
 			}
@@ -1531,6 +1630,7 @@ public class PrismContainerValue<C extends Containerable> extends PrismValue imp
     }
 
     public void setConcreteType(QName concreteType) {
+        checkMutability();
         this.concreteType = concreteType;
         this.concreteTypeDefinition = null;
     }
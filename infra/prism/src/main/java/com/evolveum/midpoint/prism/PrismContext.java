@@ -26,6 +26,7 @@ import com.evolveum.midpoint.prism.schema.SchemaRegistry;
 import com.evolveum.midpoint.prism.xnode.RootXNode;
 import com.evolveum.midpoint.prism.xnode.XNode;
 import com.evolveum.midpoint.util.DebugUtil;
+import com.evolveum.midpoint.util.Handler;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.Trace;
@@ -53,6 +54,7 @@ public class PrismContext {
 	public static final String LANG_XML = "xml";
 	public static final String LANG_JSON = "json";
 	public static final String LANG_YAML = "yaml";
+	public static final String LANG_BINARY = "binary";
 
     private static final Trace LOGGER = TraceManager.getTrace(PrismContext.class);
     
@@ -87,11 +89,12 @@ public class PrismContext {
 
 		prismContext.parserMap = new HashMap<String, Parser>();
 		DomParser parserDom = new DomParser(schemaRegistry);
-		prismContext.parserMap.put(LANG_XML, parserDom);
+		prismContext.parserMap.put(LANG_XML, new StaxParser(parserDom));
 		JsonParser parserJson = new JsonParser();
 		prismContext.parserMap.put(LANG_JSON, parserJson);
 		YamlParser parserYaml = new YamlParser();
 		prismContext.parserMap.put(LANG_YAML, parserYaml);
+		prismContext.parserMap.put(LANG_BINARY, new BinaryParser());
 		prismContext.parserDom = parserDom;
 		
 		prismContext.jaxbDomHack = new JaxbDomHack(parserDom, prismContext);
@@ -294,6 +297,49 @@ public class PrismContext {
 //        }
 //        return objects;
     }
+
+    /**
+     * Parses objects from a collection (e.g. &lt;objects&gt;...&lt;/objects&gt;) and passes them to the handler one by one,
+     * until the handler returns false. For XML and binary data the objects are read from the stream as they are needed,
+     * so the whole collection is never kept in memory.
+     */
+    public void parseObjects(InputStream stream, String language, Handler<PrismObject<? extends Objectable>> handler) throws SchemaException, IOException {
+        Parser parser = getParserNotNull(language);
+        if (parser instanceof StaxParser) {
+            StaxParser.CollectionReader reader = ((StaxParser) parser).openCollection(stream);
+            try {
+                RootXNode xroot;
+                while ((xroot = reader.next()) != null) {
+                    PrismObject<? extends Objectable> object = xnodeProcessor.parseObject(xroot, newParsingContext());
+                    if (!handler.handle(object)) {
+                        break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } else if (parser instanceof BinaryParser) {
+            BinaryParser.CollectionReader reader = ((BinaryParser) parser).openCollection(stream);
+            try {
+                RootXNode xroot;
+                while ((xroot = reader.next()) != null) {
+                    PrismObject<? extends Objectable> object = xnodeProcessor.parseObject(xroot, newParsingContext());
+                    if (!handler.handle(object)) {
+                        break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } else {
+            for (XNode xnode : parser.parseCollection(stream)) {
+                PrismObject<? extends Objectable> object = xnodeProcessor.parseObject(xnode, newParsingContext());
+                if (!handler.handle(object)) {
+                    break;
+                }
+            }
+        }
+    }
     //endregion
 
     //region Parsing prism containers
@@ -531,6 +577,28 @@ public class PrismContext {
 		RootXNode xroot = xnodeProcessor.serializeObject(object);
 		return parser.serializeToString(xroot);
 	}
+
+	/**
+	 * Serializes the object to the binary language (LANG_BINARY) without Base64 encoding that serializeObjectToString uses.
+	 * The result can be parsed e.g. by parseObject(InputStream, LANG_BINARY).
+	 */
+	public <O extends Objectable> byte[] serializeObjectToBinary(PrismObject<O> object) throws SchemaException {
+		BinaryParser parser = (BinaryParser) getParserNotNull(LANG_BINARY);
+		RootXNode xroot = xnodeProcessor.serializeObject(object);
+		return parser.serializeToBytes(xroot);
+	}
+
+	/**
+	 * Serializes the object in a single pass, obeying serialization options. E.g. items listed in
+	 * {@link SerializationOptions#getItemsToSkip()} are left out without the need to clone the object
+	 * and remove them first.
+	 */
+	public <O extends Objectable> String serializeObjectToString(PrismObject<O> object, String language,
+			SerializationOptions options) throws SchemaException {
+		Parser parser = getParserNotNull(language);
+		RootXNode xroot = xnodeProcessor.serializeObject(object, false, new SerializationContext(options));
+		return parser.serializeToString(xroot);
+	}
 	
 	public <C extends Containerable> String serializeContainerValueToString(PrismContainerValue<C> cval, QName elementName, String language) throws SchemaException {
 		Parser parser = getParserNotNull(language);
@@ -84,6 +84,7 @@ public class PrismObject<O extends Objectable> extends PrismContainer<O> {
 	}
 
 	public void setOid(String oid) {
+		checkMutability();
 		this.oid = oid;
 	}
 
@@ -92,6 +93,7 @@ public class PrismObject<O extends Objectable> extends PrismContainer<O> {
 	}
 
 	public void setVersion(String version) {
+		checkMutability();
 		this.version = version;
 	}
 
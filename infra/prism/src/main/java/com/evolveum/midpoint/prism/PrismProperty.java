@@ -254,17 +254,14 @@ public class PrismProperty<T> extends Item<PrismPropertyValue<T>,PrismPropertyDe
 
     public void addValue(PrismPropertyValue<T> pValueToAdd) {
     	pValueToAdd.checkValue();
-    	Iterator<PrismPropertyValue<T>> iterator = getValues().iterator();
-    	while (iterator.hasNext()) {
-    		PrismPropertyValue<T> pValue = iterator.next();
-    		if (pValue.equalsRealValue(pValueToAdd)) {
-    			LOGGER.warn("Adding value to property "+ getElementName()+" that already exists (overwriting), value: "+pValueToAdd);
-    			iterator.remove();
-    		}
+    	List<PrismPropertyValue<T>> existingValues = findRealValues(pValueToAdd);
+    	if (!existingValues.isEmpty()) {
+    		LOGGER.warn("Adding value to property "+ getElementName()+" that already exists (overwriting), value: "+pValueToAdd);
+    		removeFromValues(existingValues);
     	}
     	pValueToAdd.setParent(this);
     	pValueToAdd.recompute();
-    	getValues().add(pValueToAdd);
+    	addToValues(pValueToAdd);
     }
     
     public void addRealValue(T valueToAdd) {
@@ -285,15 +282,10 @@ public class PrismProperty<T> extends Item<PrismPropertyValue<T>,PrismPropertyDe
     }
 
     public boolean deleteValue(PrismPropertyValue<T> pValueToDelete) {
-    	Iterator<PrismPropertyValue<T>> iterator = getValues().iterator();
-    	boolean found = false;
-    	while (iterator.hasNext()) {
-    		PrismPropertyValue<T> pValue = iterator.next();
-    		if (pValue.equalsRealValue(pValueToDelete)) {
-    			iterator.remove();
-    			pValue.setParent(null);
-    			found = true;
-    		}
+    	List<PrismPropertyValue<T>> valuesToDelete = findRealValues(pValueToDelete);
+    	boolean found = removeFromValues(valuesToDelete);
+    	for (PrismPropertyValue<T> pValue : valuesToDelete) {
+    		pValue.setParent(null);
     	}
     	if (!found) {
     		LOGGER.warn("Deleting value of property "+ getElementName()+" that does not exist (skipping), value: "+pValueToDelete);
@@ -302,6 +294,17 @@ public class PrismProperty<T> extends Item<PrismPropertyValue<T>,PrismPropertyDe
         return found;
     }
 
+    private List<PrismPropertyValue<T>> findRealValues(PrismPropertyValue<T> value) {
+    	List<PrismPropertyValue<T>> found = new ArrayList<>();
+    	Collection<PrismPropertyValue<T>> candidates = getCandidateValues(value, true);
+    	for (PrismPropertyValue<T> pValue : candidates != null ? candidates : getValues()) {
+    		if (pValue.equalsRealValue(value)) {
+    			found.add(pValue);
+    		}
+    	}
+    	return found;
+    }
+
     public void replaceValues(Collection<PrismPropertyValue<T>> valuesToReplace) {
     	getValues().clear();
         addValues(valuesToReplace);
@@ -312,7 +315,8 @@ public class PrismProperty<T> extends Item<PrismPropertyValue<T>,PrismPropertyDe
     }
 
     public boolean hasRealValue(PrismPropertyValue<T> value) {
-        for (PrismPropertyValue<T> propVal : getValues()) {
+        Collection<PrismPropertyValue<T>> candidates = getCandidateValues(value, true);
+        for (PrismPropertyValue<T> propVal : candidates != null ? candidates : getValues()) {
             if (propVal.equalsRealValue(value)) {
                 return true;
             }
@@ -38,6 +38,8 @@ import com.evolveum.prism.xml.ns._public.types_3.RawType;
 import com.evolveum.prism.xml.ns._public.types_3.SchemaDefinitionType;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -94,8 +96,10 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
 
 
     public void setValue(T value) {
+        checkMutability();
         this.value = value;
         checkValue();
+        indexKeyChanged();
     }
 
     public T getValue() {
@@ -112,13 +116,14 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
     			if (parent != null && parent.getPrismContext() != null) {
     				def = SchemaRegistry.createDefaultItemDefinition(parent.getElementName(), parent.getPrismContext());
     			} else if (PrismContext.isAllowSchemalessSerialization()) {
+    				T parsedValue;
     				if (rawElement instanceof Element) {
         				// Do the most stupid thing possible. Assume string value. And there will be no definition.
-    					value = (T) ((Element)rawElement).getTextContent();
+    					parsedValue = (T) ((Element)rawElement).getTextContent();
     				} else if (rawElement instanceof PrimitiveXNode){
     					try {
                             QName type = rawElement.getTypeQName() != null ? rawElement.getTypeQName() : DOMUtil.XSD_STRING;
-    					    value = (T) ((PrimitiveXNode) rawElement).getParsedValueWithoutRecording(type);
+    					    parsedValue = (T) ((PrimitiveXNode) rawElement).getParsedValueWithoutRecording(type);
     					} catch (SchemaException ex){
     						throw new IllegalStateException("Cannot fetch value from raw element. " + ex.getMessage(), ex);
     					}
@@ -126,12 +131,20 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
 						throw new IllegalStateException("No parent or prism context in property value "+this+", cannot create default definition." +
 							"The element is also not a DOM element but it is "+rawElement.getClass()+". Epic fail.");
     				}
+    				if (isImmutable()) {
+    					return parsedValue;
+    				}
+    				value = parsedValue;
     			} else {
     				throw new IllegalStateException("No parent or prism context in property value "+this+" (schemaless serialization is disabled)");
     			}
     		}
     		if (def != null) {
 				try {
+					if (isImmutable()) {
+						// an immutable value can be shared by more threads, so it is not changed here; see setImmutable
+						return parseRawElementToNewRealValue(this, (PrismPropertyDefinition<T>) def);
+					}
 					applyDefinition(def);
 				} catch (SchemaException e) {
 					throw new IllegalStateException(e.getMessage(),e);
@@ -154,7 +167,30 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
 	}
 
 	public void setRawElement(XNode rawElement) {
+		checkMutability();
 		this.rawElement = rawElement;
+		indexKeyChanged();
+	}
+
+	/**
+	 * Only values of simple immutable types are indexed. Polystrings are indexed by their original value,
+	 * as the normalized one can be recomputed.
+	 */
+	@Override
+	Object getIndexKey() {
+		if (rawElement != null || value == null) {
+			return null;
+		}
+		if (value instanceof PolyString) {
+			return ((PolyString) value).getOrig();
+		}
+		if (value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Long
+				|| value instanceof Short || value instanceof Byte || value instanceof Character
+				|| value instanceof Double || value instanceof Float || value instanceof BigInteger
+				|| value instanceof BigDecimal || value instanceof QName || value instanceof Enum) {
+			return value;
+		}
+		return null;
 	}
 
 	@Override
@@ -165,11 +201,29 @@ public class PrismPropertyValue<T> extends PrismValue implements DebugDumpable,
 	@Override
 	public void applyDefinition(ItemDefinition definition) throws SchemaException {
 		if (definition != null && rawElement !=null) {
+			checkMutability();
 			value = (T) parseRawElementToNewRealValue(this, (PrismPropertyDefinition) definition);
 			rawElement = null;
 		}
 	}
 
+	/**
+	 * Raw value is parsed before the value is made immutable: immutable values are shared among threads,
+	 * so they must not be parsed lazily (i.e. modified) when read. If the value cannot be parsed now
+	 * (no definition is known), it stays raw, and getValue() parses it on each call without storing the result.
+	 */
+	@Override
+	public void setImmutable(boolean immutable) {
+		if (immutable && rawElement != null && !isImmutable()) {
+			try {
+				getValue();
+			} catch (IllegalStateException e) {
+				// cannot be parsed without a definition; the same exception will be thrown by getValue() later
+			}
+		}
+		super.setImmutable(immutable);
+	}
+
 	@Override
 	public void applyDefinition(ItemDefinition definition, boolean force) throws SchemaException {
 		applyDefinition(definition);
@@ -95,7 +95,8 @@ public class PrismReference extends Item<PrismReferenceValue,PrismReferenceDefin
     
 	private PrismReferenceValue getValue(String oid) {
 		// We need to tolerate null OIDs here. Because of JAXB.
-		for (PrismReferenceValue val: getValues()) {
+		Collection<PrismReferenceValue> candidates = getCandidateValues(oid);
+		for (PrismReferenceValue val: candidates != null ? candidates : getValues()) {
 			if (MiscUtil.equals(oid, val.getOid())) {
 				return val;
 			}
@@ -126,7 +127,7 @@ public class PrismReference extends Item<PrismReferenceValue,PrismReferenceDefin
     
     public boolean add(PrismReferenceValue value) {
     	value.setParent(this);
-    	return getValues().add(value);
+    	return addToValues(value);
     }
     
     public boolean merge(PrismReferenceValue value) {
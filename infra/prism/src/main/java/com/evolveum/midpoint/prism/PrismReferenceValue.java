@@ -95,7 +95,17 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	}
 
 	public void setOid(String oid) {
+		checkMutability();
 		this.oid = oid;
+		indexKeyChanged();
+	}
+
+	/**
+	 * References are indexed by explicitly set OID only, as the OID of the embedded object can change.
+	 */
+	@Override
+	Object getIndexKey() {
+		return oid;
 	}
 	
 	public PrismObject getObject() {
@@ -103,6 +113,7 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	}
 
 	public void setObject(PrismObject object) {
+		checkMutability();
 		this.object = object;
 	}
 
@@ -133,6 +144,7 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
      * @param allowEmptyNamespace This is an ugly hack. See comment in DOMUtil.validateNonEmptyQName.
      */
 	public void setTargetType(QName targetType, boolean allowEmptyNamespace) {
+		checkMutability();
 		// Null value is OK
 		if (targetType != null) {
 			// But non-empty is not ..
@@ -162,10 +174,12 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	}
 	
 	public void setTargetName(PolyString name) {
+		checkMutability();
 		this.targetName = name;
 	}
 
 	public void setTargetName(PolyStringType name) {
+		checkMutability();
 		if (name == null) {
 			this.targetName = null;
 		} else {
@@ -187,6 +201,7 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	}
 
 	public void setRelation(QName relation) {
+		checkMutability();
 		this.relation = relation;
 	}
 
@@ -195,6 +210,7 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	}
 
 	public void setDescription(String description) {
+		checkMutability();
 		this.description = description;
 	}
 
@@ -203,6 +219,7 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	}
 
 	public void setFilter(SearchFilterType filter) {
+		checkMutability();
 		this.filter = filter;
 	}
 
@@ -211,9 +228,18 @@ public class PrismReferenceValue extends PrismValue implements DebugDumpable, Se
 	}
 
 	public void setResolutionTime(EvaluationTimeType resolutionTime) {
+		checkMutability();
 		this.resolutionTime = resolutionTime;
 	}
 
+	@Override
+	public void setImmutable(boolean immutable) {
+		super.setImmutable(immutable);
+		if (object != null) {
+			object.setImmutable(immutable);
+		}
+	}
+
 	@Override
 	public PrismReferenceDefinition getDefinition() {
 		return (PrismReferenceDefinition) super.getDefinition();
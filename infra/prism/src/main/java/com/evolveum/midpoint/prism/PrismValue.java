@@ -46,6 +46,7 @@ public abstract class PrismValue implements Visitable, PathVisitable, Serializab
     private Itemable parent;
     protected Element domElement = null;
     private transient Map<String,Object> userData = new HashMap<>();;
+    private boolean immutable;
 
     PrismValue() {
 		super();
@@ -65,10 +66,12 @@ public abstract class PrismValue implements Visitable, PathVisitable, Serializab
 	}
 
 	public void setOriginObject(Objectable source) {
+		checkMutability();
         this.originObject = source;
     }
 
     public void setOriginType(OriginType type) {
+        checkMutability();
         this.originType = type;
     }
     
@@ -100,9 +103,31 @@ public abstract class PrismValue implements Visitable, PathVisitable, Serializab
 		if (this.parent != null && parent != null && this.parent != parent) {
 			throw new IllegalStateException("Attempt to reset value parent from "+this.parent+" to "+parent);
 		}
+		if (this.parent != parent) {
+			checkMutability();
+		}
 		this.parent = parent;
 	}
 	
+	/**
+	 * Returns the key under which this value is stored in the value index of its item (see {@link ItemValueIndex}),
+	 * or null if the value cannot be indexed. Values that are equal in the sense of equalsComplex
+	 * must have equal keys.
+	 */
+	Object getIndexKey() {
+		return null;
+	}
+
+	/**
+	 * Has to be called when the index key of this value changes, as the value index of the parent item
+	 * would be out of date otherwise.
+	 */
+	protected void indexKeyChanged() {
+		if (parent instanceof Item) {
+			((Item<?,?>) parent).invalidateValueIndex();
+		}
+	}
+
 	public ItemPath getPath() {
 		Itemable parent = getParent();
 		if (parent == null) {
@@ -117,6 +142,7 @@ public abstract class PrismValue implements Visitable, PathVisitable, Serializab
 	 * want to avoid unnecessary cloning.
 	 */
 	public void clearParent() {
+		checkMutability();
 		parent = null;
 	}
 	
@@ -220,6 +246,24 @@ public abstract class PrismValue implements Visitable, PathVisitable, Serializab
 	}
 	
 	public abstract boolean isEmpty();
+
+	public boolean isImmutable() {
+		return immutable;
+	}
+
+	/**
+	 * Makes this value (including its content, e.g. items of a container value) immutable, or mutable again.
+	 * See {@link Item#setImmutable(boolean)}.
+	 */
+	public void setImmutable(boolean immutable) {
+		this.immutable = immutable;
+	}
+
+	protected void checkMutability() {
+		if (immutable) {
+			throw new IllegalStateException("An attempt to modify an immutable value of " + getParent());
+		}
+	}
 	
 	public void normalize() {
 		// do nothing by default
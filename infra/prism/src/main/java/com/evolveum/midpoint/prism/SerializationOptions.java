@@ -16,6 +16,12 @@
 
 package com.evolveum.midpoint.prism;
 
+import com.evolveum.midpoint.prism.path.ItemPath;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
 /**
  * @author Pavol Mederly
  */
@@ -23,6 +29,12 @@ public class SerializationOptions {
 
     private boolean serializeReferenceNames;
 
+    /**
+     * Items that are not to be serialized at all. Paths are relative to the serialized object;
+     * container IDs in the paths are ignored, i.e. an item is skipped in all values of the respective container.
+     */
+    private Collection<ItemPath> itemsToSkip = new ArrayList<>();
+
     public boolean isSerializeReferenceNames() {
         return serializeReferenceNames;
     }
@@ -40,4 +52,22 @@ public class SerializationOptions {
     public static boolean isSerializeReferenceNames(SerializationOptions options) {
         return options != null && options.isSerializeReferenceNames();
     }
+
+    public Collection<ItemPath> getItemsToSkip() {
+        return itemsToSkip;
+    }
+
+    public void setItemsToSkip(Collection<ItemPath> itemsToSkip) {
+        this.itemsToSkip = itemsToSkip != null ? itemsToSkip : new ArrayList<ItemPath>();
+    }
+
+    public static SerializationOptions createItemsToSkip(ItemPath... itemsToSkip) {
+        SerializationOptions serializationOptions = new SerializationOptions();
+        serializationOptions.setItemsToSkip(new ArrayList<>(Arrays.asList(itemsToSkip)));
+        return serializationOptions;
+    }
+
+    public static boolean hasItemsToSkip(SerializationOptions options) {
+        return options != null && !options.getItemsToSkip().isEmpty();
+    }
 }
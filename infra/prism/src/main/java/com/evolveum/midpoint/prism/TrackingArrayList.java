@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.prism;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * List that exposes its modification count. Lists of values of items and lists of items of container values
+ * are returned to clients as live objects; indexes built over them use the modification count to detect
+ * changes made directly to the lists.
+ *
+ * Note that replacing an element (set) is not counted as a modification.
+ *
+ * The list can be made immutable, so that the values of immutable items and the items of immutable
+ * container values cannot be changed via the live list either. All the modifications (including the ones
+ * done via iterators and sublists provided by AbstractList) go through set, add and remove, which check that.
+ */
+class TrackingArrayList<E> extends AbstractList<E> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<E> list;
+    private boolean immutable;
+
+    TrackingArrayList() {
+        list = new ArrayList<>();
+    }
+
+    TrackingArrayList(int initialCapacity) {
+        list = new ArrayList<>(initialCapacity);
+    }
+
+    TrackingArrayList(Collection<? extends E> c) {
+        list = new ArrayList<>(c);
+    }
+
+    int getModCount() {
+        return modCount;
+    }
+
+    boolean isImmutable() {
+        return immutable;
+    }
+
+    void setImmutable(boolean immutable) {
+        this.immutable = immutable;
+    }
+
+    private void checkMutability() {
+        if (immutable) {
+            throw new IllegalStateException("An attempt to modify an immutable list");
+        }
+    }
+
+    @Override
+    public E get(int index) {
+        return list.get(index);
+    }
+
+    @Override
+    public int size() {
+        return list.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkMutability();
+        return list.set(index, element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkMutability();
+        list.add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        checkMutability();
+        E removed = list.remove(index);
+        modCount++;
+        return removed;
+    }
+
+    // removing elements one by one (as AbstractList does) would be quadratic
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        checkMutability();
+        list.subList(fromIndex, toIndex).clear();
+        modCount++;
+    }
+}
@@ -0,0 +1,1019 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.lang.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import com.evolveum.midpoint.prism.path.IdItemPathSegment;
+import com.evolveum.midpoint.prism.path.IdentifierPathSegment;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.path.ItemPathSegment;
+import com.evolveum.midpoint.prism.path.NameItemPathSegment;
+import com.evolveum.midpoint.prism.path.ObjectReferencePathSegment;
+import com.evolveum.midpoint.prism.path.ParentPathSegment;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.prism.xnode.ListXNode;
+import com.evolveum.midpoint.prism.xnode.MapXNode;
+import com.evolveum.midpoint.prism.xnode.PrimitiveXNode;
+import com.evolveum.midpoint.prism.xnode.RootXNode;
+import com.evolveum.midpoint.prism.xnode.SchemaXNode;
+import com.evolveum.midpoint.prism.xnode.XNode;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+
+/**
+ * Compact binary encoding of XNodes, meant for data that is never read by humans.
+ *
+ * The data is a header followed by a sequence of root nodes, terminated by an end mark. Each node is a tag byte,
+ * a byte of flags telling which of the common XNode attributes (type, maxOccurs, ...) follow, and the content.
+ * QNames (element names, types, QName values) and short strings that repeat a lot (namespaces, prefixes) are written
+ * in full only when they are used for the first time in the stream; later they are referenced by their index
+ * in a dictionary that both the writer and the reader build on the fly. So the data can be written and read sequentially, object by object, without
+ * knowing the whole stream in advance.
+ *
+ * Parsed primitive values of common types (strings, numbers, booleans, QNames, dates, polystrings, item paths,
+ * binary data) are written in their native form and read back as parsed values of the same type. Unparsed values (e.g. coming
+ * from XML) and values of other types are written as text with relevant namespace declarations and read back
+ * as unparsed values that are interpreted just like the ones parsed from XML. Prefixes of element and type
+ * names are not kept, as they have no meaning in XNodes; prefixes of QName values are. Embedded schemas are written
+ * as DOM trees, node by node. Origin information (file, line number) is not kept.
+ *
+ * For the string-based methods of the Parser interface the data is Base64-encoded.
+ */
+public class BinaryParser implements Parser {
+
+	private static final byte[] HEADER = { 0, 'M', 'P', 'B' };
+	private static final int VERSION = 1;
+	private static final String BASE64_HEADER_PREFIX = "AE1Q";		// Base64 of the first three bytes of the header
+
+	private static final int TAG_END = 0;
+	private static final int TAG_ROOT = 1;
+	private static final int TAG_MAP = 2;
+	private static final int TAG_LIST = 3;
+	private static final int TAG_PRIMITIVE = 4;
+	private static final int TAG_SCHEMA = 5;
+	private static final int TAG_NULL = 6;
+
+	private static final int FLAG_TYPE = 0x01;
+	private static final int FLAG_EXPLICIT_TYPE = 0x02;
+	private static final int FLAG_MAX_OCCURS = 0x04;
+	private static final int FLAG_COMMENT = 0x08;
+	private static final int FLAG_ATTRIBUTE = 0x10;
+
+	private static final int VALUE_TEXT = 0;
+	private static final int VALUE_NULL = 1;
+	private static final int VALUE_STRING = 2;
+	private static final int VALUE_INT = 3;
+	private static final int VALUE_LONG = 4;
+	private static final int VALUE_FALSE = 5;
+	private static final int VALUE_TRUE = 6;
+	private static final int VALUE_QNAME = 7;
+	private static final int VALUE_DATE = 8;
+	private static final int VALUE_POLYSTRING = 9;
+	private static final int VALUE_BYTES = 10;
+	private static final int VALUE_ITEM_PATH = 11;
+
+	private static final int SEGMENT_NAME = 0;
+	private static final int SEGMENT_VARIABLE = 1;
+	private static final int SEGMENT_NAME_WILDCARD = 2;
+	private static final int SEGMENT_ID = 3;
+	private static final int SEGMENT_NO_ID = 4;
+	private static final int SEGMENT_ID_WILDCARD = 5;
+	private static final int SEGMENT_PARENT = 6;
+	private static final int SEGMENT_OBJECT_REFERENCE = 7;
+	private static final int SEGMENT_IDENTIFIER = 8;
+
+	private static final int DOM_ELEMENT = 0;
+	private static final int DOM_TEXT = 1;
+	private static final int DOM_WHITESPACE = 2;
+	private static final int DOM_CDATA = 3;
+	private static final int DOM_COMMENT = 4;
+
+	// lengths in the data are not trusted; larger byte arrays are read in chunks of this size, so that a corrupted
+	// length leads to EOFException instead of allocating a huge array up front
+	private static final int READ_CHUNK_SIZE = 65536;
+
+	//region Parsing
+	@Override
+	public XNode parse(File file) throws SchemaException, IOException {
+		try (InputStream stream = new FileInputStream(file)) {
+			return parse(stream);
+		}
+	}
+
+	@Override
+	public XNode parse(InputStream stream) throws SchemaException, IOException {
+		RootXNode xroot = openCollection(stream).next();
+		if (xroot == null) {
+			throw new SchemaException("No object in binary data");
+		}
+		return xroot;
+	}
+
+	@Override
+	public XNode parse(String dataString) throws SchemaException {
+		try {
+			return parse(new ByteArrayInputStream(Base64.decodeBase64(dataString)));
+		} catch (IOException e) {
+			throw new SchemaException("Couldn't parse binary data: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public Collection<XNode> parseCollection(File file) throws SchemaException, IOException {
+		try (InputStream stream = new FileInputStream(file)) {
+			return parseCollection(stream);
+		}
+	}
+
+	@Override
+	public Collection<XNode> parseCollection(InputStream stream) throws SchemaException, IOException {
+		CollectionReader reader = openCollection(stream);
+		try {
+			Collection<XNode> nodes = new ArrayList<>();
+			RootXNode xroot;
+			while ((xroot = reader.next()) != null) {
+				nodes.add(xroot);
+			}
+			return nodes;
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Override
+	public Collection<XNode> parseCollection(String dataString) throws SchemaException {
+		try {
+			return parseCollection(new ByteArrayInputStream(Base64.decodeBase64(dataString)));
+		} catch (IOException e) {
+			throw new SchemaException("Couldn't parse binary data: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Starts reading objects from the stream. The objects are then read one by one, as they are requested.
+	 * The stream is not closed by the reader.
+	 */
+	public CollectionReader openCollection(InputStream stream) throws SchemaException, IOException {
+		return new CollectionReader(stream);
+	}
+
+	public class CollectionReader {
+
+		private final Decoder decoder;
+		private boolean finished;
+
+		private CollectionReader(InputStream stream) throws SchemaException, IOException {
+			decoder = new Decoder(stream instanceof BufferedInputStream || stream instanceof ByteArrayInputStream ?
+					stream : new BufferedInputStream(stream));
+			decoder.readHeader();
+		}
+
+		/**
+		 * Returns the next object or null if there are no more objects.
+		 */
+		public RootXNode next() throws SchemaException, IOException {
+			if (finished) {
+				return null;
+			}
+			int tag = decoder.readByte();
+			if (tag == TAG_END) {
+				finished = true;
+				return null;
+			} else if (tag != TAG_ROOT) {
+				finished = true;
+				throw new SchemaException("Malformed binary data: expected root node, got tag " + tag);
+			}
+			return decoder.readRoot();
+		}
+
+		/**
+		 * Stops reading and releases the symbol tables collected so far. The stream itself is left open.
+		 */
+		public void close() {
+			finished = true;
+			decoder.releaseSymbols();
+		}
+	}
+	//endregion
+
+	//region Serialization
+	@Override
+	public String serializeToString(XNode xnode, QName rootElementName) throws SchemaException {
+		RootXNode xroot;
+		if (xnode instanceof RootXNode) {
+			xroot = (RootXNode) xnode;
+		} else {
+			xroot = new RootXNode(rootElementName, xnode);
+		}
+		return serializeToString(xroot);
+	}
+
+	@Override
+	public String serializeToString(RootXNode xnode) throws SchemaException {
+		return Base64.encodeBase64String(serializeToBytes(xnode));
+	}
+
+	public byte[] serializeToBytes(RootXNode xroot) throws SchemaException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			serialize(xroot, out);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unexpected I/O exception when writing to memory: " + e.getMessage(), e);
+		}
+		return out.toByteArray();
+	}
+
+	public void serialize(RootXNode xroot, OutputStream stream) throws SchemaException, IOException {
+		CollectionWriter writer = openCollectionWriter(stream);
+		writer.write(xroot);
+		writer.close();
+	}
+
+	/**
+	 * Starts writing objects to the stream. Objects written later can refer to names from the dictionary built
+	 * while writing the earlier ones, so a collection is more compact than the same objects written separately.
+	 * Closing the writer finishes the data (and flushes it), but it does not close the stream.
+	 */
+	public CollectionWriter openCollectionWriter(OutputStream stream) throws IOException {
+		return new CollectionWriter(stream);
+	}
+
+	public class CollectionWriter {
+
+		private final Encoder encoder;
+
+		private CollectionWriter(OutputStream stream) throws IOException {
+			encoder = new Encoder(stream instanceof ByteArrayOutputStream || stream instanceof BufferedOutputStream ?
+					stream : new BufferedOutputStream(stream));
+			encoder.writeHeader();
+		}
+
+		public void write(RootXNode xroot) throws SchemaException, IOException {
+			encoder.writeByte(TAG_ROOT);
+			encoder.writeRoot(xroot);
+		}
+
+		public void close() throws IOException {
+			encoder.writeByte(TAG_END);
+			encoder.flush();
+		}
+	}
+	//endregion
+
+	//region Encoder
+	private static class Encoder {
+
+		private final OutputStream out;
+		private final Map<String, Integer> symbols = new HashMap<>();
+		private final Map<QName, Integer> qnames = new HashMap<>();
+
+		private Encoder(OutputStream out) {
+			this.out = out;
+		}
+
+		private void writeHeader() throws IOException {
+			out.write(HEADER);
+			out.write(VERSION);
+		}
+
+		private void writeRoot(RootXNode xroot) throws SchemaException, IOException {
+			writeQName(xroot.getRootElementName());
+			writeCommonAttributes(xroot, false);
+			writeNode(xroot.getSubnode(), xroot.getRootElementName());
+		}
+
+		private void writeNode(XNode xnode, QName elementName) throws SchemaException, IOException {
+			if (xnode == null) {
+				writeByte(TAG_NULL);
+			} else if (xnode instanceof MapXNode) {
+				writeByte(TAG_MAP);
+				writeCommonAttributes(xnode, false);
+				MapXNode xmap = (MapXNode) xnode;
+				writeUnsigned(xmap.size());
+				for (Map.Entry<QName, XNode> entry : xmap.entrySet()) {
+					writeQName(entry.getKey());
+					writeNode(entry.getValue(), entry.getKey());
+				}
+			} else if (xnode instanceof ListXNode) {
+				writeByte(TAG_LIST);
+				writeCommonAttributes(xnode, false);
+				ListXNode xlist = (ListXNode) xnode;
+				writeUnsigned(xlist.size());
+				for (XNode xsubnode : xlist) {
+					writeNode(xsubnode, elementName);
+				}
+			} else if (xnode instanceof PrimitiveXNode) {
+				writeByte(TAG_PRIMITIVE);
+				PrimitiveXNode<?> xprim = (PrimitiveXNode<?>) xnode;
+				writeCommonAttributes(xprim, xprim.isAttribute());
+				writePrimitiveValue(xprim, elementName);
+			} else if (xnode instanceof SchemaXNode) {
+				writeByte(TAG_SCHEMA);
+				writeCommonAttributes(xnode, false);
+				Element schemaElement = ((SchemaXNode) xnode).getSchemaElement();
+				if (schemaElement != null) {
+					writeByte(DOM_ELEMENT);
+					writeElement(schemaElement);
+				} else {
+					writeByte(TAG_NULL);
+				}
+			} else if (xnode instanceof RootXNode) {
+				writeByte(TAG_ROOT);
+				writeRoot((RootXNode) xnode);
+			} else {
+				throw new IllegalArgumentException("Unsupported xnode " + xnode + " (element " + elementName + ")");
+			}
+		}
+
+		private void writeCommonAttributes(XNode xnode, boolean attribute) throws IOException {
+			int flags = 0;
+			if (xnode.getTypeQName() != null) {
+				flags |= FLAG_TYPE;
+			}
+			if (xnode.isExplicitTypeDeclaration()) {
+				flags |= FLAG_EXPLICIT_TYPE;
+			}
+			if (xnode.getMaxOccurs() != null) {
+				flags |= FLAG_MAX_OCCURS;
+			}
+			if (xnode.getComment() != null) {
+				flags |= FLAG_COMMENT;
+			}
+			if (attribute) {
+				flags |= FLAG_ATTRIBUTE;
+			}
+			writeByte(flags);
+			if (xnode.getTypeQName() != null) {
+				writeQName(xnode.getTypeQName());
+			}
+			if (xnode.getMaxOccurs() != null) {
+				writeSigned(xnode.getMaxOccurs());
+			}
+			if (xnode.getComment() != null) {
+				writeString(xnode.getComment());
+			}
+		}
+
+		private void writePrimitiveValue(PrimitiveXNode<?> xprim, QName elementName) throws SchemaException, IOException {
+			if (!xprim.isParsed()) {
+				writeText(xprim.getStringValue(), getNamespaceDeclarations(xprim));
+				return;
+			}
+			Object value = xprim.getValue();
+			if (value == null) {
+				writeByte(VALUE_NULL);
+			} else if (value instanceof String) {
+				writeByte(VALUE_STRING);
+				writeString((String) value);
+			} else if (value instanceof Integer) {
+				writeByte(VALUE_INT);
+				writeSigned((Integer) value);
+			} else if (value instanceof Long) {
+				writeByte(VALUE_LONG);
+				writeSigned((Long) value);
+			} else if (value instanceof Boolean) {
+				writeByte((Boolean) value ? VALUE_TRUE : VALUE_FALSE);
+			} else if (value instanceof QName) {
+				writeByte(VALUE_QNAME);
+				writePrefixedQName((QName) value);
+			} else if (value instanceof XMLGregorianCalendar) {
+				writeByte(VALUE_DATE);
+				writeString(((XMLGregorianCalendar) value).toXMLFormat());
+			} else if (value instanceof PolyString) {
+				writeByte(VALUE_POLYSTRING);
+				writeString(((PolyString) value).getOrig());
+				writeString(((PolyString) value).getNorm());
+			} else if (value instanceof byte[]) {
+				writeByte(VALUE_BYTES);
+				writeUnsigned(((byte[]) value).length);
+				out.write((byte[]) value);
+			} else if (value instanceof ItemPath) {
+				writeByte(VALUE_ITEM_PATH);
+				writeItemPath((ItemPath) value);
+			} else if (xprim.getTypeQName() != null) {
+				writeText(xprim.getFormattedValue(), null);
+			} else {
+				throw new SchemaException("Cannot serialize value of " + value.getClass() + " without type information (element " + elementName + ")");
+			}
+		}
+
+		// namespace declarations that can be used by the value (see PrimitiveXNode.getRelevantNamespaceDeclarations), plus the default one
+		private Map<String, String> getNamespaceDeclarations(PrimitiveXNode<?> xprim) {
+			if (xprim.isEmpty()) {
+				return null;
+			}
+			Map<String, String> declarations = xprim.getRelevantNamespaceDeclarations();
+			Map<String, String> candidates = xprim.getValueParser().getPotentiallyRelevantNamespaces();
+			if (candidates != null && candidates.get(null) != null) {
+				declarations.put(null, candidates.get(null));
+			}
+			return declarations;
+		}
+
+		private void writeText(String text, Map<String, String> namespaceDeclarations) throws IOException {
+			writeByte(VALUE_TEXT);
+			writeString(text);
+			if (namespaceDeclarations == null) {
+				writeUnsigned(0);
+				return;
+			}
+			writeUnsigned(namespaceDeclarations.size());
+			for (Map.Entry<String, String> declaration : namespaceDeclarations.entrySet()) {
+				writeSymbol(declaration.getKey());
+				writeSymbol(declaration.getValue());
+			}
+		}
+
+		private void writePrefixedQName(QName qname) throws IOException {
+			writeQName(qname);
+			writeSymbol(qname.getPrefix());
+		}
+
+		private void writeItemPath(ItemPath path) throws SchemaException, IOException {
+			List<ItemPathSegment> segments = path.getSegments();
+			writeUnsigned(segments.size());
+			for (ItemPathSegment segment : segments) {
+				if (segment instanceof NameItemPathSegment) {
+					NameItemPathSegment nameSegment = (NameItemPathSegment) segment;
+					if (nameSegment.isWildcard()) {
+						writeByte(SEGMENT_NAME_WILDCARD);
+					} else {
+						writeByte(nameSegment.isVariable() ? SEGMENT_VARIABLE : SEGMENT_NAME);
+						writePrefixedQName(nameSegment.getName());
+					}
+				} else if (segment instanceof IdItemPathSegment) {
+					IdItemPathSegment idSegment = (IdItemPathSegment) segment;
+					if (idSegment.isWildcard()) {
+						writeByte(SEGMENT_ID_WILDCARD);
+					} else if (idSegment.getId() == null) {
+						writeByte(SEGMENT_NO_ID);
+					} else {
+						writeByte(SEGMENT_ID);
+						writeSigned(idSegment.getId());
+					}
+				} else if (segment instanceof ParentPathSegment) {
+					writeByte(SEGMENT_PARENT);
+				} else if (segment instanceof ObjectReferencePathSegment) {
+					writeByte(SEGMENT_OBJECT_REFERENCE);
+				} else if (segment instanceof IdentifierPathSegment) {
+					writeByte(SEGMENT_IDENTIFIER);
+				} else {
+					throw new SchemaException("Unsupported segment " + segment + " in item path " + path);
+				}
+			}
+		}
+
+		// DOM elements are written node by node, keeping prefixes (as they can be used in attribute values)
+		private void writeElement(Element element) throws IOException {
+			writeDomName(element);
+			NamedNodeMap attributes = element.getAttributes();
+			writeUnsigned(attributes.getLength());
+			for (int i = 0; i < attributes.getLength(); i++) {
+				Node attribute = attributes.item(i);
+				writeDomName(attribute);
+				if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+					writeSymbol(attribute.getNodeValue());			// namespaces are usually in the dictionary already
+				} else {
+					writeString(attribute.getNodeValue());
+				}
+			}
+			List<Node> children = new ArrayList<>();
+			NodeList childNodes = element.getChildNodes();
+			for (int i = 0; i < childNodes.getLength(); i++) {
+				short type = childNodes.item(i).getNodeType();
+				if (type == Node.ELEMENT_NODE || type == Node.TEXT_NODE || type == Node.CDATA_SECTION_NODE || type == Node.COMMENT_NODE) {
+					children.add(childNodes.item(i));
+				}
+			}
+			writeUnsigned(children.size());
+			for (Node child : children) {
+				switch (child.getNodeType()) {
+					case Node.ELEMENT_NODE:
+						writeByte(DOM_ELEMENT);
+						writeElement((Element) child);
+						break;
+					case Node.TEXT_NODE:
+						String text = child.getNodeValue();
+						if (StringUtils.isWhitespace(text)) {
+							writeByte(DOM_WHITESPACE);
+							writeSymbol(text);
+						} else {
+							writeByte(DOM_TEXT);
+							writeString(text);
+						}
+						break;
+					case Node.CDATA_SECTION_NODE:
+						writeByte(DOM_CDATA);
+						writeString(child.getNodeValue());
+						break;
+					default:
+						writeByte(DOM_COMMENT);
+						writeString(child.getNodeValue());
+				}
+			}
+		}
+
+		private void writeDomName(Node node) throws IOException {
+			String localName = node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+			writeQName(new QName(StringUtils.defaultString(node.getNamespaceURI()), localName));
+			writeSymbol(node.getPrefix());
+		}
+
+		// 0 = null, 1..n = known name, n+1 = new name (namespace and local part follow)
+		private void writeQName(QName qname) throws IOException {
+			if (qname == null) {
+				writeUnsigned(0);
+				return;
+			}
+			Integer index = qnames.get(qname);
+			if (index != null) {
+				writeUnsigned(index + 1);
+			} else {
+				writeUnsigned(qnames.size() + 1);
+				qnames.put(qname, qnames.size());
+				writeSymbol(qname.getNamespaceURI());
+				writeString(qname.getLocalPart());
+			}
+		}
+
+		// 0..n-1 = known symbol, n = new symbol (the string follows)
+		private void writeSymbol(String symbol) throws IOException {
+			Integer index = symbols.get(symbol);
+			if (index != null) {
+				writeUnsigned(index);
+			} else {
+				writeUnsigned(symbols.size());
+				symbols.put(symbol, symbols.size());
+				writeString(symbol);
+			}
+		}
+
+		// 0 = null, otherwise length + 1 followed by UTF-8 bytes
+		private void writeString(String string) throws IOException {
+			if (string == null) {
+				writeUnsigned(0);
+			} else {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				writeUnsigned(bytes.length + 1);
+				out.write(bytes);
+			}
+		}
+
+		private void writeByte(int value) throws IOException {
+			out.write(value);
+		}
+
+		private void writeSigned(long value) throws IOException {
+			writeUnsigned((value << 1) ^ (value >> 63));		// zig-zag, so small negative numbers are short as well
+		}
+
+		// 7 bits per byte, the highest bit means "more bytes follow"
+		private void writeUnsigned(long value) throws IOException {
+			while ((value & ~0x7FL) != 0) {
+				out.write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			out.write((int) value);
+		}
+
+		private void flush() throws IOException {
+			out.flush();
+		}
+	}
+	//endregion
+
+	//region Decoder
+	private static class Decoder {
+
+		private final InputStream in;
+		private final List<String> symbols = new ArrayList<>();
+		private final List<QName> qnames = new ArrayList<>();
+
+		private Decoder(InputStream in) {
+			this.in = in;
+		}
+
+		private void readHeader() throws SchemaException, IOException {
+			byte[] header = new byte[HEADER.length];
+			readFully(header);
+			if (!Arrays.equals(header, HEADER)) {
+				throw new SchemaException("Not a binary prism data");
+			}
+			int version = readByte();
+			if (version != VERSION) {
+				throw new SchemaException("Unsupported version of binary prism data: " + version);
+			}
+		}
+
+		private void releaseSymbols() {
+			symbols.clear();
+			qnames.clear();
+		}
+
+		private RootXNode readRoot() throws SchemaException, IOException {
+			RootXNode xroot = new RootXNode(readQName());
+			readCommonAttributes(xroot);
+			xroot.setSubnode(readNode(readByte(), xroot.getRootElementName()));
+			return xroot;
+		}
+
+		private XNode readNode(int tag, QName elementName) throws SchemaException, IOException {
+			switch (tag) {
+				case TAG_NULL:
+					return null;
+				case TAG_MAP:
+					MapXNode xmap = new MapXNode();
+					readCommonAttributes(xmap);
+					int entries = readLength();
+					for (int i = 0; i < entries; i++) {
+						QName key = readQName();
+						xmap.put(key, readNode(readByte(), key));
+					}
+					return xmap;
+				case TAG_LIST:
+					ListXNode xlist = new ListXNode();
+					readCommonAttributes(xlist);
+					int size = readLength();
+					for (int i = 0; i < size; i++) {
+						xlist.add(readNode(readByte(), elementName));
+					}
+					return xlist;
+				case TAG_PRIMITIVE:
+					return readPrimitive(elementName);
+				case TAG_SCHEMA:
+					SchemaXNode xschema = new SchemaXNode();
+					readCommonAttributes(xschema);
+					int elementTag = readByte();
+					if (elementTag == DOM_ELEMENT) {
+						Document document = DOMUtil.getDocument();
+						Element schemaElement = readElement(document);
+						document.appendChild(schemaElement);
+						xschema.setSchemaElement(schemaElement);
+					} else if (elementTag != TAG_NULL) {
+						throw new SchemaException("Malformed binary data: unknown tag " + elementTag + " (schema in element " + elementName + ")");
+					}
+					return xschema;
+				case TAG_ROOT:
+					return readRoot();
+				default:
+					throw new SchemaException("Malformed binary data: unknown tag " + tag + " (element " + elementName + ")");
+			}
+		}
+
+		private PrimitiveXNode<?> readPrimitive(QName elementName) throws SchemaException, IOException {
+			CommonAttributes attributes = readCommonAttributes();
+			PrimitiveXNode<Object> xprim;
+			int valueType = readByte();
+			switch (valueType) {
+				case VALUE_TEXT:
+					String text = readString();
+					Map<String, String> namespaceDeclarations = new HashMap<>();
+					int declarations = readLength();
+					for (int i = 0; i < declarations; i++) {
+						String prefix = readSymbol();
+						namespaceDeclarations.put(prefix, readSymbol());
+					}
+					xprim = new PrimitiveXNode<>();
+					xprim.setValueParser(new StaxParser.StaxValueParser<>(elementName, text != null ? text : "",
+							namespaceDeclarations, attributes.isAttribute()));
+					break;
+				case VALUE_NULL:
+					xprim = new PrimitiveXNode<>();
+					break;
+				case VALUE_STRING:
+					xprim = new PrimitiveXNode<Object>(readString());
+					break;
+				case VALUE_INT:
+					xprim = new PrimitiveXNode<Object>((int) readSigned());
+					break;
+				case VALUE_LONG:
+					xprim = new PrimitiveXNode<Object>(readSigned());
+					break;
+				case VALUE_FALSE:
+					xprim = new PrimitiveXNode<Object>(Boolean.FALSE);
+					break;
+				case VALUE_TRUE:
+					xprim = new PrimitiveXNode<Object>(Boolean.TRUE);
+					break;
+				case VALUE_QNAME:
+					xprim = new PrimitiveXNode<Object>(readPrefixedQName());
+					break;
+				case VALUE_DATE:
+					xprim = new PrimitiveXNode<Object>(XmlTypeConverter.createXMLGregorianCalendar(readString()));
+					break;
+				case VALUE_POLYSTRING:
+					String orig = readString();
+					xprim = new PrimitiveXNode<Object>(new PolyString(orig, readString()));
+					break;
+				case VALUE_ITEM_PATH:
+					xprim = new PrimitiveXNode<Object>(readItemPath());
+					break;
+				case VALUE_BYTES:
+					xprim = new PrimitiveXNode<Object>(readBytes(readLength()));
+					break;
+				default:
+					throw new SchemaException("Malformed binary data: unknown value type " + valueType + " (element " + elementName + ")");
+			}
+			attributes.applyTo(xprim);
+			xprim.setAttribute(attributes.isAttribute());
+			return xprim;
+		}
+
+		private void readCommonAttributes(XNode xnode) throws SchemaException, IOException {
+			readCommonAttributes().applyTo(xnode);
+		}
+
+		private CommonAttributes readCommonAttributes() throws SchemaException, IOException {
+			CommonAttributes attributes = new CommonAttributes();
+			attributes.flags = readByte();
+			if ((attributes.flags & FLAG_TYPE) != 0) {
+				attributes.typeQName = readQName();
+			}
+			if ((attributes.flags & FLAG_MAX_OCCURS) != 0) {
+				attributes.maxOccurs = (int) readSigned();
+			}
+			if ((attributes.flags & FLAG_COMMENT) != 0) {
+				attributes.comment = readString();
+			}
+			return attributes;
+		}
+
+		private QName readPrefixedQName() throws SchemaException, IOException {
+			QName qname = readQName();
+			String prefix = readSymbol();
+			return prefix != null ? new QName(qname.getNamespaceURI(), qname.getLocalPart(), prefix) : qname;
+		}
+
+		private ItemPath readItemPath() throws SchemaException, IOException {
+			int size = readLength();
+			List<ItemPathSegment> segments = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				int segmentType = readByte();
+				switch (segmentType) {
+					case SEGMENT_NAME:
+						segments.add(new NameItemPathSegment(readPrefixedQName()));
+						break;
+					case SEGMENT_VARIABLE:
+						segments.add(new NameItemPathSegment(readPrefixedQName(), true));
+						break;
+					case SEGMENT_NAME_WILDCARD:
+						segments.add(NameItemPathSegment.WILDCARD);
+						break;
+					case SEGMENT_ID:
+						segments.add(new IdItemPathSegment(readSigned()));
+						break;
+					case SEGMENT_NO_ID:
+						segments.add(new IdItemPathSegment());
+						break;
+					case SEGMENT_ID_WILDCARD:
+						segments.add(IdItemPathSegment.WILDCARD);
+						break;
+					case SEGMENT_PARENT:
+						segments.add(new ParentPathSegment());
+						break;
+					case SEGMENT_OBJECT_REFERENCE:
+						segments.add(new ObjectReferencePathSegment());
+						break;
+					case SEGMENT_IDENTIFIER:
+						segments.add(new IdentifierPathSegment());
+						break;
+					default:
+						throw new SchemaException("Malformed binary data: unknown item path segment type " + segmentType);
+				}
+			}
+			return new ItemPath(segments);
+		}
+
+		private Element readElement(Document document) throws SchemaException, IOException {
+			QName name = readQName();
+			Element element = document.createElementNS(StringUtils.defaultIfEmpty(name.getNamespaceURI(), null),
+					getQualifiedName(name, readSymbol()));
+			int attributes = readLength();
+			for (int i = 0; i < attributes; i++) {
+				QName attributeName = readQName();
+				String qualifiedName = getQualifiedName(attributeName, readSymbol());
+				String value = XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attributeName.getNamespaceURI()) ? readSymbol() : readString();
+				element.setAttributeNS(StringUtils.defaultIfEmpty(attributeName.getNamespaceURI(), null), qualifiedName, value);
+			}
+			int children = readLength();
+			for (int i = 0; i < children; i++) {
+				int childType = readByte();
+				switch (childType) {
+					case DOM_ELEMENT:
+						element.appendChild(readElement(document));
+						break;
+					case DOM_TEXT:
+						element.appendChild(document.createTextNode(readString()));
+						break;
+					case DOM_WHITESPACE:
+						element.appendChild(document.createTextNode(readSymbol()));
+						break;
+					case DOM_CDATA:
+						element.appendChild(document.createCDATASection(readString()));
+						break;
+					case DOM_COMMENT:
+						element.appendChild(document.createComment(readString()));
+						break;
+					default:
+						throw new SchemaException("Malformed binary data: unknown DOM node type " + childType + " (element " + name + ")");
+				}
+			}
+			return element;
+		}
+
+		private String getQualifiedName(QName name, String prefix) {
+			return StringUtils.isEmpty(prefix) ? name.getLocalPart() : prefix + ":" + name.getLocalPart();
+		}
+
+		private QName readQName() throws SchemaException, IOException {
+			int code = readLength();
+			if (code == 0) {
+				return null;
+			} else if (code <= qnames.size()) {
+				return qnames.get(code - 1);
+			} else if (code == qnames.size() + 1) {
+				String namespace = readSymbol();
+				QName qname = new QName(namespace, readString());
+				qnames.add(qname);
+				return qname;
+			} else {
+				throw new SchemaException("Malformed binary data: unknown name #" + code);
+			}
+		}
+
+		private String readSymbol() throws SchemaException, IOException {
+			int code = readLength();
+			if (code < symbols.size()) {
+				return symbols.get(code);
+			} else if (code == symbols.size()) {
+				String symbol = readString();
+				symbols.add(symbol);
+				return symbol;
+			} else {
+				throw new SchemaException("Malformed binary data: unknown symbol #" + code);
+			}
+		}
+
+		private String readString() throws SchemaException, IOException {
+			int length = readLength();
+			if (length == 0) {
+				return null;
+			}
+			return new String(readBytes(length - 1), StandardCharsets.UTF_8);
+		}
+
+		private int readByte() throws IOException {
+			int b = in.read();
+			if (b < 0) {
+				throw new EOFException("Unexpected end of binary data");
+			}
+			return b;
+		}
+
+		private byte[] readBytes(int length) throws IOException {
+			if (length <= READ_CHUNK_SIZE) {
+				byte[] bytes = new byte[length];
+				readFully(bytes);
+				return bytes;
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream(READ_CHUNK_SIZE);
+			byte[] chunk = new byte[READ_CHUNK_SIZE];
+			for (int remaining = length; remaining > 0; remaining -= chunk.length) {
+				if (remaining < chunk.length) {
+					chunk = new byte[remaining];
+				}
+				readFully(chunk);
+				out.write(chunk, 0, chunk.length);
+			}
+			return out.toByteArray();
+		}
+
+		private void readFully(byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				int count = in.read(bytes, offset, bytes.length - offset);
+				if (count < 0) {
+					throw new EOFException("Unexpected end of binary data");
+				}
+				offset += count;
+			}
+		}
+
+		private long readSigned() throws SchemaException, IOException {
+			long value = readUnsigned();
+			return (value >>> 1) ^ -(value & 1);
+		}
+
+		private int readLength() throws SchemaException, IOException {
+			long value = readUnsigned();
+			if (value > Integer.MAX_VALUE) {
+				throw new SchemaException("Malformed binary data: length or index out of range: " + value);
+			}
+			return (int) value;
+		}
+
+		private long readUnsigned() throws SchemaException, IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new SchemaException("Malformed binary data: number too long");
+		}
+	}
+
+	/**
+	 * Attributes of a node, as read before the node itself can be created.
+	 */
+	private static class CommonAttributes {
+
+		private int flags;
+		private QName typeQName;
+		private Integer maxOccurs;
+		private String comment;
+
+		private boolean isAttribute() {
+			return (flags & FLAG_ATTRIBUTE) != 0;
+		}
+
+		private void applyTo(XNode xnode) {
+			xnode.setTypeQName(typeQName);
+			xnode.setExplicitTypeDeclaration((flags & FLAG_EXPLICIT_TYPE) != 0);
+			xnode.setMaxOccurs(maxOccurs);
+			xnode.setComment(comment);
+		}
+	}
+	//endregion
+
+	//region Other methods
+	@Override
+	public boolean canParse(File file) throws IOException {
+		if (file == null) {
+			return false;
+		}
+		byte[] header = new byte[HEADER.length];
+		try (InputStream stream = new FileInputStream(file)) {
+			int count = 0;
+			while (count < header.length) {
+				int read = stream.read(header, count, header.length - count);
+				if (read < 0) {
+					return false;
+				}
+				count += read;
+			}
+		}
+		return Arrays.equals(header, HEADER);
+	}
+
+	@Override
+	public boolean canParse(String dataString) {
+		return dataString != null && dataString.startsWith(BASE64_HEADER_PREFIX);
+	}
+	//endregion
+}
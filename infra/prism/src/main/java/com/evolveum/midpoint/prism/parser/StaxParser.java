@@ -0,0 +1,631 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism.parser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.evolveum.midpoint.prism.PrismConstants;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.prism.xml.XsdTypeMapper;
+import com.evolveum.midpoint.prism.xnode.ListXNode;
+import com.evolveum.midpoint.prism.xnode.MapXNode;
+import com.evolveum.midpoint.prism.xnode.PrimitiveXNode;
+import com.evolveum.midpoint.prism.xnode.RootXNode;
+import com.evolveum.midpoint.prism.xnode.SchemaXNode;
+import com.evolveum.midpoint.prism.xnode.ValueParser;
+import com.evolveum.midpoint.prism.xnode.XNode;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.util.QNameUtil;
+import com.evolveum.midpoint.util.exception.SchemaException;
+
+/**
+ * Parses XML directly from XMLStreamReader into XNodes, without building DOM tree first.
+ * The resulting XNodes are the same as the ones produced by {@link DomParser}. The only exception are
+ * embedded XSD schemas: they are kept as DOM elements (in SchemaXNode), as their consumers need them in that form.
+ *
+ * Values of primitive elements and attributes are kept as strings, along with the namespace declarations
+ * that are in scope (to be able to resolve QNames and item paths). Namespace maps are shared among elements
+ * that do not declare any namespaces themselves.
+ *
+ * Serialization is delegated to DomParser.
+ */
+public class StaxParser implements Parser {
+
+	private static final QName SCHEMA_ELEMENT_QNAME = DOMUtil.XSD_SCHEMA_ELEMENT;
+
+	private final DomParser domParser;
+	private final XMLInputFactory inputFactory;
+
+	public StaxParser(DomParser domParser) {
+		this.domParser = domParser;
+		inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	//region Parsing
+	@Override
+	public XNode parse(File file) throws SchemaException, IOException {
+		try (InputStream stream = new FileInputStream(file)) {
+			return parse(stream);
+		}
+	}
+
+	@Override
+	public XNode parse(InputStream stream) throws SchemaException, IOException {
+		XMLStreamReader reader = createReader(stream);
+		try {
+			toRootElement(reader);
+			return parseRoot(reader, Collections.<String, String>emptyMap());
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException("Error parsing XML document " + e.getMessage(), e);
+		} finally {
+			closeQuietly(reader);
+		}
+	}
+
+	@Override
+	public XNode parse(String dataString) throws SchemaException {
+		XMLStreamReader reader = createReader(dataString);
+		try {
+			toRootElement(reader);
+			return parseRoot(reader, Collections.<String, String>emptyMap());
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException("Error parsing XML document " + e.getMessage(), e);
+		} finally {
+			closeQuietly(reader);
+		}
+	}
+
+	@Override
+	public Collection<XNode> parseCollection(File file) throws SchemaException, IOException {
+		try (InputStream stream = new FileInputStream(file)) {
+			return parseCollection(stream);
+		}
+	}
+
+	@Override
+	public Collection<XNode> parseCollection(InputStream stream) throws SchemaException, IOException {
+		return readCollection(openCollection(stream));
+	}
+
+	@Override
+	public Collection<XNode> parseCollection(String dataString) throws SchemaException {
+		return readCollection(openCollection(createReader(dataString)));
+	}
+
+	/**
+	 * Opens a collection of objects (e.g. &lt;objects&gt;...&lt;/objects&gt;). The objects (children of the root element)
+	 * are parsed one by one, as they are requested, so the whole collection is never kept in memory.
+	 * The stream is not closed by the reader.
+	 */
+	public CollectionReader openCollection(InputStream stream) throws SchemaException {
+		return openCollection(createReader(stream));
+	}
+
+	private CollectionReader openCollection(XMLStreamReader reader) {
+		try {
+			toRootElement(reader);
+			return new CollectionReader(reader, getNamespaces(reader, Collections.<String, String>emptyMap()));
+		} catch (XMLStreamException e) {
+			closeQuietly(reader);
+			throw new IllegalStateException("Error parsing XML document " + e.getMessage(), e);
+		}
+	}
+
+	private Collection<XNode> readCollection(CollectionReader collectionReader) throws SchemaException {
+		try {
+			Collection<XNode> nodes = new ArrayList<>();
+			RootXNode xroot;
+			while ((xroot = collectionReader.next()) != null) {
+				nodes.add(xroot);
+			}
+			return nodes;
+		} finally {
+			collectionReader.close();
+		}
+	}
+
+	public class CollectionReader {
+
+		private final XMLStreamReader reader;
+		private final Map<String, String> rootNamespaces;
+		private boolean finished;
+
+		private CollectionReader(XMLStreamReader reader, Map<String, String> rootNamespaces) {
+			this.reader = reader;
+			this.rootNamespaces = rootNamespaces;
+		}
+
+		/**
+		 * Returns the next object or null if there are no more objects.
+		 */
+		public RootXNode next() throws SchemaException {
+			if (finished) {
+				return null;
+			}
+			try {
+				while (reader.hasNext()) {
+					int event = reader.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						return parseRoot(reader, rootNamespaces);
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						break;			// end of the root element
+					}
+				}
+				finished = true;
+				return null;
+			} catch (XMLStreamException e) {
+				finished = true;
+				throw new IllegalStateException("Error parsing XML document " + e.getMessage(), e);
+			}
+		}
+
+		public void close() {
+			finished = true;
+			closeQuietly(reader);
+		}
+	}
+
+	private XMLStreamReader createReader(InputStream stream) {
+		try {
+			return inputFactory.createXMLStreamReader(stream);
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException("Error parsing XML document " + e.getMessage(), e);
+		}
+	}
+
+	private XMLStreamReader createReader(String dataString) {
+		try {
+			return inputFactory.createXMLStreamReader(new StringReader(dataString));
+		} catch (XMLStreamException e) {
+			throw new IllegalStateException("Error parsing XML document " + e.getMessage(), e);
+		}
+	}
+
+	private void toRootElement(XMLStreamReader reader) throws XMLStreamException {
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+				return;
+			}
+		}
+		throw new IllegalStateException("Error parsing XML document: no root element");
+	}
+
+	private void closeQuietly(XMLStreamReader reader) {
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			// nothing to do here
+		}
+	}
+
+	/**
+	 * Parses the element the reader is positioned at, leaving the reader at its end.
+	 */
+	private RootXNode parseRoot(XMLStreamReader reader, Map<String, String> parentNamespaces) throws SchemaException, XMLStreamException {
+		RootXNode xroot = new RootXNode(reader.getName());
+		xroot.setSubnode(parseElement(reader, parentNamespaces, xroot));
+		return xroot;
+	}
+
+	/**
+	 * Parses the content of the element the reader is positioned at (START_ELEMENT), leaving the reader at the
+	 * corresponding END_ELEMENT. Returns MapXNode if the element has any subelements or application attributes,
+	 * PrimitiveXNode otherwise, and null for nil elements. Common metadata (xsi:type, maxOccurs) are set on the returned
+	 * node and on the root node, if provided.
+	 */
+	private XNode parseElement(XMLStreamReader reader, Map<String, String> parentNamespaces, RootXNode xroot)
+			throws SchemaException, XMLStreamException {
+		QName elementName = reader.getName();
+		Map<String, String> namespaces = getNamespaces(reader, parentNamespaces);
+
+		String xsiType = null;
+		String hackedXsiType = null;
+		String maxOccurs = null;
+		boolean nil = false;
+		List<QName> attributeNames = null;
+		List<String> attributeValues = null;
+		int attributeCount = reader.getAttributeCount();
+		for (int i = 0; i < attributeCount; i++) {
+			String namespace = StringUtils.defaultString(reader.getAttributeNamespace(i));
+			String localName = reader.getAttributeLocalName(i);
+			if (XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(namespace)) {
+				if (DOMUtil.XSI_TYPE.getLocalPart().equals(localName)) {
+					xsiType = reader.getAttributeValue(i);
+				} else if (DOMUtil.XSI_NIL.getLocalPart().equals(localName)) {
+					nil = Boolean.parseBoolean(reader.getAttributeValue(i));
+				}
+			} else if (namespace.isEmpty() && DOMUtil.HACKED_XSI_TYPE.equals(localName)) {
+				hackedXsiType = reader.getAttributeValue(i);
+			} else if (!XMLConstants.XML_NS_URI.equals(namespace)) {
+				if (PrismConstants.A_MAX_OCCURS.getNamespaceURI().equals(namespace)
+						&& PrismConstants.A_MAX_OCCURS.getLocalPart().equals(localName)) {
+					maxOccurs = reader.getAttributeValue(i);
+				}
+				if (attributeNames == null) {
+					attributeNames = new ArrayList<>();
+					attributeValues = new ArrayList<>();
+				}
+				attributeNames.add(reader.getAttributeName(i));
+				attributeValues.add(reader.getAttributeValue(i));
+			}
+		}
+
+		QName typeName = resolveQName(StringUtils.isEmpty(xsiType) ? hackedXsiType : xsiType, namespaces);
+		Integer maxOccursValue = StringUtils.isBlank(maxOccurs) ? null : parseMultiplicity(maxOccurs, elementName);
+		if (xroot != null) {
+			setCommonMetadata(xroot, typeName, maxOccursValue);
+		}
+
+		MapXNode xmap = null;
+		if (attributeNames != null) {
+			xmap = new MapXNode();
+			addAttributes(xmap, attributeNames, attributeValues, namespaces);
+		}
+
+		String text = null;
+		StringBuilder textBuilder = null;
+		QName groupName = null;
+		List<XNode> group = null;
+		for (;;) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				if (xmap == null) {
+					xmap = new MapXNode();
+				}
+				QName childName = reader.getName();
+				XNode child;
+				// We really want to have equals here, not match
+				// we want to be very explicit about namespace here
+				if (childName.equals(SCHEMA_ELEMENT_QNAME)) {
+					child = parseSchemaElement(reader, namespaces);
+				} else {
+					child = parseElement(reader, namespaces, null);
+				}
+				if (childName.equals(groupName)) {
+					group.add(child);
+				} else {
+					mergeElementGroup(xmap, groupName, group);
+					groupName = childName;
+					group = new ArrayList<>();
+					group.add(child);
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				break;
+			} else if (xmap == null && isText(event)) {
+				if (text == null) {
+					text = reader.getText();
+				} else {
+					if (textBuilder == null) {
+						textBuilder = new StringBuilder(text);
+					}
+					textBuilder.append(reader.getText());
+				}
+			}
+		}
+
+		if (nil) {
+			return null;
+		}
+		if (xmap != null) {
+			mergeElementGroup(xmap, groupName, group);
+			setCommonMetadata(xmap, typeName, maxOccursValue);
+			return xmap;
+		}
+		if (textBuilder != null) {
+			text = textBuilder.toString();
+		}
+		PrimitiveXNode<Object> xprim = new PrimitiveXNode<>();
+		setCommonMetadata(xprim, typeName, maxOccursValue);
+		xprim.setValueParser(new StaxValueParser<>(elementName, text != null ? text : "", namespaces, false));
+		return xprim;
+	}
+
+	private boolean isText(int event) {
+		return event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+				|| event == XMLStreamConstants.SPACE || event == XMLStreamConstants.ENTITY_REFERENCE;
+	}
+
+	/**
+	 * Returns namespaces that are in scope for the current element: the parent ones, updated by the declarations
+	 * of this element (if there are any). Default namespace is stored under null key, like DOMUtil does it.
+	 */
+	private Map<String, String> getNamespaces(XMLStreamReader reader, Map<String, String> parentNamespaces) {
+		int count = reader.getNamespaceCount();
+		if (count == 0) {
+			return parentNamespaces;
+		}
+		Map<String, String> namespaces = new HashMap<>(parentNamespaces);
+		for (int i = 0; i < count; i++) {
+			String prefix = reader.getNamespacePrefix(i);
+			namespaces.put(StringUtils.isEmpty(prefix) ? null : prefix, StringUtils.defaultString(reader.getNamespaceURI(i)));
+		}
+		return namespaces;
+	}
+
+	private void setCommonMetadata(XNode xnode, QName typeName, Integer maxOccurs) {
+		if (typeName != null) {
+			xnode.setTypeQName(typeName);
+			xnode.setExplicitTypeDeclaration(true);
+		}
+		if (maxOccurs != null) {
+			xnode.setMaxOccurs(maxOccurs);
+		}
+	}
+
+	private int parseMultiplicity(String maxOccursString, QName elementName) throws SchemaException {
+		if (PrismConstants.MULTIPLICITY_UNBONUNDED.equals(maxOccursString)) {
+			return -1;
+		}
+		if (maxOccursString.startsWith("-")) {
+			return -1;
+		}
+		if (StringUtils.isNumeric(maxOccursString)) {
+			return Integer.valueOf(maxOccursString);
+		} else {
+			throw new SchemaException("Expecetd numeric value for " + PrismConstants.A_MAX_OCCURS.getLocalPart()
+					+ " attribute on " + elementName + " but got " + maxOccursString);
+		}
+	}
+
+	/**
+	 * Attributes are added in the same order as DomParser adds them (i.e. sorted by their qualified names).
+	 */
+	private void addAttributes(MapXNode xmap, List<QName> names, List<String> values, Map<String, String> namespaces) {
+		List<Integer> order = new ArrayList<>(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			order.add(i);
+		}
+		if (names.size() > 1) {
+			final List<QName> attributeNames = names;
+			Collections.sort(order, new Comparator<Integer>() {
+				@Override
+				public int compare(Integer o1, Integer o2) {
+					return getQualifiedName(attributeNames.get(o1)).compareTo(getQualifiedName(attributeNames.get(o2)));
+				}
+			});
+		}
+		for (int i : order) {
+			PrimitiveXNode<Object> xattr = new PrimitiveXNode<>();
+			xattr.setValueParser(new StaxValueParser<>(names.get(i), values.get(i), namespaces, true));
+			xattr.setAttribute(true);
+			xmap.put(names.get(i), xattr);
+		}
+	}
+
+	private static String getQualifiedName(QName name) {
+		return StringUtils.isEmpty(name.getPrefix()) ? name.getLocalPart() : name.getPrefix() + ":" + name.getLocalPart();
+	}
+
+	private void mergeElementGroup(MapXNode xmap, QName elementName, List<XNode> elements) throws SchemaException {
+		if (elements == null || elements.isEmpty()) {
+			return;
+		}
+		XNode xsub;
+		if (elements.size() == 1) {
+			xsub = elements.get(0);
+		} else if (elementName.equals(SCHEMA_ELEMENT_QNAME)) {
+			throw new SchemaException("Too many schema elements");
+		} else {
+			ListXNode xlist = new ListXNode();
+			xlist.addAll(elements);
+			xsub = xlist;
+		}
+		xmap.merge(elementName, xsub);
+	}
+
+	private SchemaXNode parseSchemaElement(XMLStreamReader reader, Map<String, String> parentNamespaces) throws XMLStreamException {
+		Document document = DOMUtil.getDocument();
+		Element schemaElement = createDomElement(reader, document);
+		// namespaces declared outside the schema element have to be declared on it
+		for (Map.Entry<String, String> entry : getNamespaces(reader, parentNamespaces).entrySet()) {
+			if (!schemaElement.hasAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+					entry.getKey() != null ? entry.getKey() : XMLConstants.XMLNS_ATTRIBUTE)) {
+				DOMUtil.setNamespaceDeclaration(schemaElement, entry.getKey(), entry.getValue());
+			}
+		}
+		document.appendChild(schemaElement);
+		fillDomElement(reader, document, schemaElement);
+		SchemaXNode xschema = new SchemaXNode();
+		xschema.setSchemaElement(schemaElement);
+		return xschema;
+	}
+
+	private void fillDomElement(XMLStreamReader reader, Document document, Element element) throws XMLStreamException {
+		for (;;) {
+			int event = reader.next();
+			switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					Element child = createDomElement(reader, document);
+					element.appendChild(child);
+					fillDomElement(reader, document, child);
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					return;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.SPACE:
+				case XMLStreamConstants.ENTITY_REFERENCE:
+					element.appendChild(document.createTextNode(reader.getText()));
+					break;
+				case XMLStreamConstants.CDATA:
+					element.appendChild(document.createCDATASection(reader.getText()));
+					break;
+				case XMLStreamConstants.COMMENT:
+					element.appendChild(document.createComment(reader.getText()));
+					break;
+				default:
+					// processing instructions are ignored
+			}
+		}
+	}
+
+	private Element createDomElement(XMLStreamReader reader, Document document) {
+		QName name = reader.getName();
+		Element element = document.createElementNS(StringUtils.defaultIfEmpty(name.getNamespaceURI(), null), getQualifiedName(name));
+		for (int i = 0; i < reader.getNamespaceCount(); i++) {
+			DOMUtil.setNamespaceDeclaration(element, reader.getNamespacePrefix(i), StringUtils.defaultString(reader.getNamespaceURI(i)));
+		}
+		for (int i = 0; i < reader.getAttributeCount(); i++) {
+			QName attributeName = reader.getAttributeName(i);
+			element.setAttributeNS(StringUtils.defaultIfEmpty(attributeName.getNamespaceURI(), null),
+					getQualifiedName(attributeName), reader.getAttributeValue(i));
+		}
+		return element;
+	}
+	//endregion
+
+	//region Values
+	/**
+	 * Value of a primitive element or attribute, along with the namespace declarations that are in scope.
+	 * The values are interpreted in the same way as in DomParser. (BinaryParser uses this class for values
+	 * that it keeps as text.)
+	 */
+	static class StaxValueParser<T> implements ValueParser<T>, Serializable {
+
+		private final QName name;
+		private final String text;
+		private final Map<String, String> namespaces;
+		private final boolean attribute;
+
+		StaxValueParser(QName name, String text, Map<String, String> namespaces, boolean attribute) {
+			this.name = name;
+			this.text = text;
+			this.namespaces = namespaces;
+			this.attribute = attribute;
+		}
+
+		@Override
+		public T parse(QName typeName, XNodeProcessorEvaluationMode mode) throws SchemaException {
+			try {
+				if (!attribute && ItemPath.XSD_TYPE.equals(typeName)) {
+					return (T) new XPathHolder(text, namespaces).toItemPath();
+				} else if (DOMUtil.XSD_QNAME.equals(typeName)) {
+					return (T) resolveQName(text, namespaces);
+				} else if (XmlTypeConverter.canConvert(typeName)) {
+					T value = XmlTypeConverter.toJavaValue(text, typeName);
+					if (value == null && !attribute) {
+						throw new IllegalArgumentException("Unknown type for conversion: "
+								+ XsdTypeMapper.getXsdToJavaMapping(typeName) + "(element " + name + ")");
+					}
+					return value;
+				} else if (!attribute && DOMUtil.XSD_ANYTYPE.equals(typeName)) {
+					return (T) text;                // if parsing primitive as xsd:anyType, we can safely parse it as string
+				} else {
+					throw new SchemaException("Cannot convert " + (attribute ? "attribute" : "element") + " '" + name + "' to " + typeName);
+				}
+			} catch (IllegalArgumentException e) {
+				return DomParser.processIllegalArgumentException(text, typeName, e, mode);		// primitive way of ensuring compatibility mode
+			}
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return attribute ? StringUtils.isEmpty(text) : StringUtils.isBlank(text);
+		}
+
+		@Override
+		public String getStringValue() {
+			return text;
+		}
+
+		@Override
+		public Map<String, String> getPotentiallyRelevantNamespaces() {
+			return new HashMap<>(namespaces);
+		}
+
+		@Override
+		public String toString() {
+			return "ValueParser(StAX" + (attribute ? "a" : "e") + ", " + PrettyPrinter.prettyPrint(name) + ": " + text + ")";
+		}
+	}
+
+	/**
+	 * Resolves a QName in the same way as DOMUtil.resolveQName does, i.e. a QName without prefix is parsed
+	 * to a QName without namespace, even if default namespace declaration is present.
+	 */
+	private static QName resolveQName(String qnameStringRepresentation, Map<String, String> namespaces) {
+		if (StringUtils.isBlank(qnameStringRepresentation)) {
+			return null;
+		}
+		String[] qnameArray = qnameStringRepresentation.split(":");
+		if (qnameArray.length > 2) {
+			throw new IllegalArgumentException("Unsupported format: more than one colon in Qname: "
+					+ qnameStringRepresentation);
+		}
+		if (qnameArray.length == 1 || qnameArray[1] == null || qnameArray[1].isEmpty()) {
+			return new QName(null, qnameArray[0]);
+		}
+		String namespacePrefix = qnameArray[0];
+		String namespace = namespaces.get(namespacePrefix);
+		if (namespace == null && XMLConstants.XML_NS_PREFIX.equals(namespacePrefix)) {
+			namespace = XMLConstants.XML_NS_URI;
+		}
+		if (namespace == null) {
+			QNameUtil.reportUndeclaredNamespacePrefix(namespacePrefix, qnameStringRepresentation);
+			namespacePrefix = QNameUtil.markPrefixAsUndeclared(namespacePrefix);
+		}
+		return new QName(namespace, qnameArray[1], namespacePrefix);
+	}
+	//endregion
+
+	//region Other methods
+	@Override
+	public boolean canParse(File file) throws IOException {
+		return domParser.canParse(file);
+	}
+
+	@Override
+	public boolean canParse(String dataString) {
+		return domParser.canParse(dataString);
+	}
+
+	@Override
+	public String serializeToString(XNode xnode, QName rootElementName) throws SchemaException {
+		return domParser.serializeToString(xnode, rootElementName);
+	}
+
+	@Override
+	public String serializeToString(RootXNode xnode) throws SchemaException {
+		return domParser.serializeToString(xnode);
+	}
+	//endregion
+}
@@ -290,6 +290,9 @@ public class XNodeProcessor {
             if (QNameUtil.matchAny(itemQName, ignoredItems)) {
                 continue;
             }
+            if (!pc.isItemIncluded(itemQName)) {
+                continue;
+            }
             ItemDefinition itemDef = locateItemDefinition(valueDefinition, itemQName, xentry.getValue());
             if (itemDef == null) {
                 if (valueDefinition.isRuntimeSchema()) {
@@ -323,7 +326,13 @@ public class XNodeProcessor {
                     }
                 }
             }
-            Item<?, ?> item = parseItem(xentry.getValue(), itemQName, itemDef, pc);
+            Item<?, ?> item;
+            pc.enterItem(itemQName);
+            try {
+                item = parseItem(xentry.getValue(), itemQName, itemDef, pc);
+            } finally {
+                pc.leaveItem();
+            }
             // Merge must be here, not just add. Some items (e.g. references) have alternative
             // names and representations and these cannot be processed as one map or list
             if (item != null) {
@@ -41,6 +41,8 @@ import com.evolveum.midpoint.prism.PrismPropertyValue;
 import com.evolveum.midpoint.prism.PrismReferenceDefinition;
 import com.evolveum.midpoint.prism.PrismReferenceValue;
 import com.evolveum.midpoint.prism.PrismValue;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.path.NameItemPathSegment;
 import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.xnode.ListXNode;
 import com.evolveum.midpoint.prism.xnode.MapXNode;
@@ -48,6 +50,7 @@ import com.evolveum.midpoint.prism.xnode.PrimitiveXNode;
 import com.evolveum.midpoint.prism.xnode.RootXNode;
 import com.evolveum.midpoint.prism.xnode.XNode;
 import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.QNameUtil;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.prism.xml.ns._public.types_3.EvaluationTimeType;
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
@@ -241,7 +244,9 @@ public class XNodeSerializer {
 			for (ItemDefinition itemDef: containerDefinition.getDefinitions()) {
 				QName elementName = itemDef.getName();
 				Item<?,?> item = containerVal.findItem(elementName);
-				if (item != null) {
+				if (item != null && isSkipped(item, ctx)) {
+					serializedItems.add(elementName);
+				} else if (item != null) {
 					XNode xsubnode = serializeItem(item, ctx);
 					xmap.put(elementName, xsubnode);
 					serializedItems.add(elementName);
@@ -253,7 +258,7 @@ public class XNodeSerializer {
 		if (containerVal.getItems() != null){
 			for (Item<?,?> item : containerVal.getItems()) {
 				QName elementName = item.getElementName();
-				if (serializedItems.contains(elementName)) {
+				if (serializedItems.contains(elementName) || isSkipped(item, ctx)) {
 					continue;
 				}
 				XNode xsubnode = serializeItem(item, ctx);
@@ -261,6 +266,26 @@ public class XNodeSerializer {
 			}
 		}
 	}
+
+	private boolean isSkipped(Item<?,?> item, SerializationContext ctx) {
+		if (!SerializationContext.hasItemsToSkip(ctx)) {
+			return false;
+		}
+		ItemPath itemPath = null;
+		for (ItemPath pathToSkip : ctx.getOptions().getItemsToSkip()) {
+			NameItemPathSegment last = pathToSkip.lastNamed();
+			if (last == null || !QNameUtil.match(last.getName(), item.getElementName())) {
+				continue;           // cheap check first, so we don't need to compute item path for most of the items
+			}
+			if (itemPath == null) {
+				itemPath = item.getPath().namedSegmentsOnly();
+			}
+			if (itemPath.equivalent(pathToSkip.namedSegmentsOnly())) {
+				return true;
+			}
+		}
+		return false;
+	}
     //endregion
 
     //region Serializing references - specific functionality
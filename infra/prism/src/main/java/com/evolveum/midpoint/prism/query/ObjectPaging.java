@@ -24,6 +24,8 @@ import java.util.List;
 
 import javax.xml.namespace.QName;
 
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismProperty;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.util.DebugDumpable;
 import com.evolveum.midpoint.util.DebugUtil;
@@ -34,6 +36,10 @@ public class ObjectPaging implements DebugDumpable, Serializable {
 	private Integer maxSize;
 	private List<ObjectOrdering> ordering = new ArrayList<>();
 	private String cookie;
+
+	private boolean keyset;
+	private String afterOid;
+	private List<Object> afterOrderingValues;
 	
 	protected ObjectPaging() {
 	}
@@ -81,6 +87,17 @@ public class ObjectPaging implements DebugDumpable, Serializable {
 		return new ObjectPaging();
 	}
 
+	/**
+	 * Creates keyset (seek) paging for the first page. Next pages are requested by calling
+	 * {@link #setAfterObject(PrismObject)} with the last object of the previous page.
+	 */
+	public static ObjectPaging createKeysetPaging(Integer maxSize, ObjectOrdering... orderings) {
+		ObjectPaging paging = new ObjectPaging(null, maxSize);
+		paging.setOrdering(orderings);
+		paging.setKeyset(true);
+		return paging;
+	}
+
 	// TODO rename to getPrimaryOrderingDirection
 	public OrderDirection getDirection() {
 		ObjectOrdering primary = getPrimaryOrdering();
@@ -177,6 +194,70 @@ public class ObjectPaging implements DebugDumpable, Serializable {
 		this.cookie = cookie;
 	}
 
+	/**
+	 * Keyset (seek) paging. Instead of skipping a number of objects (offset), the data store returns objects
+	 * that follow a given key in the ordering. The key consists of the values of all ordering items and the OID
+	 * of the last object of the previous page. The cost of fetching a page therefore does not depend on its
+	 * position, and objects added or deleted in the meantime do not cause objects to be skipped or repeated.
+	 *
+	 * For this to work, the ordering has to be total: OID is used as the implicit last ordering item,
+	 * and null values are always sorted after non-null ones (regardless of the direction). Ordering items
+	 * have to be single-valued properties.
+	 *
+	 * Keyset paging without the "after" key denotes the first page.
+	 */
+	public boolean isKeyset() {
+		return keyset;
+	}
+
+	public void setKeyset(boolean keyset) {
+		this.keyset = keyset;
+	}
+
+	public String getAfterOid() {
+		return afterOid;
+	}
+
+	/**
+	 * Values of ordering items of the last object of the previous page, in the order of ordering instructions.
+	 */
+	public List<Object> getAfterOrderingValues() {
+		return afterOrderingValues;
+	}
+
+	public boolean hasAfterKey() {
+		return keyset && afterOid != null;
+	}
+
+	/**
+	 * Sets the "after" key explicitly. The values have to correspond to the ordering instructions.
+	 */
+	public void setAfter(String oid, List<?> orderingValues) {
+		if (oid != null) {
+			int expected = ordering != null ? ordering.size() : 0;
+			if (orderingValues == null ? expected != 0 : orderingValues.size() != expected) {
+				throw new IllegalArgumentException("Expected " + expected + " ordering value(s), got " + orderingValues);
+			}
+		}
+		this.keyset = true;
+		this.afterOid = oid;
+		this.afterOrderingValues = orderingValues != null ? new ArrayList<Object>(orderingValues) : null;
+	}
+
+	/**
+	 * Sets the "after" key from the last object of the previous page.
+	 */
+	public void setAfterObject(PrismObject<?> object) {
+		List<Object> values = new ArrayList<>();
+		if (ordering != null) {
+			for (ObjectOrdering objectOrdering : ordering) {
+				PrismProperty<?> property = object.findProperty(objectOrdering.getOrderBy());
+				values.add(property != null ? property.getRealValue() : null);
+			}
+		}
+		setAfter(object.getOid(), values);
+	}
+
 	public ObjectPaging clone() {
 		ObjectPaging clone = new ObjectPaging();
 		copyTo(clone);
@@ -192,6 +273,9 @@ public class ObjectPaging implements DebugDumpable, Serializable {
 			clone.ordering = null;
 		}
 		clone.cookie = this.cookie;
+		clone.keyset = this.keyset;
+		clone.afterOid = this.afterOid;
+		clone.afterOrderingValues = this.afterOrderingValues != null ? new ArrayList<>(this.afterOrderingValues) : null;
 	}
 
 	@Override
@@ -223,6 +307,16 @@ public class ObjectPaging implements DebugDumpable, Serializable {
 			DebugUtil.indentDebugDump(sb, indent + 1);
 			sb.append("Cookie: " + getCookie());
 		}
+		if (isKeyset()) {
+			sb.append("\n");
+			DebugUtil.indentDebugDump(sb, indent + 1);
+			sb.append("Keyset paging, after: ");
+			if (hasAfterKey()) {
+				sb.append(afterOrderingValues).append(", OID ").append(afterOid);
+			} else {
+				sb.append("(first page)");
+			}
+		}
 		return sb.toString();
 	}
 	
@@ -253,6 +347,10 @@ public class ObjectPaging implements DebugDumpable, Serializable {
 			sb.append("C:");
 			sb.append(getCookie());
 		}
+		if (isKeyset()) {
+			sb.append("AFTER: ");
+			sb.append(hasAfterKey() ? afterOrderingValues + "/" + afterOid : "-");
+		}
 		
 		return sb.toString();
 	}
@@ -289,6 +387,12 @@ public class ObjectPaging implements DebugDumpable, Serializable {
 				}
 			}
 		}
+		if (keyset != that.keyset)
+			return false;
+		if (afterOid != null ? !afterOid.equals(that.afterOid) : that.afterOid != null)
+			return false;
+		if (afterOrderingValues != null ? !afterOrderingValues.equals(that.afterOrderingValues) : that.afterOrderingValues != null)
+			return false;
 		return cookie != null ? cookie.equals(that.cookie) : that.cookie == null;
 	}
 
@@ -298,6 +402,9 @@ public class ObjectPaging implements DebugDumpable, Serializable {
 		result = 31 * result + (maxSize != null ? maxSize.hashCode() : 0);
 		result = 31 * result + (ordering != null ? ordering.hashCode() : 0);
 		result = 31 * result + (cookie != null ? cookie.hashCode() : 0);
+		result = 31 * result + (keyset ? 1 : 0);
+		result = 31 * result + (afterOid != null ? afterOid.hashCode() : 0);
+		result = 31 * result + (afterOrderingValues != null ? afterOrderingValues.hashCode() : 0);
 		return result;
 	}
 }
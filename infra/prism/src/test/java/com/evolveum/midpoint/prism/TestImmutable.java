@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.foo.AssignmentType;
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.prism.xjc.PrismForJAXBUtil;
+import com.evolveum.midpoint.prism.xnode.PrimitiveXNode;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.PrettyPrinter;
+
+/**
+ * Checks that immutable prism objects cannot be modified (directly, via live lists, or deep inside), that they
+ * can be read the usual ways, and that their clones are mutable. The last tests compare memory allocated
+ * by handing out clones of cached objects with handing out the immutable objects themselves.
+ */
+public class TestImmutable {
+
+	@BeforeSuite
+	public void setupDebug() throws Exception {
+		PrettyPrinter.setDefaultNamespacePrefix(DEFAULT_NAMESPACE_PREFIX);
+		PrismTestUtil.resetPrismContext(new PrismInternalTestUtil());
+	}
+
+	@Test
+	public void test100ModifyImmutableObject() throws Exception {
+		final PrismObject<UserType> user = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+		PrismObject<UserType> original = user.clone();
+		user.setImmutable(true);
+		assertTrue(user.isImmutable());
+
+		assertImmutable("setOid", new Modification() {
+			public void run() throws Exception {
+				user.setOid("12345");
+			}
+		});
+		assertImmutable("set property value", new Modification() {
+			public void run() throws Exception {
+				user.findProperty(UserType.F_FULL_NAME).setRealValue("Jack");
+			}
+		});
+		assertImmutable("change property value in place", new Modification() {
+			public void run() throws Exception {
+				PrismProperty<String> fullName = user.findProperty(UserType.F_FULL_NAME);
+				fullName.getValue().setValue("Jack");
+			}
+		});
+		assertImmutable("add property value", new Modification() {
+			public void run() throws Exception {
+				PrismProperty<String> additionalNames = user.findProperty(UserType.F_ADDITIONAL_NAMES);
+				additionalNames.addRealValue("Jacky");
+			}
+		});
+		assertImmutable("add property value via live list", new Modification() {
+			public void run() throws Exception {
+				PrismProperty<String> additionalNames = user.findProperty(UserType.F_ADDITIONAL_NAMES);
+				additionalNames.getValues().add(new PrismPropertyValue<>("Jacky"));
+			}
+		});
+		assertImmutable("remove value via iterator", new Modification() {
+			public void run() throws Exception {
+				PrismProperty<String> additionalNames = user.findProperty(UserType.F_ADDITIONAL_NAMES);
+				Iterator<PrismPropertyValue<String>> iterator = additionalNames.getValues().iterator();
+				iterator.next();
+				iterator.remove();
+			}
+		});
+		assertImmutable("remove item", new Modification() {
+			public void run() throws Exception {
+				user.removeProperty(UserType.F_FULL_NAME);
+			}
+		});
+		assertImmutable("remove item via live list", new Modification() {
+			public void run() throws Exception {
+				user.getValue().getItems().remove(0);
+			}
+		});
+		assertImmutable("sort items via live list", new Modification() {
+			public void run() throws Exception {
+				Collections.sort(user.getValue().getItems(), new Comparator<Item<?,?>>() {
+					public int compare(Item<?,?> o1, Item<?,?> o2) {
+						return o1.getElementName().getLocalPart().compareTo(o2.getElementName().getLocalPart());
+					}
+				});
+			}
+		});
+		assertImmutable("remove values via sublist", new Modification() {
+			public void run() throws Exception {
+				PrismProperty<String> additionalNames = user.findProperty(UserType.F_ADDITIONAL_NAMES);
+				additionalNames.getValues().subList(0, 1).clear();
+			}
+		});
+		assertImmutable("replace value via list iterator", new Modification() {
+			public void run() throws Exception {
+				PrismProperty<String> additionalNames = user.findProperty(UserType.F_ADDITIONAL_NAMES);
+				ListIterator<PrismPropertyValue<String>> iterator = additionalNames.getValues().listIterator();
+				iterator.next();
+				iterator.set(new PrismPropertyValue<>("Jacky"));
+			}
+		});
+		assertImmutable("add item", new Modification() {
+			public void run() throws Exception {
+				user.getValue().add(new PrismProperty<String>(UserType.F_LOCALITY));
+			}
+		});
+		assertImmutable("modify assignment", new Modification() {
+			public void run() throws Exception {
+				PrismContainer<AssignmentType> assignment = user.findContainer(UserType.F_ASSIGNMENT);
+				assignment.getValue(1111L).setId(1L);
+			}
+		});
+		assertImmutable("modify extension", new Modification() {
+			public void run() throws Exception {
+				user.getExtension().getValue().removeProperty(EXTENSION_SINGLE_STRING_TYPE_ELEMENT);
+			}
+		});
+		assertImmutable("modify reference", new Modification() {
+			public void run() throws Exception {
+				user.findReference(UserType.F_ACCOUNT_REF).getValues().get(0).setOid("12345");
+			}
+		});
+		assertImmutable("rename item", new Modification() {
+			public void run() throws Exception {
+				user.findProperty(UserType.F_FULL_NAME).setElementName(new QName(NS_FOO, "renamed"));
+			}
+		});
+		assertImmutable("create item", new Modification() {
+			public void run() throws Exception {
+				user.findOrCreateProperty(UserType.F_LOCALITY).setRealValue("Caribbean");
+			}
+		});
+
+		assertTrue("Immutable object was changed", original.equivalent(user));
+	}
+
+	@Test
+	public void test110ReadImmutableObject() throws Exception {
+		PrismObject<UserType> user = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+		user.removeContainer(UserType.F_MULTI_ACTIVATION);
+		PrismObject<UserType> original = user.clone();
+		user.setImmutable(true);
+
+		assertEquals("cpt. Jack Sparrow", user.findProperty(UserType.F_FULL_NAME).getRealValue());
+		assertEquals(2, user.findContainer(UserType.F_ASSIGNMENT).size());
+		assertNotNull(user.findItem(new ItemPath(UserType.F_EXTENSION, EXTENSION_SINGLE_STRING_TYPE_ELEMENT)));
+
+		// "find or create" methods (used by JAXB getters) create detached items instead of modifying the object
+		PrismProperty<String> locality = user.findOrCreateProperty(UserType.F_LOCALITY);
+		assertTrue(locality.isEmpty());
+		assertTrue(locality.isImmutable());
+		List<String> localities = PrismForJAXBUtil.getPropertyValues(user.getValue(), UserType.F_LOCALITY, String.class);
+		assertTrue(localities.isEmpty());
+		List<?> activations = PrismForJAXBUtil.getContainerValues(
+				(PrismContainer) user, UserType.F_MULTI_ACTIVATION, AssignmentType.class);
+		assertTrue(activations.isEmpty());
+		assertNull(user.findItem(UserType.F_LOCALITY));
+		assertNull(user.findItem(UserType.F_MULTI_ACTIVATION));
+		assertTrue("Immutable object was changed", original.equivalent(user));
+	}
+
+	@Test
+	public void test115RawValueIsParsedBeforeFreezing() throws Exception {
+		PrismObject<UserType> user = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+		PrimitiveXNode<String> rawFullName = new PrimitiveXNode<>();
+		rawFullName.setValue("Jack", DOMUtil.XSD_STRING);
+		PrismProperty<String> fullNameProperty = user.findProperty(UserType.F_FULL_NAME);
+		fullNameProperty.setValue(PrismPropertyValue.<String>createRaw(rawFullName));
+		user.setImmutable(true);
+
+		// immutable values are shared among threads, so they must not be parsed lazily on read
+		PrismPropertyValue<String> fullName = fullNameProperty.getValue();
+		assertFalse("Raw value was not parsed", fullName.isRaw());
+		assertEquals("Jack", fullName.getValue());
+	}
+
+	@Test
+	public void test120CloneIsMutable() throws Exception {
+		PrismObject<UserType> user = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+		user.setImmutable(true);
+
+		PrismObject<UserType> clone = user.clone();
+		assertFalse(clone.isImmutable());
+		clone.findProperty(UserType.F_FULL_NAME).setRealValue("Jack");
+		clone.findContainer(UserType.F_ASSIGNMENT).getValue(1111L).setId(1L);
+		clone.findReference(UserType.F_ACCOUNT_REF).getValues().get(0).setOid("12345");
+		clone.getExtension().getValue().removeProperty(EXTENSION_SINGLE_STRING_TYPE_ELEMENT);
+		clone.setOid("12345");
+
+		assertEquals("cpt. Jack Sparrow", user.findProperty(UserType.F_FULL_NAME).getRealValue());
+		assertNotNull(user.findContainer(UserType.F_ASSIGNMENT).getValue(1111L));
+		assertEquals(USER_JACK_OID, user.getOid());
+		assertFalse(clone.equivalent(user));
+
+		// value clones are mutable as well
+		PrismContainer<AssignmentType> assignment = user.findContainer(UserType.F_ASSIGNMENT);
+		PrismContainerValue<AssignmentType> assignmentClone = assignment.getValue(1111L).clone();
+		assignmentClone.setId(2L);
+
+		user.setImmutable(false);
+		user.setOid("12345");
+		user.findProperty(UserType.F_FULL_NAME).setRealValue("Jack");
+	}
+
+	/**
+	 * Simulates reads of a cached object by clients that only read a couple of properties: either each
+	 * of them gets a clone (as it was before) or all of them get the cached immutable instance.
+	 * Memory allocated per read is printed. The first pass is only a warm-up.
+	 */
+	@Test
+	public void test900AllocationPerRead() throws Exception {
+		PrismObject<UserType> user = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+		user.setImmutable(true);
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		int rounds = 20000;
+		for (boolean print : new boolean[] { false, true }) {
+			long start = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			long time = System.nanoTime();
+			for (int i = 0; i < rounds; i++) {
+				read(user.clone());
+			}
+			long cloned = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+			long clonedTime = System.nanoTime() - time;
+
+			start = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			time = System.nanoTime();
+			for (int i = 0; i < rounds; i++) {
+				read(user);
+			}
+			long shared = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+			long sharedTime = System.nanoTime() - time;
+			if (print) {
+				System.out.println(String.format("Read with clone: %d bytes, %.2f us; read of immutable instance: %d bytes, %.2f us",
+						cloned / rounds, clonedTime / 1000.0 / rounds, shared / rounds, sharedTime / 1000.0 / rounds));
+				assertTrue("Reading immutable object allocates too much", shared < cloned);
+			}
+		}
+	}
+
+	/**
+	 * Simulates the object handling part of a recompute: the focus is cloned and modified, and a couple of other
+	 * cached objects (standing for assigned roles, org and templates) are only read. Either all the cached objects
+	 * are cloned (as it was before), or only the focus is, and the others are shared immutable instances.
+	 * Memory allocated per recompute is printed. The first pass is only a warm-up.
+	 */
+	@Test
+	public void test910AllocationPerRecompute() throws Exception {
+		PrismObject<UserType> focus = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+		focus.setImmutable(true);
+		List<PrismObject<UserType>> readObjects = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			PrismObject<UserType> object = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+			object.setImmutable(true);
+			readObjects.add(object);
+		}
+		ObjectDelta<UserType> delta = ObjectDelta.createModificationReplaceProperty(UserType.class, focus.getOid(),
+				UserType.F_FULL_NAME, PrismTestUtil.getPrismContext(), "Captain Jack Sparrow");
+		com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		int rounds = 5000;
+		for (boolean print : new boolean[] { false, true }) {
+			long start = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			for (int i = 0; i < rounds; i++) {
+				recompute(focus, readObjects, delta, true);
+			}
+			long cloned = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+
+			start = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			for (int i = 0; i < rounds; i++) {
+				recompute(focus, readObjects, delta, false);
+			}
+			long shared = threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+			if (print) {
+				System.out.println(String.format("Recompute with clones: %d bytes; with immutable instances shared: %d bytes",
+						cloned / rounds, shared / rounds));
+				assertTrue("Recompute with shared immutable objects allocates too much", shared < cloned);
+			}
+		}
+	}
+
+	private void recompute(PrismObject<UserType> focus, List<PrismObject<UserType>> readObjects,
+			ObjectDelta<UserType> delta, boolean cloneReadObjects) throws Exception {
+		PrismObject<UserType> newFocus = focus.clone();
+		for (PrismObject<UserType> object : readObjects) {
+			read(cloneReadObjects ? object.clone() : object);
+		}
+		delta.applyTo(newFocus);
+	}
+
+	private void read(PrismObject<UserType> user) {
+		if (user.findProperty(UserType.F_FULL_NAME) == null || user.findContainer(UserType.F_ASSIGNMENT) == null) {
+			fail("Missing data");
+		}
+	}
+
+	private void assertImmutable(String description, Modification modification) throws Exception {
+		try {
+			modification.run();
+			fail("Immutable object was modified: " + description);
+		} catch (IllegalStateException e) {
+			if (e.getMessage() == null || !e.getMessage().contains("immutable")) {
+				throw e;
+			}
+		}
+	}
+
+	private interface Modification {
+		void run() throws Exception;
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.util.exception.SystemException;
+
+/**
+ * Checks that items of container values with many items (which are looked up using the item name index)
+ * are found the same way as in small ones. The last test measures item lookups in container values
+ * of typical shapes, with and without the index.
+ */
+public class TestItemNameIndex {
+
+	private static final String NS_OTHER = "http://example.com/xml/ns/other";
+	private static final int ATTRIBUTES = 40;
+
+	@BeforeSuite
+	public void setupDebug() throws Exception {
+		PrettyPrinter.setDefaultNamespacePrefix(DEFAULT_NAMESPACE_PREFIX);
+		PrismTestUtil.resetPrismContext(new PrismInternalTestUtil());
+	}
+
+	@AfterMethod
+	public void resetThreshold() {
+		PrismContainerValue.setItemNameIndexThreshold(PrismContainerValue.DEFAULT_ITEM_NAME_INDEX_THRESHOLD);
+	}
+
+	@Test
+	public void test100FindItems() throws Exception {
+		PrismContainerValue<?> attributes = createAttributes(ATTRIBUTES);
+
+		PrismProperty<String> attr5 = attributes.findProperty(new QName(NS_EXTENSION, "attr5"));
+		assertNotNull("attr5 not found", attr5);
+		assertSame("attr5 not found by unqualified name", attr5, attributes.findProperty(new QName("attr5")));
+		assertNull("attr5 found in wrong namespace", attributes.findProperty(new QName(NS_OTHER, "attr5")));
+		assertNull("nonexistent attribute found", attributes.findProperty(new QName(NS_EXTENSION, "attrX")));
+
+		// unqualified item matches any namespace
+		PrismProperty<String> unqualified = new PrismProperty<>(new QName("unqualified"));
+		attributes.add(unqualified);
+		assertSame(unqualified, attributes.findProperty(new QName(NS_EXTENSION, "unqualified")));
+
+		// ambiguous unqualified name
+		attributes.add(new PrismProperty<String>(new QName(NS_OTHER, "attr5")));
+		assertSame(attr5, attributes.findProperty(new QName(NS_EXTENSION, "attr5")));
+		try {
+			attributes.findProperty(new QName("attr5"));
+			fail("Ambiguous name was resolved");
+		} catch (SystemException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void test110ChangedItems() throws Exception {
+		PrismContainerValue<?> attributes = createAttributes(ATTRIBUTES);
+		QName attr7Name = new QName(NS_EXTENSION, "attr7");
+		assertNotNull(attributes.findProperty(attr7Name));
+
+		attributes.removeProperty(attr7Name);
+		assertNull("removed attribute found", attributes.findProperty(attr7Name));
+
+		// items changed directly
+		PrismProperty<?> attr8 = attributes.findProperty(new QName(NS_EXTENSION, "attr8"));
+		attributes.getItems().remove(attr8);
+		assertNull("removed attribute found", attributes.findProperty(new QName(NS_EXTENSION, "attr8")));
+		attributes.getItems().add(attr8);
+		assertSame(attr8, attributes.findProperty(new QName(NS_EXTENSION, "attr8")));
+
+		// item renamed
+		attr8.setElementName(new QName(NS_EXTENSION, "renamed"));
+		assertNull(attributes.findProperty(new QName(NS_EXTENSION, "attr8")));
+		assertSame(attr8, attributes.findProperty(new QName("renamed")));
+
+		PrismContainerValue<?> clone = attributes.clone();
+		assertEquals(attributes.getItems().size(), clone.getItems().size());
+		assertNotNull(clone.findProperty(new QName(NS_EXTENSION, "renamed")));
+		assertNull(clone.findProperty(attr7Name));
+	}
+
+	@Test
+	public void test200SameResultsWithoutIndex() throws Exception {
+		List<QName> names = new ArrayList<>();
+		for (int i = 0; i < ATTRIBUTES + 5; i++) {
+			names.add(new QName(NS_EXTENSION, "attr" + i));
+			names.add(new QName("attr" + i));
+			names.add(new QName(NS_OTHER, "attr" + i));
+		}
+		List<String> withIndex = findAll(names);
+		PrismContainerValue.setItemNameIndexThreshold(Integer.MAX_VALUE);
+		List<String> withoutIndex = findAll(names);
+		assertEquals("Different items found with and without index", withoutIndex, withIndex);
+	}
+
+	private List<String> findAll(List<QName> names) throws Exception {
+		PrismContainerValue<?> attributes = createAttributes(ATTRIBUTES);
+		attributes.add(new PrismProperty<String>(new QName(NS_OTHER, "attr3")));
+		attributes.removeProperty(new QName(NS_EXTENSION, "attr10"));
+		List<String> rv = new ArrayList<>();
+		for (QName name : names) {
+			try {
+				Item<?,?> item = attributes.findItem(name);
+				rv.add(name + " -> " + (item != null ? item.getElementName() : null));
+			} catch (SystemException e) {
+				rv.add(name + " -> ambiguous");
+			}
+		}
+		return rv;
+	}
+
+	/**
+	 * Looks up all the items (and a missing one) of the user and of the "attributes" container value,
+	 * with and without the index. The attributes are meant to resemble attributes of a shadow.
+	 * The first pass is only a warm-up.
+	 */
+	@Test
+	public void test900LookupPerformance() throws Exception {
+		PrismObject<UserType> user = PrismTestUtil.parseObject(USER_JACK_FILE_XML);
+		for (boolean print : new boolean[] { false, true }) {
+			measure("user", user.getValue(), false, print);
+			measure("user (unqualified)", user.getValue(), true, print);
+			for (int size : new int[] { 4, 8, 16, ATTRIBUTES, 100 }) {
+				measure("attributes", createAttributes(size), false, print);
+			}
+		}
+	}
+
+	private void measure(String label, PrismContainerValue<?> value, boolean unqualified, boolean print) {
+		List<QName> names = new ArrayList<>();
+		for (Item<?,?> item : value.getItems()) {
+			QName name = item.getElementName();
+			names.add(unqualified ? new QName(name.getLocalPart()) : name);
+		}
+		names.add(new QName(NS_EXTENSION, "nonexistent"));
+
+		PrismContainerValue.setItemNameIndexThreshold(0);
+		double indexed = measureLookups(value, names);
+		PrismContainerValue.setItemNameIndexThreshold(Integer.MAX_VALUE);
+		double sequential = measureLookups(value, names);
+		PrismContainerValue.setItemNameIndexThreshold(PrismContainerValue.DEFAULT_ITEM_NAME_INDEX_THRESHOLD);
+		if (print) {
+			System.out.println(String.format("%s, %d items: indexed %.1f ns/lookup, sequential %.1f ns/lookup",
+					label, value.getItems().size(), indexed, sequential));
+		}
+	}
+
+	private double measureLookups(PrismContainerValue<?> value, List<QName> names) {
+		int rounds = 200000 / names.size();
+		// warm-up
+		for (int round = 0; round < rounds; round++) {
+			for (QName name : names) {
+				value.findItem(name);
+			}
+		}
+		long start = System.nanoTime();
+		for (int round = 0; round < rounds; round++) {
+			for (QName name : names) {
+				value.findItem(name);
+			}
+		}
+		return ((double) (System.nanoTime() - start)) / rounds / names.size();
+	}
+
+	private PrismContainerValue<?> createAttributes(int count) throws Exception {
+		PrismContainerValue<?> value = new PrismContainerValue<>(PrismTestUtil.getPrismContext());
+		for (int i = 0; i < count; i++) {
+			PrismProperty<String> attribute = new PrismProperty<>(new QName(NS_EXTENSION, "attr" + i));
+			attribute.setValue(new PrismPropertyValue<>("value" + i));
+			value.add(attribute);
+		}
+		return value;
+	}
+}
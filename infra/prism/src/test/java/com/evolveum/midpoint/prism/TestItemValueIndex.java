@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.foo.AssignmentType;
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.util.PrettyPrinter;
+
+/**
+ * Checks that items with many values (which are looked up using the value index) behave the same as small ones.
+ * The last test measures the time of building an item with uniqueness checks, with and without the index,
+ * which shows where the threshold should be.
+ */
+public class TestItemValueIndex {
+
+	private static final int VALUES = 200;
+
+	private PrismContext prismContext;
+
+	@BeforeSuite
+	public void setupDebug() {
+		PrettyPrinter.setDefaultNamespacePrefix(DEFAULT_NAMESPACE_PREFIX);
+	}
+
+	@AfterMethod
+	public void resetThreshold() {
+		Item.setValueIndexThreshold(Item.DEFAULT_VALUE_INDEX_THRESHOLD);
+	}
+
+	@Test
+	public void test100PropertyValues() throws Exception {
+		PrismObject<UserType> user = createUser();
+		PrismProperty<String> property = user.findOrCreateProperty(UserType.F_ADDITIONAL_NAMES);
+		for (int i = 0; i < VALUES; i++) {
+			assertTrue("Value " + i + " not added", property.add(new PrismPropertyValue<>("name" + i)));
+		}
+		assertFalse("Duplicate value added", property.add(new PrismPropertyValue<>("name10")));
+		assertEquals("Wrong # of values", VALUES, property.size());
+
+		assertTrue(property.hasRealValue(new PrismPropertyValue<>("name150")));
+		assertFalse(property.hasRealValue(new PrismPropertyValue<>("nameX")));
+		assertSame(property.getValue(7), property.findValue(new PrismPropertyValue<>("name7"), true));
+
+		assertTrue("Value not removed", property.remove(new PrismPropertyValue<>("name20")));
+		assertFalse("Value removed twice", property.remove(new PrismPropertyValue<>("name20")));
+		assertFalse(property.hasRealValue(new PrismPropertyValue<>("name20")));
+		assertEquals("Wrong value order", "name21", property.getValue(20).getValue());
+
+		// values changed directly
+		property.getValues().add(new PrismPropertyValue<>("direct"));
+		assertTrue(property.hasRealValue(new PrismPropertyValue<>("direct")));
+		property.getValues().remove(0);
+		assertFalse(property.hasRealValue(new PrismPropertyValue<>("name0")));
+
+		// value changed in place
+		property.getValue(0).setValue("changed");
+		assertTrue(property.hasRealValue(new PrismPropertyValue<>("changed")));
+		assertFalse(property.hasRealValue(new PrismPropertyValue<>("name1")));
+
+		property.deleteValue(new PrismPropertyValue<>("changed"));
+		property.addValue(new PrismPropertyValue<>("name2"));
+		assertEquals("Wrong # of values", VALUES - 2, property.size());
+		assertEquals("Wrong last value", "name2", property.getValue(-1).getValue());
+	}
+
+	@Test
+	public void test110ReferenceValues() throws Exception {
+		PrismObject<UserType> user = createUser();
+		PrismReference reference = user.findOrCreateReference(UserType.F_ACCOUNT_REF);
+		for (int i = 0; i < VALUES; i++) {
+			reference.add(ref(reference, "oid" + i));
+		}
+		assertTrue(reference.containsRealValue(ref(reference, "oid42")));
+		assertFalse(reference.containsRealValue(ref(reference, "oidX")));
+
+		PrismReferenceValue byObject = new PrismReferenceValue();
+		PrismObject<UserType> target = createUser();
+		target.setOid("oidObject");
+		byObject.setObject(target);
+		reference.add(byObject);
+		assertTrue("Reference not merged", reference.merge(ref(reference, "oid5")));
+		assertEquals("Wrong # of values", VALUES + 1, reference.size());
+		assertTrue(reference.containsRealValue(ref(reference, "oid5")));
+
+		reference.getValue(3).setOid("oidChanged");
+		assertTrue(reference.containsRealValue(ref(reference, "oidChanged")));
+		assertFalse(reference.containsRealValue(ref(reference, "oid3")));
+
+		assertTrue(reference.remove(ref(reference, "oid100")));
+		assertFalse(reference.containsRealValue(ref(reference, "oid100")));
+		assertEquals("Wrong # of values", VALUES, reference.size());
+	}
+
+	@Test
+	public void test120ContainerValues() throws Exception {
+		PrismObject<UserType> user = createUser();
+		PrismContainer<AssignmentType> assignment = user.findOrCreateContainer(UserType.F_ASSIGNMENT);
+		for (int i = 0; i < VALUES; i++) {
+			PrismContainerValue<AssignmentType> value = assignment.createNewValue();
+			value.setId((long) i);
+			value.findOrCreateProperty(AssignmentType.F_DESCRIPTION).setRealValue("assignment " + i);
+		}
+		assertEquals("Wrong # of values", VALUES, assignment.size());
+		assertNotNull(assignment.findValue(150L));
+		assertEquals("assignment 150", assignment.findValue(150L).getPropertyRealValue(AssignmentType.F_DESCRIPTION, String.class));
+		assertNull(assignment.getValue((long) VALUES));
+
+		// values without IDs
+		PrismContainerValue<AssignmentType> newValue = assignment.createNewValue();
+		newValue.findOrCreateProperty(AssignmentType.F_DESCRIPTION).setRealValue("new");
+		assertNull(assignment.getValue((long) VALUES));
+		newValue.setId((long) VALUES);
+		assertSame(newValue, assignment.getValue((long) VALUES));
+
+		try {
+			PrismContainerValue<AssignmentType> duplicate = new PrismContainerValue<>();
+			duplicate.setId(5L);
+			assignment.add(duplicate);
+			throw new AssertionError("Value with duplicate ID was added");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		PrismContainerValue<AssignmentType> toRemove = assignment.getValue(10L).clone();
+		assertTrue(assignment.contains(toRemove));
+		assertTrue(assignment.remove(toRemove));
+		assertNull(assignment.getValue(10L));
+		assertEquals("Wrong # of values", VALUES, assignment.size());
+	}
+
+	@Test
+	public void test200SameResultsWithoutIndex() throws Exception {
+		List<String> withIndex = buildAndModify();
+		Item.setValueIndexThreshold(Integer.MAX_VALUE);
+		List<String> withoutIndex = buildAndModify();
+		assertEquals("Different values with and without index", withoutIndex, withIndex);
+	}
+
+	private List<String> buildAndModify() throws Exception {
+		PrismObject<UserType> user = createUser();
+		PrismProperty<String> property = user.findOrCreateProperty(UserType.F_ADDITIONAL_NAMES);
+		for (int i = 0; i < VALUES; i++) {
+			property.add(new PrismPropertyValue<>("v" + (i % 150)));
+		}
+		for (int i = 0; i < VALUES; i += 3) {
+			property.remove(new PrismPropertyValue<>("v" + i));
+		}
+		for (int i = 0; i < VALUES; i += 2) {
+			property.addValue(new PrismPropertyValue<>("v" + i));
+		}
+		List<String> rv = new ArrayList<>();
+		for (PrismPropertyValue<String> value : property.getValues()) {
+			rv.add(value.getValue());
+		}
+		return rv;
+	}
+
+	/**
+	 * Adds values with uniqueness check, with and without the index. Average time per item is printed,
+	 * so the point where the index starts to pay off can be seen. Times depend on the machine, so they are not asserted.
+	 */
+	@Test
+	public void test900Crossover() throws Exception {
+		int[] sizes = { 2, 4, 8, 16, 32, 64, 128, 1024, 8192 };
+		for (int size : sizes) {
+			Item.setValueIndexThreshold(0);
+			double indexed = measureAdd(size);
+			Item.setValueIndexThreshold(Integer.MAX_VALUE);
+			double sequential = measureAdd(size);
+			System.out.println(String.format("%5d values: indexed %.4f ms, sequential %.4f ms", size, indexed, sequential));
+		}
+
+		Item.setValueIndexThreshold(Item.DEFAULT_VALUE_INDEX_THRESHOLD);
+		PerfRecorder recorder = new PerfRecorder("add 20000 values");
+		for (int i = 0; i < 5; i++) {
+			recorder.record(i, measureAdd(20000));
+		}
+		System.out.println(recorder.dump());
+	}
+
+	private double measureAdd(int size) throws Exception {
+		PrismObject<UserType> user = createUser();
+		int rounds = Math.max(1, 20000 / size);
+		long start = System.nanoTime();
+		for (int round = 0; round < rounds; round++) {
+			user.removeProperty(UserType.F_ADDITIONAL_NAMES);
+			PrismProperty<String> property = user.findOrCreateProperty(UserType.F_ADDITIONAL_NAMES);
+			for (int i = 0; i < size; i++) {
+				property.add(new PrismPropertyValue<>("value" + i));
+			}
+		}
+		return ((double) (System.nanoTime() - start)) / 1000000 / rounds;
+	}
+
+	private PrismReferenceValue ref(PrismReference reference, String oid) {
+		PrismReferenceValue value = new PrismReferenceValue(oid);
+		value.setTargetType(reference.getDefinition().getTargetTypeName());
+		return value;
+	}
+
+	private PrismObject<UserType> createUser() throws Exception {
+		if (prismContext == null) {
+			prismContext = constructInitializedPrismContext();
+		}
+		PrismObjectDefinition<UserType> userDefinition = getFooSchema(prismContext).findObjectDefinitionByElementName(new QName(NS_FOO, "user"));
+		return userDefinition.instantiate();
+	}
+}
@@ -37,10 +37,20 @@ import static com.evolveum.midpoint.prism.PrismInternalTestUtil.EXTENSION_SINGLE
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.EXTENSION_STRING_TYPE_ELEMENT;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.NS_FOO;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_ADHOC_BOTTLES_ELEMENT;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_ACCOUNTREF_QNAME;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_ASSIGNMENT_DESCRIPTION_PATH;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_ASSIGNMENT_QNAME;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_BARBOSSA_FILE_BASENAME;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_DESCRIPTION_QNAME;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_ENABLED_PATH;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_EXTENSION_QNAME;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_FULLNAME_QNAME;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_JACK_ADHOC_BASENAME;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_JACK_FILE_BASENAME;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_JACK_OBJECT_BASENAME;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_JACK_OID;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_NAME_QNAME;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_VALID_FROM_PATH;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_WILL_FILE_BASENAME;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.assertContainerDefinition;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.assertUserJack;
@@ -55,6 +65,7 @@ import static org.testng.AssertJUnit.assertTrue;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Collection;
 
 import javax.xml.datatype.Duration;
@@ -70,6 +81,7 @@ import com.evolveum.midpoint.prism.delta.DiffUtil;
 import com.evolveum.midpoint.prism.delta.ObjectDelta;
 import com.evolveum.midpoint.prism.foo.UserType;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.util.PrismAsserts;
 import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
 import com.evolveum.midpoint.util.DOMUtil;
@@ -140,6 +152,38 @@ public abstract class TestPrismParsing {
 	}
 	
 		
+	@Test
+	public void testPrismParseFileIncludedItems() throws Exception {
+		final String TEST_NAME = "testPrismParseFileIncludedItems";
+		PrismInternalTestUtil.displayTestTitle(TEST_NAME);
+		// GIVEN
+		PrismContext prismContext = constructInitializedPrismContext();
+		ParsingContext parsingContext = ParsingContext.createDefault();
+		parsingContext.setItemsToInclude(Arrays.asList(new ItemPath(USER_NAME_QNAME), USER_ENABLED_PATH,
+				USER_ASSIGNMENT_DESCRIPTION_PATH));
+
+		// WHEN
+		PrismObject<UserType> user = prismContext.parseObject(getFile(USER_JACK_FILE_BASENAME), parsingContext);
+
+		// THEN
+		System.out.println("User:");
+		System.out.println(user.debugDump());
+		assertEquals("Wrong OID", USER_JACK_OID, user.getOid());
+		assertEquals("Wrong version", "42", user.getVersion());
+		PrismAsserts.assertPropertyValue(user, USER_NAME_QNAME, new PolyString("jack", "jack"));
+		PrismAsserts.assertPropertyValue(user, USER_ENABLED_PATH, true);
+		assertNull("Full name was not skipped", user.findProperty(USER_FULLNAME_QNAME));
+		assertNull("Extension was not skipped", user.findContainer(USER_EXTENSION_QNAME));
+		assertNull("Account ref was not skipped", user.findReference(USER_ACCOUNTREF_QNAME));
+		assertNull("Valid from was not skipped", user.findProperty(USER_VALID_FROM_PATH));
+		PrismContainer<?> assignment = user.findContainer(USER_ASSIGNMENT_QNAME);
+		assertEquals("Wrong # of assignments", 2, assignment.size());
+		for (PrismContainerValue<?> assignmentValue : assignment.getValues()) {
+			assertEquals("Wrong items in assignment " + assignmentValue, 1, assignmentValue.getItems().size());
+			assertNotNull("No assignment description", assignmentValue.findProperty(USER_DESCRIPTION_QNAME));
+		}
+	}
+
 	@Test
 	public void testRoundTrip() throws Exception {
 		final String TEST_NAME = "testRoundTrip";
@@ -20,6 +20,8 @@ import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.PrismInternalTestUtil;
 import com.evolveum.midpoint.prism.crypto.Protector;
 import com.evolveum.midpoint.prism.crypto.TestProtector;
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.parser.util.XNodeProcessorUtil;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
 import com.evolveum.midpoint.prism.xnode.MapXNode;
@@ -36,7 +38,13 @@ import javax.xml.namespace.QName;
 import java.io.IOException;
 
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.DEFAULT_NAMESPACE_PREFIX;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_ASSIGNMENT_DESCRIPTION_PATH;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_FULLNAME_QNAME;
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.USER_JACK_FILE_XML;
 import static com.evolveum.midpoint.prism.PrismInternalTestUtil.displayTestTitle;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.AssertJUnit.assertEquals;
 
@@ -81,4 +89,34 @@ public class TestXmlSerialization {
             assertTrue(e.getMessage().contains("Invalid character"), "Didn't get expected error message");
         }
     }
+
+	@Test
+	public void testSkippingItems() throws Exception {
+		final String TEST_NAME = "testSkippingItems";
+		displayTestTitle(TEST_NAME);
+
+		// GIVEN
+		PrismContext prismContext = PrismTestUtil.getPrismContext();
+		PrismObject<UserType> user = prismContext.parseObject(USER_JACK_FILE_XML);
+		PrismObject<UserType> userBefore = user.clone();
+		SerializationOptions options = SerializationOptions.createItemsToSkip(
+				new ItemPath(USER_FULLNAME_QNAME), USER_ASSIGNMENT_DESCRIPTION_PATH);
+
+		// WHEN
+		String xml = prismContext.serializeObjectToString(user, PrismContext.LANG_XML, options);
+
+		// THEN
+		System.out.println("Serialized user:\n" + xml);
+		PrismObject<UserType> parsed = prismContext.parseObject(xml);
+		assertNull(parsed.findProperty(USER_FULLNAME_QNAME), "fullName was not skipped");
+		PrismContainer<?> assignment = parsed.findContainer(PrismInternalTestUtil.USER_ASSIGNMENT_QNAME);
+		assertNotNull(assignment, "assignment was skipped");
+		assertFalse(assignment.isEmpty(), "assignment values were skipped");
+		for (PrismContainerValue<?> assignmentValue : assignment.getValues()) {
+			assertNull(assignmentValue.findProperty(PrismInternalTestUtil.USER_DESCRIPTION_QNAME),
+					"assignment description was not skipped");
+		}
+		assertNotNull(parsed.findProperty(PrismInternalTestUtil.USER_DESCRIPTION_QNAME), "user description was skipped");
+		assertTrue(user.equivalent(userBefore), "Serialized object was changed");
+	}
 }
@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism.parser;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+
+import org.apache.commons.codec.binary.Base64;
+import org.testng.annotations.BeforeSuite;
+import org.testng.annotations.Test;
+
+import com.evolveum.midpoint.prism.Objectable;
+import com.evolveum.midpoint.prism.ParsingContext;
+import com.evolveum.midpoint.prism.PrismInternalTestUtil;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.prism.xnode.ListXNode;
+import com.evolveum.midpoint.prism.xnode.MapXNode;
+import com.evolveum.midpoint.prism.xnode.PrimitiveXNode;
+import com.evolveum.midpoint.prism.xnode.RootXNode;
+import com.evolveum.midpoint.prism.xnode.XNode;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.Handler;
+import com.evolveum.midpoint.util.PrettyPrinter;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+
+/**
+ * Checks that XNodes and objects survive a round trip through the binary language unchanged, and that
+ * collections can be written and read object by object. The last test compares size and speed of the binary
+ * language with XML.
+ */
+public class TestBinaryParser {
+
+	private static final String NS_TEST = "http://midpoint.evolveum.com/xml/ns/test/binary";
+	private static final String[] OBJECT_FILES = { USER_JACK_FILE_BASENAME, "user-jack-adhoc", "user-barbossa", "user-will", "resource-rum" };
+
+	@BeforeSuite
+	public void setupDebug() throws Exception {
+		PrettyPrinter.setDefaultNamespacePrefix(DEFAULT_NAMESPACE_PREFIX);
+		PrismTestUtil.resetPrismContext(new PrismInternalTestUtil());
+	}
+
+	@Test
+	public void test100XNodeRoundTrip() throws Exception {
+		displayTestTitle("test100XNodeRoundTrip");
+		BinaryParser parser = new BinaryParser();
+		List<File> files = new ArrayList<>();
+		files.add(new File(COMMON_DIR, "root-foo.xml"));
+		files.addAll(Arrays.asList(COMMON_DIR_XML.listFiles()));
+		for (File file : files) {
+			System.out.println("Round trip of " + file);
+			RootXNode expected = (RootXNode) createXmlParser().parse(file);
+			byte[] data = parser.serializeToBytes(expected);
+			RootXNode actual = (RootXNode) parser.parse(new ByteArrayInputStream(data));
+			assertSameXNode(file.getName(), expected, actual);
+			assertEquals("Different XNodes for " + file, expected, actual);
+			assertTrue("Different data after second round trip for " + file, Arrays.equals(data, parser.serializeToBytes(actual)));
+		}
+	}
+
+	@Test
+	public void test110ObjectRoundTrip() throws Exception {
+		displayTestTitle("test110ObjectRoundTrip");
+		PrismContext prismContext = PrismTestUtil.getPrismContext();
+		for (String name : OBJECT_FILES) {
+			PrismObject<Objectable> expected = prismContext.parseObject(new File(COMMON_DIR_XML, name + ".xml"));
+
+			byte[] data = prismContext.serializeObjectToBinary(expected);
+			PrismObject<Objectable> actual = prismContext.parseObject(new ByteArrayInputStream(data), PrismContext.LANG_BINARY);
+			assertTrue("Different object after round trip of " + name + ":\n" + actual.debugDump(), expected.equivalent(actual));
+
+			// string form (Base64) is recognized by the language autodetection
+			String string = prismContext.serializeObjectToString(expected, PrismContext.LANG_BINARY);
+			actual = prismContext.parseObject(string);
+			assertTrue("Different object after round trip of " + name + " via string:\n" + actual.debugDump(), expected.equivalent(actual));
+		}
+	}
+
+	@Test
+	public void test120PrimitiveValues() throws Exception {
+		displayTestTitle("test120PrimitiveValues");
+		MapXNode xmap = new MapXNode();
+		put(xmap, "string", "Hello, šálek ☕", DOMUtil.XSD_STRING);
+		put(xmap, "emptyString", "", DOMUtil.XSD_STRING);
+		put(xmap, "int", -42, DOMUtil.XSD_INT);
+		put(xmap, "long", Long.MIN_VALUE, DOMUtil.XSD_LONG);
+		put(xmap, "boolean", true, DOMUtil.XSD_BOOLEAN);
+		put(xmap, "qname", new QName(NS_TEST, "value", "tst"), DOMUtil.XSD_QNAME);
+		put(xmap, "date", XmlTypeConverter.createXMLGregorianCalendar("2016-05-04T12:34:56.789+02:00"), DOMUtil.XSD_DATETIME);
+		put(xmap, "polyString", new PolyString("Šálek", "salek"), PolyStringType.COMPLEX_TYPE);
+		put(xmap, "bytes", new byte[] { 0, 1, -1, 127 }, DOMUtil.XSD_BASE64BINARY);
+		put(xmap, "double", 3.25, DOMUtil.XSD_DOUBLE);
+		put(xmap, "path", new ItemPath(new QName(NS_TEST, "a"), new QName(NS_FOO, "b")), ItemPath.XSD_TYPE);
+		PrimitiveXNode<String> untyped = new PrimitiveXNode<>("untyped");
+		untyped.setAttribute(true);
+		untyped.setComment("comment");
+		untyped.setMaxOccurs(-1);
+		untyped.setExplicitTypeDeclaration(true);
+		xmap.put(new QName(NS_TEST, "untyped"), untyped);
+		xmap.put(new QName(NS_TEST, "null"), new PrimitiveXNode<>());
+		ListXNode xlist = new ListXNode();
+		for (int i = 0; i < 3; i++) {
+			xlist.add(new PrimitiveXNode<>(i));
+		}
+		xmap.put(new QName(NS_TEST, "list"), xlist);
+
+		BinaryParser parser = new BinaryParser();
+		RootXNode xroot = (RootXNode) parser.parse(parser.serializeToString(new RootXNode(new QName(NS_TEST, "root"), xmap)));
+		MapXNode actual = (MapXNode) xroot.getSubnode();
+		System.out.println(actual.debugDump());
+
+		assertEquals("Hello, šálek ☕", value(actual, "string"));
+		assertEquals("", value(actual, "emptyString"));
+		assertEquals(-42, value(actual, "int"));
+		assertEquals(Long.MIN_VALUE, value(actual, "long"));
+		assertEquals(Boolean.TRUE, value(actual, "boolean"));
+		QName qname = value(actual, "qname");
+		assertEquals(new QName(NS_TEST, "value"), qname);
+		assertEquals("tst", qname.getPrefix());
+		assertEquals(XmlTypeConverter.createXMLGregorianCalendar("2016-05-04T12:34:56.789+02:00"), value(actual, "date"));
+		PolyString polyString = value(actual, "polyString");
+		assertEquals("Šálek", polyString.getOrig());
+		assertEquals("salek", polyString.getNorm());
+		assertTrue(Arrays.equals(new byte[] { 0, 1, -1, 127 }, (byte[]) value(actual, "bytes")));
+		assertEquals(3.25, value(actual, "double"));
+		assertEquals(new ItemPath(new QName(NS_TEST, "a"), new QName(NS_FOO, "b")), value(actual, "path"));
+
+		PrimitiveXNode<?> actualUntyped = (PrimitiveXNode<?>) actual.get(new QName(NS_TEST, "untyped"));
+		assertEquals("untyped", actualUntyped.getValue());
+		assertNull(actualUntyped.getTypeQName());
+		assertTrue(actualUntyped.isAttribute());
+		assertEquals("comment", actualUntyped.getComment());
+		assertEquals(Integer.valueOf(-1), actualUntyped.getMaxOccurs());
+		assertTrue(actualUntyped.isExplicitTypeDeclaration());
+		PrimitiveXNode<?> actualNull = (PrimitiveXNode<?>) actual.get(new QName(NS_TEST, "null"));
+		assertTrue(actualNull.isParsed());
+		assertNull(actualNull.getValue());
+		assertFalse(((PrimitiveXNode<?>) actual.get(new QName(NS_TEST, "string"))).isAttribute());
+		assertEquals(xlist, actual.get(new QName(NS_TEST, "list")));
+	}
+
+	@Test
+	public void test200StreamingCollection() throws Exception {
+		displayTestTitle("test200StreamingCollection");
+		PrismContext prismContext = PrismTestUtil.getPrismContext();
+		PrismObject<UserType> jack = prismContext.parseObject(USER_JACK_FILE_XML);
+		byte[] single = prismContext.serializeObjectToBinary(jack);
+		byte[] data = createObjectsData(jack, 10);
+		System.out.println("Single object: " + single.length + " bytes, 10 objects: " + data.length + " bytes");
+		assertTrue("Names are not shared among objects of a collection", data.length < 10 * single.length);
+
+		BinaryParser.CollectionReader reader = new BinaryParser().openCollection(new ByteArrayInputStream(data));
+		assertTrue("Wrong first object", jack.equivalent(prismContext.getXnodeProcessor().parseObject(reader.next(), ParsingContext.createDefault())));
+		reader.close();
+		assertNull("Object read after the reader was closed", reader.next());
+
+		final List<PrismObject<? extends Objectable>> objects = new ArrayList<>();
+		prismContext.parseObjects(new ByteArrayInputStream(data), PrismContext.LANG_BINARY, new Handler<PrismObject<? extends Objectable>>() {
+			@Override
+			public boolean handle(PrismObject<? extends Objectable> object) {
+				objects.add(object);
+				return true;
+			}
+		});
+		assertEquals("Wrong # of objects", 10, objects.size());
+		for (PrismObject<? extends Objectable> object : objects) {
+			assertTrue("Wrong object parsed:\n" + object.debugDump(), jack.equivalent(object));
+		}
+
+		final int[] count = new int[1];
+		prismContext.parseObjects(new ByteArrayInputStream(data), PrismContext.LANG_BINARY, new Handler<PrismObject<? extends Objectable>>() {
+			@Override
+			public boolean handle(PrismObject<? extends Objectable> object) {
+				return ++count[0] < 3;
+			}
+		});
+		assertEquals("Parsing was not stopped by the handler", 3, count[0]);
+	}
+
+	@Test
+	public void test210MalformedData() throws Exception {
+		displayTestTitle("test210MalformedData");
+		BinaryParser parser = new BinaryParser();
+		byte[] data = PrismTestUtil.getPrismContext().serializeObjectToBinary(PrismTestUtil.parseObject(USER_JACK_FILE_XML));
+		try {
+			parser.parse(new ByteArrayInputStream(Arrays.copyOf(data, data.length / 2)));
+			fail("Truncated data were parsed");
+		} catch (EOFException e) {
+			System.out.println("Expected exception: " + e);
+		}
+		try {
+			parser.parse(new ByteArrayInputStream("<user/>".getBytes("UTF-8")));
+			fail("Text data were parsed");
+		} catch (SchemaException e) {
+			System.out.println("Expected exception: " + e);
+		}
+		assertFalse(parser.canParse("<user/>"));
+		assertFalse(parser.canParse(USER_JACK_FILE_XML));
+	}
+
+	/**
+	 * Lengths in the data are not trusted: a corrupted length must not make the parser allocate a huge array
+	 * before finding out that the data are not there.
+	 */
+	@Test
+	public void test220CorruptedLength() throws Exception {
+		displayTestTitle("test220CorruptedLength");
+		BinaryParser parser = new BinaryParser();
+
+		// root element named "a" with a binary value claiming to have almost 2 GB
+		ByteArrayOutputStream bytesValue = createRootHeader("a");
+		bytesValue.write(4);				// TAG_PRIMITIVE
+		bytesValue.write(0);				// no flags
+		bytesValue.write(10);				// VALUE_BYTES
+		writeUnsigned(bytesValue, Integer.MAX_VALUE - 10);
+		bytesValue.write(new byte[100]);
+		assertCorruptedDataRejected(parser, bytesValue.toByteArray());
+
+		// root element name claiming to have almost 2 GB
+		ByteArrayOutputStream longName = startRootName();
+		writeUnsigned(longName, Integer.MAX_VALUE);
+		longName.write("abc".getBytes("UTF-8"));
+		assertCorruptedDataRejected(parser, longName.toByteArray());
+	}
+
+	// data header and the beginning of a root node, up to the length of the root element local name
+	private ByteArrayOutputStream startRootName() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(new byte[] { 0, 'M', 'P', 'B', 1 });
+		out.write(1);						// TAG_ROOT
+		out.write(1);						// new name
+		out.write(0);						// new namespace symbol
+		out.write(1);						// empty namespace
+		return out;
+	}
+
+	private ByteArrayOutputStream createRootHeader(String rootName) throws Exception {
+		ByteArrayOutputStream out = startRootName();
+		byte[] name = rootName.getBytes("UTF-8");
+		writeUnsigned(out, name.length + 1);
+		out.write(name);
+		out.write(0);						// no flags
+		return out;
+	}
+
+	private void writeUnsigned(ByteArrayOutputStream out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private void assertCorruptedDataRejected(BinaryParser parser, byte[] data) throws Exception {
+		try {
+			parser.parse(new ByteArrayInputStream(data));
+			fail("Corrupted data were parsed");
+		} catch (EOFException e) {
+			System.out.println("Expected exception: " + e);
+		}
+		try {
+			parser.parse(Base64.encodeBase64String(data));
+			fail("Corrupted data were parsed");
+		} catch (SchemaException e) {
+			System.out.println("Expected exception: " + e);
+		}
+	}
+
+	/**
+	 * Compares size of the data and speed of serialization and parsing (to XNodes and to objects) with XML.
+	 * The first pass is only a warm-up.
+	 */
+	@Test
+	public void test900SizeAndPerformance() throws Exception {
+		displayTestTitle("test900SizeAndPerformance");
+		PrismContext prismContext = PrismTestUtil.getPrismContext();
+		for (boolean print : new boolean[] { false, true }) {
+			for (String name : new String[] { USER_JACK_FILE_BASENAME, "resource-rum" }) {
+				PrismObject<Objectable> object = prismContext.parseObject(new File(COMMON_DIR_XML, name + ".xml"));
+				measure(name, object, 1000, print);
+			}
+		}
+	}
+
+	private void measure(String label, PrismObject<?> object, int rounds, boolean print) throws Exception {
+		PrismContext prismContext = PrismTestUtil.getPrismContext();
+		RootXNode xroot = prismContext.getXnodeProcessor().serializeObject((PrismObject) object);
+		StaxParser xmlParser = createXmlParser();
+		BinaryParser binaryParser = new BinaryParser();
+
+		long start = System.nanoTime();
+		String xml = null;
+		for (int i = 0; i < rounds; i++) {
+			xml = xmlParser.serializeToString(xroot);
+		}
+		double xmlSerialize = (System.nanoTime() - start) / 1000.0 / rounds;
+		start = System.nanoTime();
+		byte[] binary = null;
+		for (int i = 0; i < rounds; i++) {
+			binary = binaryParser.serializeToBytes(xroot);
+		}
+		double binarySerialize = (System.nanoTime() - start) / 1000.0 / rounds;
+
+		byte[] xmlBytes = xml.getBytes("UTF-8");
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			xmlParser.parse(new ByteArrayInputStream(xmlBytes));
+		}
+		double xmlParse = (System.nanoTime() - start) / 1000.0 / rounds;
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			binaryParser.parse(new ByteArrayInputStream(binary));
+		}
+		double binaryParse = (System.nanoTime() - start) / 1000.0 / rounds;
+
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			prismContext.parseObject(new ByteArrayInputStream(xmlBytes), PrismContext.LANG_XML);
+		}
+		double xmlObject = (System.nanoTime() - start) / 1000.0 / rounds;
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			prismContext.parseObject(new ByteArrayInputStream(binary), PrismContext.LANG_BINARY);
+		}
+		double binaryObject = (System.nanoTime() - start) / 1000.0 / rounds;
+
+		if (print) {
+			System.out.println(String.format("%s: size XML %d B, binary %d B; serialization XML %.1f us, binary %.1f us; "
+					+ "parsing to XNode XML %.1f us, binary %.1f us; parsing to object XML %.1f us, binary %.1f us",
+					label, xmlBytes.length, binary.length, xmlSerialize, binarySerialize, xmlParse, binaryParse, xmlObject, binaryObject));
+			assertTrue("Binary data are not smaller than XML", binary.length < xmlBytes.length);
+		}
+	}
+
+	private byte[] createObjectsData(PrismObject<?> object, int count) throws Exception {
+		RootXNode xroot = PrismTestUtil.getPrismContext().getXnodeProcessor().serializeObject((PrismObject) object);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		BinaryParser.CollectionWriter writer = new BinaryParser().openCollectionWriter(out);
+		for (int i = 0; i < count; i++) {
+			writer.write(xroot);
+		}
+		writer.close();
+		return out.toByteArray();
+	}
+
+	private StaxParser createXmlParser() {
+		return new StaxParser(new DomParser(PrismTestUtil.getSchemaRegistry()));
+	}
+
+	private <T> void put(MapXNode xmap, String localName, T value, QName typeName) {
+		PrimitiveXNode<T> xprim = new PrimitiveXNode<>();
+		xprim.setValue(value, typeName);
+		xmap.put(new QName(NS_TEST, localName), xprim);
+	}
+
+	private <T> T value(MapXNode xmap, String localName) throws Exception {
+		PrimitiveXNode<T> xprim = (PrimitiveXNode<T>) xmap.get(new QName(NS_TEST, localName));
+		return xprim.getParsedValue(xprim.getTypeQName());
+	}
+
+	private void assertSameXNode(String path, XNode expected, XNode actual) throws Exception {
+		if (expected == null) {
+			assertNull("Non-null node at " + path, actual);
+			return;
+		}
+		assertEquals("Wrong node class at " + path, expected.getClass(), actual.getClass());
+		assertEquals("Wrong type at " + path, expected.getTypeQName(), actual.getTypeQName());
+		assertEquals("Wrong explicit type flag at " + path, expected.isExplicitTypeDeclaration(), actual.isExplicitTypeDeclaration());
+		assertEquals("Wrong maxOccurs at " + path, expected.getMaxOccurs(), actual.getMaxOccurs());
+		assertEquals("Wrong comment at " + path, expected.getComment(), actual.getComment());
+		if (expected instanceof RootXNode) {
+			assertEquals("Wrong root element name", ((RootXNode) expected).getRootElementName(), ((RootXNode) actual).getRootElementName());
+			assertSameXNode(path, ((RootXNode) expected).getSubnode(), ((RootXNode) actual).getSubnode());
+		} else if (expected instanceof MapXNode) {
+			MapXNode expectedMap = (MapXNode) expected;
+			MapXNode actualMap = (MapXNode) actual;
+			assertEquals("Wrong keys at " + path, new ArrayList<>(expectedMap.keySet()), new ArrayList<>(actualMap.keySet()));
+			for (QName key : expectedMap.keySet()) {
+				assertSameXNode(path + "/" + key.getLocalPart(), expectedMap.get(key), actualMap.get(key));
+			}
+		} else if (expected instanceof ListXNode) {
+			ListXNode expectedList = (ListXNode) expected;
+			ListXNode actualList = (ListXNode) actual;
+			assertEquals("Wrong list size at " + path, expectedList.size(), actualList.size());
+			for (int i = 0; i < expectedList.size(); i++) {
+				assertSameXNode(path + "[" + i + "]", expectedList.get(i), actualList.get(i));
+			}
+		} else if (expected instanceof PrimitiveXNode) {
+			PrimitiveXNode<?> expectedPrimitive = (PrimitiveXNode<?>) expected;
+			PrimitiveXNode<?> actualPrimitive = (PrimitiveXNode<?>) actual;
+			assertEquals("Wrong value at " + path, expectedPrimitive.getStringValue(), actualPrimitive.getStringValue());
+			assertEquals("Wrong attribute flag at " + path, expectedPrimitive.isAttribute(), actualPrimitive.isAttribute());
+			assertEquals("Wrong emptiness at " + path, expectedPrimitive.isEmpty(), actualPrimitive.isEmpty());
+			if (!expectedPrimitive.isParsed()) {
+				assertEquals("Wrong relevant namespaces at " + path, expectedPrimitive.getRelevantNamespaceDeclarations(),
+						actualPrimitive.getRelevantNamespaceDeclarations());
+			}
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.prism.parser;
+
+import static com.evolveum.midpoint.prism.PrismInternalTestUtil.*;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+import org.w3c.dom.Element;
+
+import com.evolveum.midpoint.prism.Objectable;
+import com.evolveum.midpoint.prism.ParsingContext;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.foo.UserType;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.prism.xnode.ListXNode;
+import com.evolveum.midpoint.prism.xnode.MapXNode;
+import com.evolveum.midpoint.prism.xnode.PrimitiveXNode;
+import com.evolveum.midpoint.prism.xnode.RootXNode;
+import com.evolveum.midpoint.prism.xnode.SchemaXNode;
+import com.evolveum.midpoint.prism.xnode.XNode;
+import com.evolveum.midpoint.util.DOMUtil;
+import com.evolveum.midpoint.util.Handler;
+
+/**
+ * Runs the common parser tests using StaxParser, and checks that it produces the same XNodes as DomParser.
+ * The last test compares the parsing speed of both parsers.
+ */
+public class TestStaxParser extends AbstractParserTest {
+
+	private static final String NS_TEST = "http://midpoint.evolveum.com/xml/ns/test/stax";
+
+	@Override
+	protected String getSubdirName() {
+		return "xml";
+	}
+
+	@Override
+	protected String getFilenameSuffix() {
+		return "xml";
+	}
+
+	@Override
+	protected StaxParser createParser() {
+		return new StaxParser(createDomParser());
+	}
+
+	private DomParser createDomParser() {
+		return new DomParser(PrismTestUtil.getSchemaRegistry());
+	}
+
+	@Test
+	public void test100SameXNodesAsDomParser() throws Exception {
+		displayTestTitle("test100SameXNodesAsDomParser");
+		List<File> files = new ArrayList<>();
+		files.add(new File(COMMON_DIR, "root-foo.xml"));
+		for (File file : getCommonSubdir().listFiles()) {
+			if (file.getName().endsWith(".xml")) {
+				files.add(file);
+			}
+		}
+		for (File file : files) {
+			System.out.println("Comparing " + file);
+			XNode expected = createDomParser().parse(file);
+			XNode actual = createParser().parse(file);
+			assertSameXNode(file.getName(), expected, actual);
+			assertEquals("Different XNodes for " + file, expected, actual);
+		}
+	}
+
+	@Test
+	public void test110SameObjectsAsDomParser() throws Exception {
+		displayTestTitle("test110SameObjectsAsDomParser");
+		PrismContext prismContext = PrismTestUtil.getPrismContext();
+		XNodeProcessor processor = new XNodeProcessor(prismContext);
+		for (String name : new String[] { USER_JACK_FILE_BASENAME, "user-jack-adhoc", "user-barbossa", "user-will", "resource-rum" }) {
+			PrismObject<?> expected = processor.parseObject(createDomParser().parse(getFile(name)), ParsingContext.createDefault());
+			PrismObject<?> actual = processor.parseObject(createParser().parse(getFile(name)), ParsingContext.createDefault());
+			assertTrue("Different objects parsed from " + name + ":\n" + actual.debugDump(), expected.equivalent(actual));
+		}
+	}
+
+	@Test
+	public void test120Values() throws Exception {
+		displayTestTitle("test120Values");
+		String xml = "<root xmlns='" + NS_TEST + "' xmlns:t='" + NS_TEST + "' xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'>"
+				+ "<qname>t:name</qname>"
+				+ "<unqualified>name</unqualified>"
+				+ "<path>t:a/b/t:c</path>"
+				+ "<inner xmlns:u='http://example.com/u' attr='u:attrValue'><qname>u:name</qname><int xsi:type='xsd:int' xmlns:xsd='http://www.w3.org/2001/XMLSchema'> 42 </int></inner>"
+				+ "<nil xsi:nil='true'/>"
+				+ "<text>a<![CDATA[<b>]]>&amp;c<!-- comment --></text>"
+				+ "</root>";
+		RootXNode expected = (RootXNode) createDomParser().parse(xml);
+		RootXNode actual = (RootXNode) createParser().parse(xml);
+		assertSameXNode("root", expected, actual);
+
+		MapXNode root = (MapXNode) actual.getSubnode();
+		assertEquals(new QName(NS_TEST, "name"), parse(root, "qname", DOMUtil.XSD_QNAME));
+		assertEquals(new QName("name"), parse(root, "unqualified", DOMUtil.XSD_QNAME));
+		ItemPath path = parse(root, "path", ItemPath.XSD_TYPE);
+		assertTrue("Wrong path: " + path, new ItemPath(new QName(NS_TEST, "a"), new QName("b"), new QName(NS_TEST, "c")).equivalent(path));
+		assertEquals(parse((MapXNode) expected.getSubnode(), "path", ItemPath.XSD_TYPE), path);
+		assertEquals("a<b>&c", parse(root, "text", DOMUtil.XSD_STRING));
+		assertTrue("nil element not parsed as null", root.containsKey(new QName(NS_TEST, "nil")));
+		assertNull(root.get(new QName(NS_TEST, "nil")));
+
+		MapXNode inner = (MapXNode) root.get(new QName(NS_TEST, "inner"));
+		assertEquals(new QName("http://example.com/u", "name"), parse(inner, "qname", DOMUtil.XSD_QNAME));
+		PrimitiveXNode<?> attr = (PrimitiveXNode<?>) inner.get(new QName("attr"));
+		assertTrue(attr.isAttribute());
+		assertEquals(new QName("http://example.com/u", "attrValue"), attr.getParsedValue(DOMUtil.XSD_QNAME));
+		PrimitiveXNode<?> xint = (PrimitiveXNode<?>) inner.get(new QName(NS_TEST, "int"));
+		assertEquals(DOMUtil.XSD_INT, xint.getTypeQName());
+		assertEquals(" 42 ", xint.getStringValue());
+		Map<String, String> namespaces = xint.getValueParser().getPotentiallyRelevantNamespaces();
+		assertEquals("http://example.com/u", namespaces.get("u"));
+		assertEquals(NS_TEST, namespaces.get(null));
+	}
+
+	@Test
+	public void test200ParseObjectsFromStream() throws Exception {
+		displayTestTitle("test200ParseObjectsFromStream");
+		PrismContext prismContext = PrismTestUtil.getPrismContext();
+		byte[] data = createObjectsXml(10).getBytes("UTF-8");
+
+		Collection<XNode> xnodes = createParser().parseCollection(new ByteArrayInputStream(data));
+		assertEquals("Wrong # of objects", 10, xnodes.size());
+		Collection<XNode> xnodesFromString = createParser().parseCollection(createObjectsXml(10));
+		assertEquals("Wrong # of objects parsed from string", 10, xnodesFromString.size());
+
+		final List<PrismObject<? extends Objectable>> objects = new ArrayList<>();
+		prismContext.parseObjects(new ByteArrayInputStream(data), PrismContext.LANG_XML, new Handler<PrismObject<? extends Objectable>>() {
+			@Override
+			public boolean handle(PrismObject<? extends Objectable> object) {
+				objects.add(object);
+				return true;
+			}
+		});
+		assertEquals("Wrong # of objects", 10, objects.size());
+		PrismObject<UserType> jack = prismContext.parseObject(getFile(USER_JACK_FILE_BASENAME));
+		Iterator<XNode> xnodeIterator = xnodes.iterator();
+		Iterator<XNode> xnodeFromStringIterator = xnodesFromString.iterator();
+		XNodeProcessor processor = new XNodeProcessor(prismContext);
+		for (PrismObject<? extends Objectable> object : objects) {
+			assertTrue("Wrong object parsed:\n" + object.debugDump(), jack.equivalent(object));
+			assertTrue("Different objects parsed from collection", object.equivalent(processor.parseObject(xnodeIterator.next(), ParsingContext.createDefault())));
+			assertTrue("Different objects parsed from string", object.equivalent(processor.parseObject(xnodeFromStringIterator.next(), ParsingContext.createDefault())));
+		}
+
+		final int[] count = new int[1];
+		prismContext.parseObjects(new ByteArrayInputStream(data), PrismContext.LANG_XML, new Handler<PrismObject<? extends Objectable>>() {
+			@Override
+			public boolean handle(PrismObject<? extends Objectable> object) {
+				return ++count[0] < 3;
+			}
+		});
+		assertEquals("Parsing was not stopped by the handler", 3, count[0]);
+	}
+
+	/**
+	 * Parses the same data using both parsers. The first pass is only a warm-up.
+	 */
+	@Test
+	public void test900ParsingPerformance() throws Exception {
+		displayTestTitle("test900ParsingPerformance");
+		String jack = FileUtils.readFileToString(getFile(USER_JACK_FILE_BASENAME), "UTF-8");
+		String resource = FileUtils.readFileToString(getFile("resource-rum"), "UTF-8");
+		String objects = createObjectsXml(1000);
+		for (boolean print : new boolean[] { false, true }) {
+			measure("user", jack, 2000, print);
+			measure("resource (with schema)", resource, 500, print);
+			measureCollection("1000 users", objects, 3, print);
+		}
+	}
+
+	private void measure(String label, String data, int rounds, boolean print) throws Exception {
+		DomParser domParser = createDomParser();
+		StaxParser staxParser = createParser();
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			domParser.parse(data);
+		}
+		double dom = (System.nanoTime() - start) / 1000.0 / rounds;
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			staxParser.parse(data);
+		}
+		double stax = (System.nanoTime() - start) / 1000.0 / rounds;
+		if (print) {
+			System.out.println(String.format("%s: DOM %.1f us, StAX %.1f us", label, dom, stax));
+		}
+	}
+
+	private void measureCollection(String label, String data, int rounds, boolean print) throws Exception {
+		byte[] bytes = data.getBytes("UTF-8");
+		DomParser domParser = createDomParser();
+		StaxParser staxParser = createParser();
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			domParser.parseCollection(new ByteArrayInputStream(bytes));
+		}
+		double dom = (System.nanoTime() - start) / 1000000.0 / rounds;
+		start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			staxParser.parseCollection(new ByteArrayInputStream(bytes));
+		}
+		double stax = (System.nanoTime() - start) / 1000000.0 / rounds;
+		if (print) {
+			System.out.println(String.format("%s: DOM %.1f ms, StAX %.1f ms", label, dom, stax));
+		}
+	}
+
+	private String createObjectsXml(int count) throws IOException {
+		String jack = FileUtils.readFileToString(getFile(USER_JACK_FILE_BASENAME), "UTF-8");
+		jack = jack.substring(jack.indexOf("<user"));
+		StringBuilder sb = new StringBuilder("<?xml version='1.0'?>\n<objects xmlns='http://midpoint.evolveum.com/xml/ns/test/objects'>\n");
+		for (int i = 0; i < count; i++) {
+			sb.append(jack).append("\n<!-- object ").append(i).append(" -->\n");
+		}
+		return sb.append("</objects>").toString();
+	}
+
+	private <T> T parse(MapXNode xmap, String localName, QName typeName) throws Exception {
+		PrimitiveXNode<T> xprim = (PrimitiveXNode<T>) xmap.get(new QName(NS_TEST, localName));
+		return xprim.getParsedValue(typeName);
+	}
+
+	private void assertSameXNode(String path, XNode expected, XNode actual) {
+		if (expected == null) {
+			assertNull("Non-null node at " + path, actual);
+			return;
+		}
+		assertEquals("Wrong node class at " + path, expected.getClass(), actual.getClass());
+		assertEquals("Wrong type at " + path, expected.getTypeQName(), actual.getTypeQName());
+		assertEquals("Wrong explicit type flag at " + path, expected.isExplicitTypeDeclaration(), actual.isExplicitTypeDeclaration());
+		assertEquals("Wrong maxOccurs at " + path, expected.getMaxOccurs(), actual.getMaxOccurs());
+		if (expected instanceof RootXNode) {
+			assertEquals("Wrong root element name", ((RootXNode) expected).getRootElementName(), ((RootXNode) actual).getRootElementName());
+			assertSameXNode(path, ((RootXNode) expected).getSubnode(), ((RootXNode) actual).getSubnode());
+		} else if (expected instanceof MapXNode) {
+			MapXNode expectedMap = (MapXNode) expected;
+			MapXNode actualMap = (MapXNode) actual;
+			assertEquals("Wrong keys at " + path, new ArrayList<>(expectedMap.keySet()), new ArrayList<>(actualMap.keySet()));
+			for (QName key : expectedMap.keySet()) {
+				assertSameXNode(path + "/" + key.getLocalPart(), expectedMap.get(key), actualMap.get(key));
+			}
+		} else if (expected instanceof ListXNode) {
+			ListXNode expectedList = (ListXNode) expected;
+			ListXNode actualList = (ListXNode) actual;
+			assertEquals("Wrong list size at " + path, expectedList.size(), actualList.size());
+			for (int i = 0; i < expectedList.size(); i++) {
+				assertSameXNode(path + "[" + i + "]", expectedList.get(i), actualList.get(i));
+			}
+		} else if (expected instanceof PrimitiveXNode) {
+			PrimitiveXNode<?> expectedPrimitive = (PrimitiveXNode<?>) expected;
+			PrimitiveXNode<?> actualPrimitive = (PrimitiveXNode<?>) actual;
+			assertEquals("Wrong value at " + path, expectedPrimitive.getStringValue(), actualPrimitive.getStringValue());
+			assertEquals("Wrong attribute flag at " + path, expectedPrimitive.isAttribute(), actualPrimitive.isAttribute());
+			assertEquals("Wrong emptiness at " + path, expectedPrimitive.isEmpty(), actualPrimitive.isEmpty());
+			assertEquals("Wrong relevant namespaces at " + path, expectedPrimitive.getRelevantNamespaceDeclarations(),
+					actualPrimitive.getRelevantNamespaceDeclarations());
+		} else if (expected instanceof SchemaXNode) {
+			// namespaces declared outside the schema are copied to the schema element, so we compare only its content
+			Element expectedSchema = ((SchemaXNode) expected).getSchemaElement();
+			Element actualSchema = ((SchemaXNode) actual).getSchemaElement();
+			assertEquals("Wrong schema element at " + path, DOMUtil.getQName(expectedSchema), DOMUtil.getQName(actualSchema));
+			assertTrue("Wrong schema at " + path + ": " + DOMUtil.serializeDOMToString(actualSchema),
+					DOMUtil.compareElementList(DOMUtil.listChildElements(expectedSchema), DOMUtil.listChildElements(actualSchema), true));
+		}
+	}
+}
@@ -107,6 +107,34 @@ public class GetOperationOptions implements Serializable, Cloneable {
 	 */
 	Boolean allowNotFound;
 
+	/**
+	 * Return only the items marked as INCLUDE (by retrieve option of item-level selector options), plus
+	 * the object identity (oid, version, type). Other items are not returned, even if they would be returned
+	 * by default. This allows the repository to avoid materializing the whole object when the caller needs
+	 * only a small part of it (e.g. name and activation status in list views). Objects returned this way are
+	 * incomplete and must not be used as a base for modifications. (Currently applicable only as a top-level option.)
+	 *
+	 * EXPERIMENTAL.
+	 */
+	private Boolean retrieveIncludedOnly;
+
+	/**
+	 * The caller does not need the exact number of objects (e.g. it is used only for progress reporting or
+	 * for displaying approximate number of pages). The repository may then return an estimate based on database
+	 * statistics instead of counting the rows. Applicable to count operations only, as a top-level option.
+	 */
+	private Boolean allowEstimatedCount;
+
+	/**
+	 * The caller will not modify the returned object(s). The implementation may then return immutable
+	 * instances shared with other callers (e.g. directly from a cache) instead of fresh copies.
+	 * Any attempt to modify such an object results in an IllegalStateException; the caller has to
+	 * clone it first.
+	 *
+	 * EXPERIMENTAL.
+	 */
+	private Boolean readOnly;
+
 	public RetrieveOption getRetrieve() {
 		return retrieve;
 	}
@@ -361,6 +389,113 @@ public class GetOperationOptions implements Serializable, Cloneable {
 		return opts;
 	}
 
+	public Boolean getRetrieveIncludedOnly() {
+		return retrieveIncludedOnly;
+	}
+
+	public void setRetrieveIncludedOnly(Boolean retrieveIncludedOnly) {
+		this.retrieveIncludedOnly = retrieveIncludedOnly;
+	}
+
+	public static boolean isRetrieveIncludedOnly(GetOperationOptions options) {
+		if (options == null) {
+			return false;
+		}
+		if (options.retrieveIncludedOnly == null) {
+			return false;
+		}
+		return options.retrieveIncludedOnly;
+	}
+
+	public static GetOperationOptions createRetrieveIncludedOnly() {
+		GetOperationOptions opts = new GetOperationOptions();
+		opts.setRetrieveIncludedOnly(true);
+		return opts;
+	}
+
+	/**
+	 * Options requesting only the specified items (QNames or ItemPaths) to be returned.
+	 */
+	public static Collection<SelectorOptions<GetOperationOptions>> createRetrieveOnlyOptions(Object... items) {
+		Collection<SelectorOptions<GetOperationOptions>> rv = new ArrayList<>(items.length + 1);
+		rv.add(SelectorOptions.create(createRetrieveIncludedOnly()));
+		for (Object item : items) {
+			rv.add(SelectorOptions.create(pathForItem(item), createRetrieve(RetrieveOption.INCLUDE)));
+		}
+		return rv;
+	}
+
+	/**
+	 * Returns paths of items that are to be returned, if only these are requested (see retrieveIncludedOnly).
+	 * Returns null if the whole object is requested.
+	 */
+	public static List<ItemPath> getRetrieveOnlyPaths(Collection<SelectorOptions<GetOperationOptions>> options) {
+		if (!isRetrieveIncludedOnly(SelectorOptions.findRootOptions(options))) {
+			return null;
+		}
+		List<ItemPath> paths = new ArrayList<>();
+		for (SelectorOptions<GetOperationOptions> option : options) {
+			if (option.isRoot() || option.getOptions() == null
+					|| option.getOptions().getRetrieve() != RetrieveOption.INCLUDE) {
+				continue;
+			}
+			paths.add(option.getSelector().getPath());
+		}
+		return paths;
+	}
+
+	public Boolean getAllowEstimatedCount() {
+		return allowEstimatedCount;
+	}
+
+	public void setAllowEstimatedCount(Boolean allowEstimatedCount) {
+		this.allowEstimatedCount = allowEstimatedCount;
+	}
+
+	public static boolean isAllowEstimatedCount(GetOperationOptions options) {
+		if (options == null) {
+			return false;
+		}
+		if (options.allowEstimatedCount == null) {
+			return false;
+		}
+		return options.allowEstimatedCount;
+	}
+
+	public static GetOperationOptions createAllowEstimatedCount() {
+		GetOperationOptions opts = new GetOperationOptions();
+		opts.setAllowEstimatedCount(true);
+		return opts;
+	}
+
+	public Boolean getReadOnly() {
+		return readOnly;
+	}
+
+	public void setReadOnly(Boolean readOnly) {
+		this.readOnly = readOnly;
+	}
+
+	public static boolean isReadOnly(GetOperationOptions options) {
+		if (options == null) {
+			return false;
+		}
+		if (options.readOnly == null) {
+			return false;
+		}
+		return options.readOnly;
+	}
+
+	public static GetOperationOptions createReadOnly() {
+		GetOperationOptions opts = new GetOperationOptions();
+		opts.setReadOnly(true);
+		return opts;
+	}
+
+	public static Collection<SelectorOptions<GetOperationOptions>> createReadOnlyCollection() {
+		return SelectorOptions.createCollection(createReadOnly());
+	}
+
 	public RelationalValueSearchQuery getRelationalValueSearchQuery() {
 		return relationalValueSearchQuery;
 	}
@@ -382,6 +517,9 @@ public class GetOperationOptions implements Serializable, Cloneable {
 		result = prime * result + ((resolve == null) ? 0 : resolve.hashCode());
 		result = prime * result + ((resolveNames == null) ? 0 : resolveNames.hashCode());
 		result = prime * result + ((retrieve == null) ? 0 : retrieve.hashCode());
+		result = prime * result + ((retrieveIncludedOnly == null) ? 0 : retrieveIncludedOnly.hashCode());
+		result = prime * result + ((allowEstimatedCount == null) ? 0 : allowEstimatedCount.hashCode());
+		result = prime * result + ((readOnly == null) ? 0 : readOnly.hashCode());
 		return result;
 	}
 
@@ -431,6 +569,21 @@ public class GetOperationOptions implements Serializable, Cloneable {
 			return false;
 		if (retrieve != other.retrieve)
 			return false;
+		if (retrieveIncludedOnly == null) {
+			if (other.retrieveIncludedOnly != null)
+				return false;
+		} else if (!retrieveIncludedOnly.equals(other.retrieveIncludedOnly))
+			return false;
+		if (allowEstimatedCount == null) {
+			if (other.allowEstimatedCount != null)
+				return false;
+		} else if (!allowEstimatedCount.equals(other.allowEstimatedCount))
+			return false;
+		if (readOnly == null) {
+			if (other.readOnly != null)
+				return false;
+		} else if (!readOnly.equals(other.readOnly))
+			return false;
 		return true;
 	}
 
@@ -443,6 +596,9 @@ public class GetOperationOptions implements Serializable, Cloneable {
         clone.resolveNames = this.resolveNames;
         clone.retrieve = this.retrieve;
         clone.allowNotFound = this.allowNotFound;
+        clone.retrieveIncludedOnly = this.retrieveIncludedOnly;
+        clone.allowEstimatedCount = this.allowEstimatedCount;
+        clone.readOnly = this.readOnly;
         if (this.relationalValueSearchQuery != null) {
         	clone.relationalValueSearchQuery = this.relationalValueSearchQuery.clone();
         }
@@ -459,6 +615,9 @@ public class GetOperationOptions implements Serializable, Cloneable {
 		appendFlag(sb, "doNotDiscovery", doNotDiscovery);
 		appendVal(sb, "retrieve", retrieve);
 		appendFlag(sb, "allowNotFound", allowNotFound);
+		appendFlag(sb, "retrieveIncludedOnly", retrieveIncludedOnly);
+		appendFlag(sb, "allowEstimatedCount", allowEstimatedCount);
+		appendFlag(sb, "readOnly", readOnly);
 		appendVal(sb, "relationalValueSearchQuery", relationalValueSearchQuery);
 		if (sb.charAt(sb.length() - 1) == ',') {
 			sb.deleteCharAt(sb.length() - 1);
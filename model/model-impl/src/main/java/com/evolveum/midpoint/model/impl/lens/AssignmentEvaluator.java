@@ -16,7 +16,12 @@
 package com.evolveum.midpoint.model.impl.lens;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
@@ -51,6 +56,7 @@ import com.evolveum.midpoint.prism.parser.QueryConvertor;
 import com.evolveum.midpoint.prism.query.ObjectFilter;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.repo.cache.RepositoryCache;
 import com.evolveum.midpoint.schema.SearchResultList;
 import com.evolveum.midpoint.schema.constants.ExpressionConstants;
 import com.evolveum.midpoint.schema.constants.ObjectTypes;
@@ -199,6 +205,49 @@ public class AssignmentEvaluator<F extends FocusType> {
 		this.mappingEvaluator = mappingEvaluationHelper;
 	}
 
+	/**
+	 * Fetches targets of the given assignments (those referenced by OID) in bulk, so that they are present
+	 * in the repository cache when the assignments are evaluated one by one. Any problems are ignored here
+	 * (they are recorded only as handled errors in a separate subresult); they will be reported when the respective
+	 * assignment is evaluated.
+	 */
+	public void prefetchTargets(Collection<PrismContainerValue<AssignmentType>> assignments, OperationResult result) {
+		if (!RepositoryCache.exists()) {
+			return;			// objects would not be kept anywhere
+		}
+		Map<Class<? extends ObjectType>, Set<String>> oidsByType = new HashMap<>();
+		for (PrismContainerValue<AssignmentType> assignment : assignments) {
+			ObjectReferenceType targetRef = assignment.asContainerable().getTargetRef();
+			if (targetRef == null || targetRef.getOid() == null || targetRef.getType() == null) {
+				continue;
+			}
+			Class<? extends ObjectType> clazz = (Class) prismContext.getSchemaRegistry().determineCompileTimeClass(targetRef.getType());
+			if (clazz == null || !ObjectType.class.isAssignableFrom(clazz)) {
+				continue;
+			}
+			Set<String> oids = oidsByType.get(clazz);
+			if (oids == null) {
+				oids = new HashSet<>();
+				oidsByType.put(clazz, oids);
+			}
+			oids.add(targetRef.getOid());
+		}
+		OperationResult subResult = result.createMinorSubresult(AssignmentEvaluator.class.getName() + ".prefetchTargets");
+		for (Map.Entry<Class<? extends ObjectType>, Set<String>> entry : oidsByType.entrySet()) {
+			if (entry.getValue().size() < 2) {
+				continue;
+			}
+			try {
+				repository.getObjects(entry.getKey(), entry.getValue(), null, subResult);
+			} catch (SchemaException|RuntimeException e) {
+				LOGGER.debug("Couldn't prefetch assignment targets of type {}, continuing: {}", entry.getKey().getSimpleName(), e.getMessage(), e);
+				// the prefetch is only an optimization, so its failure must not make the whole operation fail
+				subResult.muteLastSubresultError();
+			}
+		}
+		subResult.computeStatus();
+	}
+
 	public EvaluatedAssignmentImpl<F> evaluate(ItemDeltaItem<PrismContainerValue<AssignmentType>,PrismContainerDefinition<AssignmentType>> assignmentIdi, 
 			boolean evaluateOld, ObjectType source, String sourceDescription, Task task, OperationResult result)
 			throws SchemaException, ObjectNotFoundException, ExpressionEvaluationException, PolicyViolationException {
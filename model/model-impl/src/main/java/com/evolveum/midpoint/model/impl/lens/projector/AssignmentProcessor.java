@@ -310,6 +310,7 @@ public class AssignmentProcessor {
         // sets. This is not good as we want only a single account for each resource/intent combination. But that will be
         // sorted out later.
         Collection<PrismContainerValue<AssignmentType>> allAssignments = mergeAssignments(assignmentsCurrent, changedAssignments);
+        assignmentEvaluator.prefetchTargets(allAssignments, result);
         for (PrismContainerValue<AssignmentType> assignmentCVal : allAssignments) {
             AssignmentType assignmentType = assignmentCVal.asContainerable();
             PrismContainerValue<AssignmentType> assignmentCValOld = assignmentCVal;
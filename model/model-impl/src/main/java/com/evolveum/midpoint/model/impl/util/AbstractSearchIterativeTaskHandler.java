@@ -231,7 +231,9 @@ public abstract class AbstractSearchIterativeTaskHandler<O extends ObjectType, H
                         expectedTotal = (long) expectedTotalInt;        // conversion would fail on null
                     }
                 } else {
-                    expectedTotal = Long.valueOf(repositoryService.countObjects(type, query, opResult));
+                    // the number is used only for progress reporting, so an estimate is sufficient
+                    expectedTotal = Long.valueOf(repositoryService.countObjects(type, query,
+                            SelectorOptions.createCollection(GetOperationOptions.createAllowEstimatedCount()), opResult));
                 }
                 LOGGER.trace("{}: expecting {} objects to be processed", taskName, expectedTotal);
             }
@@ -314,7 +314,8 @@ public class ProvisioningServiceImpl implements ProvisioningService {
 		}
 		
 		result.computeStatus();
-		if (!GetOperationOptions.isRaw(rootOptions)) {
+		// immutable (cached) objects are returned to read-only callers; they cannot carry the fetch result
+		if (!GetOperationOptions.isRaw(rootOptions) && !resultingObject.isImmutable()) {
 			resultingObject.asObjectable().setFetchResult(result.createOperationResultType());
 		}
 		result.cleanupResult();
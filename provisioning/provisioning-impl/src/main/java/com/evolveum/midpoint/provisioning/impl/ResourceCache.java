@@ -36,6 +36,8 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.XmlSchemaType;
 
 /**
  * Class for caching ResourceType instances with a parsed schemas.
+ *
+ * Cached instances are immutable. Read-only clients get them directly, the others get their clones.
  * 
  * @author Radovan Semancik
  *
@@ -64,17 +66,26 @@ public class ResourceCache {
 		
 		PrismObject<ResourceType> cachedResource = cache.get(oid);
 		if (cachedResource == null) {
-			cache.put(oid, resource.clone());
+			cache.put(oid, toImmutable(resource));
 		} else {
 			if (compareVersion(resource.getVersion(), cachedResource.getVersion())) {
 				// We already have equivalent resource, nothing to do
 				return;
 			} else {
-				cache.put(oid, resource.clone());
+				cache.put(oid, toImmutable(resource));
 			}
 		}
 	}
 	
+	private PrismObject<ResourceType> toImmutable(PrismObject<ResourceType> resource) {
+		if (resource.isImmutable()) {
+			return resource;
+		}
+		PrismObject<ResourceType> clone = resource.clone();
+		clone.setImmutable(true);
+		return clone;
+	}
+
 	private boolean compareVersion(String version1, String version2) {
 		if (version1 == null && version2 == null) {
 			return true;
@@ -88,8 +99,20 @@ public class ResourceCache {
 	public synchronized PrismObject<ResourceType> get(PrismObject<ResourceType> resource) throws SchemaException {
 		return get(resource.getOid(), resource.getVersion());
 	}
-	
+
+	public synchronized PrismObject<ResourceType> get(PrismObject<ResourceType> resource, boolean readOnly) throws SchemaException {
+		return get(resource.getOid(), resource.getVersion(), readOnly);
+	}
+
 	public synchronized PrismObject<ResourceType> get(String oid, String version) throws SchemaException {
+		return get(oid, version, false);
+	}
+
+	/**
+	 * Returns the cached resource with the given version: the (immutable) cached instance itself if readOnly is true,
+	 * its clone otherwise.
+	 */
+	public synchronized PrismObject<ResourceType> get(String oid, String version, boolean readOnly) throws SchemaException {
 		if (oid == null) {
 			return null;
 		}
@@ -103,7 +126,7 @@ public class ResourceCache {
 			return null;
 		}
 		
-		return cachedResource.clone();
+		return readOnly ? cachedResource : cachedResource.clone();
 	}
 	
 	/**
@@ -119,7 +119,7 @@ public class ResourceManager {
 	public PrismObject<ResourceType> getResource(PrismObject<ResourceType> repositoryObject, GetOperationOptions options, OperationResult parentResult) throws ObjectNotFoundException, SchemaException, CommunicationException, ConfigurationException{
 		InternalMonitor.getResourceCacheStats().recordRequest();
 		
-		PrismObject<ResourceType> cachedResource = resourceCache.get(repositoryObject);
+		PrismObject<ResourceType> cachedResource = resourceCache.get(repositoryObject, GetOperationOptions.isReadOnly(options));
 		if (cachedResource != null) {
 			InternalMonitor.getResourceCacheStats().recordHit();
 			return cachedResource;
@@ -135,7 +135,7 @@ public class ResourceManager {
 		InternalMonitor.getResourceCacheStats().recordRequest();
 		
 		String version = repositoryService.getVersion(ResourceType.class, oid, parentResult);
-		PrismObject<ResourceType> cachedResource = resourceCache.get(oid, version);
+		PrismObject<ResourceType> cachedResource = resourceCache.get(oid, version, GetOperationOptions.isReadOnly(options));
 		if (cachedResource != null) {
 			InternalMonitor.getResourceCacheStats().recordHit();
 			if (LOGGER.isTraceEnabled()){
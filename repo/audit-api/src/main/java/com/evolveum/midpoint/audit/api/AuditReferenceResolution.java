@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.evolveum.midpoint.audit.api;
+
+/**
+ * How initiator, target and target owner of audit records are filled-in when the records are read.
+ */
+public enum AuditReferenceResolution {
+
+    /**
+     * Initiator, target and target owner are not filled-in at all.
+     */
+    NONE,
+
+    /**
+     * Only OIDs and names stored in the audit record itself are provided (initiator and target owner as objects
+     * containing only OID and name, target as a reference). No objects are loaded. Note that names are the ones
+     * valid at the time of the event.
+     */
+    NAMES,
+
+    /**
+     * Current versions of the objects are loaded from the repository (if they still exist).
+     */
+    FULL
+}
@@ -39,5 +39,17 @@ public interface AuditService {
     public void cleanupAudit(CleanupPolicyType policy, OperationResult parentResult);
 
     public List<AuditEventRecord> listRecords(String query, Map<String, Object> params);
-    
+
+    /**
+     * Searches for audit records and passes them to the handler one by one, without keeping all of them in memory.
+     * Initiators, targets and target owners are filled-in according to the resolution parameter.
+     *
+     * @param query HQL query (the same as for {@link #listRecords(String, Map)})
+     * @param params Query parameters
+     * @param handler Handler that receives the records; it can stop the search by returning false.
+     * @param resolution How references to initiator, target and target owner are to be resolved.
+     */
+    public void searchRecordsIterative(String query, Map<String, Object> params, AuditResultHandler handler,
+            AuditReferenceResolution resolution);
+
 }
@@ -27,6 +27,8 @@ import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.evolveum.midpoint.audit.api.AuditEventRecord;
+import com.evolveum.midpoint.audit.api.AuditReferenceResolution;
+import com.evolveum.midpoint.audit.api.AuditResultHandler;
 import com.evolveum.midpoint.audit.api.AuditService;
 import com.evolveum.midpoint.common.LoggingConfigurationManager;
 import com.evolveum.midpoint.prism.PrismObject;
@@ -163,6 +165,12 @@ public class LoggerAuditServiceImpl implements AuditService {
 		// TODO Auto-generated method stub
 		return null;
 	}
+
+	@Override
+	public void searchRecordsIterative(String query, Map<String, Object> params, AuditResultHandler handler,
+			AuditReferenceResolution resolution) {
+		// records are only logged, so there's nothing to search
+	}
 	
 	// This method is never used. It is here only for maven dependency plugin to properly detect common component usage.
 	@SuppressWarnings("unused")
@@ -118,6 +118,7 @@ public interface RepositoryService {
 
     String CLASS_NAME_WITH_DOT = RepositoryService.class.getName() + ".";
     String GET_OBJECT = CLASS_NAME_WITH_DOT + "getObject";
+    String GET_OBJECTS = CLASS_NAME_WITH_DOT + "getObjects";
     String LIST_OBJECTS = CLASS_NAME_WITH_DOT + "listObjects";
     @Deprecated
     String LIST_ACCOUNT_SHADOW = CLASS_NAME_WITH_DOT + "listAccountShadowOwner";
@@ -162,6 +163,26 @@ public interface RepositoryService {
 			OperationResult parentResult)
 			throws ObjectNotFoundException, SchemaException;
 
+	/**
+	 * Returns objects for provided OIDs, using as few round trips to the storage as possible.
+	 *
+	 * Unlike getObject, this method does not fail if some of the objects do not exist (or are not of
+	 * the requested type). Such OIDs are simply skipped, so the caller has to compare the result with
+	 * the OIDs requested if it needs to know which ones are missing.
+	 *
+	 * @param oids
+	 *            OIDs of the objects to get; duplicates are ignored
+	 * @param parentResult
+	 *            parent OperationResult (in/out)
+	 * @return Objects fetched from repository, in the order of (first occurrences of) their OIDs in oids
+	 *
+	 * @throws SchemaException
+	 *             error dealing with storage schema
+	 */
+	<T extends ObjectType> List<PrismObject<T>> getObjects(Class<T> type, Collection<String> oids,
+			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult parentResult)
+			throws SchemaException;
+
 //	<T extends ObjectType> PrismObject<T> getContainerValue(Class<T> type, String oid, long id,
 //															Collection<SelectorOptions<GetOperationOptions>> options,
 //															OperationResult parentResult)
@@ -346,6 +367,16 @@ public interface RepositoryService {
 	<T extends ObjectType> int countObjects(Class<T> type, ObjectQuery query, OperationResult parentResult)
 			throws SchemaException;
 
+	/**
+	 * <p>Returns the number of objects that match specified criteria.</p>
+	 * <p>The same as {@link #countObjects(Class, ObjectQuery, OperationResult)}, but with options.
+	 * Currently only allowEstimatedCount root option is taken into account: if set, the repository may return
+	 * an estimate (based e.g. on database statistics) instead of the exact number.</p>
+	 */
+	<T extends ObjectType> int countObjects(Class<T> type, ObjectQuery query,
+			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult parentResult)
+			throws SchemaException;
+
 	boolean isAnySubordinate(String upperOrgOid, Collection<String> lowerObjectOids) throws SchemaException;
 	
 	/**
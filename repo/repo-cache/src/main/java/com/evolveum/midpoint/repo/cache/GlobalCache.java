@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.cache;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectTemplateType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OrgType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SystemConfigurationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ValuePolicyType;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-wide object cache, shared by all threads. It is the second tier behind the thread-local {@link Cache}.
+ *
+ * Objects are kept per type in bounded LRU maps. The cache itself does not know whether an entry is still
+ * current; it is the responsibility of the caller (RepositoryCache) to check the version of the object
+ * in the repository before using the entry, and to invalidate entries on local modifications.
+ *
+ * Stored objects are immutable. They are handed out directly only to callers that promise not to modify them
+ * (i.e. read-only ones); the other callers get clones.
+ *
+ * The cache is disabled by default: each getObject served through it costs a getVersion round trip to the
+ * repository, which pays off only for types that are read often and parsed expensively. It has to be switched
+ * on explicitly (globalCacheEnabled in the repository configuration).
+ */
+public class GlobalCache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(GlobalCache.class);
+
+    public static final int DEFAULT_MAX_OBJECTS_PER_TYPE = 1000;
+
+    @SuppressWarnings("unchecked")
+    public static final Collection<Class<? extends ObjectType>> DEFAULT_CACHED_TYPES = Arrays.<Class<? extends ObjectType>>asList(
+            RoleType.class, OrgType.class, ObjectTemplateType.class, ValuePolicyType.class, SystemConfigurationType.class);
+
+    private final boolean enabled;
+    private final int maxObjectsPerType;
+    private final Set<Class<? extends ObjectType>> cachedTypes;
+
+    private final Map<Class<? extends ObjectType>, TypeCache> typeCaches = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public static final boolean DEFAULT_ENABLED = false;
+
+    public GlobalCache() {
+        this(DEFAULT_ENABLED, DEFAULT_MAX_OBJECTS_PER_TYPE, DEFAULT_CACHED_TYPES);
+    }
+
+    public GlobalCache(boolean enabled, int maxObjectsPerType, Collection<Class<? extends ObjectType>> cachedTypes) {
+        this.enabled = enabled && maxObjectsPerType > 0;
+        this.maxObjectsPerType = maxObjectsPerType;
+        this.cachedTypes = new HashSet<>(cachedTypes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isCacheable(Class<?> type) {
+        return enabled && cachedTypes.contains(type);
+    }
+
+    /**
+     * Tells whether there is an entry for the object, regardless of its version. Counts a miss if there is none,
+     * so the caller can avoid asking the repository for the current version of an object that is not cached.
+     */
+    public boolean containsObject(Class<? extends ObjectType> type, String oid) {
+        TypeCache typeCache = typeCaches.get(type);
+        if (typeCache == null || typeCache.get(oid) == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns a clone of the cached object, provided it is present and its version is the same as the expected one.
+     * Entries with a different version are removed.
+     */
+    public <T extends ObjectType> PrismObject<T> getObject(Class<T> type, String oid, String currentVersion) {
+        return getObject(type, oid, currentVersion, false);
+    }
+
+    /**
+     * Returns the cached object (the immutable instance itself if readOnly is true, its clone otherwise), provided
+     * it is present and its version is the same as the expected one. Entries with a different version are removed.
+     */
+    public <T extends ObjectType> PrismObject<T> getObject(Class<T> type, String oid, String currentVersion, boolean readOnly) {
+        TypeCache typeCache = typeCaches.get(type);
+        PrismObject<? extends ObjectType> object = typeCache != null ? typeCache.get(oid) : null;
+        if (object == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (currentVersion == null || !currentVersion.equals(object.getVersion())) {
+            LOGGER.trace("Global cache: stale entry for {} ({}), cached version {}, current version {}",
+                    oid, type.getSimpleName(), object.getVersion(), currentVersion);
+            typeCache.remove(oid);
+            staleHits.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return (PrismObject<T>) (readOnly ? object : object.clone());
+    }
+
+    public <T extends ObjectType> void putObject(Class<T> type, PrismObject<T> object) {
+        if (!isCacheable(type) || object.getOid() == null || object.getVersion() == null) {
+            return;
+        }
+        PrismObject<T> immutableObject = object;
+        if (!object.isImmutable()) {
+            immutableObject = object.clone();
+            immutableObject.setImmutable(true);
+        }
+        getOrCreateTypeCache(type).put(object.getOid(), immutableObject);
+    }
+
+    public void removeObject(Class<? extends ObjectType> type, String oid) {
+        if (!enabled || oid == null) {
+            return;
+        }
+        if (type == null || ObjectType.class.equals(type)) {
+            // we don't know the exact type, so let's try all of them
+            for (TypeCache typeCache : typeCaches.values()) {
+                typeCache.remove(oid);
+            }
+        } else {
+            TypeCache typeCache = typeCaches.get(type);
+            if (typeCache != null) {
+                typeCache.remove(oid);
+            }
+        }
+    }
+
+    public void clear() {
+        for (TypeCache typeCache : typeCaches.values()) {
+            typeCache.clear();
+        }
+    }
+
+    private TypeCache getOrCreateTypeCache(Class<? extends ObjectType> type) {
+        TypeCache typeCache = typeCaches.get(type);
+        if (typeCache == null) {
+            synchronized (typeCaches) {
+                typeCache = typeCaches.get(type);
+                if (typeCache == null) {
+                    typeCache = new TypeCache();
+                    typeCaches.put(type, typeCache);
+                }
+            }
+        }
+        return typeCache;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public int size() {
+        int size = 0;
+        for (TypeCache typeCache : typeCaches.values()) {
+            size += typeCache.size();
+        }
+        return size;
+    }
+
+    public String description() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Global cache: ").append(enabled ? "enabled" : "disabled");
+        sb.append(", hits: ").append(hits.get());
+        sb.append(", misses: ").append(misses.get());
+        sb.append(", stale hits: ").append(staleHits.get());
+        sb.append(", evictions: ").append(evictions.get());
+        sb.append(", invalidations: ").append(invalidations.get());
+        for (Map.Entry<Class<? extends ObjectType>, TypeCache> entry : typeCaches.entrySet()) {
+            sb.append(", ").append(entry.getKey().getSimpleName()).append(": ").append(entry.getValue().size());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return description();
+    }
+
+    /**
+     * Bounded LRU map for objects of one type. Access-ordered LinkedHashMap is not thread safe even for reads,
+     * so all the operations are synchronized.
+     */
+    private class TypeCache {
+
+        private final LinkedHashMap<String, PrismObject<? extends ObjectType>> objects =
+                new LinkedHashMap<String, PrismObject<? extends ObjectType>>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, PrismObject<? extends ObjectType>> eldest) {
+                        if (size() > maxObjectsPerType) {
+                            evictions.incrementAndGet();
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+
+        synchronized PrismObject<? extends ObjectType> get(String oid) {
+            return objects.get(oid);
+        }
+
+        synchronized void put(String oid, PrismObject<? extends ObjectType> object) {
+            objects.put(oid, object);
+        }
+
+        synchronized void remove(String oid) {
+            if (objects.remove(oid) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+
+        synchronized void clear() {
+            objects.clear();
+        }
+
+        synchronized int size() {
+            return objects.size();
+        }
+    }
+}
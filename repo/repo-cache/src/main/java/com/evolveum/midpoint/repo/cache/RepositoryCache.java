@@ -39,11 +39,22 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 
 import org.apache.commons.lang.Validate;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Read-through write-through per-session repository cache.
+ *
+ * Besides the per-session (thread-local) cache there is a node-wide {@link GlobalCache} for selected object types.
+ * Entries of the global cache are validated against the repository using getVersion call before being used,
+ * so parsing of the object is avoided while the consistency within the cluster is preserved.
+ *
+ * Both caches keep immutable objects. Callers that declare (using readOnly option) that they will not modify
+ * the returned objects get these instances directly; the others get their clones.
  * 
  * TODO doc
  * TODO logging perf measurements
@@ -62,8 +73,16 @@ public class RepositoryCache implements RepositoryService {
 
 	private PrismContext prismContext;
 
+	private final GlobalCache globalCache;
+
 	public RepositoryCache() {
+		this(new GlobalCache());
     }
+
+	public RepositoryCache(GlobalCache globalCache) {
+		Validate.notNull(globalCache, "Global cache must not be null.");
+		this.globalCache = globalCache;
+	}
 	
     public void setRepository(RepositoryService service, PrismContext prismContext) {
         Validate.notNull(service, "Repository service must not be null.");
@@ -99,6 +118,10 @@ public class RepositoryCache implements RepositoryService {
 		return Cache.debugDump(cacheInstance);
 	}
 
+	public GlobalCache getGlobalCache() {
+		return globalCache;
+	}
+
 	@Override
 	public <T extends ObjectType> PrismObject<T> getObject(Class<T> type, String oid,
 			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult parentResult) throws ObjectNotFoundException, SchemaException {
@@ -106,6 +129,7 @@ public class RepositoryCache implements RepositoryService {
 			log("Cache: PASS {} ({})", oid, type.getSimpleName());
 			return repository.getObject(type, oid, options, parentResult);
 		}
+		boolean readOnly = isReadOnly(options);
 		Cache cache = getCache();
 		if (cache == null) {
 			log("Cache: NULL {} ({})", oid, type.getSimpleName());
@@ -114,13 +138,97 @@ public class RepositoryCache implements RepositoryService {
 			if (object != null) {
 				// TODO: result?
 				log("Cache: HIT {} ({})", oid, type.getSimpleName());
-				return object.clone();
+				return readOnly ? object : object.clone();
 			}
 			log("Cache: MISS {} ({})", oid, type.getSimpleName());
 		}
+		if (globalCache.isCacheable(type)) {
+			PrismObject<T> object = getObjectFromGlobalCache(type, oid, parentResult);
+			if (object != null) {
+				log("Global cache: HIT {} ({})", oid, type.getSimpleName());
+				cacheObject(cache, object);
+				return readOnly ? object : object.clone();
+			}
+			log("Global cache: MISS {} ({})", oid, type.getSimpleName());
+		}
 		PrismObject<T> object = repository.getObject(type, oid, null, parentResult);
-		cacheObject(cache, object);
-		return object;
+		if (!isCachingPossible(cache, type)) {
+			return object;
+		}
+		PrismObject<T> immutableObject = toImmutable(object, readOnly);
+		cacheObject(cache, immutableObject);
+		globalCache.putObject(type, immutableObject);
+		return readOnly ? immutableObject : object;
+	}
+
+	/**
+	 * Objects present in the thread-local cache are served from it; the rest is fetched from the repository
+	 * in one call. The global cache is not consulted here, as each of its entries would need a getVersion call,
+	 * i.e. a round trip of its own. It is only updated with the fetched objects.
+	 */
+	@Override
+	public <T extends ObjectType> List<PrismObject<T>> getObjects(Class<T> type, Collection<String> oids,
+			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult parentResult) throws SchemaException {
+		if (!isCacheable(type) || !nullOrHarmlessOptions(options)) {
+			log("Cache: PASS {} object(s) ({})", oids.size(), type.getSimpleName());
+			return repository.getObjects(type, oids, options, parentResult);
+		}
+		boolean readOnly = isReadOnly(options);
+		Cache cache = getCache();
+		Map<String, PrismObject<T>> objects = new HashMap<>();
+		List<String> misses = new ArrayList<>();
+		for (String oid : new LinkedHashSet<>(oids)) {
+			PrismObject<T> object = cache != null ? (PrismObject) cache.getObject(oid) : null;
+			if (object != null && type.isAssignableFrom(object.getCompileTimeClass())) {
+				objects.put(oid, readOnly ? object : object.clone());
+			} else {
+				misses.add(oid);
+			}
+		}
+		log("Cache: {} HIT(s), {} MISS(es) ({})", objects.size(), misses.size(), type.getSimpleName());
+		if (!misses.isEmpty()) {
+			boolean cachingPossible = isCachingPossible(cache, type);
+			for (PrismObject<T> object : repository.getObjects(type, misses, null, parentResult)) {
+				if (!cachingPossible) {
+					objects.put(object.getOid(), object);
+					continue;
+				}
+				PrismObject<T> immutableObject = toImmutable(object, readOnly);
+				cacheObject(cache, immutableObject);
+				globalCache.putObject(type, immutableObject);
+				objects.put(object.getOid(), readOnly ? immutableObject : object);
+			}
+		}
+		List<PrismObject<T>> rv = new ArrayList<>(objects.size());
+		for (String oid : new LinkedHashSet<>(oids)) {
+			PrismObject<T> object = objects.get(oid);
+			if (object != null) {
+				rv.add(object);
+			}
+		}
+		return rv;
+	}
+
+	private <T extends ObjectType> PrismObject<T> getObjectFromGlobalCache(Class<T> type, String oid, OperationResult parentResult)
+			throws SchemaException {
+		if (!globalCache.containsObject(type, oid)) {
+			// no need to ask for the version of an object that would be fetched anyway
+			return null;
+		}
+		String currentVersion;
+		try {
+			currentVersion = repository.getVersion(type, oid, parentResult);
+		} catch (ObjectNotFoundException e) {
+			// the object is gone; the subsequent getObject call will report this in the usual way
+			globalCache.removeObject(type, oid);
+			return null;
+		}
+		return globalCache.getObject(type, oid, currentVersion, true);
+	}
+
+	// objects that are not going to be cached need not be cloned and frozen
+	private boolean isCachingPossible(Cache cache, Class<?> type) {
+		return cache != null || globalCache.isCacheable(type);
 	}
 
 	private boolean isCacheable(Class<?> type) {
@@ -146,6 +254,7 @@ public class RepositoryCache implements RepositoryService {
 			cache.removeObject(oid);
 			cache.clearQueryResults(object.getCompileTimeClass());
 		}
+		globalCache.removeObject(object.getCompileTimeClass(), oid);
 		return oid;
 	}
 	
@@ -156,26 +265,34 @@ public class RepositoryCache implements RepositoryService {
 			log("Cache: PASS ({})", type.getSimpleName());
 			return repository.searchObjects(type, query, options, parentResult);
 		}
+		boolean readOnly = isReadOnly(options);
 		Cache cache = getCache();
 		if (cache == null) {
 			log("Cache: NULL ({})", type.getSimpleName());
 		} else {
-			SearchResultList queryResult = cache.getQueryResult(type, query, prismContext);
+			SearchResultList<PrismObject<T>> queryResult = cache.getQueryResult(type, query, prismContext);
 			if (queryResult != null) {
 				log("Cache: HIT {} ({})", query, type.getSimpleName());
-				return queryResult.clone();
+				return readOnly ? shallowCopy(queryResult) : queryResult.clone();
 			}
 			log("Cache: MISS {} ({})", query, type.getSimpleName());
 		}
 
 		// Cannot satisfy from cache, pass down to repository
 		SearchResultList<PrismObject<T>> objects = repository.searchObjects(type, query, options, parentResult);
-		if (cache != null && options == null) {
+		if (cache != null) {
+			List<PrismObject<T>> immutableObjects = new ArrayList<>(objects.size());
 			for (PrismObject<T> object : objects) {
-				cacheObject(cache, object);
+				PrismObject<T> immutableObject = toImmutable(object, readOnly);
+				cacheObject(cache, immutableObject);
+				globalCache.putObject(type, immutableObject);
+				immutableObjects.add(immutableObject);
+			}
+			SearchResultList<PrismObject<T>> immutableResult = new SearchResultList<>(immutableObjects, objects.getMetadata());
+			cache.putQueryResult(type, query, immutableResult, prismContext);
+			if (readOnly) {
+				return shallowCopy(immutableResult);
 			}
-			// TODO cloning before storing into cache?
-			cache.putQueryResult(type, query, objects, prismContext);
 		}
 		return objects;
 	}
@@ -194,7 +311,8 @@ public class RepositoryCache implements RepositoryService {
 			boolean strictlySequential, OperationResult parentResult) throws SchemaException {
 		// TODO use cached query result if applicable
 		log("Cache: PASS searchObjectsIterative ({})", type.getSimpleName());
-		final Cache cache = getCache();
+		// objects retrieved with non-trivial options (e.g. only selected items) must not get into the cache
+		final Cache cache = nullOrHarmlessOptions(options) ? getCache() : null;
 		ResultHandler<T> myHandler = new ResultHandler<T>() {
 			@Override
 			public boolean handle(PrismObject<T> object, OperationResult parentResult) {
@@ -213,6 +331,14 @@ public class RepositoryCache implements RepositoryService {
 		return repository.countObjects(type, query, parentResult);
 	}
 
+	@Override
+	public <T extends ObjectType> int countObjects(Class<T> type, ObjectQuery query,
+			Collection<SelectorOptions<GetOperationOptions>> options, OperationResult parentResult)
+			throws SchemaException {
+		log("Cache: PASS countObjects ({})", type.getSimpleName());
+		return repository.countObjects(type, query, options, parentResult);
+	}
+
 	public <T extends ObjectType> void modifyObject(Class<T> type, String oid, Collection<? extends ItemDelta> modifications,
 													OperationResult parentResult) throws ObjectNotFoundException, SchemaException, ObjectAlreadyExistsException {
 		modifyObject(type, oid, modifications, null, parentResult);
@@ -236,6 +362,7 @@ public class RepositoryCache implements RepositoryService {
 			cache.removeObject(oid);
 			cache.clearQueryResults(type);
 		}
+		globalCache.removeObject(type, oid);
 	}
 
 	@Override
@@ -271,12 +398,40 @@ public class RepositoryCache implements RepositoryService {
 			return false;
 		}
 		GetOperationOptions options1 = selectorOptions.getOptions();
-		if (options1 == null || options1.equals(new GetOperationOptions()) || options1.equals(GetOperationOptions.createAllowNotFound())) {
+		if (options1 == null) {
+			return true;
+		}
+		// readOnly flag does not influence what is returned, only whether the caller gets a cached instance or its clone
+		GetOperationOptions options2 = options1.clone();
+		options2.setReadOnly(null);
+		if (options2.equals(new GetOperationOptions()) || options2.equals(GetOperationOptions.createAllowNotFound())) {
 			return true;
 		}
 		return false;
 	}
 
+	private boolean isReadOnly(Collection<SelectorOptions<GetOperationOptions>> options) {
+		return GetOperationOptions.isReadOnly(SelectorOptions.findRootOptions(options));
+	}
+
+	/**
+	 * Returns an immutable version of the object, to be stored in the caches. If the object is going to be returned
+	 * to a read-only caller, it is frozen itself; otherwise an immutable clone is created (the caller gets the original).
+	 */
+	private <T extends ObjectType> PrismObject<T> toImmutable(PrismObject<T> object, boolean readOnly) {
+		if (object.isImmutable()) {
+			return object;
+		}
+		PrismObject<T> immutableObject = readOnly ? object : object.clone();
+		immutableObject.setImmutable(true);
+		return immutableObject;
+	}
+
+	private <T> SearchResultList<T> shallowCopy(SearchResultList<T> list) {
+		List<T> objects = list.getList() != null ? new ArrayList<T>(list.getList()) : null;
+		return new SearchResultList<>(objects, list.getMetadata());
+	}
+
 	@Override
 	@Deprecated
 	public PrismObject<UserType> listAccountShadowOwner(String accountOid, OperationResult parentResult)
@@ -340,7 +495,7 @@ public class RepositoryCache implements RepositoryService {
 
     private <T extends ObjectType> void cacheObject(Cache cache, PrismObject<T> object) {
 		if (cache != null) {
-			cache.putObject(object.getOid(), (PrismObject<ObjectType>) object.clone());
+			cache.putObject(object.getOid(), (PrismObject<ObjectType>) toImmutable(object, false));
 		}
 	}
 
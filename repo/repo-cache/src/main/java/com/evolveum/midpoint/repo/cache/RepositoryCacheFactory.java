@@ -19,19 +19,70 @@ package com.evolveum.midpoint.repo.cache;
 import com.evolveum.midpoint.repo.api.RepositoryService;
 import com.evolveum.midpoint.repo.api.RepositoryServiceFactory;
 import com.evolveum.midpoint.repo.api.RepositoryServiceFactoryException;
+import com.evolveum.midpoint.schema.constants.ObjectTypes;
+import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
 import org.apache.commons.configuration.Configuration;
 
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 /**
  * @author lazyman
  */
 public class RepositoryCacheFactory implements RepositoryServiceFactory {
 
+    private static final Trace LOGGER = TraceManager.getTrace(RepositoryCacheFactory.class);
+
+    public static final String PROPERTY_GLOBAL_CACHE_ENABLED = "globalCacheEnabled";
+    public static final String PROPERTY_GLOBAL_CACHE_MAX_OBJECTS_PER_TYPE = "globalCacheMaxObjectsPerType";
+    public static final String PROPERTY_GLOBAL_CACHE_TYPES = "globalCacheTypes";
+
+    private GlobalCache globalCache;
+
     @Override
     public void destroy() throws RepositoryServiceFactoryException {
+        if (globalCache != null) {
+            globalCache.clear();
+        }
     }
 
     @Override
     public void init(Configuration configuration) throws RepositoryServiceFactoryException {
+        if (configuration == null) {
+            return;
+        }
+        boolean enabled = configuration.getBoolean(PROPERTY_GLOBAL_CACHE_ENABLED, GlobalCache.DEFAULT_ENABLED);
+        int maxObjectsPerType = configuration.getInt(PROPERTY_GLOBAL_CACHE_MAX_OBJECTS_PER_TYPE,
+                GlobalCache.DEFAULT_MAX_OBJECTS_PER_TYPE);
+        Collection<Class<? extends ObjectType>> types = GlobalCache.DEFAULT_CACHED_TYPES;
+        String[] typeNames = configuration.getStringArray(PROPERTY_GLOBAL_CACHE_TYPES);
+        if (typeNames != null && typeNames.length > 0) {
+            types = parseTypes(typeNames);
+        }
+        globalCache = new GlobalCache(enabled, maxObjectsPerType, types);
+        LOGGER.info("Repository global cache configured: enabled={}, maxObjectsPerType={}, types={}",
+                enabled, maxObjectsPerType, types);
+    }
+
+    private Collection<Class<? extends ObjectType>> parseTypes(String[] typeNames) throws RepositoryServiceFactoryException {
+        List<Class<? extends ObjectType>> types = new ArrayList<>();
+        for (String typeName : typeNames) {
+            if (typeName == null || typeName.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                types.add(ObjectTypes.getObjectTypeFromTypeQName(new QName(SchemaConstants.NS_C, typeName.trim())).getClassDefinition());
+            } catch (IllegalArgumentException e) {
+                throw new RepositoryServiceFactoryException("Unknown object type '" + typeName + "' in "
+                        + PROPERTY_GLOBAL_CACHE_TYPES + ": " + e.getMessage(), e);
+            }
+        }
+        return types;
     }
 
     @Override
@@ -47,6 +98,9 @@ public class RepositoryCacheFactory implements RepositoryServiceFactory {
     @Override
     public RepositoryService getRepositoryService() throws RepositoryServiceFactoryException {
         RepositoryCache.init();
-        return new RepositoryCache();
+        if (globalCache == null) {
+            globalCache = new GlobalCache();
+        }
+        return new RepositoryCache(globalCache);
     }
 }
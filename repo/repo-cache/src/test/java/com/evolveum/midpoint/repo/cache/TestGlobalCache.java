@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.cache;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.delta.ItemDelta;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.api.RepositoryService;
+import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Tests the global cache as used by RepositoryCache, against an in-memory repository stub that records
+ * the calls it gets. The thread-local cache is not entered here, so every read goes through the global one.
+ */
+public class TestGlobalCache {
+
+    private static final String ROLE_OID = "c0c010c0-d34d-b33f-f00d-111111111111";
+    private static final String USER_OID = "c0c010c0-d34d-b33f-f00d-222222222222";
+
+    private PrismContext prismContext;
+    private StubRepository stub;
+    private GlobalCache globalCache;
+    private RepositoryCache repositoryCache;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+        prismContext = PrismTestUtil.getPrismContext();
+    }
+
+    @BeforeMethod
+    public void initCaches() throws Exception {
+        stub = new StubRepository();
+        stub.put(createObject(RoleType.class, ROLE_OID, "role"));
+        stub.put(createObject(UserType.class, USER_OID, "user"));
+        globalCache = new GlobalCache(true, GlobalCache.DEFAULT_MAX_OBJECTS_PER_TYPE, GlobalCache.DEFAULT_CACHED_TYPES);
+        repositoryCache = new RepositoryCache(globalCache);
+        repositoryCache.setRepository(stub.asRepositoryService(), prismContext);
+    }
+
+    @Test
+    public void test100DisabledByDefault() {
+        assertFalse("Global cache is enabled by default", new GlobalCache().isEnabled());
+        assertFalse(new GlobalCache().isCacheable(RoleType.class));
+    }
+
+    @Test
+    public void test110HitWithSameVersion() throws Exception {
+        OperationResult result = new OperationResult("test110HitWithSameVersion");
+
+        PrismObject<RoleType> first = repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        PrismObject<RoleType> second = repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+
+        assertEquals("getObject calls", 1, stub.count("getObject"));
+        assertEquals("getVersion calls", 1, stub.count("getVersion"));
+        assertEquals(1, globalCache.getHits());
+        assertEquals("1", second.getVersion());
+        assertNotSame("Mutable caller got the cached instance", first, second);
+        assertFalse(second.isImmutable());
+    }
+
+    @Test
+    public void test120NotCachedType() throws Exception {
+        OperationResult result = new OperationResult("test120NotCachedType");
+
+        repositoryCache.getObject(UserType.class, USER_OID, null, result);
+        repositoryCache.getObject(UserType.class, USER_OID, null, result);
+
+        assertEquals("getObject calls", 2, stub.count("getObject"));
+        assertEquals("getVersion calls", 0, stub.count("getVersion"));
+        assertEquals(0, globalCache.size());
+    }
+
+    /**
+     * Simulates a modification done by another node: the version in the repository changes without
+     * this node's RepositoryCache knowing about it.
+     */
+    @Test
+    public void test200VersionChangedElsewhere() throws Exception {
+        OperationResult result = new OperationResult("test200VersionChangedElsewhere");
+
+        repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        stub.bumpVersion(ROLE_OID);
+        PrismObject<RoleType> reloaded = repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+
+        assertEquals("getObject calls", 2, stub.count("getObject"));
+        assertEquals("2", reloaded.getVersion());
+        assertEquals(1, globalCache.getStaleHits());
+        assertEquals(0, globalCache.getHits());
+
+        // the reloaded version is cached again
+        repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        assertEquals("getObject calls", 2, stub.count("getObject"));
+        assertEquals(1, globalCache.getHits());
+    }
+
+    @Test
+    public void test210DeletedElsewhere() throws Exception {
+        OperationResult result = new OperationResult("test210DeletedElsewhere");
+
+        repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        stub.remove(ROLE_OID);
+        try {
+            repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+            fail("Deleted object was returned from the cache");
+        } catch (ObjectNotFoundException e) {
+            // expected
+        }
+        assertEquals(0, globalCache.size());
+    }
+
+    @Test
+    public void test300LocalModifyInvalidates() throws Exception {
+        OperationResult result = new OperationResult("test300LocalModifyInvalidates");
+
+        repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        assertEquals(1, globalCache.size());
+
+        repositoryCache.modifyObject(RoleType.class, ROLE_OID, Collections.<ItemDelta>emptyList(), result);
+        assertEquals("Entry not invalidated by modifyObject", 0, globalCache.size());
+        assertEquals(1, globalCache.getInvalidations());
+
+        PrismObject<RoleType> reloaded = repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        assertEquals("getObject calls", 2, stub.count("getObject"));
+        assertEquals("2", reloaded.getVersion());
+        assertEquals("Invalidated entry was treated as stale", 0, globalCache.getStaleHits());
+    }
+
+    @Test
+    public void test310LocalDeleteInvalidates() throws Exception {
+        OperationResult result = new OperationResult("test310LocalDeleteInvalidates");
+
+        repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        repositoryCache.deleteObject(RoleType.class, ROLE_OID, result);
+
+        assertEquals("Entry not invalidated by deleteObject", 0, globalCache.size());
+        assertEquals(1, globalCache.getInvalidations());
+    }
+
+    @Test
+    public void test320FailedModifyInvalidates() throws Exception {
+        OperationResult result = new OperationResult("test320FailedModifyInvalidates");
+
+        repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        stub.failModifications = true;
+        try {
+            repositoryCache.modifyObject(RoleType.class, ROLE_OID, Collections.<ItemDelta>emptyList(), result);
+            fail("Modification unexpectedly succeeded");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        // we don't know what the repository did, so the entry must not be trusted anymore
+        assertEquals(0, globalCache.size());
+    }
+
+    @Test
+    public void test400ReadOnlyGetsCachedInstance() throws Exception {
+        OperationResult result = new OperationResult("test400ReadOnlyGetsCachedInstance");
+
+        repositoryCache.getObject(RoleType.class, ROLE_OID, null, result);
+        PrismObject<RoleType> first = globalCache.getObject(RoleType.class, ROLE_OID, "1", true);
+        PrismObject<RoleType> second = globalCache.getObject(RoleType.class, ROLE_OID, "1", true);
+
+        assertSame(first, second);
+        assertTrue(first.isImmutable());
+    }
+
+    @Test
+    public void test410NotCachedObjectIsNotFrozen() throws Exception {
+        OperationResult result = new OperationResult("test410NotCachedObjectIsNotFrozen");
+
+        PrismObject<UserType> user = repositoryCache.getObject(UserType.class, USER_OID,
+                GetOperationOptions.createReadOnlyCollection(), result);
+
+        // there is no cache to put the object into, so it is returned as obtained from the repository
+        assertFalse(user.isImmutable());
+    }
+
+    private <T extends ObjectType> PrismObject<T> createObject(Class<T> type, String oid, String name) throws Exception {
+        PrismObject<T> object = prismContext.createObject(type);
+        object.setOid(oid);
+        object.setVersion("1");
+        object.asObjectable().setName(new PolyStringType(new PolyString(name)));
+        return object;
+    }
+
+    /**
+     * Minimal in-memory repository. Only the operations the tests need are implemented; the others fail.
+     */
+    private static class StubRepository implements InvocationHandler {
+
+        private final Map<String, PrismObject<? extends ObjectType>> objects = new HashMap<>();
+        private final List<String> calls = new ArrayList<>();
+        private boolean failModifications;
+
+        void put(PrismObject<? extends ObjectType> object) {
+            objects.put(object.getOid(), object);
+        }
+
+        void remove(String oid) {
+            objects.remove(oid);
+        }
+
+        void bumpVersion(String oid) {
+            PrismObject<? extends ObjectType> object = objects.get(oid);
+            object.setVersion(String.valueOf(Integer.parseInt(object.getVersion()) + 1));
+        }
+
+        int count(String method) {
+            return Collections.frequency(calls, method);
+        }
+
+        RepositoryService asRepositoryService() {
+            return (RepositoryService) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { RepositoryService.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            calls.add(name);
+            switch (name) {
+                case "getObject":
+                    return get((String) args[1]).clone();
+                case "getVersion":
+                    return get((String) args[1]).getVersion();
+                case "modifyObject":
+                    if (failModifications) {
+                        throw new IllegalStateException("Simulated failure");
+                    }
+                    get((String) args[1]);
+                    bumpVersion((String) args[1]);
+                    return null;
+                case "deleteObject":
+                    get((String) args[1]);
+                    remove((String) args[1]);
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(name);
+            }
+        }
+
+        private PrismObject<? extends ObjectType> get(String oid) throws ObjectNotFoundException {
+            PrismObject<? extends ObjectType> object = objects.get(oid);
+            if (object == null) {
+                throw new ObjectNotFoundException("Object " + oid + " not found");
+            }
+            return object;
+        }
+    }
+}
@@ -657,6 +657,62 @@ public class AddGetObjectTest extends BaseSQLRepoTest {
         }
     }
 
+    @Test
+    public void test200GetObjects() throws Exception {
+        OperationResult result = new OperationResult("test200GetObjects");
+
+        List<String> roleOids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            RoleType role = new RoleType();
+            role.setName(new PolyStringType("test200 role " + i));
+            PrismObject<RoleType> prismRole = role.asPrismObject();
+            prismContext.adopt(prismRole);
+            roleOids.add(repositoryService.addObject(prismRole, null, result));
+        }
+        PrismObject<UserType> user = prismContext.parseObject(new File(FOLDER_BASIC, "user.xml"));
+        user.setOid(null);
+        user.asObjectable().setName(new PolyStringType("test200 user"));
+        String userOid = repositoryService.addObject(user, null, result);
+
+        List<String> oids = new ArrayList<>();
+        oids.add(roleOids.get(3));
+        oids.add("00000000-0000-0000-0000-000000000bad");       // not existing
+        oids.add(roleOids.get(0));
+        oids.add(userOid);                                      // wrong type
+        oids.add(roleOids.get(3));                              // duplicate
+        oids.add(roleOids.get(4));
+        oids.add(roleOids.get(1));
+
+        int originalBatchSize = baseHelper.getConfiguration().getGetObjectsBatchSize();
+        int originalParsingThreads = baseHelper.getConfiguration().getParsingThreads();
+        baseHelper.getConfiguration().setGetObjectsBatchSize(3);
+        baseHelper.getConfiguration().setParsingThreads(2);
+        List<PrismObject<RoleType>> roles;
+        try {
+            roles = repositoryService.getObjects(RoleType.class, oids, null, result);
+        } finally {
+            baseHelper.getConfiguration().setGetObjectsBatchSize(originalBatchSize);
+            baseHelper.getConfiguration().setParsingThreads(originalParsingThreads);
+        }
+
+        List<String> expected = Arrays.asList(roleOids.get(3), roleOids.get(0), roleOids.get(4), roleOids.get(1));
+        List<String> actual = new ArrayList<>();
+        for (PrismObject<RoleType> role : roles) {
+            actual.add(role.getOid());
+            PrismObject<RoleType> single = repositoryService.getObject(RoleType.class, role.getOid(), null, result);
+            AssertJUnit.assertTrue("Object fetched in bulk differs from the one fetched alone", single.equivalent(role));
+        }
+        AssertJUnit.assertEquals("Wrong objects returned", expected, actual);
+
+        List<PrismObject<ObjectType>> objects = repositoryService.getObjects(ObjectType.class,
+                Arrays.asList(userOid, roleOids.get(2)), null, result);
+        AssertJUnit.assertEquals("Wrong number of objects", 2, objects.size());
+        AssertJUnit.assertEquals(UserType.class, objects.get(0).getCompileTimeClass());
+        AssertJUnit.assertEquals(RoleType.class, objects.get(1).getCompileTimeClass());
+
+        AssertJUnit.assertTrue(repositoryService.getObjects(RoleType.class, new ArrayList<String>(), null, result).isEmpty());
+    }
+
     @Test
     public void test990AddResourceWithEmptyConnectorConfiguration() throws Exception {
         OperationResult result = new OperationResult("test990AddResourceWithEmptyConnectorConfiguration");
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.repo.api.RepositoryServiceFactoryException;
+import com.evolveum.midpoint.repo.sql.helpers.AuditPartitionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.fail;
+
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuditPartitioningTest extends BaseSQLRepoTest {
+
+    private static final List<String> PARTITIONS = Arrays.asList("m_audit_event_2016_01", "m_audit_event_2016_02",
+            "m_audit_event_2016_03", "m_audit_event_default");
+
+    @Autowired
+    private AuditPartitionManager auditPartitionManager;
+
+    @Test
+    public void test100PartitionNames() {
+        assertEquals("m_audit_event_2016_05", AuditPartitionManager.getPartitionName(date(2016, 5, 17, 13)));
+        assertEquals("m_audit_event_2016_12", AuditPartitionManager.getPartitionName(date(2016, 12, 31, 23)));
+        assertEquals(date(2016, 5, 1, 0), AuditPartitionManager.getPeriodStart("m_audit_event_2016_05"));
+        assertEquals(date(2016, 5, 1, 0), AuditPartitionManager.getPeriodStart(date(2016, 5, 17, 13)));
+        assertEquals(date(2017, 1, 1, 0), AuditPartitionManager.getNextPeriodStart(date(2016, 12, 1, 0)));
+        assertNull(AuditPartitionManager.getPeriodStart("m_audit_event_default"));
+        assertNull(AuditPartitionManager.getPeriodStart("m_audit_delta"));
+    }
+
+    @Test
+    public void test110ExpiredPartitions() {
+        assertEquals(Arrays.asList("m_audit_event_2016_01", "m_audit_event_2016_02"),
+                AuditPartitionManager.getExpiredPartitions(PARTITIONS, date(2016, 3, 1, 0)));
+        assertEquals(Collections.singletonList("m_audit_event_2016_01"),
+                AuditPartitionManager.getExpiredPartitions(PARTITIONS, date(2016, 2, 15, 0)));
+        assertEquals(Collections.<String>emptyList(),
+                AuditPartitionManager.getExpiredPartitions(PARTITIONS, date(2016, 1, 31, 23)));
+    }
+
+    @Test
+    public void test200NotSupportedOnH2() throws Exception {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        configuration.setAuditPartitioning(true);
+        try {
+            assertFalse(auditPartitionManager.isEnabled());
+            try {
+                configuration.validate();
+                fail("Configuration with audit partitioning on H2 was accepted");
+            } catch (RepositoryServiceFactoryException e) {
+                // expected
+            }
+        } finally {
+            configuration.setAuditPartitioning(false);
+        }
+    }
+
+    private Date date(int year, int month, int day, int hour) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, 0);
+        return calendar.getTime();
+    }
+}
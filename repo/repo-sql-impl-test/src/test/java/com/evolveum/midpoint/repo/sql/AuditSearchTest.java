@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.audit.api.AuditEventRecord;
+import com.evolveum.midpoint.audit.api.AuditEventType;
+import com.evolveum.midpoint.audit.api.AuditReferenceResolution;
+import com.evolveum.midpoint.audit.api.AuditResultHandler;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.util.SimpleTaskAdapter;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuditSearchTest extends BaseSQLRepoTest {
+
+    private static final int RECORDS = 25;
+    private static final String QUERY = "from RAuditEventRecord as aer where aer.eventType = :eventType order by aer.timestamp";
+
+    private int batchSizeBefore;
+    private String initiatorOid;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        batchSizeBefore = configuration.getGetObjectsBatchSize();
+        configuration.setGetObjectsBatchSize(10);
+
+        OperationResult result = new OperationResult("beforeClass");
+        UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+        user.setName(new PolyStringType(new PolyString("initiator")));
+        initiatorOid = repositoryService.addObject(user.asPrismObject(), null, result);
+        PrismObject<UserType> initiator = repositoryService.getObject(UserType.class, initiatorOid, null, result);
+
+        for (int i = 0; i < RECORDS; i++) {
+            AuditEventRecord record = new AuditEventRecord(AuditEventType.ADD_OBJECT);
+            record.setTimestamp(System.currentTimeMillis() + i);
+            record.setInitiator(initiator);
+            record.setTarget(initiator);
+            auditService.audit(record, new SimpleTaskAdapter());
+        }
+    }
+
+    @AfterClass
+    public void afterClass() {
+        baseHelper.getConfiguration().setGetObjectsBatchSize(batchSizeBefore);
+    }
+
+    @Test
+    public void test100SearchFull() {
+        List<AuditEventRecord> records = search(AuditReferenceResolution.FULL, -1);
+
+        assertEquals(RECORDS, records.size());
+        for (AuditEventRecord record : records) {
+            assertNotNull("No initiator", record.getInitiator());
+            assertEquals(initiatorOid, record.getInitiator().getOid());
+            assertEquals("initiator", record.getInitiator().asObjectable().getName().getOrig());
+            assertNotNull("No target object", record.getTarget().getObject());
+            assertEquals(initiatorOid, record.getTarget().getObject().getOid());
+            assertNull(record.getTargetOwner());
+        }
+    }
+
+    @Test
+    public void test110SearchNames() {
+        List<AuditEventRecord> records = search(AuditReferenceResolution.NAMES, -1);
+
+        assertEquals(RECORDS, records.size());
+        for (AuditEventRecord record : records) {
+            assertEquals(initiatorOid, record.getInitiator().getOid());
+            assertEquals("initiator", record.getInitiator().asObjectable().getName().getOrig());
+            assertEquals(initiatorOid, record.getTarget().getOid());
+            assertEquals(UserType.COMPLEX_TYPE, record.getTarget().getTargetType());
+            assertEquals("initiator", record.getTarget().getTargetName().getOrig());
+            assertNull(record.getTarget().getObject());
+        }
+    }
+
+    @Test
+    public void test120SearchNone() {
+        List<AuditEventRecord> records = search(AuditReferenceResolution.NONE, -1);
+
+        assertEquals(RECORDS, records.size());
+        for (AuditEventRecord record : records) {
+            assertNull(record.getInitiator());
+            assertNull(record.getTarget());
+        }
+    }
+
+    @Test
+    public void test130Stop() {
+        List<AuditEventRecord> records = search(AuditReferenceResolution.FULL, 13);
+        assertEquals(13, records.size());
+    }
+
+    @Test
+    public void test200ListRecords() {
+        List<AuditEventRecord> records = auditService.listRecords(QUERY, createParams());
+
+        assertEquals(RECORDS, records.size());
+        for (AuditEventRecord record : records) {
+            assertEquals(initiatorOid, record.getInitiator().getOid());
+            assertEquals(initiatorOid, record.getTarget().getObject().getOid());
+        }
+    }
+
+    /**
+     * More distinct objects than the resolved objects cache can hold: objects needed by a batch must not be
+     * evicted before the batch is processed.
+     */
+    @Test
+    public void test300MoreObjectsThanCacheSize() throws Exception {
+        final int users = 12;
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        int cacheSizeBefore = configuration.getAuditResolvedObjectsCacheSize();
+        configuration.setAuditResolvedObjectsCacheSize(3);
+        try {
+            OperationResult result = new OperationResult("test300MoreObjectsThanCacheSize");
+            List<PrismObject<UserType>> objects = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+                user.setName(new PolyStringType(new PolyString("user-" + i)));
+                String oid = repositoryService.addObject(user.asPrismObject(), null, result);
+                objects.add(repositoryService.getObject(UserType.class, oid, null, result));
+            }
+            for (int i = 0; i < users; i++) {
+                AuditEventRecord record = new AuditEventRecord(AuditEventType.MODIFY_OBJECT);
+                record.setTimestamp(System.currentTimeMillis() + i);
+                record.setInitiator(objects.get(i));
+                record.setTarget(objects.get((i + 1) % users));
+                record.setTargetOwner(objects.get((i + 2) % users));
+                auditService.audit(record, new SimpleTaskAdapter());
+            }
+
+            Map<String, Object> params = new HashMap<>();
+            params.put("eventType", AuditEventType.MODIFY_OBJECT);
+            List<AuditEventRecord> listed = auditService.listRecords(QUERY, params);
+            assertResolved(listed, objects);
+
+            final List<AuditEventRecord> iterated = new ArrayList<>();
+            auditService.searchRecordsIterative(QUERY, params, new AuditResultHandler() {
+                @Override
+                public boolean handle(AuditEventRecord record) {
+                    iterated.add(record);
+                    return true;
+                }
+            }, AuditReferenceResolution.FULL);
+            assertResolved(iterated, objects);
+        } finally {
+            configuration.setAuditResolvedObjectsCacheSize(cacheSizeBefore);
+        }
+    }
+
+    private void assertResolved(List<AuditEventRecord> records, List<PrismObject<UserType>> objects) {
+        int users = objects.size();
+        assertEquals(users, records.size());
+        for (int i = 0; i < users; i++) {
+            AuditEventRecord record = records.get(i);
+            assertNotNull("No initiator in record " + i, record.getInitiator());
+            assertEquals(objects.get(i).getOid(), record.getInitiator().getOid());
+            assertNotNull("No target object in record " + i, record.getTarget().getObject());
+            assertEquals(objects.get((i + 1) % users).getOid(), record.getTarget().getObject().getOid());
+            assertNotNull("No target owner in record " + i, record.getTargetOwner());
+            assertEquals(objects.get((i + 2) % users).getOid(), record.getTargetOwner().getOid());
+        }
+    }
+
+    private List<AuditEventRecord> search(AuditReferenceResolution resolution, final int limit) {
+        final List<AuditEventRecord> records = new ArrayList<>();
+        auditService.searchRecordsIterative(QUERY, createParams(), new AuditResultHandler() {
+            @Override
+            public boolean handle(AuditEventRecord record) {
+                records.add(record);
+                return limit < 0 || records.size() < limit;
+            }
+        }, resolution);
+        return records;
+    }
+
+    private Map<String, Object> createParams() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("eventType", AuditEventType.ADD_OBJECT);
+        return params;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.audit.api.AuditEventRecord;
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.repo.sql.data.audit.RAuditEventRecord;
+import com.evolveum.midpoint.repo.sql.data.audit.RObjectDeltaOperation;
+import com.evolveum.midpoint.repo.sql.helpers.AuditWriter;
+import com.evolveum.midpoint.repo.sql.util.SimpleTaskAdapter;
+import com.evolveum.midpoint.schema.ObjectDeltaOperation;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class AuditWriterTest extends BaseSQLRepoTest {
+
+    private static final int RECORDS = 50;
+
+    @Autowired
+    private AuditWriter auditWriter;
+
+    private AuditWriteMode modeBefore;
+    private int batchSizeBefore;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        modeBefore = configuration.getAuditWriteMode();
+        batchSizeBefore = configuration.getAuditBatchSize();
+        configuration.setAuditWriteMode(AuditWriteMode.ASYNC);
+        configuration.setAuditBatchSize(7);
+    }
+
+    @AfterClass
+    public void afterClass() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        configuration.setAuditWriteMode(modeBefore);
+        configuration.setAuditBatchSize(batchSizeBefore);
+    }
+
+    @Test
+    public void test100AsyncWrite() throws Exception {
+        for (int i = 0; i < RECORDS; i++) {
+            auditService.audit(createRecord(i), new SimpleTaskAdapter());
+        }
+        auditWriter.flush();
+
+        assertEquals(RECORDS, count(RAuditEventRecord.class));
+        assertEquals(2 * RECORDS, count(RObjectDeltaOperation.class));
+        assertEquals(RECORDS, auditWriter.getWrittenCount() + auditWriter.getRejectedCount());
+        assertEquals(0, auditWriter.getFailedCount());
+        assertEquals(0, auditWriter.getQueueDepth());
+
+        SqlPerformanceMonitor pm = baseHelper.getPerformanceMonitor();
+        String metrics = pm.getMetrics();
+        assertTrue(metrics, metrics.contains("midpoint_repository_audit_queue_depth 0\n"));
+        assertTrue(metrics, metrics.contains("operation=\"auditBatch\""));
+    }
+
+    @Test
+    public void test200Shutdown() throws Exception {
+        long before = count(RAuditEventRecord.class);
+        for (int i = 0; i < RECORDS; i++) {
+            auditService.audit(createRecord(i), new SimpleTaskAdapter());
+        }
+
+        // records waiting in the queue have to be written before the writer stops
+        auditWriter.shutdown();
+        assertEquals(before + RECORDS, count(RAuditEventRecord.class));
+
+        // after stopping, records are written synchronously
+        assertFalse(auditWriter.isAsync());
+        auditService.audit(createRecord(0), new SimpleTaskAdapter());
+        assertEquals(before + RECORDS + 1, count(RAuditEventRecord.class));
+    }
+
+    private AuditEventRecord createRecord(int i) throws Exception {
+        AuditEventRecord record = new AuditEventRecord();
+        record.setTimestamp(System.currentTimeMillis());
+        record.addDelta(createObjectDeltaOperation("a" + i));
+        record.addDelta(createObjectDeltaOperation("b" + i));
+        return record;
+    }
+
+    private ObjectDeltaOperation createObjectDeltaOperation(String userName) throws Exception {
+        ObjectDeltaOperation delta = new ObjectDeltaOperation();
+        delta.setExecutionResult(new OperationResult("audit"));
+        UserType user = new UserType();
+        prismContext.adopt(user);
+        PolyStringType name = new PolyStringType();
+        name.setOrig(userName);
+        name.setNorm(userName);
+        user.setName(name);
+        delta.setObjectDelta(ObjectDelta.createAddDelta(user.asPrismObject()));
+        return delta;
+    }
+
+    private long count(Class<?> entity) {
+        Session session = getFactory().openSession();
+        try {
+            session.beginTransaction();
+            Long count = (Long) session.createQuery("select count(*) from " + entity.getSimpleName()).uniqueResult();
+            session.getTransaction().commit();
+            return count;
+        } finally {
+            session.close();
+        }
+    }
+}
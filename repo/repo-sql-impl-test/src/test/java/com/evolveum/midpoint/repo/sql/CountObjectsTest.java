@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.helpers.CountCache;
+import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.SelectorOptions;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OrgType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests caching of countObjects results and estimated counts.
+ */
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class CountObjectsTest extends BaseSQLRepoTest {
+
+    private static final String COST_CENTER = "cc-count";
+    private static final int COUNT = 5;
+
+    @Autowired
+    private CountCache countCache;
+
+    private long timeToLiveBefore;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        assertFalse("Count cache should be disabled by default", countCache.isEnabled());
+        timeToLiveBefore = configuration.getCountCacheTimeToLive();
+        configuration.setCountCacheTimeToLive(10000);
+
+        OperationResult result = new OperationResult("add objects");
+        for (int i = 0; i < COUNT; i++) {
+            addUser("count-user-" + i, COST_CENTER, result);
+        }
+        result.recomputeStatus();
+        assertTrue(result.isSuccess());
+    }
+
+    @AfterClass
+    public void afterClass() {
+        baseHelper.getConfiguration().setCountCacheTimeToLive(timeToLiveBefore);
+    }
+
+    private String addUser(String name, String costCenter, OperationResult result) throws Exception {
+        UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+        user.setName(new PolyStringType(new PolyString(name)));
+        user.setCostCenter(costCenter);
+        return repositoryService.addObject(user.asPrismObject(), null, result);
+    }
+
+    private ObjectQuery createQuery() throws Exception {
+        return QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq(COST_CENTER)
+                .build();
+    }
+
+    private int count(ObjectQuery query, OperationResult result) throws Exception {
+        return repositoryService.countObjects(UserType.class, query, result);
+    }
+
+    @Test
+    public void test100CachedCount() throws Exception {
+        OperationResult result = new OperationResult("test100CachedCount");
+        countCache.clear();
+
+        long hitsBefore = countCache.getHits();
+        assertEquals(COUNT, count(createQuery(), result));
+        assertEquals(hitsBefore, countCache.getHits());
+
+        // a query created anew has to be recognized as the same one
+        assertEquals(COUNT, count(createQuery(), result));
+        assertEquals(hitsBefore + 1, countCache.getHits());
+    }
+
+    @Test
+    public void test110InvalidateOnAddModifyDelete() throws Exception {
+        OperationResult result = new OperationResult("test110InvalidateOnAddModifyDelete");
+        countCache.clear();
+        assertEquals(COUNT, count(createQuery(), result));
+
+        String oid = addUser("count-user-added", COST_CENTER, result);
+        assertEquals(COUNT + 1, count(createQuery(), result));
+
+        ObjectDelta<UserType> delta = ObjectDelta.createModificationReplaceProperty(UserType.class, oid,
+                UserType.F_COST_CENTER, prismContext, "cc-other");
+        repositoryService.modifyObject(UserType.class, oid, delta.getModifications(), result);
+        assertEquals(COUNT, count(createQuery(), result));
+
+        delta = ObjectDelta.createModificationReplaceProperty(UserType.class, oid,
+                UserType.F_COST_CENTER, prismContext, COST_CENTER);
+        repositoryService.modifyObject(UserType.class, oid, delta.getModifications(), result);
+        assertEquals(COUNT + 1, count(createQuery(), result));
+
+        repositoryService.deleteObject(UserType.class, oid, result);
+        assertEquals(COUNT, count(createQuery(), result));
+    }
+
+    @Test
+    public void test120UnrelatedTypeDoesNotInvalidate() throws Exception {
+        OperationResult result = new OperationResult("test120UnrelatedTypeDoesNotInvalidate");
+        countCache.clear();
+        assertEquals(COUNT, count(createQuery(), result));
+
+        RoleType role = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(RoleType.class).instantiate().asObjectable();
+        role.setName(new PolyStringType(new PolyString("count-role")));
+        String oid = repositoryService.addObject(role.asPrismObject(), null, result);
+        repositoryService.deleteObject(RoleType.class, oid, result);
+
+        long hitsBefore = countCache.getHits();
+        assertEquals(COUNT, count(createQuery(), result));
+        assertEquals(hitsBefore + 1, countCache.getHits());
+
+        // counts of all objects are affected by writes of any type
+        assertEquals(COUNT, repositoryService.countObjects(UserType.class, null, result));
+        int allObjects = repositoryService.countObjects(ObjectType.class, null, result);
+        oid = repositoryService.addObject(role.asPrismObject(), null, result);
+        assertEquals(allObjects + 1, repositoryService.countObjects(ObjectType.class, null, result));
+        repositoryService.deleteObject(RoleType.class, oid, result);
+        assertEquals(allObjects, repositoryService.countObjects(ObjectType.class, null, result));
+    }
+
+    @Test
+    public void test130OrgWriteInvalidatesAll() throws Exception {
+        OperationResult result = new OperationResult("test130OrgWriteInvalidatesAll");
+        countCache.clear();
+        assertEquals(COUNT, count(createQuery(), result));
+        assertEquals(1, countCache.size());
+
+        OrgType org = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(OrgType.class).instantiate().asObjectable();
+        org.setName(new PolyStringType(new PolyString("count-org")));
+        repositoryService.addObject(org.asPrismObject(), null, result);
+
+        assertEquals(0, countCache.size());
+    }
+
+    @Test
+    public void test140Expiration() throws Exception {
+        OperationResult result = new OperationResult("test140Expiration");
+        countCache.clear();
+
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        long timeToLive = configuration.getCountCacheTimeToLive();
+        configuration.setCountCacheTimeToLive(100);
+        try {
+            assertEquals(COUNT, count(createQuery(), result));
+            Thread.sleep(200);
+
+            long hitsBefore = countCache.getHits();
+            assertEquals(COUNT, count(createQuery(), result));
+            assertEquals(hitsBefore, countCache.getHits());
+        } finally {
+            configuration.setCountCacheTimeToLive(timeToLive);
+        }
+    }
+
+    /**
+     * Writes done by other nodes bypass the invalidation, so the cached count is stale until it expires.
+     * This is the documented contract of the cache.
+     */
+    @Test
+    public void test145StaleUntilExpiration() throws Exception {
+        OperationResult result = new OperationResult("test145StaleUntilExpiration");
+        countCache.clear();
+
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        long timeToLive = configuration.getCountCacheTimeToLive();
+        configuration.setCountCacheTimeToLive(500);
+        try {
+            assertEquals(COUNT, count(createQuery(), result));
+
+            // "another node" changes the data directly in the database
+            assertEquals(COUNT, replaceCostCenterInDatabase(COST_CENTER, COST_CENTER + "-other"));
+
+            assertEquals("Count should be served from the cache", COUNT, count(createQuery(), result));
+            Thread.sleep(600);
+            assertEquals("Count should be re-computed after expiration", 0, count(createQuery(), result));
+        } finally {
+            replaceCostCenterInDatabase(COST_CENTER + "-other", COST_CENTER);
+            configuration.setCountCacheTimeToLive(timeToLive);
+            countCache.clear();
+        }
+    }
+
+    private int replaceCostCenterInDatabase(String oldValue, String newValue) {
+        Session session = open();
+        try {
+            Query update = session.createSQLQuery("update m_user set costCenter = :newValue where costCenter = :oldValue");
+            update.setString("newValue", newValue);
+            update.setString("oldValue", oldValue);
+            return update.executeUpdate();
+        } finally {
+            close(session);
+        }
+    }
+
+    @Test
+    public void test150AllowEstimatedCount() throws Exception {
+        OperationResult result = new OperationResult("test150AllowEstimatedCount");
+        countCache.clear();
+
+        // H2 provides no statistics, so the count is exact
+        int count = repositoryService.countObjects(UserType.class, null,
+                SelectorOptions.createCollection(GetOperationOptions.createAllowEstimatedCount()), result);
+        assertEquals(COUNT, count);
+
+        count = repositoryService.countObjects(UserType.class, createQuery(),
+                SelectorOptions.createCollection(GetOperationOptions.createAllowEstimatedCount()), result);
+        assertEquals(COUNT, count);
+
+        result.recomputeStatus();
+        assertTrue(result.isSuccess());
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.path.IdItemPathSegment;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.path.NameItemPathSegment;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.polystring.PrismDefaultPolyStringNormalizer;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
+import com.evolveum.midpoint.prism.query.OrderDirection;
+import com.evolveum.midpoint.repo.sql.helpers.LookupTableCache;
+import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.RelationalValueSearchQuery;
+import com.evolveum.midpoint.schema.RelationalValueSearchType;
+import com.evolveum.midpoint.schema.SelectorOptions;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.LookupTableRowType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.LookupTableType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static com.evolveum.midpoint.schema.RelationalValueSearchType.EXACT;
+import static com.evolveum.midpoint.schema.RelationalValueSearchType.STARTS_WITH;
+import static com.evolveum.midpoint.schema.RelationalValueSearchType.SUBSTRING;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Checks that lookup table rows served from the lookup table cache are the same as the ones fetched from the database.
+ */
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class LookupTableCacheTest extends BaseSQLRepoTest {
+
+    @Autowired
+    private LookupTableCache lookupTableCache;
+
+    private long timeToLiveBefore;
+    private int maxRowsBefore;
+
+    private String tableOid;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        assertFalse("Lookup table cache should be disabled by default", lookupTableCache.isEnabled());
+        timeToLiveBefore = baseHelper.getConfiguration().getLookupTableCacheTimeToLive();
+        maxRowsBefore = baseHelper.getConfiguration().getLookupTableCacheMaxRows();
+    }
+
+    @AfterClass
+    public void afterClass() {
+        baseHelper.getConfiguration().setLookupTableCacheTimeToLive(timeToLiveBefore);
+        baseHelper.getConfiguration().setLookupTableCacheMaxRows(maxRowsBefore);
+        lookupTableCache.clear();
+    }
+
+    @Test
+    public void test100AddTable() throws Exception {
+        OperationResult result = new OperationResult("test100AddTable");
+
+        LookupTableType table = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(LookupTableType.class)
+                .instantiate().asObjectable();
+        table.setName(new PolyStringType(new PolyString("languages")));
+        addRow(table, 1, "en_US", "en", "English (US)");
+        addRow(table, 2, "en_PR", "en", "English (pirate)");
+        addRow(table, 3, "sk_SK", "sk", "Slovak");
+        addRow(table, 4, "tr_TR", "tr", "Turkish");
+        addRow(table, 5, "sk", "sk", null);
+        addRow(table, 6, "enx", null, "Enx");
+        tableOid = repositoryService.addObject(table.asPrismObject(), null, result);
+    }
+
+    @Test
+    public void test110SameResults() throws Exception {
+        assertSameRows(null);
+        assertSameRows(query(LookupTableRowType.F_KEY, "sk", EXACT, null));
+        assertSameRows(query(LookupTableRowType.F_KEY, "en", STARTS_WITH, null));
+        assertSameRows(query(LookupTableRowType.F_KEY, "_", SUBSTRING, null));
+        assertSameRows(query(LookupTableRowType.F_KEY, "e%U", STARTS_WITH, null));
+        assertSameRows(query(LookupTableRowType.F_KEY, "S", SUBSTRING, null));
+        assertSameRows(query(LookupTableRowType.F_VALUE, "en", EXACT, null));
+        assertSameRows(query(LookupTableRowType.F_VALUE, "s", STARTS_WITH, null));
+        assertSameRows(query(LookupTableRowType.F_LABEL, "English", STARTS_WITH, null));
+        assertSameRows(query(LookupTableRowType.F_LABEL, "PIRATE", SUBSTRING, null));
+        assertSameRows(query(LookupTableRowType.F_KEY, "xyz", SUBSTRING, null));
+    }
+
+    @Test
+    public void test120SameResultsWithPaging() throws Exception {
+        assertSameRows(query(LookupTableRowType.F_KEY, "_", SUBSTRING,
+                ObjectPaging.createPaging(2, 1, LookupTableRowType.F_KEY, OrderDirection.ASCENDING)));
+        assertSameRows(query(LookupTableRowType.F_KEY, "e", STARTS_WITH,
+                ObjectPaging.createPaging(0, 2, LookupTableRowType.F_KEY, OrderDirection.DESCENDING)));
+        assertSameRows(query(LookupTableRowType.F_VALUE, "sk", EXACT,
+                ObjectPaging.createPaging(1, 10, LookupTableRowType.F_KEY, OrderDirection.ASCENDING)));
+        assertSameRows(query(null, null, null,
+                ObjectPaging.createPaging(1, 3, LookupTableRowType.F_KEY, OrderDirection.ASCENDING)));
+    }
+
+    @Test
+    public void test130ServedFromCache() throws Exception {
+        enableCache(true);
+        lookupTableCache.clear();
+        long hitsBefore = lookupTableCache.getHits();
+
+        getRows(query(LookupTableRowType.F_KEY, "en", STARTS_WITH, null));
+        getRows(query(LookupTableRowType.F_KEY, "sk", EXACT, null));
+        getRows(null);
+
+        assertEquals("Wrong # of cache hits", hitsBefore + 2, lookupTableCache.getHits());
+        assertEquals("Wrong # of cached tables", 1, lookupTableCache.size());
+    }
+
+    @Test
+    public void test200ModificationInvalidatesCache() throws Exception {
+        OperationResult result = new OperationResult("test200ModificationInvalidatesCache");
+        enableCache(true);
+        assertEquals(keys("sk_SK"), getRows(query(LookupTableRowType.F_KEY, "sk_", STARTS_WITH, null)));
+
+        ItemPath keyPath = new ItemPath(new NameItemPathSegment(LookupTableType.F_ROW), new IdItemPathSegment(3L),
+                new NameItemPathSegment(LookupTableRowType.F_KEY));
+        ObjectDelta<LookupTableType> delta = ObjectDelta.createModificationReplaceProperty(LookupTableType.class,
+                tableOid, keyPath, prismContext, "sk_XX");
+        repositoryService.modifyObject(LookupTableType.class, tableOid, delta.getModifications(), result);
+
+        assertEquals(keys("sk_XX"), getRows(query(LookupTableRowType.F_KEY, "sk_", STARTS_WITH, null)));
+        assertSameRows(query(LookupTableRowType.F_KEY, "sk_", STARTS_WITH, null));
+    }
+
+    @Test
+    public void test210LargeTableIsNotCached() throws Exception {
+        enableCache(true);
+        baseHelper.getConfiguration().setLookupTableCacheMaxRows(3);
+        try {
+            lookupTableCache.clear();
+            assertSameRows(query(LookupTableRowType.F_KEY, "en", STARTS_WITH, null));
+            assertSameRows(null);
+        } finally {
+            baseHelper.getConfiguration().setLookupTableCacheMaxRows(maxRowsBefore);
+        }
+    }
+
+    private void assertSameRows(RelationalValueSearchQuery query) throws Exception {
+        enableCache(false);
+        List<String> fromDatabase = getRows(query);
+        enableCache(true);
+        List<String> fromCache = getRows(query);
+        List<String> fromCacheAgain = getRows(query);
+
+        boolean ordered = query != null && query.getPaging() != null && query.getPaging().getOrderBy() != null;
+        if (!ordered) {
+            Collections.sort(fromDatabase);
+            Collections.sort(fromCache);
+            Collections.sort(fromCacheAgain);
+        }
+        assertEquals("Wrong rows from cache for " + describe(query), fromDatabase, fromCache);
+        assertEquals("Wrong rows from cache (2nd attempt) for " + describe(query), fromDatabase, fromCacheAgain);
+    }
+
+    private List<String> getRows(RelationalValueSearchQuery query) throws Exception {
+        OperationResult result = new OperationResult("getRows");
+        GetOperationOptions options = query != null ? GetOperationOptions.createRetrieve(query) : GetOperationOptions.createRetrieve();
+        Collection<SelectorOptions<GetOperationOptions>> selectorOptions =
+                SelectorOptions.createCollection(LookupTableType.F_ROW, options);
+        PrismObject<LookupTableType> table = repositoryService.getObject(LookupTableType.class, tableOid, selectorOptions, result);
+        List<String> rv = new ArrayList<>();
+        for (LookupTableRowType row : table.asObjectable().getRow()) {
+            assertTrue("Row without ID: " + row, row.getId() != null);
+            rv.add(row.getKey());
+        }
+        return rv;
+    }
+
+    private RelationalValueSearchQuery query(QName column, String value, RelationalValueSearchType type, ObjectPaging paging) {
+        return new RelationalValueSearchQuery(column, value, type, paging);
+    }
+
+    private String describe(RelationalValueSearchQuery query) {
+        if (query == null) {
+            return "(all)";
+        }
+        return query.getColumn() + " " + query.getSearchType() + " '" + query.getSearchValue() + "' paging=" + query.getPaging();
+    }
+
+    private void enableCache(boolean enabled) {
+        baseHelper.getConfiguration().setLookupTableCacheTimeToLive(enabled ? 60000 : 0);
+    }
+
+    private List<String> keys(String... keys) {
+        List<String> rv = new ArrayList<>();
+        Collections.addAll(rv, keys);
+        return rv;
+    }
+
+    private void addRow(LookupTableType table, long id, String key, String value, String label) {
+        LookupTableRowType row = new LookupTableRowType();
+        row.setId(id);
+        row.setKey(key);
+        row.setValue(value);
+        if (label != null) {
+            PolyString polyLabel = new PolyString(label);
+            polyLabel.recompute(new PrismDefaultPolyStringNormalizer());
+            row.setLabel(new PolyStringType(polyLabel));
+        }
+        table.getRow().add(row);
+    }
+}
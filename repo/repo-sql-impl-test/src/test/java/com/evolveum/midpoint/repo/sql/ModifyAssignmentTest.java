@@ -19,27 +19,35 @@ package com.evolveum.midpoint.repo.sql;
 import static com.evolveum.midpoint.prism.util.PrismTestUtil.*;
 
 import com.evolveum.midpoint.prism.*;
+import com.evolveum.midpoint.prism.delta.ContainerDelta;
+import com.evolveum.midpoint.prism.delta.ItemDelta;
 import com.evolveum.midpoint.prism.delta.ObjectDelta;
 import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.util.PrismAsserts;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.helpers.PartialUpdateHelper;
 import com.evolveum.midpoint.schema.DeltaConvertor;
 import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.xml.ns._public.common.api_types_3.ObjectModificationType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractRoleType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.RoleType;
 
 import org.hibernate.Query;
 import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.testng.AssertJUnit;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author lazyman
@@ -58,6 +66,12 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
     private static final String NEW_ASSIGNMENT_OID = "12345678-d34d-b33f-f00d-987987987989";
     private static final String NEW_INDUCEMENT_OID = "12345678-d34d-b33f-f00d-987987987987";
 
+    @Autowired
+    private PartialUpdateHelper partialUpdateHelper;
+
+    private long partialUpdatesBefore;
+    private long fallbacksBefore;
+
     @BeforeClass
     public void beforeClass() throws Exception {
         super.beforeClass();
@@ -87,6 +101,12 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
         PrismAsserts.assertEquals(FILE_ROLE, repoRole);
     }
 
+    @BeforeMethod
+    public void rememberUpdateCounts() {
+        partialUpdatesBefore = partialUpdateHelper.getPartialUpdateCount();
+        fallbacksBefore = partialUpdateHelper.getFallbackCount();
+    }
+
     @Test
     public void test10AddAssignment() throws Exception {
         //given
@@ -99,6 +119,7 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
 
         OperationResult result = new OperationResult("add assignment");
         repositoryService.modifyObject(RoleType.class, delta.getOid(), delta.getModifications(), result);
+        assertUpdatePath(true);
         result.recomputeStatus();
         result.recordSuccessIfUnknown();
 
@@ -128,6 +149,8 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
         PrismReferenceValue refValue = targetRef.getValue();
         AssertJUnit.assertEquals(OLD_ASSIGNMENT_OID, refValue.getOid());
         AssertJUnit.assertEquals(RoleType.COMPLEX_TYPE, refValue.getTargetType());
+
+        assertAssignmentRowTarget(ROLE_OID, 4, OLD_ASSIGNMENT_OID);
     }
 
     @Test
@@ -142,6 +165,7 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
 
         OperationResult result = new OperationResult("add inducement");
         repositoryService.modifyObject(RoleType.class, delta.getOid(), delta.getModifications(), result);
+        assertUpdatePath(true);
         result.recomputeStatus();
         result.recordSuccessIfUnknown();
 
@@ -182,6 +206,7 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
 
         OperationResult result = new OperationResult("modify assignment");
         repositoryService.modifyObject(RoleType.class, delta.getOid(), delta.getModifications(), result);
+        assertUpdatePath(true);
         result.recomputeStatus();
         result.recordSuccessIfUnknown();
 
@@ -209,6 +234,42 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
         PrismReferenceValue refValue = targetRef.getValue();
         AssertJUnit.assertEquals(NEW_ASSIGNMENT_OID, refValue.getOid());
         AssertJUnit.assertEquals(RoleType.COMPLEX_TYPE, refValue.getTargetType());
+
+        assertAssignmentRowTarget(ROLE_OID, 4, NEW_ASSIGNMENT_OID);
+    }
+
+    /**
+     * Checks that exactly one modification was executed since the test started, and which path it took.
+     */
+    private void assertUpdatePath(boolean partial) {
+        AssertJUnit.assertEquals("Wrong number of partial updates", partial ? 1 : 0,
+                partialUpdateHelper.getPartialUpdateCount() - partialUpdatesBefore);
+        AssertJUnit.assertEquals("Wrong number of fallbacks to merge", partial ? 0 : 1,
+                partialUpdateHelper.getFallbackCount() - fallbacksBefore);
+    }
+
+    private void assertAssignmentRowCount(String ownerOid, int expected) {
+        Session session = open();
+        try {
+            Query query = session.createSQLQuery("select count(*) from m_assignment where owner_oid=:oid");
+            query.setParameter("oid", ownerOid);
+            Number number = (Number) query.uniqueResult();
+            AssertJUnit.assertEquals("Wrong number of m_assignment rows", expected, number.intValue());
+        } finally {
+            close(session);
+        }
+    }
+
+    private void assertAssignmentRowTarget(String ownerOid, int id, String expectedTargetOid) {
+        Session session = open();
+        try {
+            Query query = session.createSQLQuery("select targetRef_targetOid from m_assignment where owner_oid=:oid and id=:id");
+            query.setParameter("oid", ownerOid);
+            query.setParameter("id", id);
+            AssertJUnit.assertEquals("Wrong targetRef in m_assignment row " + id, expectedTargetOid, query.uniqueResult());
+        } finally {
+            close(session);
+        }
     }
 
     @Test
@@ -223,6 +284,7 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
 
         OperationResult result = new OperationResult("modify inducement");
         repositoryService.modifyObject(RoleType.class, delta.getOid(), delta.getModifications(), result);
+        assertUpdatePath(true);
         result.recomputeStatus();
         result.recordSuccessIfUnknown();
 
@@ -272,6 +334,7 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
 
         OperationResult result = new OperationResult("delete assignment");
         repositoryService.modifyObject(RoleType.class, delta.getOid(), delta.getModifications(), result);
+        assertUpdatePath(true);
         result.recomputeStatus();
         result.recordSuccessIfUnknown();
 
@@ -318,6 +381,7 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
 
         OperationResult result = new OperationResult("delete inducement");
         repositoryService.modifyObject(RoleType.class, delta.getOid(), delta.getModifications(), result);
+        assertUpdatePath(true);
         result.recomputeStatus();
         result.recordSuccessIfUnknown();
 
@@ -359,6 +423,7 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
 
         OperationResult result = new OperationResult("delete add assignment");
         repositoryService.modifyObject(RoleType.class, delta.getOid(), delta.getModifications(), result);
+        assertUpdatePath(true);
         result.recomputeStatus();
         result.recordSuccessIfUnknown();
 
@@ -379,4 +444,76 @@ public class ModifyAssignmentTest extends BaseSQLRepoTest {
         AssertJUnit.assertNotNull(inducement.getValue(2L));
         AssertJUnit.assertNotNull(inducement.getValue(5L));
     }
+
+    /**
+     * Modification of a property outside assignments cannot be done partially.
+     */
+    @Test
+    public void test50ModifyDescriptionFallsBack() throws Exception {
+        ObjectDelta<RoleType> delta = ObjectDelta.createModificationReplaceProperty(RoleType.class, ROLE_OID,
+                RoleType.F_DESCRIPTION, prismContext, "modified description");
+
+        OperationResult result = new OperationResult("modify description");
+        repositoryService.modifyObject(RoleType.class, ROLE_OID, delta.getModifications(), result);
+        assertUpdatePath(false);
+
+        PrismObject<RoleType> repoRole = repositoryService.getObject(RoleType.class, ROLE_OID, null, result);
+        AssertJUnit.assertEquals("modified description", repoRole.asObjectable().getDescription());
+        AssertJUnit.assertEquals(0, repoRole.asObjectable().getAssignment().size());
+        AssertJUnit.assertEquals(3, repoRole.asObjectable().getInducement().size());
+        assertAssignmentRowCount(ROLE_OID, 3);
+    }
+
+    /**
+     * If an assignment delta comes together with a non-assignment one, the whole modification goes
+     * through the merge path; the new assignment row has to be stored anyway.
+     */
+    @Test
+    public void test51MixedModificationFallsBack() throws Exception {
+        AssignmentType newAssignment = new AssignmentType();
+        newAssignment.setId(10L);
+        ObjectReferenceType targetRef = new ObjectReferenceType();
+        targetRef.setOid(NEW_ASSIGNMENT_OID);
+        targetRef.setType(RoleType.COMPLEX_TYPE);
+        newAssignment.setTargetRef(targetRef);
+
+        List<ItemDelta> modifications = new ArrayList<>();
+        modifications.add(ContainerDelta.createModificationAdd(RoleType.F_ASSIGNMENT, RoleType.class, prismContext, newAssignment));
+        modifications.addAll(ObjectDelta.createModificationReplaceProperty(RoleType.class, ROLE_OID,
+                RoleType.F_DESCRIPTION, prismContext, "mixed modification").getModifications());
+
+        OperationResult result = new OperationResult("mixed modification");
+        repositoryService.modifyObject(RoleType.class, ROLE_OID, modifications, result);
+        assertUpdatePath(false);
+
+        PrismObject<RoleType> repoRole = repositoryService.getObject(RoleType.class, ROLE_OID, null, result);
+        AssertJUnit.assertEquals("mixed modification", repoRole.asObjectable().getDescription());
+        AssertJUnit.assertEquals(1, repoRole.asObjectable().getAssignment().size());
+        assertAssignmentRowCount(ROLE_OID, 4);
+        assertAssignmentRowTarget(ROLE_OID, 10, NEW_ASSIGNMENT_OID);
+    }
+
+    @Test
+    public void test52PartialUpdatesDisabled() throws Exception {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        boolean partialUpdates = configuration.isPartialUpdates();
+        configuration.setPartialUpdates(false);
+        try {
+            AssignmentType a = new AssignmentType();
+            a.setId(10L);
+            ObjectDelta<RoleType> delta = ObjectDelta.createModificationDeleteContainer(RoleType.class,
+                    ROLE_OID, RoleType.F_ASSIGNMENT, prismContext, a);
+
+            OperationResult result = new OperationResult("delete assignment, partial updates disabled");
+            repositoryService.modifyObject(RoleType.class, ROLE_OID, delta.getModifications(), result);
+
+            AssertJUnit.assertEquals("Partial update helper was used", partialUpdatesBefore,
+                    partialUpdateHelper.getPartialUpdateCount());
+            AssertJUnit.assertEquals("Partial update helper was used", fallbacksBefore,
+                    partialUpdateHelper.getFallbackCount());
+            assertAssignmentRowCount(ROLE_OID, 3);
+        } finally {
+            configuration.setPartialUpdates(partialUpdates);
+        }
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.helpers.OidLockManager;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OidLockTest extends BaseSQLRepoTest {
+
+    private static final int THREADS = 8;
+    private static final int MODIFICATIONS = 5;
+
+    @Autowired
+    private OidLockManager oidLockManager;
+
+    private int stripesBefore;
+    private long timeoutBefore;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        stripesBefore = configuration.getOidLockStripes();
+        timeoutBefore = configuration.getOidLockTimeout();
+    }
+
+    @AfterClass
+    public void afterClass() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        configuration.setOidLockStripes(stripesBefore);
+        configuration.setOidLockTimeout(timeoutBefore);
+    }
+
+    @Test
+    public void test100Disabled() {
+        baseHelper.getConfiguration().setOidLockStripes(0);
+        assertNull(oidLockManager.lock("00000000-0000-0000-0000-000000000001"));
+    }
+
+    @Test
+    public void test110Timeout() throws Exception {
+        final String oid = "00000000-0000-0000-0000-000000000002";
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        configuration.setOidLockStripes(16);
+        configuration.setOidLockTimeout(100);
+
+        Lock lock = oidLockManager.lock(oid);
+        assertNotNull(lock);
+        try {
+            // reentrant
+            Lock lock2 = oidLockManager.lock(oid);
+            assertNotNull(lock2);
+            oidLockManager.unlock(lock2);
+
+            final AtomicReference<Lock> otherThreadLock = new AtomicReference<>();
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    otherThreadLock.set(oidLockManager.lock(oid));
+                }
+            };
+            thread.start();
+            thread.join();
+            assertNull("Lock held by other thread was acquired", otherThreadLock.get());
+        } finally {
+            oidLockManager.unlock(lock);
+        }
+    }
+
+    @Test
+    public void test200ConcurrentModifications() throws Exception {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        configuration.setOidLockStripes(16);
+        configuration.setOidLockTimeout(10000);
+
+        OperationResult result = new OperationResult("test200ConcurrentModifications");
+        UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+        user.setName(new PolyStringType(new PolyString("lock-user")));
+        final String oid = repositoryService.addObject(user.asPrismObject(), null, result);
+
+        SqlPerformanceMonitor pm = baseHelper.getPerformanceMonitor();
+        pm.reset();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int threadNumber = t;
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        OperationResult threadResult = new OperationResult("modify");
+                        for (int i = 0; i < MODIFICATIONS; i++) {
+                            ObjectDelta<UserType> delta = ObjectDelta.createModificationAddProperty(UserType.class, oid,
+                                    UserType.F_EMPLOYEE_TYPE, prismContext, "t" + threadNumber + "-" + i);
+                            repositoryService.modifyObject(UserType.class, oid, delta.getModifications(), threadResult);
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("Errors: " + errors, errors.isEmpty());
+
+        PrismObject<UserType> loaded = repositoryService.getObject(UserType.class, oid, null, result);
+        assertEquals(THREADS * MODIFICATIONS, loaded.asObjectable().getEmployeeType().size());
+
+        long lockWaits = 0, lockTimeouts = 0;
+        for (SqlPerformanceMonitor.OperationStatistics s : pm.getOperationStatistics()) {
+            if ("modifyObject".equals(s.getKind())) {
+                assertEquals(THREADS * MODIFICATIONS, s.getCount());
+                lockWaits += s.getLockWaits();
+                lockTimeouts += s.getLockTimeouts();
+            }
+        }
+        assertTrue("No lock waits were recorded", lockWaits > 0);
+        assertEquals(0, lockTimeouts);
+    }
+}
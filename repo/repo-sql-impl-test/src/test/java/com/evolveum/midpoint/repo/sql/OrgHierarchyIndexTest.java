@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismReferenceValue;
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.query.OrgFilter;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.helpers.OrgHierarchyIndex;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OrgType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Checks that the org hierarchy index gives the same answers as the closure table.
+ *
+ * Structure: ROOT -> A -> B -> user; ROOT -> C
+ */
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OrgHierarchyIndexTest extends BaseSQLRepoTest {
+
+    private static final String ROOT_OID = "00000000-8888-7777-0000-000000000001";
+    private static final String A_OID = "00000000-8888-7777-0000-000000000002";
+    private static final String B_OID = "00000000-8888-7777-0000-000000000003";
+    private static final String C_OID = "00000000-8888-7777-0000-000000000004";
+    private static final String USER_OID = "00000000-8888-7777-0000-000000000005";
+
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
+    private boolean indexBefore;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+
+        indexBefore = baseHelper.getConfiguration().isOrgHierarchyIndex();
+    }
+
+    @AfterClass
+    public void afterClass() {
+        baseHelper.getConfiguration().setOrgHierarchyIndex(indexBefore);
+        orgHierarchyIndex.invalidate();
+    }
+
+    @Test
+    public void test100AddOrgs() throws Exception {
+        OperationResult result = new OperationResult("test100AddOrgs");
+
+        // the index is loaded before the orgs are added, so incremental updates are tested as well
+        baseHelper.getConfiguration().setOrgHierarchyIndex(true);
+        orgHierarchyIndex.invalidate();
+        long versionBefore = orgHierarchyIndex.getVersionNumber();
+
+        addOrg(ROOT_OID, "root", null, result);
+        addOrg(A_OID, "A", ROOT_OID, result);
+        addOrg(C_OID, "C", ROOT_OID, result);
+        addUser(USER_OID, "user", B_OID, result);
+        addOrg(B_OID, "B", A_OID, result);              // added after its child (user) and after its parent
+
+        assertTrue("Index was not updated", orgHierarchyIndex.getVersionNumber() > versionBefore);
+        assertEquals(set(ROOT_OID, A_OID, B_OID), orgHierarchyIndex.getAncestors(B_OID));
+        assertEquals(set(ROOT_OID, A_OID, B_OID, C_OID), orgHierarchyIndex.getDescendants(ROOT_OID));
+
+        assertSubordinate(ROOT_OID, B_OID, true);
+        assertSubordinate(A_OID, B_OID, true);
+        assertSubordinate(B_OID, B_OID, true);
+        assertSubordinate(C_OID, B_OID, false);
+        assertSubordinate(B_OID, A_OID, false);
+        assertSubordinate(ROOT_OID, USER_OID, false);          // non-orgs are not in the closure
+
+        assertSearch(ROOT_OID, OrgFilter.Scope.SUBTREE, A_OID, B_OID, C_OID, USER_OID);
+        assertSearch(A_OID, OrgFilter.Scope.SUBTREE, B_OID, USER_OID);
+        assertSearch(B_OID, OrgFilter.Scope.ANCESTORS, ROOT_OID, A_OID);
+        assertSearch(ROOT_OID, OrgFilter.Scope.ANCESTORS);
+    }
+
+    @Test
+    public void test200ModifyParent() throws Exception {
+        OperationResult result = new OperationResult("test200ModifyParent");
+
+        baseHelper.getConfiguration().setOrgHierarchyIndex(true);
+        ObjectDelta<OrgType> delta = ObjectDelta.createModificationReplaceReference(OrgType.class, B_OID,
+                OrgType.F_PARENT_ORG_REF, prismContext, new PrismReferenceValue(C_OID, OrgType.COMPLEX_TYPE));
+        repositoryService.modifyObject(OrgType.class, B_OID, delta.getModifications(), result);
+
+        assertSubordinate(A_OID, B_OID, false);
+        assertSubordinate(C_OID, B_OID, true);
+        assertSubordinate(ROOT_OID, B_OID, true);
+
+        assertSearch(A_OID, OrgFilter.Scope.SUBTREE);
+        assertSearch(C_OID, OrgFilter.Scope.SUBTREE, B_OID, USER_OID);
+        assertSearch(B_OID, OrgFilter.Scope.ANCESTORS, ROOT_OID, C_OID);
+    }
+
+    @Test
+    public void test300DeleteOrg() throws Exception {
+        OperationResult result = new OperationResult("test300DeleteOrg");
+
+        baseHelper.getConfiguration().setOrgHierarchyIndex(true);
+        repositoryService.deleteObject(OrgType.class, C_OID, result);
+
+        assertEquals(set(B_OID), orgHierarchyIndex.getAncestors(B_OID));
+        assertEquals(set(), orgHierarchyIndex.getAncestors(C_OID));
+        assertSubordinate(ROOT_OID, B_OID, false);
+        assertSubordinate(C_OID, B_OID, false);
+
+        assertSearch(ROOT_OID, OrgFilter.Scope.SUBTREE, A_OID);
+        assertSearch(B_OID, OrgFilter.Scope.ANCESTORS);
+    }
+
+    @Test
+    public void test400ReloadedIndexIsTheSame() throws Exception {
+        baseHelper.getConfiguration().setOrgHierarchyIndex(true);
+        Set<String> ancestors = orgHierarchyIndex.getAncestors(B_OID);
+        Set<String> descendants = orgHierarchyIndex.getDescendants(ROOT_OID);
+
+        orgHierarchyIndex.invalidate();
+        assertEquals(ancestors, orgHierarchyIndex.getAncestors(B_OID));
+        assertEquals(descendants, orgHierarchyIndex.getDescendants(ROOT_OID));
+    }
+
+    private void addOrg(String oid, String name, String parentOid, OperationResult result) throws Exception {
+        OrgType org = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(OrgType.class).instantiate().asObjectable();
+        fill(org, oid, name, parentOid);
+        repositoryService.addObject(org.asPrismObject(), null, result);
+    }
+
+    private void addUser(String oid, String name, String parentOid, OperationResult result) throws Exception {
+        UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+        fill(user, oid, name, parentOid);
+        repositoryService.addObject(user.asPrismObject(), null, result);
+    }
+
+    private void fill(FocusType focus, String oid, String name, String parentOid) {
+        focus.setOid(oid);
+        focus.setName(new PolyStringType(new PolyString(name)));
+        if (parentOid != null) {
+            ObjectReferenceType parentRef = new ObjectReferenceType();
+            parentRef.setOid(parentOid);
+            parentRef.setType(OrgType.COMPLEX_TYPE);
+            focus.getParentOrgRef().add(parentRef);
+        }
+    }
+
+    private void assertSubordinate(String upper, String lower, boolean expected) throws Exception {
+        List<String> lowers = Arrays.asList(lower);
+        baseHelper.getConfiguration().setOrgHierarchyIndex(false);
+        assertEquals("Wrong answer from closure table for " + upper + " > " + lower,
+                expected, repositoryService.isAnySubordinate(upper, lowers));
+        baseHelper.getConfiguration().setOrgHierarchyIndex(true);
+        assertEquals("Wrong answer from org hierarchy index for " + upper + " > " + lower,
+                expected, repositoryService.isAnySubordinate(upper, lowers));
+    }
+
+    private void assertSearch(String orgOid, OrgFilter.Scope scope, String... expectedOids) throws Exception {
+        OperationResult result = new OperationResult("assertSearch");
+        ObjectQuery query = ObjectQuery.createObjectQuery(OrgFilter.createOrg(orgOid, scope));
+
+        baseHelper.getConfiguration().setOrgHierarchyIndex(false);
+        Set<String> fromClosure = oids(repositoryService.searchObjects(ObjectType.class, query, null, result));
+        baseHelper.getConfiguration().setOrgHierarchyIndex(true);
+        Set<String> fromIndex = oids(repositoryService.searchObjects(ObjectType.class, query, null, result));
+
+        assertEquals("Wrong result using closure table for " + scope + " " + orgOid, set(expectedOids), fromClosure);
+        assertEquals("Wrong result using org hierarchy index for " + scope + " " + orgOid, set(expectedOids), fromIndex);
+    }
+
+    private Set<String> oids(List<PrismObject<ObjectType>> objects) {
+        Set<String> rv = new HashSet<>();
+        for (PrismObject<ObjectType> object : objects) {
+            rv.add(object.getOid());
+        }
+        return rv;
+    }
+
+    private Set<String> set(String... oids) {
+        return new HashSet<>(Arrays.asList(oids));
+    }
+}
@@ -2,8 +2,12 @@ package com.evolveum.midpoint.repo.sql;
 
 import com.evolveum.midpoint.prism.*;
 import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
 import com.evolveum.midpoint.repo.sql.type.XMLGregorianCalendarType;
+import com.evolveum.midpoint.schema.ResultHandler;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
+import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
@@ -18,6 +22,9 @@ import javax.xml.namespace.QName;
 import java.io.*;
 import java.util.*;
 
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+
 /**
  * @author lazyman
  */
@@ -45,6 +52,9 @@ public class PerformanceTest extends BaseSQLRepoTest {
     private static final int USER_PER_ORG_COUNT = 10000;
     private static final int RESOURCE_COUNT = 5;
 
+    private static final int BIG_OBJECT_CONTAINER_COUNT = 20;
+    private static final int PIPELINE_USER_COUNT = 60;
+
     @Test(enabled = false)
     public void test100Parsing() throws Exception {
         long time = System.currentTimeMillis();
@@ -59,6 +69,138 @@ public class PerformanceTest extends BaseSQLRepoTest {
         LOGGER.info("xxx>> time: {}", (System.currentTimeMillis() - time));
     }
 
+    @Test
+    public void test300FullObjectSerialization() throws Exception {
+        PrismObject<UserType> user = prismContext.parseObject(new File(FOLDER_BASIC, "user.xml"));
+        user.asObjectable().setJpegPhoto(new byte[64 * 1024]);
+        for (int i = 1; i <= BIG_OBJECT_CONTAINER_COUNT; i++) {
+            AssignmentType assignment = new AssignmentType();
+            assignment.setId((long) (1000 + i));
+            assignment.setDescription("Assignment " + i);
+            assignment.setTargetRef(createRef(UUID.randomUUID().toString(), RoleType.COMPLEX_TYPE));
+            user.asObjectable().getAssignment().add(assignment);
+        }
+
+        RoleType roleType = new RoleType();
+        roleType.setOid(UUID.randomUUID().toString());
+        roleType.setName(createPoly("Big role"));
+        PrismObject<RoleType> role = roleType.asPrismObject();
+        prismContext.adopt(role);
+        for (int i = 1; i <= BIG_OBJECT_CONTAINER_COUNT; i++) {
+            AssignmentType inducement = new AssignmentType();
+            inducement.setId((long) i);
+            inducement.setDescription("Inducement " + i);
+            inducement.setTargetRef(createRef(UUID.randomUUID().toString(), RoleType.COMPLEX_TYPE));
+            roleType.getInducement().add(inducement);
+        }
+
+        compareFullObjectSerialization(user, FocusType.F_JPEG_PHOTO);
+        compareFullObjectSerialization(role, FocusType.F_JPEG_PHOTO);
+    }
+
+    private <T extends ObjectType> void compareFullObjectSerialization(PrismObject<T> object, QName itemToSkip)
+            throws SchemaException {
+        SerializationOptions options = SerializationOptions.createItemsToSkip(new ItemPath(itemToSkip));
+
+        boolean hadItemToSkip = object.findItem(itemToSkip) != null;
+
+        String expected = serializeWithRoundTrip(object, itemToSkip);
+        String actual = prismContext.serializeObjectToString(object, PrismContext.LANG_XML, options);
+        assertEquals("Single-pass serialization differs from the round-trip one", expected, actual);
+        assertFalse("Skipped item was serialized", actual.contains(itemToSkip.getLocalPart()));
+        assertEquals("Skipped item was removed from the object", hadItemToSkip, object.findItem(itemToSkip) != null);
+    }
+
+    /**
+     * The way full object was serialized before items to skip were supported by the serializer.
+     */
+    private <T extends ObjectType> String serializeWithRoundTrip(PrismObject<T> object, QName itemToSkip)
+            throws SchemaException {
+        String xml = prismContext.serializeObjectToString(object, PrismContext.LANG_XML);
+        PrismObject<T> copy = prismContext.parseObject(xml);
+        copy.removeProperty(itemToSkip);
+        return prismContext.serializeObjectToString(copy, PrismContext.LANG_XML);
+    }
+
+    @Test
+    public void test400SearchParsingPipeline() throws Exception {
+        OperationResult result = new OperationResult("test400SearchParsingPipeline");
+        for (int i = 0; i < PIPELINE_USER_COUNT; i++) {
+            UserType user = new UserType();
+            user.setName(createPoly(String.format("pipeline-%05d", i)));
+            user.setCostCenter("pipeline");
+            for (int j = 1; j <= 5; j++) {
+                AssignmentType assignment = new AssignmentType();
+                assignment.setDescription("Assignment " + j);
+                assignment.setTargetRef(createRef(UUID.randomUUID().toString(), RoleType.COMPLEX_TYPE));
+                user.getAssignment().add(assignment);
+            }
+            PrismObject<UserType> prism = user.asPrismObject();
+            prismContext.adopt(prism);
+            repositoryService.addObject(prism, null, result);
+        }
+
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq("pipeline")
+                .asc(UserType.F_NAME)
+                .build();
+
+        SqlRepositoryConfiguration config = baseHelper.getConfiguration();
+        boolean originalByPaging = config.isIterativeSearchByPaging();
+        boolean originalPipeline = config.isSearchParsingPipeline();
+        boolean originalOrdered = config.isSearchParsingOrdered();
+        int originalThreads = config.getParsingThreads();
+        int originalSize = config.getSearchParsingPipelineSize();
+        try {
+            config.setIterativeSearchByPaging(false);
+            config.setParsingThreads(2);
+            config.setSearchParsingPipelineSize(10);
+
+            config.setSearchParsingPipeline(false);
+            List<String> expected = searchIteratively(query, -1, result);
+            assertEquals("Wrong # of objects", PIPELINE_USER_COUNT, expected.size());
+
+            config.setSearchParsingPipeline(true);
+            List<String> pipelined = searchIteratively(query, -1, result);
+            assertEquals("Pipeline returned objects in wrong order", expected, pipelined);
+
+            assertEquals("Wrong objects processed when the handler stopped the search",
+                    expected.subList(0, 15), searchIteratively(query, 15, result));
+
+            List<String> listed = new ArrayList<>();
+            for (PrismObject<UserType> user : repositoryService.searchObjects(UserType.class, query, null, result)) {
+                listed.add(user.getOid());
+            }
+            assertEquals("searchObjects returned wrong objects", expected, listed);
+
+            config.setSearchParsingOrdered(false);
+            ObjectQuery unorderedQuery = query.clone();
+            unorderedQuery.setPaging(null);
+            List<String> unordered = searchIteratively(unorderedQuery, -1, result);
+            assertEquals("Unordered pipeline returned wrong objects", new HashSet<>(expected), new HashSet<>(unordered));
+            assertEquals("Unordered pipeline returned duplicate objects", expected.size(), unordered.size());
+        } finally {
+            config.setIterativeSearchByPaging(originalByPaging);
+            config.setSearchParsingPipeline(originalPipeline);
+            config.setSearchParsingOrdered(originalOrdered);
+            config.setParsingThreads(originalThreads);
+            config.setSearchParsingPipelineSize(originalSize);
+        }
+    }
+
+    private List<String> searchIteratively(ObjectQuery query, final int limit, OperationResult result) throws SchemaException {
+        final List<String> oids = new ArrayList<>();
+        ResultHandler<UserType> handler = new ResultHandler<UserType>() {
+            @Override
+            public boolean handle(PrismObject<UserType> object, OperationResult parentResult) {
+                oids.add(object.getOid());
+                return limit < 0 || oids.size() < limit;
+            }
+        };
+        repositoryService.searchObjectsIterative(UserType.class, query, handler, null, false, result);
+        return oids;
+    }
+
     @Test(enabled = false)
     public void test200PrepareBigXml() throws Exception {
         File file = new File("./target/big-test.xml");
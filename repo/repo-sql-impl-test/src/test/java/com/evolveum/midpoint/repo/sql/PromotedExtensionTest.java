@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.prism.xml.XmlTypeConverter;
+import com.evolveum.midpoint.repo.sql.helpers.PromotedExtensionHelper;
+import com.evolveum.midpoint.repo.sql.query2.QueryEngine2;
+import com.evolveum.midpoint.repo.sql.query2.RQueryImpl;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.GenericObjectType;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.xml.namespace.QName;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType.F_EXTENSION;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Checks that searching on promoted extension items gives the same results as searching the generic extension tables.
+ */
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class PromotedExtensionTest extends BaseSQLRepoTest {
+
+    private static final String NS = "http://example.com/p";
+    private static final QName STRING_TYPE = new QName(NS, "stringType");
+    private static final QName INT_TYPE = new QName(NS, "intType");
+    private static final QName DATE_TYPE = new QName(NS, "dateType");
+
+    private static final String PROMOTED_ITEMS = NS + "#stringType=string1, " + NS + "#intType=long1, dateType=date2";
+
+    private static final long DAY = 24L * 3600 * 1000;
+    private static final long BASE_TIME = 1450000000000L;
+
+    @Autowired
+    private PromotedExtensionHelper promotedExtensionHelper;
+
+    private String oid1, oid2, oid3, oid4;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    @AfterClass
+    public void afterClass() {
+        baseHelper.getConfiguration().setPromotedExtensionItems(null);
+    }
+
+    @Test
+    public void test100AddObjectsWithoutPromotion() throws Exception {
+        OperationResult result = new OperationResult("test100AddObjectsWithoutPromotion");
+
+        baseHelper.getConfiguration().setPromotedExtensionItems(null);
+        oid1 = addObject("g1", "alpha", 10, BASE_TIME, result);
+        oid2 = addObject("g2", "beta", 20, BASE_TIME + DAY, result);
+
+        assertEquals("Promoted rows created while promotion is off", 0, countPromotedRows());
+    }
+
+    @Test
+    public void test110Backfill() throws Exception {
+        baseHelper.getConfiguration().setPromotedExtensionItems(PROMOTED_ITEMS);
+
+        assertEquals("Wrong # of rows created by backfill", 2, promotedExtensionHelper.backfill());
+        assertEquals("Wrong # of rows created by repeated backfill", 0, promotedExtensionHelper.backfill());
+        assertEquals(Arrays.<Object>asList("alpha", 10L), getPromotedValues(oid1));
+        assertEquals(Arrays.<Object>asList("beta", 20L), getPromotedValues(oid2));
+    }
+
+    @Test
+    public void test120AddObjectsWithPromotion() throws Exception {
+        OperationResult result = new OperationResult("test120AddObjectsWithPromotion");
+
+        baseHelper.getConfiguration().setPromotedExtensionItems(PROMOTED_ITEMS);
+        oid3 = addObject("g3", "gamma", 30, BASE_TIME + 2 * DAY, result);
+        oid4 = addObject("g4", null, null, null, result);
+
+        assertEquals(Arrays.<Object>asList("gamma", 30L), getPromotedValues(oid3));
+        assertEquals("Row for an object without promoted values", 3, countPromotedRows());
+    }
+
+    @Test
+    public void test200Search() throws Exception {
+        assertSearch(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .item(F_EXTENSION, STRING_TYPE).eq("beta").build(), oid2);
+        assertSearch(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .item(F_EXTENSION, INT_TYPE).ge(20).build(), oid2, oid3);
+        assertSearch(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .item(F_EXTENSION, INT_TYPE).lt(30)
+                .and().item(F_EXTENSION, STRING_TYPE).eq("alpha").build(), oid1);
+        assertSearch(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .item(F_EXTENSION, DATE_TYPE).gt(XmlTypeConverter.createXMLGregorianCalendar(BASE_TIME)).build(), oid2, oid3);
+        assertSearch(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .not().item(F_EXTENSION, STRING_TYPE).eq("alpha").build(), oid2, oid3, oid4);
+    }
+
+    @Test
+    public void test210PromotedTableIsUsed() throws Exception {
+        baseHelper.getConfiguration().setPromotedExtensionItems(PROMOTED_ITEMS);
+
+        assertTrue("Promoted column not used", getHqlQuery(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .item(F_EXTENSION, STRING_TYPE).eq("beta").build()).contains("ROExtPromoted"));
+        // substring filters are not supported by promoted columns
+        assertFalse("Promoted column used for substring filter", getHqlQuery(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .item(F_EXTENSION, STRING_TYPE).contains("et").build()).contains("ROExtPromoted"));
+    }
+
+    @Test
+    public void test300ModifyAndDelete() throws Exception {
+        OperationResult result = new OperationResult("test300ModifyAndDelete");
+
+        baseHelper.getConfiguration().setPromotedExtensionItems(PROMOTED_ITEMS);
+        ObjectDelta<GenericObjectType> delta = ObjectDelta.createModificationReplaceProperty(GenericObjectType.class, oid1,
+                new ItemPath(F_EXTENSION, STRING_TYPE), prismContext, "delta");
+        repositoryService.modifyObject(GenericObjectType.class, oid1, delta.getModifications(), result);
+
+        assertEquals(Arrays.<Object>asList("delta", 10L), getPromotedValues(oid1));
+        assertSearch(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .item(F_EXTENSION, STRING_TYPE).eq("delta").build(), oid1);
+        assertSearch(QueryBuilder.queryFor(GenericObjectType.class, prismContext)
+                .item(F_EXTENSION, STRING_TYPE).eq("alpha").build());
+
+        delta = ObjectDelta.createModificationReplaceProperty(GenericObjectType.class, oid1,
+                new ItemPath(F_EXTENSION, STRING_TYPE), prismContext);
+        repositoryService.modifyObject(GenericObjectType.class, oid1, delta.getModifications(), result);
+        assertEquals(Arrays.<Object>asList(null, 10L), getPromotedValues(oid1));
+
+        repositoryService.deleteObject(GenericObjectType.class, oid3, result);
+        assertEquals("Promoted row not deleted", 2, countPromotedRows());
+    }
+
+    /**
+     * Backfill must not clear values of items that have no rows in the generic extension tables.
+     */
+    @Test
+    public void test310BackfillKeepsValuesWithoutSourceRows() throws Exception {
+        baseHelper.getConfiguration().setPromotedExtensionItems(PROMOTED_ITEMS);
+        Session session = getFactory().openSession();
+        try {
+            session.beginTransaction();
+            session.createQuery("update ROExtPromoted set string1 = :value where ownerOid = :oid")
+                    .setString("value", "manual").setString("oid", oid1).executeUpdate();
+            session.getTransaction().commit();
+        } finally {
+            session.close();
+        }
+
+        assertEquals("Wrong # of rows created by backfill", 0, promotedExtensionHelper.backfill());
+        assertEquals(Arrays.<Object>asList("manual", 10L), getPromotedValues(oid1));
+        assertEquals(Arrays.<Object>asList("beta", 20L), getPromotedValues(oid2));
+    }
+
+    private String addObject(String name, String stringValue, Integer intValue, Long dateValue, OperationResult result)
+            throws Exception {
+        PrismObject<GenericObjectType> object = prismContext.getSchemaRegistry()
+                .findObjectDefinitionByCompileTimeClass(GenericObjectType.class).instantiate();
+        object.asObjectable().setName(PrismTestUtil.createPolyStringType(name));
+        if (stringValue != null) {
+            setExtensionValue(object, STRING_TYPE, stringValue);
+        }
+        if (intValue != null) {
+            setExtensionValue(object, INT_TYPE, intValue);
+        }
+        if (dateValue != null) {
+            setExtensionValue(object, DATE_TYPE, XmlTypeConverter.createXMLGregorianCalendar(dateValue));
+        }
+        return repositoryService.addObject(object, null, result);
+    }
+
+    private void setExtensionValue(PrismObject<GenericObjectType> object, QName name, Object value) throws Exception {
+        PrismProperty<Object> property = object.findOrCreateProperty(new ItemPath(F_EXTENSION, name));
+        property.setRealValue(value);
+    }
+
+    private void assertSearch(ObjectQuery query, String... expectedOids) throws Exception {
+        OperationResult result = new OperationResult("assertSearch");
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+
+        configuration.setPromotedExtensionItems(null);
+        Set<String> generic = oids(repositoryService.searchObjects(GenericObjectType.class, query, null, result));
+        configuration.setPromotedExtensionItems(PROMOTED_ITEMS);
+        Set<String> promoted = oids(repositoryService.searchObjects(GenericObjectType.class, query, null, result));
+
+        Set<String> expected = new HashSet<>(Arrays.asList(expectedOids));
+        assertEquals("Wrong result using generic extension tables for " + query, expected, generic);
+        assertEquals("Wrong result using promoted columns for " + query, expected, promoted);
+    }
+
+    private String getHqlQuery(ObjectQuery query) throws Exception {
+        Session session = open();
+        try {
+            QueryEngine2 engine = new QueryEngine2(baseHelper.getConfiguration(), prismContext);
+            RQueryImpl rQuery = (RQueryImpl) engine.interpret(query, GenericObjectType.class, null, false, session);
+            rQuery.list();
+            return rQuery.getQuery().getQueryString();
+        } finally {
+            close(session);
+        }
+    }
+
+    private Set<String> oids(List<PrismObject<GenericObjectType>> objects) {
+        Set<String> rv = new HashSet<>();
+        for (PrismObject<GenericObjectType> object : objects) {
+            rv.add(object.getOid());
+        }
+        return rv;
+    }
+
+    private List<Object> getPromotedValues(String oid) {
+        Session session = getFactory().openSession();
+        try {
+            Object[] row = (Object[]) session.createQuery("select p.string1, p.long1 from ROExtPromoted p where p.ownerOid = :oid")
+                    .setString("oid", oid).uniqueResult();
+            return row != null ? Arrays.asList(row) : null;
+        } finally {
+            session.close();
+        }
+    }
+
+    private long countPromotedRows() {
+        Session session = getFactory().openSession();
+        try {
+            return (Long) session.createQuery("select count(*) from ROExtPromoted").uniqueResult();
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.query.OrderDirection;
+import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.helpers.QueryPlanCache;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Checks that queries translated using cached query plans give the same results as the ones
+ * translated from scratch, and that the plans are reused for queries of the same shape.
+ */
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class QueryPlanCacheTest extends BaseSQLRepoTest {
+
+    @Autowired
+    private QueryPlanCache queryPlanCache;
+
+    private int maxEntriesBefore;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+
+        maxEntriesBefore = baseHelper.getConfiguration().getQueryPlanCacheMaxEntries();
+    }
+
+    @AfterClass
+    public void afterClass() {
+        baseHelper.getConfiguration().setQueryPlanCacheMaxEntries(maxEntriesBefore);
+        queryPlanCache.clear();
+    }
+
+    @Test
+    public void test100AddUsers() throws Exception {
+        OperationResult result = new OperationResult("test100AddUsers");
+
+        addUser("qpc1", "e1", "cc1", result);
+        addUser("qpc2", "e2", "cc1", result);
+        addUser("qpc3", "e3", "cc2", result);
+    }
+
+    @Test
+    public void test110SameShape() throws Exception {
+        reset(1000);
+
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).eq("e1").build(), "qpc1");
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).eq("e2").build(), "qpc2");
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).eq("x").build());
+
+        assertStatistics(2, 1, 0);
+        assertEquals("Wrong # of cached plans", 1, queryPlanCache.size());
+    }
+
+    @Test
+    public void test120Substring() throws Exception {
+        reset(1000);
+
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).startsWith("e").build(), "qpc1", "qpc2", "qpc3");
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).startsWith("e2").build(), "qpc2");
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).contains("3").build(), "qpc3");
+
+        assertStatistics(1, 2, 0);
+    }
+
+    @Test
+    public void test130TwoValues() throws Exception {
+        reset(1000);
+
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq("cc1")
+                .and().item(UserType.F_EMPLOYEE_NUMBER).eq("e2").build(), "qpc2");
+        // the values must not be mixed up
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq("cc2")
+                .and().item(UserType.F_EMPLOYEE_NUMBER).eq("e3").build(), "qpc3");
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq("cc2")
+                .and().item(UserType.F_EMPLOYEE_NUMBER).eq("e2").build());
+
+        assertStatistics(2, 1, 0);
+    }
+
+    @Test
+    public void test140IgnoreCase() throws Exception {
+        reset(1000);
+
+        // values are transformed by the interpreter, so such queries cannot be cached
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).eq("E1").matchingCaseIgnore().build(), "qpc1");
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).eq("E3").matchingCaseIgnore().build(), "qpc3");
+
+        assertStatistics(0, 1, 1);
+    }
+
+    @Test
+    public void test150Paging() throws Exception {
+        reset(1000);
+
+        assertSearch(pagedQuery("cc1", 0, 1), "qpc1");
+        assertSearch(pagedQuery("cc1", 1, 1), "qpc2");
+        assertSearch(pagedQuery("cc1", 0, 5), "qpc1", "qpc2");
+        assertSearch(pagedQuery("cc2", 1, 5));
+
+        assertStatistics(3, 1, 0);
+    }
+
+    @Test
+    public void test160Count() throws Exception {
+        reset(1000);
+        OperationResult result = new OperationResult("test160Count");
+
+        assertEquals(2, repositoryService.countObjects(UserType.class, QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq("cc1").build(), result));
+        assertEquals(1, repositoryService.countObjects(UserType.class, QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq("cc2").build(), result));
+    }
+
+    @Test
+    public void test200Disabled() throws Exception {
+        reset(0);
+
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).eq("e1").build(), "qpc1");
+        assertSearch(QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_EMPLOYEE_NUMBER).eq("e2").build(), "qpc2");
+
+        assertStatistics(0, 0, 0);
+        assertEquals("Plans cached while the cache is disabled", 0, queryPlanCache.size());
+    }
+
+    private ObjectQuery pagedQuery(String costCenter, int offset, int maxSize) throws Exception {
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq(costCenter).build();
+        query.setPaging(ObjectPaging.createPaging(offset, maxSize, UserType.F_EMPLOYEE_NUMBER, OrderDirection.ASCENDING));
+        return query;
+    }
+
+    private void reset(int maxEntries) {
+        baseHelper.getConfiguration().setQueryPlanCacheMaxEntries(maxEntries);
+        queryPlanCache.clear();
+        queryPlanCache.resetStatistics();
+    }
+
+    private void assertStatistics(long hits, long misses, long notCacheable) {
+        assertEquals("Wrong # of hits", hits, queryPlanCache.getHits());
+        assertEquals("Wrong # of misses", misses, queryPlanCache.getMisses());
+        assertEquals("Wrong # of lookups of not cacheable shapes", notCacheable, queryPlanCache.getNotCacheable());
+    }
+
+    private void assertSearch(ObjectQuery query, String... expectedNames) throws Exception {
+        OperationResult result = new OperationResult("assertSearch");
+        List<String> names = new ArrayList<>();
+        for (PrismObject<UserType> user : repositoryService.searchObjects(UserType.class, query, null, result)) {
+            names.add(user.getName().getOrig());
+        }
+        if (query.getPaging() == null) {
+            Collections.sort(names);
+        }
+        assertEquals("Wrong result for " + query, Arrays.asList(expectedNames), names);
+    }
+
+    private void addUser(String name, String employeeNumber, String costCenter, OperationResult result) throws Exception {
+        UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class)
+                .instantiate().asObjectable();
+        user.setName(new PolyStringType(new PolyString(name)));
+        user.setEmployeeNumber(employeeNumber);
+        user.setCostCenter(costCenter);
+        repositoryService.addObject(user.asPrismObject(), null, result);
+    }
+}
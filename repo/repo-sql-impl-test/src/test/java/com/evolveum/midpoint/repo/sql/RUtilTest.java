@@ -1,9 +1,18 @@
 package com.evolveum.midpoint.repo.sql;
 
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.repo.sql.helpers.FullObjectReencoder;
+import com.evolveum.midpoint.repo.sql.util.FullObjectFormat;
 import com.evolveum.midpoint.repo.sql.util.RUtil;
+import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 import org.apache.commons.io.IOUtils;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.type.MaterializedBlobType;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.testng.AssertJUnit;
@@ -21,6 +30,11 @@ public class RUtilTest extends BaseSQLRepoTest {
 
     private static final Trace LOGGER = TraceManager.getTrace(RUtilTest.class);
 
+    private static final int BENCHMARK_ITERATIONS = 500;
+
+    @Autowired
+    private FullObjectReencoder fullObjectReencoder;
+
     @Test
     public void test100XmlToByteArrayCompressionEnabled() throws Exception {
         String xml = IOUtils.toString(new FileInputStream(
@@ -49,6 +63,93 @@ public class RUtilTest extends BaseSQLRepoTest {
         AssertJUnit.assertEquals(xml, xmlNew);
     }
 
+    @Test
+    public void test300FullObjectFormats() throws Exception {
+        String xml = IOUtils.toString(new FileInputStream(
+                new File(BaseSQLRepoTest.FOLDER_BASIC, "user-big.xml")), "utf-8");
+
+        for (FullObjectFormat format : FullObjectFormat.values()) {
+            byte[] array = RUtil.getByteArrayFromXml(xml, format);
+            AssertJUnit.assertEquals("Wrong detected format", format, FullObjectFormat.detect(array));
+            AssertJUnit.assertEquals(xml, RUtil.getXmlFromByteArray(array));
+
+            long start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                array = RUtil.getByteArrayFromXml(xml, format);
+            }
+            long encode = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+                RUtil.getXmlFromByteArray(array);
+            }
+            long decode = System.nanoTime() - start;
+            LOGGER.info("Format {}: size {} bytes, compression ratio {}, encode {} us, decode {} us", format,
+                    array.length, getCompressRatio(xml.getBytes("utf-8").length, array.length),
+                    encode / BENCHMARK_ITERATIONS / 1000, decode / BENCHMARK_ITERATIONS / 1000);
+        }
+    }
+
+    @Test
+    public void test310LegacyDataReadable() throws Exception {
+        String xml = IOUtils.toString(new FileInputStream(
+                new File(BaseSQLRepoTest.FOLDER_BASIC, "user-big.xml")), "utf-8");
+
+        // data written by the original code (no header)
+        byte[] plain = RUtil.getByteArrayFromXml(xml, false);
+        byte[] gzip = RUtil.getByteArrayFromXml(xml, true);
+
+        AssertJUnit.assertEquals(FullObjectFormat.PLAIN, FullObjectFormat.detect(plain));
+        AssertJUnit.assertEquals(FullObjectFormat.GZIP, FullObjectFormat.detect(gzip));
+        // regardless of the "useZip" value
+        AssertJUnit.assertEquals(xml, RUtil.getXmlFromByteArray(plain, true));
+        AssertJUnit.assertEquals(xml, RUtil.getXmlFromByteArray(gzip, false));
+    }
+
+    @Test
+    public void test400ReencodeFullObjects() throws Exception {
+        OperationResult result = new OperationResult("test400ReencodeFullObjects");
+        PrismObject<UserType> user = prismContext.parseObject(new File(BaseSQLRepoTest.FOLDER_BASIC, "user.xml"));
+        String oid = repositoryService.addObject(user, null, result);
+
+        FullObjectFormat configured = baseHelper.getConfiguration().getFullObjectFormat();
+        FullObjectFormat other = configured == FullObjectFormat.DEFLATE_DICT_V1 ?
+                FullObjectFormat.PLAIN : FullObjectFormat.DEFLATE_DICT_V1;
+
+        Session session = open();
+        try {
+            byte[] stored = readFullObject(session, oid);
+            Query update = session.createSQLQuery("update m_object set fullObject = :fullObject where oid = :oid");
+            update.setParameter("fullObject", RUtil.getByteArrayFromXml(RUtil.getXmlFromByteArray(stored), other),
+                    MaterializedBlobType.INSTANCE);
+            update.setString("oid", oid);
+            update.executeUpdate();
+        } finally {
+            close(session);
+        }
+
+        PrismObject<UserType> before = repositoryService.getObject(UserType.class, oid, null, result);
+
+        int reencoded = fullObjectReencoder.reencodeAll();
+        AssertJUnit.assertTrue("No object was re-encoded", reencoded >= 1);
+
+        session = open();
+        try {
+            AssertJUnit.assertEquals(configured, FullObjectFormat.detect(readFullObject(session, oid)));
+        } finally {
+            close(session);
+        }
+
+        PrismObject<UserType> after = repositoryService.getObject(UserType.class, oid, null, result);
+        AssertJUnit.assertTrue("Object changed after re-encoding", before.equivalent(after));
+        AssertJUnit.assertEquals("Nothing should be re-encoded now", 0, fullObjectReencoder.reencodeAll());
+    }
+
+    private byte[] readFullObject(Session session, String oid) {
+        Query query = session.createQuery("select o.fullObject from RObject o where o.oid = :oid");
+        query.setString("oid", oid);
+        return (byte[]) query.uniqueResult();
+    }
+
     public double getCompressRatio(double xmlSize, double byteSize) {
         return 100 - (byteSize * 100 / xmlSize);
     }
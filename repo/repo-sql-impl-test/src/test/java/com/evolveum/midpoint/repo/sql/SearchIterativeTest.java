@@ -17,7 +17,13 @@
 package com.evolveum.midpoint.repo.sql;
 
 import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.path.ItemPath;
 import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.query.ObjectOrdering;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.query.OrderDirection;
+import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
 import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
 import com.evolveum.midpoint.schema.ResultHandler;
@@ -35,7 +41,10 @@ import org.springframework.test.context.ContextConfiguration;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import javax.xml.namespace.QName;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.testng.AssertJUnit.assertEquals;
@@ -247,4 +256,144 @@ public class SearchIterativeTest extends BaseSQLRepoTest {
         int count = repositoryService.countObjects(UserType.class, null, result);
         assertEquals("Wrong # of objects after operation", COUNT, count);
     }
+
+    @Test
+    public void test200KeysetPaging() throws Exception {
+        OperationResult result = new OperationResult("test200KeysetPaging");
+
+        // ties and null values in both ordering items
+        final int count = 40;
+        List<PrismObject<UserType>> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+            user.setOid("keyset-" + (1000 + (i * 7) % count));
+            user.setName(new PolyStringType(new PolyString("keyset-" + i)));
+            user.setCostCenter("keyset");
+            if (i % 4 != 0) {
+                user.setTitle(new PolyStringType(new PolyString("title-" + (i % 3))));
+            }
+            if (i % 5 != 0) {
+                user.setEmployeeNumber("e" + (i % 4));
+            }
+            repositoryService.addObject(user.asPrismObject(), null, result);
+            expected.add(user.asPrismObject());
+        }
+        Collections.sort(expected, new Comparator<PrismObject<UserType>>() {
+            @Override
+            public int compare(PrismObject<UserType> o1, PrismObject<UserType> o2) {
+                UserType u1 = o1.asObjectable(), u2 = o2.asObjectable();
+                int c = -compareNullsLast(u1.getTitle() != null ? u1.getTitle().getOrig() : null,
+                        u2.getTitle() != null ? u2.getTitle().getOrig() : null, true);
+                if (c == 0) {
+                    c = compareNullsLast(u1.getEmployeeNumber(), u2.getEmployeeNumber(), false);
+                }
+                return c != 0 ? c : u1.getOid().compareTo(u2.getOid());
+            }
+        });
+
+        ObjectOrdering titleDesc = ObjectOrdering.createOrdering(new ItemPath(UserType.F_TITLE), OrderDirection.DESCENDING);
+        ObjectOrdering employeeNumberAsc = ObjectOrdering.createOrdering(new ItemPath(UserType.F_EMPLOYEE_NUMBER), OrderDirection.ASCENDING);
+
+        // page by page, the way GUI would do it
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq("keyset")
+                .build();
+        query.setPaging(ObjectPaging.createKeysetPaging(6, titleDesc, employeeNumberAsc));
+        List<PrismObject<UserType>> paged = new ArrayList<>();
+        for (;;) {
+            List<PrismObject<UserType>> page = repositoryService.searchObjects(UserType.class, query, null, result);
+            paged.addAll(page);
+            if (page.size() < 6) {
+                break;
+            }
+            query.getPaging().setAfterObject(page.get(page.size() - 1));
+        }
+        assertEquals("Wrong objects returned by keyset paging", getOids(expected), getOids(paged));
+
+        // iterative search
+        query.setPaging(ObjectPaging.createEmptyPaging());
+        query.getPaging().setOrdering(titleDesc, employeeNumberAsc);
+        final List<PrismObject<UserType>> iterated = new ArrayList<>();
+        ResultHandler<UserType> handler = new ResultHandler<UserType>() {
+            @Override
+            public boolean handle(PrismObject<UserType> object, OperationResult parentResult) {
+                iterated.add(object);
+                return true;
+            }
+        };
+        SqlRepositoryConfiguration config = baseHelper.getConfiguration();
+        boolean originalByPaging = config.isIterativeSearchByPaging();
+        boolean originalKeyset = config.isIterativeSearchByPagingKeyset();
+        int originalBatchSize = config.getIterativeSearchByPagingBatchSize();
+        try {
+            config.setIterativeSearchByPaging(true);
+            config.setIterativeSearchByPagingKeyset(true);
+            config.setIterativeSearchByPagingBatchSize(7);
+            repositoryService.searchObjectsIterative(UserType.class, query, handler, null, false, result);
+            assertEquals("Wrong objects returned by iterative search", getOids(expected), getOids(iterated));
+
+            // offset and max size are respected
+            iterated.clear();
+            query.getPaging().setOffset(5);
+            query.getPaging().setMaxSize(20);
+            repositoryService.searchObjectsIterative(UserType.class, query, handler, null, false, result);
+            assertEquals("Wrong objects returned by iterative search with offset",
+                    getOids(expected.subList(5, 25)), getOids(iterated));
+        } finally {
+            config.setIterativeSearchByPaging(originalByPaging);
+            config.setIterativeSearchByPagingKeyset(originalKeyset);
+            config.setIterativeSearchByPagingBatchSize(originalBatchSize);
+        }
+        result.recomputeStatus();
+        assertTrue(result.isSuccess());
+    }
+
+    /**
+     * Orderings by unknown paths are ignored by keyset paging, as they are by offset-based one.
+     */
+    @Test
+    public void test210KeysetPagingUnknownOrdering() throws Exception {
+        OperationResult result = new OperationResult("test210KeysetPagingUnknownOrdering");
+
+        ObjectOrdering unknown = ObjectOrdering.createOrdering(
+                new ItemPath(new QName("http://midpoint.evolveum.com/xml/ns/test/unknown", "unknown")), OrderDirection.ASCENDING);
+        ObjectOrdering titleDesc = ObjectOrdering.createOrdering(new ItemPath(UserType.F_TITLE), OrderDirection.DESCENDING);
+        ObjectOrdering employeeNumberAsc = ObjectOrdering.createOrdering(new ItemPath(UserType.F_EMPLOYEE_NUMBER), OrderDirection.ASCENDING);
+
+        // users created in test200
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_COST_CENTER).eq("keyset")
+                .build();
+        query.setPaging(ObjectPaging.createKeysetPaging(null, titleDesc, employeeNumberAsc));
+        List<PrismObject<UserType>> expected = repositoryService.searchObjects(UserType.class, query, null, result);
+        assertFalse("No users from test200 found", expected.isEmpty());
+
+        query.setPaging(ObjectPaging.createKeysetPaging(6, titleDesc, unknown, employeeNumberAsc));
+        List<PrismObject<UserType>> paged = new ArrayList<>();
+        for (;;) {
+            List<PrismObject<UserType>> page = repositoryService.searchObjects(UserType.class, query, null, result);
+            paged.addAll(page);
+            if (page.size() < 6) {
+                break;
+            }
+            query.getPaging().setAfterObject(page.get(page.size() - 1));
+        }
+        assertEquals("Wrong objects returned by keyset paging", getOids(expected), getOids(paged));
+    }
+
+    private int compareNullsLast(String s1, String s2, boolean reversed) {
+        if (s1 == null || s2 == null) {
+            int c = s1 == null ? (s2 == null ? 0 : 1) : -1;
+            return reversed ? -c : c;
+        }
+        return s1.compareTo(s2);
+    }
+
+    private List<String> getOids(List<PrismObject<UserType>> objects) {
+        List<String> oids = new ArrayList<>();
+        for (PrismObject<UserType> object : objects) {
+            oids.add(object.getOid());
+        }
+        return oids;
+    }
 }
@@ -34,9 +34,12 @@ import com.evolveum.midpoint.prism.query.OrderDirection;
 import com.evolveum.midpoint.prism.query.RefFilter;
 import com.evolveum.midpoint.prism.query.builder.QueryBuilder;
 import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.util.ColumnProjection;
+import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
 import com.evolveum.midpoint.schema.ResultHandler;
 import com.evolveum.midpoint.schema.SearchResultList;
+import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.schema.constants.SchemaConstants;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.util.DebugDumpable;
@@ -58,6 +61,8 @@ import java.io.File;
 import java.util.*;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertTrue;
 import static org.testng.AssertJUnit.fail;
 
@@ -549,4 +554,104 @@ public class SearchTest extends BaseSQLRepoTest {
 		assertTrue(result.isSuccess());
 		assertEquals("Should find one object", 1, roles.size());
 	}
+    @Test
+    public void testRetrieveOnlyColumnBackedItems() throws Exception {
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_NAME).eqPoly("atestuserX00003", "atestuserx00003").matchingOrig()
+                .build();
+        Collection<SelectorOptions<GetOperationOptions>> options = GetOperationOptions.createRetrieveOnlyOptions(
+                UserType.F_NAME, new ItemPath(UserType.F_ACTIVATION, ActivationType.F_ADMINISTRATIVE_STATUS));
+
+        OperationResult result = new OperationResult("search");
+        List<PrismObject<UserType>> users = repositoryService.searchObjects(UserType.class, query, options, result);
+        result.recomputeStatus();
+        assertTrue(result.isSuccess());
+        assertEquals("Should find one object", 1, users.size());
+
+        UserType user = users.get(0).asObjectable();
+        PrismObject<UserType> fullUser = repositoryService.getObject(UserType.class, user.getOid(), null, result);
+        assertPartialUser(user, fullUser);
+        assertEquals("Wrong administrative status", ActivationStatusType.ARCHIVED,
+                user.getActivation().getAdministrativeStatus());
+        assertTrue("Link refs should not be retrieved", user.getLinkRef().isEmpty());
+
+        user = repositoryService.getObject(UserType.class, user.getOid(), options, result).asObjectable();
+        assertPartialUser(user, fullUser);
+        assertEquals("Wrong administrative status", ActivationStatusType.ARCHIVED,
+                user.getActivation().getAdministrativeStatus());
+    }
+
+    @Test
+    public void testRetrieveOnlySelectedItems() throws Exception {
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_NAME).eqPoly("atestuserX00003", "atestuserx00003").matchingOrig()
+                .build();
+        Collection<SelectorOptions<GetOperationOptions>> options =
+                GetOperationOptions.createRetrieveOnlyOptions(UserType.F_NAME, UserType.F_LINK_REF);
+
+        OperationResult result = new OperationResult("search");
+        final List<PrismObject<UserType>> users = new ArrayList<>();
+        ResultHandler<UserType> handler = new ResultHandler<UserType>() {
+            @Override
+            public boolean handle(PrismObject<UserType> object, OperationResult parentResult) {
+                users.add(object);
+                return true;
+            }
+        };
+        repositoryService.searchObjectsIterative(UserType.class, query, handler, options, false, result);
+        result.recomputeStatus();
+        assertTrue(result.isSuccess());
+        assertEquals("Should find one object", 1, users.size());
+
+        UserType user = users.get(0).asObjectable();
+        PrismObject<UserType> fullUser = repositoryService.getObject(UserType.class, user.getOid(), null, result);
+        assertPartialUser(user, fullUser);
+        assertEquals("Wrong # of link refs", 2, user.getLinkRef().size());
+        assertNull("Activation should not be retrieved", user.getActivation());
+        assertTrue("Role membership refs should not be retrieved", user.getRoleMembershipRef().isEmpty());
+    }
+
+    @Test
+    public void testColumnProjectionPaths() throws Exception {
+        ItemPath name = new ItemPath(UserType.F_NAME);
+        ItemPath administrativeStatus = new ItemPath(UserType.F_ACTIVATION, ActivationType.F_ADMINISTRATIVE_STATUS);
+        assertNotNull(ColumnProjection.createForPaths(UserType.class, Arrays.asList(name, administrativeStatus)));
+        assertNull("Activation is not column-backed for non-focal objects",
+                ColumnProjection.createForPaths(ShadowType.class, Arrays.asList(name, administrativeStatus)));
+        // lockout items have no columns, so neither they nor the whole activation can be projected
+        assertNull(ColumnProjection.createForPaths(UserType.class,
+                Arrays.asList(name, new ItemPath(UserType.F_ACTIVATION, ActivationType.F_LOCKOUT_STATUS))));
+        assertNull(ColumnProjection.createForPaths(UserType.class,
+                Arrays.asList(name, new ItemPath(UserType.F_ACTIVATION))));
+    }
+
+    @Test
+    public void testRetrieveOnlyWholeActivation() throws Exception {
+        ObjectQuery query = QueryBuilder.queryFor(UserType.class, prismContext)
+                .item(UserType.F_NAME).eqPoly("atestuserX00003", "atestuserx00003").matchingOrig()
+                .build();
+        Collection<SelectorOptions<GetOperationOptions>> options =
+                GetOperationOptions.createRetrieveOnlyOptions(UserType.F_NAME, UserType.F_ACTIVATION);
+
+        OperationResult result = new OperationResult("search");
+        List<PrismObject<UserType>> users = repositoryService.searchObjects(UserType.class, query, options, result);
+        result.recomputeStatus();
+        assertTrue(result.isSuccess());
+        assertEquals("Should find one object", 1, users.size());
+
+        UserType user = users.get(0).asObjectable();
+        PrismObject<UserType> fullUser = repositoryService.getObject(UserType.class, user.getOid(), null, result);
+        assertPartialUser(user, fullUser);
+        assertEquals("Activation differs from the one in full object", fullUser.asObjectable().getActivation(),
+                user.getActivation());
+    }
+
+    private void assertPartialUser(UserType user, PrismObject<UserType> fullUser) {
+        LOGGER.info("Partially retrieved user:\n{}", user.asPrismObject().debugDump());
+        assertEquals("Wrong name", "atestuserX00003", user.getName().getOrig());
+        assertEquals("Wrong version", fullUser.getVersion(), user.getVersion());
+        assertNull("Full name should not be retrieved", user.getFullName());
+        assertNull("Credentials should not be retrieved", user.getCredentials());
+        assertNotNull("Full name should be present in the full object", fullUser.asObjectable().getFullName());
+    }
 }
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.delta.ObjectDelta;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.repo.sql.helpers.SequenceHelper;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
+import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SequenceType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.AssertJUnit.fail;
+
+/**
+ * Checks reservation of sequence values in blocks (sequenceBlockSize): values are unique, and the only gaps
+ * are those caused by values not returned to the sequence.
+ */
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class SequenceBlockTest extends BaseSQLRepoTest {
+
+    private static final int BLOCK_SIZE = 10;
+    private static final int THREADS = 5;
+    private static final int VALUES_PER_THREAD = 100;
+
+    @Autowired
+    private SequenceHelper sequenceHelper;
+
+    private int blockSizeBefore;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        blockSizeBefore = baseHelper.getConfiguration().getSequenceBlockSize();
+        baseHelper.getConfiguration().setSequenceBlockSize(BLOCK_SIZE);
+    }
+
+    @AfterClass
+    public void afterClass() {
+        sequenceHelper.returnReservedValues();
+        baseHelper.getConfiguration().setSequenceBlockSize(blockSizeBefore);
+    }
+
+    @Test
+    public void test100BlockIsReserved() throws Exception {
+        OperationResult result = new OperationResult("test100BlockIsReserved");
+        String oid = addSequence("test100", null, false, 10, result);
+
+        for (long i = 0; i < 25; i++) {
+            assertEquals(i, repositoryService.advanceSequence(oid, result));
+        }
+
+        // at most BLOCK_SIZE-1 values can be lost if the node crashes now
+        assertEquals("Wrong counter", 30L, (long) getSequence(oid, result).getCounter());
+        assertEquals("Wrong # of reserved values", 5, sequenceHelper.getReservedValuesCount(oid));
+    }
+
+    @Test
+    public void test110CleanShutdownLeavesNoGap() throws Exception {
+        OperationResult result = new OperationResult("test110CleanShutdownLeavesNoGap");
+        String oid = addSequence("test110", null, false, 10, result);
+
+        for (long i = 0; i < 3; i++) {
+            assertEquals(i, repositoryService.advanceSequence(oid, result));
+        }
+        sequenceHelper.returnReservedValues();
+
+        assertEquals("Reserved values not returned", 0, sequenceHelper.getReservedValuesCount(oid));
+        SequenceType sequence = getSequence(oid, result);
+        assertEquals("Wrong unused values", longs(3, 10), new ArrayList<>(sequence.getUnusedValues()));
+
+        // returned values are used first, then the counter continues
+        for (long i = 3; i < 15; i++) {
+            assertEquals(i, repositoryService.advanceSequence(oid, result));
+        }
+    }
+
+    @Test
+    public void test120MaxCounter() throws Exception {
+        OperationResult result = new OperationResult("test120MaxCounter");
+        String oid = addSequence("test120", 14L, false, 0, result);
+
+        for (long i = 0; i <= 14; i++) {
+            assertEquals(i, repositoryService.advanceSequence(oid, result));
+        }
+        try {
+            long value = repositoryService.advanceSequence(oid, result);
+            fail("Expected an exception, got value of " + value);
+        } catch (SystemException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void test130MaxCounterWithRewind() throws Exception {
+        OperationResult result = new OperationResult("test130MaxCounterWithRewind");
+        String oid = addSequence("test130", 14L, true, 0, result);
+
+        for (long i = 0; i <= 14; i++) {
+            assertEquals(i, repositoryService.advanceSequence(oid, result));
+        }
+        assertEquals(0L, repositoryService.advanceSequence(oid, result));
+        assertEquals(1L, repositoryService.advanceSequence(oid, result));
+    }
+
+    @Test
+    public void test140ModificationDiscardsReservedValues() throws Exception {
+        OperationResult result = new OperationResult("test140ModificationDiscardsReservedValues");
+        String oid = addSequence("test140", null, false, 10, result);
+
+        assertEquals(0L, repositoryService.advanceSequence(oid, result));
+        assertEquals("Wrong # of reserved values", BLOCK_SIZE - 1, sequenceHelper.getReservedValuesCount(oid));
+
+        ObjectDelta<SequenceType> delta = ObjectDelta.createModificationReplaceProperty(SequenceType.class, oid,
+                SequenceType.F_COUNTER, prismContext, 1000L);
+        repositoryService.modifyObject(SequenceType.class, oid, delta.getModifications(), result);
+
+        assertEquals("Reserved values not discarded", 0, sequenceHelper.getReservedValuesCount(oid));
+        assertEquals(1000L, repositoryService.advanceSequence(oid, result));
+    }
+
+    @Test
+    public void test150DeletionDiscardsReservedValues() throws Exception {
+        OperationResult result = new OperationResult("test150DeletionDiscardsReservedValues");
+        String oid = addSequence("test150", null, false, 10, result);
+
+        assertEquals(0L, repositoryService.advanceSequence(oid, result));
+        repositoryService.deleteObject(SequenceType.class, oid, result);
+
+        assertEquals("Reserved values not discarded", 0, sequenceHelper.getReservedValuesCount(oid));
+        try {
+            long value = repositoryService.advanceSequence(oid, result);
+            fail("Expected an exception, got value of " + value);
+        } catch (ObjectNotFoundException e) {
+            // ok
+        }
+    }
+
+    @Test
+    public void test200ConcurrentValuesAreUnique() throws Exception {
+        OperationResult result = new OperationResult("test200ConcurrentValuesAreUnique");
+        final String oid = addSequence("test200", null, false, THREADS * BLOCK_SIZE, result);
+
+        final List<Long> values = Collections.synchronizedList(new ArrayList<Long>());
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        OperationResult threadResult = new OperationResult("advance");
+                        for (int i = 0; i < VALUES_PER_THREAD; i++) {
+                            values.add(repositoryService.advanceSequence(oid, threadResult));
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("Failures: " + failures, failures.isEmpty());
+
+        Set<Long> unique = new HashSet<>(values);
+        assertEquals("Duplicate values were returned", values.size(), unique.size());
+
+        // after returning the reserved values (several threads may have reserved a block at once), every value
+        // below the counter is either used or available
+        sequenceHelper.returnReservedValues();
+        SequenceType sequence = getSequence(oid, result);
+        Set<Long> all = new HashSet<>(unique);
+        all.addAll(sequence.getUnusedValues());
+        assertEquals("Gap in values", new HashSet<>(longs(0, sequence.getCounter())), all);
+        assertTrue("Too many values reserved", sequence.getCounter() <= THREADS * (VALUES_PER_THREAD + BLOCK_SIZE));
+    }
+
+    private String addSequence(String name, Long maxCounter, boolean allowRewind, int maxUnusedValues,
+                               OperationResult result) throws Exception {
+        SequenceType sequence = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(SequenceType.class)
+                .instantiate().asObjectable();
+        sequence.setName(new PolyStringType(new PolyString(name)));
+        sequence.setCounter(0L);
+        sequence.setMaxCounter(maxCounter);
+        sequence.setAllowRewind(allowRewind);
+        sequence.setMaxUnusedValues(maxUnusedValues);
+        return repositoryService.addObject(sequence.asPrismObject(), null, result);
+    }
+
+    private SequenceType getSequence(String oid, OperationResult result) throws Exception {
+        return repositoryService.getObject(SequenceType.class, oid, null, result).asObjectable();
+    }
+
+    private List<Long> longs(long from, long to) {
+        List<Long> rv = new ArrayList<>();
+        for (long i = from; i < to; i++) {
+            rv.add(i);
+        }
+        return rv;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.util.LatencyHistogram;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+@ContextConfiguration(locations = {"../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class SqlPerformanceMonitorTest extends BaseSQLRepoTest {
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+    }
+
+    @Test
+    public void test100Histogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500500, histogram.getSum());
+        assertWithinPrecision(500, histogram.getValueAtQuantile(0.5));
+        assertWithinPrecision(990, histogram.getValueAtQuantile(0.99));
+        assertEquals(1000, histogram.getValueAtQuantile(1.0));
+        assertEquals(10, histogram.getCountAtOrBelow(10));
+        assertEquals(1000, histogram.getCountAtOrBelow(LatencyHistogram.MAX_VALUE));
+
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.MAX_VALUE, histogram.getMax());
+    }
+
+    private void assertWithinPrecision(long expected, long real) {
+        assertTrue("Expected about " + expected + ", got " + real, real >= expected && real <= expected + expected / 16);
+    }
+
+    @Test
+    public void test200OperationStatistics() throws Exception {
+        OperationResult result = new OperationResult("test200OperationStatistics");
+        SqlPerformanceMonitor pm = baseHelper.getPerformanceMonitor();
+        pm.reset();
+
+        UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+        user.setName(new PolyStringType(new PolyString("pm-user")));
+        String oid = repositoryService.addObject(user.asPrismObject(), null, result);
+        for (int i = 0; i < 3; i++) {
+            PrismObject<UserType> loaded = repositoryService.getObject(UserType.class, oid, null, result);
+            assertNotNull(loaded);
+        }
+
+        SqlPerformanceMonitor.OperationStatistics getObject = findStatistics(pm, "getObject", "UserType");
+        assertEquals(3, getObject.getCount());
+        assertEquals(3, getObject.getAttempts());
+        assertEquals(0, getObject.getRetries());
+        assertEquals(0, getObject.getFailures());
+        assertEquals(3, getObject.getOperationsWithAttempts(1));
+        assertEquals(1, findStatistics(pm, "addObject", "UserType").getCount());
+        assertEquals(0, pm.getOperationsInProgress());
+
+        String metrics = pm.getMetrics();
+        assertTrue(metrics, metrics.contains(
+                "midpoint_repository_operation_duration_seconds_count{operation=\"getObject\",type=\"UserType\"} 3\n"));
+        assertTrue(metrics, metrics.contains(
+                "midpoint_repository_operation_duration_seconds_bucket{operation=\"getObject\",type=\"UserType\",le=\"+Inf\"} 3\n"));
+        assertTrue(metrics, metrics.contains(
+                "midpoint_repository_operation_retries_total{operation=\"getObject\",type=\"UserType\"} 0\n"));
+
+        String statistics = pm.getStatistics();
+        assertTrue(statistics, statistics.contains("getObject"));
+    }
+
+    @Test
+    public void test300Jmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SqlPerformanceMonitor.OBJECT_NAME);
+        assertTrue("Performance monitor is not registered in JMX", server.isRegistered(name));
+
+        SqlPerformanceMonitor pm = baseHelper.getPerformanceMonitor();
+        assertEquals(pm.getOperationCount(), server.getAttribute(name, "OperationCount"));
+        String metrics = (String) server.getAttribute(name, "Metrics");
+        assertTrue(metrics, metrics.contains("midpoint_repository_operations_in_progress"));
+    }
+
+    @Test
+    public void test400NestedOperations() throws Exception {
+        OperationResult result = new OperationResult("test400NestedOperations");
+        SqlPerformanceMonitor pm = baseHelper.getPerformanceMonitor();
+
+        UserType user = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(UserType.class).instantiate().asObjectable();
+        user.setName(new PolyStringType(new PolyString("pm-nested-user")));
+        String oid = repositoryService.addObject(user.asPrismObject(), null, result);
+        pm.reset();
+
+        // e.g. a result handler of an iterative search that reads objects
+        long outerHandle = pm.registerOperationStart("outerOperation");
+        repositoryService.getObject(UserType.class, oid, null, result);
+        assertEquals(1, pm.getOperationsInProgress());
+        pm.registerOperationFinish(outerHandle, 1);
+        assertEquals(0, pm.getOperationsInProgress());
+
+        SqlPerformanceMonitor.OperationStatistics outer = findStatistics(pm, "outerOperation", "");
+        assertEquals(1, outer.getCount());
+        assertEquals(0, outer.getFailures());
+        SqlPerformanceMonitor.OperationStatistics inner = findStatistics(pm, "getObject", "UserType");
+        assertEquals(1, inner.getCount());
+        assertEquals(0, inner.getFailures());
+
+        // an inner operation that was not finished is recorded as failed when the outer one finishes
+        outerHandle = pm.registerOperationStart("outerOperation");
+        pm.registerOperationStart("innerOperation");
+        assertEquals(2, pm.getOperationsInProgress());
+        pm.registerOperationFinish(outerHandle, 1);
+        assertEquals(0, pm.getOperationsInProgress());
+        assertEquals(2, outer.getCount());
+        assertEquals(0, outer.getFailures());
+        assertEquals(1, findStatistics(pm, "innerOperation", "").getFailures());
+    }
+
+    private SqlPerformanceMonitor.OperationStatistics findStatistics(SqlPerformanceMonitor pm, String kind, String type) {
+        for (SqlPerformanceMonitor.OperationStatistics s : pm.getOperationStatistics()) {
+            if (kind.equals(s.getKind()) && type.equals(s.getType())) {
+                return s;
+            }
+        }
+        throw new AssertionError("No statistics for " + kind + "/" + type);
+    }
+}
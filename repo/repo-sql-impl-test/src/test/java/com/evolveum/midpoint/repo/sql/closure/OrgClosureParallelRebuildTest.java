@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.closure;
+
+import com.evolveum.midpoint.prism.polystring.PolyString;
+import com.evolveum.midpoint.prism.util.PrismTestUtil;
+import com.evolveum.midpoint.repo.sql.BaseSQLRepoTest;
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.helpers.OrgClosureManager;
+import com.evolveum.midpoint.schema.MidPointPrismContextFactory;
+import com.evolveum.midpoint.schema.result.OperationResult;
+import com.evolveum.midpoint.schema.result.OperationResultStatus;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectReferenceType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OrgType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Checks that parallel rebuild of the closure table gives the same result as incremental closure maintenance.
+ */
+@ContextConfiguration(locations = {"../../../../../../ctx-test.xml"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class OrgClosureParallelRebuildTest extends BaseSQLRepoTest {
+
+    private static final int MIDDLE_ORGS = 3;
+    private static final int LEAF_ORGS = 150;           // to have a level large enough to be processed in parallel
+
+    @Autowired
+    private OrgClosureManager closureManager;
+
+    private boolean parallelRebuildBefore;
+    private int threadsBefore;
+
+    private Set<List<Object>> expectedClosure;
+
+    @BeforeClass
+    public void beforeClass() throws Exception {
+        super.beforeClass();
+
+        PrismTestUtil.resetPrismContext(MidPointPrismContextFactory.FACTORY);
+
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        parallelRebuildBefore = configuration.isOrgClosureParallelRebuild();
+        threadsBefore = configuration.getOrgClosureRebuildThreads();
+    }
+
+    @AfterClass
+    public void afterClass() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        configuration.setOrgClosureParallelRebuild(parallelRebuildBefore);
+        configuration.setOrgClosureRebuildThreads(threadsBefore);
+    }
+
+    @Test
+    public void test100CreateStructure() throws Exception {
+        OperationResult result = new OperationResult("test100CreateStructure");
+
+        String root = addOrg("root", result);
+        String[] middle = new String[MIDDLE_ORGS];
+        for (int i = 0; i < MIDDLE_ORGS; i++) {
+            middle[i] = addOrg("middle" + i, result, root);
+        }
+        for (int i = 0; i < LEAF_ORGS; i++) {
+            if (i % 5 == 0) {
+                // leaf with two parents (so there are two paths from it to the root)
+                addOrg("leaf" + i, result, middle[i % MIDDLE_ORGS], middle[(i + 1) % MIDDLE_ORGS]);
+            } else {
+                addOrg("leaf" + i, result, middle[i % MIDDLE_ORGS]);
+            }
+        }
+        // a child of multi-parent leaf, and a reference to non-existing parent
+        addOrg("bottom", result, findOrg("leaf0"), "00000000-0000-0000-0000-999999999999");
+
+        expectedClosure = readClosure();
+        assertEquals("Wrong # of closure entries", 1 + 2 * MIDDLE_ORGS + 3 * LEAF_ORGS + LEAF_ORGS / 5 + 5,
+                expectedClosure.size());
+    }
+
+    @Test
+    public void test200ThoroughCheck() throws Exception {
+        enableParallelRebuild();
+
+        OperationResult result = new OperationResult("test200ThoroughCheck");
+        closureManager.checkAndOrRebuild(true, false, false, false, result);
+        assertEquals("Wrong result of check: " + result.getMessage(), OperationResultStatus.SUCCESS, result.getStatus());
+
+        corruptClosure();
+        result = new OperationResult("test200ThoroughCheck");
+        closureManager.checkAndOrRebuild(true, false, false, false, result);
+        assertEquals("Wrong result of check of corrupted closure", OperationResultStatus.FATAL_ERROR, result.getStatus());
+    }
+
+    @Test
+    public void test210CheckAndRebuild() throws Exception {
+        enableParallelRebuild();
+
+        OperationResult result = new OperationResult("test210CheckAndRebuild");
+        closureManager.checkAndOrRebuild(true, true, false, false, result);
+
+        assertEquals("Wrong result of check and rebuild", OperationResultStatus.HANDLED_ERROR, result.getStatus());
+        assertEquals("Wrong closure after rebuild", expectedClosure, readClosure());
+        assertNoShadowTables();
+    }
+
+    @Test
+    public void test220QuickCheckAndRebuild() throws Exception {
+        enableParallelRebuild();
+        corruptClosure();
+
+        OperationResult result = new OperationResult("test220QuickCheckAndRebuild");
+        closureManager.checkAndOrRebuild(true, true, true, true, result);
+
+        assertEquals("Wrong closure after rebuild", expectedClosure, readClosure());
+        assertNoShadowTables();
+    }
+
+    @Test
+    public void test230SingleThreadedRebuild() throws Exception {
+        enableParallelRebuild();
+        baseHelper.getConfiguration().setOrgClosureRebuildThreads(1);
+        corruptClosure();
+
+        OperationResult result = new OperationResult("test230SingleThreadedRebuild");
+        closureManager.checkAndOrRebuild(false, true, true, false, result);
+
+        assertEquals("Wrong closure after rebuild", expectedClosure, readClosure());
+        assertNoShadowTables();
+    }
+
+    @Test
+    public void test240DropStaleShadowTables() throws Exception {
+        if (!isH2used()) {
+            return;             // see assertNoShadowTables
+        }
+        enableParallelRebuild();
+        String staleTable = "m_org_closure_rb_00000001abcd";          // created in 1970
+        String recentTable = String.format("m_org_closure_rb_%08x0000", System.currentTimeMillis() / 1000L);
+        executeUpdate("create table " + staleTable + " (descendant_oid VARCHAR(36))");
+        executeUpdate("create table " + recentTable + " (descendant_oid VARCHAR(36))");
+        try {
+            OperationResult result = new OperationResult("test240DropStaleShadowTables");
+            closureManager.checkAndOrRebuild(false, true, true, false, result);
+
+            assertEquals("Wrong closure after rebuild", expectedClosure, readClosure());
+            // the recent one might belong to a rebuild running on other node
+            assertEquals("Wrong shadow tables after rebuild", 1, countShadowTables());
+        } finally {
+            executeUpdate("drop table " + recentTable);
+        }
+        assertNoShadowTables();
+    }
+
+    private void enableParallelRebuild() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        configuration.setOrgClosureParallelRebuild(true);
+        configuration.setOrgClosureRebuildThreads(4);
+    }
+
+    private String addOrg(String name, OperationResult result, String... parents) throws Exception {
+        OrgType org = prismContext.getSchemaRegistry().findObjectDefinitionByCompileTimeClass(OrgType.class).instantiate().asObjectable();
+        org.setName(new PolyStringType(new PolyString(name)));
+        for (String parent : parents) {
+            ObjectReferenceType parentRef = new ObjectReferenceType();
+            parentRef.setOid(parent);
+            parentRef.setType(OrgType.COMPLEX_TYPE);
+            org.getParentOrgRef().add(parentRef);
+        }
+        return repositoryService.addObject(org.asPrismObject(), null, result);
+    }
+
+    private String findOrg(String name) {
+        Session session = getFactory().openSession();
+        try {
+            return (String) session.createQuery("select o.oid from ROrg o where o.name.orig = :name")
+                    .setString("name", name).uniqueResult();
+        } finally {
+            session.close();
+        }
+    }
+
+    // removes closure entries of some orgs, including their self-records
+    private void corruptClosure() {
+        Session session = getFactory().openSession();
+        try {
+            session.beginTransaction();
+            session.createSQLQuery("delete from m_org_closure where descendant_oid in "
+                    + "(select oid from m_org where name_orig like 'leaf1%')").executeUpdate();
+            session.getTransaction().commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    // each rebuild creates its own shadow table; none of them should survive the rebuild
+    private void assertNoShadowTables() {
+        if (!isH2used()) {
+            return;             // information_schema is not available everywhere (e.g. on Oracle)
+        }
+        assertEquals("Leftover shadow tables", 0, countShadowTables());
+    }
+
+    private int countShadowTables() {
+        Session session = getFactory().openSession();
+        try {
+            Number count = (Number) session.createSQLQuery("select count(*) from information_schema.tables "
+                    + "where lower(table_name) like 'm_org_closure_rb_%'").uniqueResult();
+            return count.intValue();
+        } finally {
+            session.close();
+        }
+    }
+
+    private void executeUpdate(String sql) {
+        Session session = getFactory().openSession();
+        try {
+            session.beginTransaction();
+            session.createSQLQuery(sql).executeUpdate();
+            session.getTransaction().commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    private Set<List<Object>> readClosure() {
+        Session session = getFactory().openSession();
+        try {
+            List<Object[]> rows = session.createSQLQuery("select descendant_oid, ancestor_oid, val from m_org_closure").list();
+            Set<List<Object>> rv = new HashSet<>();
+            for (Object[] row : rows) {
+                rv.add(Arrays.asList(row[0], row[1], ((Number) row[2]).intValue()));
+            }
+            return rv;
+        } finally {
+            session.close();
+        }
+    }
+}
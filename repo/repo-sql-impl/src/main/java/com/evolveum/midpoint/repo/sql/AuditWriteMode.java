@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql;
+
+/**
+ * How audit records are written.
+ */
+public enum AuditWriteMode {
+
+    /**
+     * Each record is written in its own transaction on the caller's thread. When audit() returns, the record is stored.
+     */
+    SYNC("sync"),
+
+    /**
+     * Records are put into a bounded queue and written in batches by a background thread. When audit() returns,
+     * the record is only queued; records still in the queue are written on (orderly) shutdown, but are lost
+     * if the node crashes. Records are not visible to searches until they are written.
+     */
+    ASYNC("async");
+
+    private final String value;
+
+    AuditWriteMode(String value) {
+        this.value = value;
+    }
+
+    public String value() {
+        return value;
+    }
+
+    public static AuditWriteMode fromValue(String v) {
+        for (AuditWriteMode c: AuditWriteMode.values()) {
+            if (c.value.equals(v)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException(v);
+    }
+}
@@ -18,16 +18,22 @@ package com.evolveum.midpoint.repo.sql;
 import com.evolveum.midpoint.audit.api.AuditEventRecord;
 import com.evolveum.midpoint.audit.api.AuditEventStage;
 import com.evolveum.midpoint.audit.api.AuditEventType;
+import com.evolveum.midpoint.audit.api.AuditReferenceResolution;
+import com.evolveum.midpoint.audit.api.AuditResultHandler;
 import com.evolveum.midpoint.audit.api.AuditService;
 import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismReferenceValue;
 import com.evolveum.midpoint.prism.parser.XNodeProcessorEvaluationMode;
+import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.repo.sql.data.audit.RAuditEventRecord;
 import com.evolveum.midpoint.repo.sql.data.audit.RAuditEventStage;
 import com.evolveum.midpoint.repo.sql.data.audit.RAuditEventType;
 import com.evolveum.midpoint.repo.sql.data.audit.RObjectDeltaOperation;
+import com.evolveum.midpoint.repo.sql.helpers.AuditPartitionManager;
+import com.evolveum.midpoint.repo.sql.helpers.AuditWriter;
 import com.evolveum.midpoint.repo.sql.helpers.BaseHelper;
+import com.evolveum.midpoint.repo.sql.util.ClassMapper;
 import com.evolveum.midpoint.repo.sql.util.DtoTranslationException;
-import com.evolveum.midpoint.repo.sql.util.GetObjectResult;
 import com.evolveum.midpoint.repo.sql.util.RUtil;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.task.api.Task;
@@ -38,10 +44,14 @@ import com.evolveum.midpoint.util.exception.SystemException;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.CleanupPolicyType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
 
 import org.apache.commons.lang.Validate;
 import org.hibernate.Query;
 import org.hibernate.SQLQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.dialect.pagination.LimitHandler;
@@ -54,6 +64,9 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -69,6 +82,12 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
 	@Autowired
 	private BaseHelper baseHelper;
 
+	@Autowired
+	private AuditWriter auditWriter;
+
+	@Autowired
+	private AuditPartitionManager auditPartitionManager;
+
     private static final Trace LOGGER = TraceManager.getTrace(SqlAuditServiceImpl.class);
     private static final Integer CLEANUP_AUDIT_BATCH_SIZE = 500;
 
@@ -81,16 +100,37 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
         Validate.notNull(record, "Audit event record must not be null.");
         Validate.notNull(task, "Task must not be null.");
 
+        if (auditWriter.isAsync()) {
+            // the record is converted here, so that it is not influenced by any later changes made by the caller
+            RAuditEventRecord newRecord;
+            try {
+                newRecord = RAuditEventRecord.toRepo(record, getPrismContext());
+            } catch (DtoTranslationException ex) {
+                throw new SystemException(ex.getMessage(), ex);
+            }
+            if (auditWriter.enqueue(newRecord)) {
+                return;
+            }
+            // queue is full (or the writer is stopping), so let's write the record ourselves
+        }
+
         final String operation = "audit";
         int attempt = 1;
 
-        while (true) {
-            try {
-                auditAttempt(record);
-                return;
-            } catch (RuntimeException ex) {
-                attempt = baseHelper.logOperationAttempt(null, operation, attempt, ex, null);
+        SqlPerformanceMonitor pm = getPerformanceMonitor();
+        long opHandle = pm.registerOperationStart("audit");
+        try {
+            while (true) {
+                try {
+                    auditAttempt(record);
+                    return;
+                } catch (RuntimeException ex) {
+                    attempt = baseHelper.logOperationAttempt(null, operation, attempt, ex, null);
+                    pm.registerOperationNewTrial(opHandle, attempt);
+                }
             }
+        } finally {
+            pm.registerOperationFinish(opHandle, attempt);
         }
     }
 
@@ -114,42 +154,22 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
         try {
             session = baseHelper.beginTransaction();
             session.setFlushMode(FlushMode.MANUAL);
-            Query q = session.createQuery(query);
-            Set<Entry<String, Object>> paramSet = params.entrySet();
-            for (Entry<String, Object> p : paramSet) {
-                if (p.getValue() == null) {
-                    q.setParameter(p.getKey(), null);
-                    continue;
-                }
-                if (XMLGregorianCalendar.class.isAssignableFrom(p.getValue().getClass())) {
-                    q.setParameter(p.getKey(), MiscUtil.asDate((XMLGregorianCalendar) p.getValue()));
-                } else if (p.getValue() instanceof AuditEventType) {
-                    q.setParameter(p.getKey(), RAuditEventType.toRepo((AuditEventType) p.getValue()));
-                } else if (p.getValue() instanceof AuditEventStage) {
-                    q.setParameter(p.getKey(), RAuditEventStage.toRepo((AuditEventStage) p.getValue()));
-                } else {
-                    q.setParameter(p.getKey(), p.getValue());
-                }
-            }
+            Query q = createQuery(session, query, params);
 
 //            q.setResultTransformer(Transformers.aliasToBean(RAuditEventRecord.class));
             List resultList = q.list();
 
-            auditRecords = new ArrayList<>();
-
+            List<RAuditEventRecord> repoRecords = new ArrayList<>(resultList.size());
             for (Object o : resultList) {
-                if (!(o instanceof RAuditEventRecord)) {
-                    throw new DtoTranslationException("Unexpected object in result set. Expected audit record, but got " + o.getClass().getSimpleName());
-                }
-                RAuditEventRecord raudit = (RAuditEventRecord) o;
-
-                AuditEventRecord audit = RAuditEventRecord.fromRepo(raudit, getPrismContext());
+                repoRecords.add(toRepoRecord(o));
+            }
 
-                audit.setInitiator(resolve(session, (raudit.getInitiatorOid())));
-                audit.setTarget(resolve(session, (raudit.getTargetOid())));
-                audit.setTargetOwner(resolve(session, raudit.getTargetOwnerOid()));
+            ReferenceResolver resolver = new ReferenceResolver(AuditReferenceResolution.FULL);
+            resolver.load(session, repoRecords);
 
-                auditRecords.add(audit);
+            auditRecords = new ArrayList<>(repoRecords.size());
+            for (RAuditEventRecord raudit : repoRecords) {
+                auditRecords.add(resolver.createAuditRecord(raudit));
             }
 
             session.getTransaction().commit();
@@ -165,20 +185,216 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
 
     }
 
-    private PrismObject resolve(Session session, String oid) throws SchemaException {
-        Query query = session.getNamedQuery("get.object");
-        query.setParameter("oid", oid);
-        query.setResultTransformer(GetObjectResult.RESULT_TRANSFORMER);
-        GetObjectResult object = null;
-        object = (GetObjectResult) query.uniqueResult();
-
-        PrismObject result = null;
-        if (object != null) {
-            String xml = RUtil.getXmlFromByteArray(object.getFullObject(), getConfiguration().isUseZip());
-            result = getPrismContext().parseObject(xml, XNodeProcessorEvaluationMode.COMPAT);
+    @Override
+    public void searchRecordsIterative(String query, Map<String, Object> params, AuditResultHandler handler,
+            AuditReferenceResolution resolution) {
+        Validate.notNull(handler, "Result handler must not be null.");
+
+        SqlPerformanceMonitor pm = getPerformanceMonitor();
+        long opHandle = pm.registerOperationStart("searchRecordsIterative");
+        try {
+            // not retried, as the handler might have already processed some of the records
+            searchRecordsIterativeAttempt(query, params, handler,
+                    resolution != null ? resolution : AuditReferenceResolution.FULL);
+        } finally {
+            pm.registerOperationFinish(opHandle, 1);
+        }
+    }
+
+    /**
+     * Reads the records using forward-only cursor. Records are processed in batches (getObjectsBatchSize):
+     * references of the whole batch are resolved at once, records are passed to the handler, and then
+     * the session is cleared, so that only one batch is kept in memory.
+     */
+    private void searchRecordsIterativeAttempt(String query, Map<String, Object> params, AuditResultHandler handler,
+            AuditReferenceResolution resolution) {
+        Session session = null;
+        ScrollableResults results = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            session.setFlushMode(FlushMode.MANUAL);
+            int batchSize = getConfiguration().getGetObjectsBatchSize();
+            Query q = createQuery(session, query, params);
+            q.setFetchSize(batchSize);
+            results = q.scroll(ScrollMode.FORWARD_ONLY);
+
+            ReferenceResolver resolver = new ReferenceResolver(resolution);
+            List<RAuditEventRecord> batch = new ArrayList<>(batchSize);
+            boolean more = true;
+            while (more) {
+                more = results.next();
+                if (more) {
+                    batch.add(toRepoRecord(results.get(0)));
+                }
+                if (batch.size() >= batchSize || (!more && !batch.isEmpty())) {
+                    resolver.load(session, batch);
+                    for (RAuditEventRecord raudit : batch) {
+                        if (!handler.handle(resolver.createAuditRecord(raudit))) {
+                            LOGGER.trace("Audit record handler requested stop");
+                            more = false;
+                            break;
+                        }
+                    }
+                    batch.clear();
+                    session.clear();
+                }
+            }
+
+            session.getTransaction().commit();
+        } catch (DtoTranslationException | SchemaException ex) {
+            baseHelper.handleGeneralCheckedException(ex, session, null);
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            if (results != null) {
+                results.close();
+            }
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+
+    private Query createQuery(Session session, String query, Map<String, Object> params) {
+        Query q = session.createQuery(query);
+        Set<Entry<String, Object>> paramSet = params.entrySet();
+        for (Entry<String, Object> p : paramSet) {
+            if (p.getValue() == null) {
+                q.setParameter(p.getKey(), null);
+                continue;
+            }
+            if (XMLGregorianCalendar.class.isAssignableFrom(p.getValue().getClass())) {
+                q.setParameter(p.getKey(), MiscUtil.asDate((XMLGregorianCalendar) p.getValue()));
+            } else if (p.getValue() instanceof AuditEventType) {
+                q.setParameter(p.getKey(), RAuditEventType.toRepo((AuditEventType) p.getValue()));
+            } else if (p.getValue() instanceof AuditEventStage) {
+                q.setParameter(p.getKey(), RAuditEventStage.toRepo((AuditEventStage) p.getValue()));
+            } else {
+                q.setParameter(p.getKey(), p.getValue());
+            }
+        }
+        return q;
+    }
+
+    private RAuditEventRecord toRepoRecord(Object o) throws DtoTranslationException {
+        if (!(o instanceof RAuditEventRecord)) {
+            throw new DtoTranslationException("Unexpected object in result set. Expected audit record, but got "
+                    + (o != null ? o.getClass().getSimpleName() : null));
+        }
+        return (RAuditEventRecord) o;
+    }
+
+    /**
+     * Fills-in initiator, target and target owner of audit records. In FULL mode, the objects are loaded
+     * for whole batch of records at once ("oid in (...)" queries). Objects of the current batch are kept
+     * in a separate map, so they are all available when the records are created; objects of previous batches
+     * are remembered (up to auditResolvedObjectsCacheSize), so that they are usually not loaded and parsed again.
+     */
+    private class ReferenceResolver {
+
+        private final AuditReferenceResolution resolution;
+
+        // objects needed by the current batch; null value means "object does not exist"
+        private final Map<String, PrismObject> objects = new HashMap<>();
+
+        // objects resolved for previous batches
+        private final Map<String, PrismObject> resolved = new LinkedHashMap<String, PrismObject>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PrismObject> eldest) {
+                return size() > getConfiguration().getAuditResolvedObjectsCacheSize();
+            }
+        };
+
+        private ReferenceResolver(AuditReferenceResolution resolution) {
+            this.resolution = resolution;
+        }
+
+        private void load(Session session, List<RAuditEventRecord> records) throws SchemaException {
+            if (resolution != AuditReferenceResolution.FULL) {
+                return;
+            }
+            objects.clear();
+            Set<String> oids = new HashSet<>();
+            for (RAuditEventRecord record : records) {
+                addIfUnknown(oids, record.getInitiatorOid());
+                addIfUnknown(oids, record.getTargetOid());
+                addIfUnknown(oids, record.getTargetOwnerOid());
+            }
+            if (!oids.isEmpty()) {
+                loadObjects(session, oids);
+            }
+            resolved.putAll(objects);
+        }
+
+        private void loadObjects(Session session, Set<String> oids) throws SchemaException {
+            List<String> oidList = new ArrayList<>(oids);
+            int batchSize = getConfiguration().getGetObjectsBatchSize();
+            for (int i = 0; i < oidList.size(); i += batchSize) {
+                List<String> batch = oidList.subList(i, Math.min(i + batchSize, oidList.size()));
+                Query query = session.createQuery("select o.oid, o.fullObject from RObject as o where o.oid in (:oids)");
+                query.setParameterList("oids", batch);
+                List<Object[]> loaded = query.list();
+                LOGGER.trace("Resolved {} object(s) for {} oid(s)", loaded.size(), batch.size());
+                for (Object[] row : loaded) {
+                    String xml = RUtil.getXmlFromByteArray((byte[]) row[1]);
+                    objects.put((String) row[0], getPrismContext().parseObject(xml, XNodeProcessorEvaluationMode.COMPAT));
+                }
+                for (String oid : batch) {
+                    if (!objects.containsKey(oid)) {
+                        objects.put(oid, null);
+                    }
+                }
+            }
+        }
+
+        private void addIfUnknown(Set<String> oids, String oid) {
+            if (oid == null || objects.containsKey(oid)) {
+                return;
+            }
+            if (resolved.containsKey(oid)) {
+                objects.put(oid, resolved.get(oid));
+            } else {
+                oids.add(oid);
+            }
+        }
+
+        private AuditEventRecord createAuditRecord(RAuditEventRecord raudit) throws DtoTranslationException {
+            AuditEventRecord audit = RAuditEventRecord.fromRepo(raudit, getPrismContext());
+            switch (resolution) {
+                case FULL:
+                    audit.setInitiator(objects.get(raudit.getInitiatorOid()));
+                    audit.setTarget(objects.get(raudit.getTargetOid()));
+                    audit.setTargetOwner(objects.get(raudit.getTargetOwnerOid()));
+                    break;
+                case NAMES:
+                    audit.setInitiator(createUser(raudit.getInitiatorOid(), raudit.getInitiatorName()));
+                    if (raudit.getTargetOid() != null) {
+                        PrismReferenceValue target = new PrismReferenceValue(raudit.getTargetOid());
+                        if (raudit.getTargetType() != null) {
+                            target.setTargetType(ClassMapper.getQNameForHQLType(raudit.getTargetType()));
+                        }
+                        if (raudit.getTargetName() != null) {
+                            target.setTargetName(new PolyString(raudit.getTargetName()));
+                        }
+                        audit.setTarget(target);
+                    }
+                    audit.setTargetOwner(createUser(raudit.getTargetOwnerOid(), raudit.getTargetOwnerName()));
+                    break;
+                default:
+                    // nothing to do
+            }
+            return audit;
         }
 
-        return result;
+        private PrismObject<UserType> createUser(String oid, String name) {
+            if (oid == null) {
+                return null;
+            }
+            UserType user = new UserType(getPrismContext());
+            user.setOid(oid);
+            if (name != null) {
+                user.setName(new PolyStringType(name));
+            }
+            return user.asPrismObject();
+        }
     }
 
     private void auditAttempt(AuditEventRecord record) {
@@ -218,7 +434,8 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
         if (duration.getSign() > 0) {
             duration = duration.negate();
         }
-        Date minValue = new Date();
+        Date now = new Date();
+        Date minValue = new Date(now.getTime());
         duration.addTo(minValue);
 
         // factored out because it produces INFO-level message
@@ -232,6 +449,11 @@ public class SqlAuditServiceImpl extends SqlBaseService implements AuditService
         boolean first = true;
         Holder<Integer> totalCountHolder = new Holder<>(0);
         try {
+            if (auditPartitionManager.isEnabled()) {
+                // whole expired partitions are dropped; only the rest is deleted record by record
+                int dropped = auditPartitionManager.maintainPartitions(now, minValue);
+                LOGGER.info("Dropped {} expired audit partition(s).", dropped);
+            }
             while (true) {
                 try {
                     LOGGER.info("{} audit cleanup, deleting up to {} (duration '{}'), batch size {}{}.",
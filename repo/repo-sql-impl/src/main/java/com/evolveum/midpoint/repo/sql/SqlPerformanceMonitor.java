@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2010-2013 Evolveum
+ * Copyright (c) 2010-2016 Evolveum
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,234 +16,678 @@
 
 package com.evolveum.midpoint.repo.sql;
 
+import com.evolveum.midpoint.repo.sql.util.LatencyHistogram;
 import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
-import java.util.*;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
- * Created with IntelliJ IDEA.
- * User: Pavol
- * Date: 31.1.2013
- * Time: 18:43
- * To change this template use File | Settings | File Templates.
+ * Collects statistics of repository operations: counts, attempts, retries, failures and latency histograms,
+ * per operation kind and object type.
+ *
+ * All statistics are aggregated at the time the operation finishes, using lock-free counters; so the memory
+ * needed is proportional to the number of distinct (kind, type) pairs, not to the number of operations.
+ * Statistics are available live via JMX (see {@link SqlPerformanceMonitorMBean}) and, if performanceStatisticsPort
+ * is configured, via HTTP in Prometheus text format (at /metrics). At {@link #LEVEL_DETAILS} they are also
+ * logged and written to performanceStatisticsFile on shutdown.
+ *
+ * @author Pavol
  */
-public class SqlPerformanceMonitor {
+public class SqlPerformanceMonitor implements SqlPerformanceMonitorMBean {
 
     private static final Trace LOGGER = TraceManager.getTrace(SqlPerformanceMonitor.class);
 
     public static final int LEVEL_NONE = 0;
+    public static final int LEVEL_METRICS = 1;
     public static final int LEVEL_DETAILS = 10;
 
-    private int level = 0;
+    public static final String OBJECT_NAME = "com.evolveum.midpoint.repo.sql:type=SqlPerformanceMonitor";
+
+    private static final String METRIC_PREFIX = "midpoint_repository_operation";
+    private static final double[] METRIC_BUCKETS_SECONDS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60 };
+
+    private static final Charset UTF8 = Charset.forName("utf-8");
+
+    private volatile int level = 0;
 
     private AtomicLong currentHandle = new AtomicLong();
 
-    private ConcurrentMap<Long,OperationRecord> outstandingOperations = new ConcurrentHashMap<Long, OperationRecord>();
-    private List<OperationRecord> finishedOperations = Collections.synchronizedList(new ArrayList<OperationRecord>());
+    // innermost outstanding operation per thread (operations it is nested in are linked via OperationRecord.outer);
+    // the size is limited by the number of threads
+    private ConcurrentMap<Long, OperationRecord> outstandingOperations = new ConcurrentHashMap<>();
+    private volatile ConcurrentMap<String, OperationStatistics> statistics = new ConcurrentHashMap<>();
 
-    private SqlRepositoryFactory sqlRepositoryFactory;
+    private final ConcurrentMap<String, GaugeEntry> gauges = new ConcurrentHashMap<>();
 
-    class OperationRecord {
-        String kind;
-        long handle;
-        int attempts;
-        long startTime;
-        long startCpuTime;
-        long totalTime;
-        long totalCpuTime;
+    private SqlRepositoryFactory sqlRepositoryFactory;
+    private ObjectName objectName;
+    private HttpServer httpServer;
+
+    private static class OperationRecord {
+        final OperationStatistics statistics;
+        final long handle;
+        final long startTime;
+        // operation executed by the same thread that this one is nested in (e.g. started from a result handler)
+        final OperationRecord outer;
+        int attempts = 1;
+        boolean failed;
         long wastedTime;
-        long wastedCpuTime;
 
-        public OperationRecord(String kind, long handle) {
-            this.kind = kind;
+        OperationRecord(OperationStatistics statistics, long handle, OperationRecord outer) {
+            this.statistics = statistics;
             this.handle = handle;
-            this.startTime = System.currentTimeMillis();
+            this.startTime = System.nanoTime();
+            this.outer = outer;
+        }
+
+        int getDepth() {
+            return outer != null ? outer.getDepth() + 1 : 1;
         }
 
         @Override
         public String toString() {
             return "OperationRecord{" +
-                    "kind='" + kind + '\'' +
+                    "kind='" + statistics.kind + '\'' +
+                    ", type=" + statistics.type +
                     ", handle=" + handle +
                     ", attempts=" + attempts +
-                    ", startTime=" + new Date(startTime) +
-                    ", totalTime=" + totalTime +
-//                    ", totalCpuTime=" + totalCpuTime +
-                    ", wastedTime=" + wastedTime +
-//                    ", wastedCpuTime=" + wastedCpuTime +
+                    ", runningTime=" + (System.nanoTime() - startTime) / 1000000L +
+                    ", wastedTime=" + wastedTime / 1000000L +
+                    (outer != null ? ", outer=" + outer : "") +
                     '}';
         }
     }
 
+    /**
+     * Statistics for given operation kind and object type. Times are in microseconds.
+     */
+    public static class OperationStatistics {
+        private final String kind;
+        private final String type;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong attempts = new AtomicLong();
+        private final AtomicLong retriedOperations = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong serializationConflicts = new AtomicLong();
+        private final AtomicLong wastedTime = new AtomicLong();
+        private final AtomicLong lockWaits = new AtomicLong();
+        private final AtomicLong lockWaitTime = new AtomicLong();
+        private final AtomicLong lockTimeouts = new AtomicLong();
+        // [i] = number of operations finished in (i+1) attempts; the last one includes anything above
+        private final AtomicLongArray attemptsDistribution = new AtomicLongArray(SqlBaseService.LOCKING_MAX_ATTEMPTS + 1);
+
+        OperationStatistics(String kind, String type) {
+            this.kind = kind;
+            this.type = type;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        public long getAttempts() {
+            return attempts.get();
+        }
+
+        public long getRetries() {
+            return attempts.get() - latency.getCount();
+        }
+
+        public long getRetriedOperations() {
+            return retriedOperations.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getSerializationConflicts() {
+            return serializationConflicts.get();
+        }
+
+        public long getWastedTime() {
+            return wastedTime.get();
+        }
+
+        /**
+         * Number of times the operation had to wait for an OID lock held by other thread (see OidLockManager).
+         */
+        public long getLockWaits() {
+            return lockWaits.get();
+        }
+
+        public long getLockWaitTime() {
+            return lockWaitTime.get();
+        }
+
+        public long getLockTimeouts() {
+            return lockTimeouts.get();
+        }
+
+        public long getOperationsWithAttempts(int attempts) {
+            int index = Math.min(attempts, attemptsDistribution.length()) - 1;
+            return index >= 0 ? attemptsDistribution.get(index) : 0;
+        }
+
+        private void record(OperationRecord operation, long duration) {
+            latency.record(duration / 1000L);
+            attempts.addAndGet(operation.attempts);
+            if (operation.attempts > 1) {
+                retriedOperations.incrementAndGet();
+            }
+            if (operation.failed) {
+                failures.incrementAndGet();
+            }
+            wastedTime.addAndGet(operation.wastedTime / 1000L);
+            int index = Math.max(0, Math.min(operation.attempts, attemptsDistribution.length()) - 1);
+            attemptsDistribution.incrementAndGet(index);
+        }
+    }
+
+    /**
+     * Provides current value of a metric maintained by other component (e.g. the audit writer).
+     */
+    public interface Gauge {
+        long getValue();
+    }
+
+    private static class GaugeEntry {
+        final String type;
+        final String help;
+        final Gauge gauge;
+
+        GaugeEntry(String type, String help, Gauge gauge) {
+            this.type = type;
+            this.help = help;
+            this.gauge = gauge;
+        }
+    }
+
     public void initialize(SqlRepositoryFactory sqlRepositoryFactory) {
         outstandingOperations.clear();
-        finishedOperations.clear();
+        statistics = new ConcurrentHashMap<>();
         this.sqlRepositoryFactory = sqlRepositoryFactory;
-        this.level = sqlRepositoryFactory.getSqlConfiguration().getPerformanceStatisticsLevel();
+        SqlRepositoryConfiguration configuration = sqlRepositoryFactory.getSqlConfiguration();
+        this.level = configuration.getPerformanceStatisticsLevel();
+        registerMBean();
+        if (configuration.getPerformanceStatisticsPort() > 0) {
+            startHttpServer(configuration.getPerformanceStatisticsPort());
+        }
         if (level >= LEVEL_NONE) {
             LOGGER.info("SQL Performance Monitor initialized (level = " + level + ").");
         }
     }
 
     public void shutdown() {
-        if (level > LEVEL_NONE) {
+        if (level >= LEVEL_DETAILS) {
             LOGGER.info("SQL Performance Monitor shutting down.");
-            LOGGER.info("Statistics:\n" + getFormattedStatistics());
+            LOGGER.info("Statistics:\n" + getStatistics());
             String file = sqlRepositoryFactory.getSqlConfiguration().getPerformanceStatisticsFile();
             if (file != null) {
                 writeStatisticsToFile(file);
             }
         }
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        unregisterMBean();
     }
 
-    private void writeStatisticsToFile(String file) {
+    private void registerMBean() {
         try {
-            PrintWriter pw = new PrintWriter(new FileWriter(file, true));
-            for (OperationRecord or : finishedOperations) {
-                pw.println(new Date(or.startTime) + "\t" + or.kind + "\t" + or.attempts + "\t" + or.totalTime + "\t" + or.wastedTime);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                // left by another (e.g. not properly closed) repository instance
+                server.unregisterMBean(objectName);
             }
-            for (OperationRecord or : outstandingOperations.values()) {
-                pw.println(new Date(or.startTime) + "\t" + or.kind + "\t" + "?" + "\t" + "?" + "\t" + or.wastedTime);
+            server.registerMBean(this, objectName);
+        } catch (Exception ex) {
+            objectName = null;
+            LoggingUtils.logException(LOGGER, "Couldn't register SQL performance monitor in JMX", ex);
+        }
+    }
+
+    private void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
             }
+        } catch (Exception ex) {
+            LoggingUtils.logException(LOGGER, "Couldn't unregister SQL performance monitor from JMX", ex);
+        }
+        objectName = null;
+    }
+
+    private void startHttpServer(int port) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+            httpServer.createContext("/metrics", new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    byte[] body = getMetrics().getBytes(UTF8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    try {
+                        out.write(body);
+                    } finally {
+                        out.close();
+                    }
+                }
+            });
+            httpServer.start();
+            LOGGER.info("SQL performance statistics are available at http://<host>:{}/metrics", port);
+        } catch (IOException ex) {
+            httpServer = null;
+            LoggingUtils.logException(LOGGER, "Couldn't start HTTP server for SQL performance statistics on port {}",
+                    ex, port);
+        }
+    }
+
+    private void writeStatisticsToFile(String file) {
+        try {
+            PrintWriter pw = new PrintWriter(new FileWriter(file, true));
+            pw.println(new Date());
+            pw.println(getStatistics());
             pw.close();
-            LOGGER.trace("" + (finishedOperations.size() + outstandingOperations.size()) + " record(s) written to file " + file);
+            LOGGER.trace("Statistics written to file " + file);
         } catch (IOException e) {
             LoggingUtils.logException(LOGGER, "Couldn't write repository performance statistics to file " + file, e);
         }
+    }
 
+    public long registerOperationStart(String kind) {
+        return registerOperationStart(kind, null);
     }
 
-    class StatEntry {
-        long totalTime, wastedTime;
-        int attempts;
-        int records;
+    public long registerOperationStart(String kind, Class<?> objectType) {
 
-        public void process(OperationRecord operation) {
-            totalTime += operation.totalTime;
-            wastedTime += operation.wastedTime;
-            attempts += operation.attempts;
-            records++;
+        if (level <= LEVEL_NONE) {
+            return 0L;
         }
 
-        public String dump() {
-            if (records == 0) {
-                return "no records";
+        long handle = currentHandle.getAndIncrement();
+        Long threadId = Thread.currentThread().getId();
+        // an operation that is still outstanding is the one this operation is nested in
+        OperationRecord outer = outstandingOperations.get(threadId);
+        outstandingOperations.put(threadId, new OperationRecord(getOrCreateStatistics(kind, objectType), handle, outer));
+        return handle;
+    }
+
+    private OperationStatistics getOrCreateStatistics(String kind, Class<?> objectType) {
+        String type = objectType != null ? objectType.getSimpleName() : "";
+        String key = kind + "/" + type;
+        ConcurrentMap<String, OperationStatistics> currentStatistics = statistics;
+        OperationStatistics operationStatistics = currentStatistics.get(key);
+        if (operationStatistics == null) {
+            operationStatistics = new OperationStatistics(kind, type);
+            OperationStatistics existing = currentStatistics.putIfAbsent(key, operationStatistics);
+            if (existing != null) {
+                operationStatistics = existing;
             }
-            return "Records: " + records + ", " +
-                   "Total time (avg/sum): " + ((float) totalTime/records) + "/" + totalTime + ", " +
-                   "Wasted time (avg/sum): " + ((float) wastedTime/records) + "/" + wastedTime + " (" + (wastedTime*100.0f/totalTime) + "%), " +
-                   "Attempts (avg): " + ((float) attempts/records);
         }
+        return operationStatistics;
     }
 
-    private String getFormattedStatistics() {
-        StatEntry all = new StatEntry();
-        StatEntry unfinished = new StatEntry();
-        StatEntry[] perAttempts = new StatEntry[SqlBaseService.LOCKING_MAX_ATTEMPTS+1];         // "+1" is a safety margin
+    public void registerOperationFinish(long opHandle, int attempt) {
 
-        for (int i = 0; i < SqlBaseService.LOCKING_MAX_ATTEMPTS+1; i++) {
-            perAttempts[i] = new StatEntry();
+        if (level <= LEVEL_NONE) {
+            return;
         }
 
-        synchronized (finishedOperations) {
-            for (OperationRecord operation : finishedOperations) {
-                all.process(operation);
-                if (operation.attempts >= 1 && operation.attempts <= SqlBaseService.LOCKING_MAX_ATTEMPTS+1) {
-                    perAttempts[operation.attempts-1].process(operation);
-                } else if (operation.attempts < 0) {
-                    unfinished.process(operation);
-                }
-            }
+        Long threadId = Thread.currentThread().getId();
+        OperationRecord operation = getOutstandingOperation(threadId, opHandle, attempt, "finish");
+        if (operation != null) {
+            operation.attempts = attempt;
+            registerOperationFinishRaw(threadId, operation);
         }
+    }
 
-        StringBuilder retval = new StringBuilder();
-        retval.append("Overall: " + all.dump() + "\n");
-        for (int i = 0; i < SqlBaseService.LOCKING_MAX_ATTEMPTS+1; i++) {
-            retval.append((i+1) + " attempt(s): " + perAttempts[i].dump() + "\n");
+    private void registerOperationFinishRaw(Long threadId, OperationRecord operation) {
+        operation.statistics.record(operation, System.nanoTime() - operation.startTime);
+        if (operation.outer != null) {
+            outstandingOperations.put(threadId, operation.outer);
+        } else {
+            outstandingOperations.remove(threadId);
         }
-        retval.append("Unfinished: " + unfinished.dump() + "\n");
-        retval.append("Outstanding: " + outstandingOperations.toString());
-        return retval.toString();
     }
 
-    private String dump() {
-        return "Finished operations: " + finishedOperations + "\nOutstanding operations: " + outstandingOperations;
+    public void registerOperationNewTrial(long opHandle, int attempt) {
+
+        if (level <= LEVEL_NONE) {
+            return;
+        }
+
+        Long threadId = Thread.currentThread().getId();
+        OperationRecord operation = getOutstandingOperation(threadId, opHandle, attempt, "new trial");
+        if (operation != null) {
+            operation.wastedTime = System.nanoTime() - operation.startTime;
+            operation.attempts = attempt;
+        }
     }
 
+    private OperationRecord getOutstandingOperation(Long threadId, long opHandle, int attempt, String event) {
+        OperationRecord operation = outstandingOperations.get(threadId);
+        if (operation == null) {
+            LOGGER.warn("Attempted to record " + event + " event for unregistered operation: handle = " + opHandle + ", attempt = " + attempt + ", ignoring the request.");
+            return null;
+        }
+        if (operation.handle == opHandle) {
+            return operation;
+        }
+        OperationRecord outer = operation.outer;
+        while (outer != null && outer.handle != opHandle) {
+            outer = outer.outer;
+        }
+        if (outer == null) {
+            LOGGER.error("Attempted to record " + event + " event with unexpected operation handle: handle = " + opHandle + ", stored outstanding operation for this thread = " + operation);
+            outstandingOperations.remove(threadId);
+            return null;
+        }
+        // operations nested in the given one were not finished
+        while (operation != outer) {
+            LOGGER.warn("Unfinished operation: " + operation);
+            operation.failed = true;
+            registerOperationFinishRaw(threadId, operation);
+            operation = operation.outer;
+        }
+        return operation;
+    }
 
-    public long registerOperationStart(String kind) {
+    /**
+     * Called from {@link com.evolveum.midpoint.repo.sql.helpers.BaseHelper#logOperationAttempt} for the operation
+     * executed by the current thread: either a serialization-related problem occurred (and the operation will be
+     * retried, unless the maximum number of attempts was reached), or the attempt failed with other exception.
+     */
+    public void registerOperationAttemptFailure(boolean serializationProblem, boolean willRetry) {
 
         if (level <= LEVEL_NONE) {
-            return 0L;
+            return;
         }
 
-        long handle = currentHandle.getAndIncrement();
-        Long threadId = Thread.currentThread().getId();
-        if (outstandingOperations.containsKey(threadId)) {
-            OperationRecord unfinishedOperation = outstandingOperations.get(threadId);
-            LOGGER.warn("Unfinished operation: " + unfinishedOperation);
-            registerOperationFinishRaw(threadId, unfinishedOperation, -1);
+        OperationRecord operation = outstandingOperations.get(Thread.currentThread().getId());
+        if (operation == null) {
+            return;
+        }
+        if (serializationProblem) {
+            operation.statistics.serializationConflicts.incrementAndGet();
+        }
+        if (!willRetry) {
+            operation.failed = true;
         }
-        outstandingOperations.put(threadId, new OperationRecord(kind, handle));
-        return handle;
     }
 
-    public void registerOperationFinish(long opHandle, int attempt) {
+    /**
+     * Called when the operation executed by the current thread had to wait for an OID lock.
+     */
+    public void registerOperationLockWait(long waitTime, boolean acquired) {
 
         if (level <= LEVEL_NONE) {
             return;
         }
 
-        Long threadId = Thread.currentThread().getId();
-        OperationRecord operation = outstandingOperations.get(threadId);
-
+        OperationRecord operation = outstandingOperations.get(Thread.currentThread().getId());
         if (operation == null) {
-            LOGGER.warn("Attempted to record finish event for unregistered operation: handle = " + opHandle + ", attempt = " + attempt + ", ignoring the request.");
             return;
         }
-        if (operation.handle != opHandle) {
-            LOGGER.error("Attempted to record finish event with unexpected operation handle: handle = " + opHandle + ", stored outstanding operation for this thread = " + operation);
-            outstandingOperations.remove(threadId);
-            return;
+        OperationStatistics operationStatistics = operation.statistics;
+        operationStatistics.lockWaits.incrementAndGet();
+        operationStatistics.lockWaitTime.addAndGet(waitTime / 1000L);
+        if (!acquired) {
+            operationStatistics.lockTimeouts.incrementAndGet();
         }
-        registerOperationFinishRaw(threadId, operation, attempt);
     }
 
-    private void registerOperationFinishRaw(Long threadId, OperationRecord operation, int attempt) {
-        operation.totalTime = System.currentTimeMillis() - operation.startTime;
-        operation.attempts = attempt;
-        finishedOperations.add(operation);
-        outstandingOperations.remove(threadId);
+    /**
+     * Registers a metric maintained by other component. Type is "gauge" or "counter" (as in Prometheus).
+     * Registering a metric with the same name replaces the original one.
+     */
+    public void registerGauge(String name, String type, String help, Gauge gauge) {
+        gauges.put(name, new GaugeEntry(type, help, gauge));
     }
 
-    public void registerOperationNewTrial(long opHandle, int attempt) {
+    /**
+     * Returns statistics for all operation kinds and object types, sorted by kind and type.
+     */
+    public List<OperationStatistics> getOperationStatistics() {
+        List<OperationStatistics> rv = new ArrayList<>(statistics.values());
+        Collections.sort(rv, new Comparator<OperationStatistics>() {
+            @Override
+            public int compare(OperationStatistics o1, OperationStatistics o2) {
+                int c = o1.kind.compareTo(o2.kind);
+                return c != 0 ? c : o1.type.compareTo(o2.type);
+            }
+        });
+        return rv;
+    }
+
+    @Override
+    public int getLevel() {
+        return level;
+    }
 
+    @Override
+    public void setLevel(int level) {
+        LOGGER.info("Setting SQL performance monitor level to {}", level);
+        this.level = level;
         if (level <= LEVEL_NONE) {
-            return;
+            outstandingOperations.clear();
         }
+    }
 
-        Long threadId = Thread.currentThread().getId();
-        OperationRecord operation = outstandingOperations.get(threadId);
+    @Override
+    public long getOperationCount() {
+        long rv = 0;
+        for (OperationStatistics s : statistics.values()) {
+            rv += s.getCount();
+        }
+        return rv;
+    }
 
-        if (operation == null) {
-            LOGGER.warn("Attempted to record new trial event for unregistered operation: handle = " + opHandle + ", attempt = " + attempt + ", ignoring the request.");
-            return;
+    @Override
+    public long getFailureCount() {
+        long rv = 0;
+        for (OperationStatistics s : statistics.values()) {
+            rv += s.getFailures();
         }
-        if (operation.handle != opHandle) {
-            LOGGER.error("Attempted to record new trial event with unexpected operation handle: handle = " + opHandle + ", stored outstanding operation for this thread = " + operation);
-            outstandingOperations.remove(threadId);
-            return;
+        return rv;
+    }
+
+    @Override
+    public long getRetryCount() {
+        long rv = 0;
+        for (OperationStatistics s : statistics.values()) {
+            rv += s.getRetries();
+        }
+        return rv;
+    }
+
+    @Override
+    public int getOperationsInProgress() {
+        int rv = 0;
+        for (OperationRecord operation : outstandingOperations.values()) {
+            rv += operation.getDepth();
         }
-        operation.wastedTime = System.currentTimeMillis() - operation.startTime;
-        operation.attempts = attempt;
+        return rv;
+    }
+
+    @Override
+    public void reset() {
+        statistics = new ConcurrentHashMap<>();
     }
 
+    @Override
+    public String getStatistics() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "%-30s %-25s %10s %8s %8s %8s %10s %10s %10s %10s %10s %10s %8s %12s%n",
+                "Operation", "Type", "Count", "Failed", "Retries", "Conflict", "Avg(ms)", "50%(ms)",
+                "90%(ms)", "99%(ms)", "Max(ms)", "Wasted(ms)", "LockWait", "LockWait(ms)"));
+        for (OperationStatistics s : getOperationStatistics()) {
+            LatencyHistogram h = s.latency;
+            sb.append(String.format(Locale.US, "%-30s %-25s %10d %8d %8d %8d %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f %8d %12.2f%n",
+                    s.kind, s.type.isEmpty() ? "-" : s.type, h.getCount(), s.getFailures(), s.getRetries(),
+                    s.getSerializationConflicts(), h.getMean() / 1000.0, h.getValueAtQuantile(0.5) / 1000.0,
+                    h.getValueAtQuantile(0.9) / 1000.0, h.getValueAtQuantile(0.99) / 1000.0, h.getMax() / 1000.0,
+                    s.getWastedTime() / 1000.0, s.getLockWaits(), s.getLockWaitTime() / 1000.0));
+        }
+        for (String name : new TreeSet<>(gauges.keySet())) {
+            GaugeEntry entry = gauges.get(name);
+            if (entry != null) {
+                sb.append(name).append(": ").append(entry.gauge.getValue()).append('\n');
+            }
+        }
+        sb.append("Outstanding: ").append(outstandingOperations.values());
+        return sb.toString();
+    }
+
+    @Override
+    public String getMetrics() {
+        List<OperationStatistics> all = getOperationStatistics();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("# HELP ").append(METRIC_PREFIX).append("_duration_seconds Duration of repository operations, including retries.\n");
+        sb.append("# TYPE ").append(METRIC_PREFIX).append("_duration_seconds histogram\n");
+        for (OperationStatistics s : all) {
+            String labels = getLabels(s);
+            for (double bucket : METRIC_BUCKETS_SECONDS) {
+                long count = s.latency.getCountAtOrBelow((long) (bucket * 1000000L));
+                appendMetric(sb, "_duration_seconds_bucket", labels + ",le=\"" + formatDouble(bucket) + "\"", count);
+            }
+            long count = s.latency.getCount();
+            appendMetric(sb, "_duration_seconds_bucket", labels + ",le=\"+Inf\"", count);
+            appendMetric(sb, "_duration_seconds_sum", labels, formatDouble(s.latency.getSum() / 1000000.0));
+            appendMetric(sb, "_duration_seconds_count", labels, count);
+        }
+
+        appendCounter(sb, all, "_attempts_total", "Number of attempts of repository operations.", new Counter() {
+            @Override
+            public long get(OperationStatistics s) {
+                return s.getAttempts();
+            }
+        });
+        appendCounter(sb, all, "_retries_total", "Number of repeated attempts of repository operations.", new Counter() {
+            @Override
+            public long get(OperationStatistics s) {
+                return s.getRetries();
+            }
+        });
+        appendCounter(sb, all, "_serialization_conflicts_total", "Number of serialization-related problems (e.g. deadlocks).", new Counter() {
+            @Override
+            public long get(OperationStatistics s) {
+                return s.getSerializationConflicts();
+            }
+        });
+        appendCounter(sb, all, "_failures_total", "Number of failed repository operations.", new Counter() {
+            @Override
+            public long get(OperationStatistics s) {
+                return s.getFailures();
+            }
+        });
+
+        appendCounter(sb, all, "_lock_waits_total", "Number of waits for OID lock held by other thread.", new Counter() {
+            @Override
+            public long get(OperationStatistics s) {
+                return s.getLockWaits();
+            }
+        });
+        appendCounter(sb, all, "_lock_timeouts_total", "Number of OID lock waits that timed out.", new Counter() {
+            @Override
+            public long get(OperationStatistics s) {
+                return s.getLockTimeouts();
+            }
+        });
+
+        sb.append("# HELP ").append(METRIC_PREFIX).append("_wasted_seconds_total Time spent in attempts that were repeated.\n");
+        sb.append("# TYPE ").append(METRIC_PREFIX).append("_wasted_seconds_total counter\n");
+        for (OperationStatistics s : all) {
+            appendMetric(sb, "_wasted_seconds_total", getLabels(s), formatDouble(s.getWastedTime() / 1000000.0));
+        }
+
+        sb.append("# HELP ").append(METRIC_PREFIX).append("_lock_wait_seconds_total Time spent waiting for OID locks.\n");
+        sb.append("# TYPE ").append(METRIC_PREFIX).append("_lock_wait_seconds_total counter\n");
+        for (OperationStatistics s : all) {
+            appendMetric(sb, "_lock_wait_seconds_total", getLabels(s), formatDouble(s.getLockWaitTime() / 1000000.0));
+        }
+
+        sb.append("# HELP ").append(METRIC_PREFIX).append("s_in_progress Number of repository operations in progress.\n");
+        sb.append("# TYPE ").append(METRIC_PREFIX).append("s_in_progress gauge\n");
+        sb.append(METRIC_PREFIX).append("s_in_progress ").append(getOperationsInProgress()).append('\n');
+
+        for (String name : new TreeSet<>(gauges.keySet())) {
+            GaugeEntry entry = gauges.get(name);
+            if (entry != null) {
+                sb.append("# HELP ").append(name).append(' ').append(entry.help).append('\n');
+                sb.append("# TYPE ").append(name).append(' ').append(entry.type).append('\n');
+                sb.append(name).append(' ').append(entry.gauge.getValue()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private interface Counter {
+        long get(OperationStatistics s);
+    }
+
+    private void appendCounter(StringBuilder sb, List<OperationStatistics> all, String suffix, String help, Counter counter) {
+        sb.append("# HELP ").append(METRIC_PREFIX).append(suffix).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(METRIC_PREFIX).append(suffix).append(" counter\n");
+        for (OperationStatistics s : all) {
+            appendMetric(sb, suffix, getLabels(s), counter.get(s));
+        }
+    }
+
+    private void appendMetric(StringBuilder sb, String suffix, String labels, Object value) {
+        sb.append(METRIC_PREFIX).append(suffix).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private String getLabels(OperationStatistics s) {
+        return "operation=\"" + s.kind + "\",type=\"" + s.type + "\"";
+    }
+
+    private String formatDouble(double value) {
+        return Double.toString(value);
+    }
 }
@@ -17,10 +17,13 @@
 package com.evolveum.midpoint.repo.sql;
 
 import com.evolveum.midpoint.repo.api.RepositoryServiceFactoryException;
+import com.evolveum.midpoint.repo.sql.data.common.any.ROExtPromoted;
 import com.evolveum.midpoint.repo.sql.helpers.OrgClosureManager;
+import com.evolveum.midpoint.repo.sql.util.FullObjectFormat;
 import com.evolveum.midpoint.repo.sql.util.MidPointConnectionCustomizer;
 import com.evolveum.midpoint.repo.sql.util.MidPointMySQLDialect;
 import com.evolveum.midpoint.repo.sql.util.MidPointPostgreSQLDialect;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
 import com.evolveum.midpoint.repo.sql.util.UnicodeSQLServer2008Dialect;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
@@ -29,6 +32,13 @@ import org.apache.commons.lang.StringUtils;
 import org.h2.Driver;
 import org.hibernate.dialect.*;
 
+import javax.xml.namespace.QName;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * This class is used for SQL repository configuration. It reads values from Apache configuration object (xml).
  *
@@ -58,6 +68,9 @@ public class SqlRepositoryConfiguration {
     public static final String PROPERTY_JDBC_URL = "jdbcUrl";
     public static final String PROPERTY_DATASOURCE = "dataSource";
     public static final String PROPERTY_USE_ZIP = "useZip";
+    public static final String PROPERTY_FULL_OBJECT_FORMAT = "fullObjectFormat";
+    public static final String PROPERTY_FULL_OBJECT_REENCODE_ON_STARTUP = "fullObjectReencodeOnStartup";
+    public static final String PROPERTY_FULL_OBJECT_REENCODE_BATCH_SIZE = "fullObjectReencodeBatchSize";
     public static final String PROPERTY_MIN_POOL_SIZE = "minPoolSize";
     public static final String PROPERTY_MAX_POOL_SIZE = "maxPoolSize";
 
@@ -68,16 +81,47 @@ public class SqlRepositoryConfiguration {
     public static final String PROPERTY_USE_READ_ONLY_TRANSACTIONS = "useReadOnlyTransactions";
     public static final String PROPERTY_PERFORMANCE_STATISTICS_FILE = "performanceStatisticsFile";
     public static final String PROPERTY_PERFORMANCE_STATISTICS_LEVEL = "performanceStatisticsLevel";
+    public static final String PROPERTY_PERFORMANCE_STATISTICS_PORT = "performanceStatisticsPort";
 
     //other
     public static final String PROPERTY_ITERATIVE_SEARCH_BY_PAGING = "iterativeSearchByPaging";
     public static final String PROPERTY_ITERATIVE_SEARCH_BY_PAGING_BATCH_SIZE = "iterativeSearchByPagingBatchSize";
+    public static final String PROPERTY_ITERATIVE_SEARCH_BY_PAGING_KEYSET = "iterativeSearchByPagingKeyset";
+    public static final String PROPERTY_PARTIAL_UPDATES = "partialUpdates";
+    public static final String PROPERTY_GET_OBJECTS_BATCH_SIZE = "getObjectsBatchSize";
+    public static final String PROPERTY_PARSING_THREADS = "parsingThreads";
+    public static final String PROPERTY_SEARCH_PARSING_PIPELINE = "searchParsingPipeline";
+    public static final String PROPERTY_SEARCH_PARSING_PIPELINE_SIZE = "searchParsingPipelineSize";
+    public static final String PROPERTY_SEARCH_PARSING_ORDERED = "searchParsingOrdered";
+    public static final String PROPERTY_COUNT_CACHE_TIME_TO_LIVE = "countCacheTimeToLive";
+    public static final String PROPERTY_COUNT_CACHE_MAX_ENTRIES = "countCacheMaxEntries";
+    public static final String PROPERTY_QUERY_PLAN_CACHE_MAX_ENTRIES = "queryPlanCacheMaxEntries";
+    public static final String PROPERTY_LOOKUP_TABLE_CACHE_TIME_TO_LIVE = "lookupTableCacheTimeToLive";
+    public static final String PROPERTY_LOOKUP_TABLE_CACHE_MAX_ENTRIES = "lookupTableCacheMaxEntries";
+    public static final String PROPERTY_LOOKUP_TABLE_CACHE_MAX_ROWS = "lookupTableCacheMaxRows";
+    public static final String PROPERTY_OID_LOCK_STRIPES = "oidLockStripes";
+    public static final String PROPERTY_OID_LOCK_TIMEOUT = "oidLockTimeout";
+    public static final String PROPERTY_SEQUENCE_BLOCK_SIZE = "sequenceBlockSize";
+
+    //audit
+    public static final String PROPERTY_AUDIT_WRITE_MODE = "auditWriteMode";
+    public static final String PROPERTY_AUDIT_QUEUE_SIZE = "auditQueueSize";
+    public static final String PROPERTY_AUDIT_BATCH_SIZE = "auditBatchSize";
+    public static final String PROPERTY_AUDIT_PARTITIONING = "auditPartitioning";
+    public static final String PROPERTY_AUDIT_RESOLVED_OBJECTS_CACHE_SIZE = "auditResolvedObjectsCacheSize";
+
+    public static final String PROPERTY_PROMOTED_EXTENSION_ITEMS = "promotedExtensionItems";
+    public static final String PROPERTY_PROMOTED_EXTENSION_ITEMS_BACKFILL = "promotedExtensionItemsBackfill";
 
     //closure
     public static final String PROPERTY_IGNORE_ORG_CLOSURE = "ignoreOrgClosure";
     public static final String PROPERTY_ORG_CLOSURE_STARTUP_ACTION = "orgClosureStartupAction";
     public static final String PROPERTY_SKIP_ORG_CLOSURE_STRUCTURE_CHECK = "skipOrgClosureStructureCheck";
     public static final String PROPERTY_STOP_ON_ORG_CLOSURE_STARTUP_FAILURE = "stopOnOrgClosureStartupFailure";
+    public static final String PROPERTY_ORG_HIERARCHY_INDEX = "orgHierarchyIndex";
+    public static final String PROPERTY_ORG_HIERARCHY_INDEX_MAX_AGE = "orgHierarchyIndexMaxAge";
+    public static final String PROPERTY_ORG_CLOSURE_PARALLEL_REBUILD = "orgClosureParallelRebuild";
+    public static final String PROPERTY_ORG_CLOSURE_REBUILD_THREADS = "orgClosureRebuildThreads";
 
     private String database = Database.H2.name();
 
@@ -100,18 +144,53 @@ public class SqlRepositoryConfiguration {
     private int minPoolSize = 8;
     private int maxPoolSize = 20;
     private boolean useZip;
+    private FullObjectFormat fullObjectFormat;
+    private boolean fullObjectReencodeOnStartup;
+    private int fullObjectReencodeBatchSize = 100;
 
     private TransactionIsolation transactionIsolation;
     private boolean lockForUpdateViaHibernate;
     private boolean lockForUpdateViaSql;
     private boolean useReadOnlyTransactions;
     private String performanceStatisticsFile;
-    private int performanceStatisticsLevel;
+    private int performanceStatisticsLevel = SqlPerformanceMonitor.LEVEL_METRICS;
+    private int performanceStatisticsPort;
 
     private boolean iterativeSearchByPaging;
     private int iterativeSearchByPagingBatchSize;
+    private boolean iterativeSearchByPagingKeyset = false;
+
+    private boolean partialUpdates = true;
+    private int getObjectsBatchSize = 100;
+    private int parsingThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private boolean searchParsingPipeline;
+    private int searchParsingPipelineSize = 100;
+    private boolean searchParsingOrdered = true;
+    private long countCacheTimeToLive = 0;
+    private int countCacheMaxEntries = 1000;
+    private int queryPlanCacheMaxEntries = 1000;
+    private long lookupTableCacheTimeToLive = 0;
+    private int lookupTableCacheMaxEntries = 100;
+    private int lookupTableCacheMaxRows = 100000;
+    private int oidLockStripes;
+    private long oidLockTimeout = 10000;
+    private int sequenceBlockSize = 1;
+
+    private AuditWriteMode auditWriteMode = AuditWriteMode.SYNC;
+    private int auditQueueSize = 10000;
+    private int auditBatchSize = 100;
+    private boolean auditPartitioning = false;
+    private int auditResolvedObjectsCacheSize = 10000;
 
     private boolean ignoreOrgClosure;
+    private boolean orgHierarchyIndex = false;
+    private long orgHierarchyIndexMaxAge = 0;
+    private boolean orgClosureParallelRebuild = false;
+
+    // item name (namespace#localPart, or just localPart) -> slot in m_object_ext_promoted
+    private Map<String, String> promotedExtensionItems = Collections.emptyMap();
+    private boolean promotedExtensionItemsBackfill = false;
+    private int orgClosureRebuildThreads = 0;
     private OrgClosureManager.StartupAction orgClosureStartupAction;
     private boolean skipOrgClosureStructureCheck;
     private boolean stopOnOrgClosureStartupFailure;
@@ -138,6 +217,10 @@ public class SqlRepositoryConfiguration {
         setMinPoolSize(configuration.getInt(PROPERTY_MIN_POOL_SIZE, minPoolSize));
         setMaxPoolSize(configuration.getInt(PROPERTY_MAX_POOL_SIZE, maxPoolSize));
         setUseZip(configuration.getBoolean(PROPERTY_USE_ZIP, useZip));
+        String defaultFullObjectFormat = (useZip ? FullObjectFormat.GZIP : FullObjectFormat.PLAIN).getValue();
+        setFullObjectFormat(configuration.getString(PROPERTY_FULL_OBJECT_FORMAT, defaultFullObjectFormat));
+        setFullObjectReencodeOnStartup(configuration.getBoolean(PROPERTY_FULL_OBJECT_REENCODE_ON_STARTUP, fullObjectReencodeOnStartup));
+        setFullObjectReencodeBatchSize(configuration.getInt(PROPERTY_FULL_OBJECT_REENCODE_BATCH_SIZE, fullObjectReencodeBatchSize));
 
         computeDefaultConcurrencyParameters();
 
@@ -147,13 +230,43 @@ public class SqlRepositoryConfiguration {
         setUseReadOnlyTransactions(configuration.getBoolean(PROPERTY_USE_READ_ONLY_TRANSACTIONS, useReadOnlyTransactions));
         setPerformanceStatisticsFile(configuration.getString(PROPERTY_PERFORMANCE_STATISTICS_FILE, performanceStatisticsFile));
         setPerformanceStatisticsLevel(configuration.getInt(PROPERTY_PERFORMANCE_STATISTICS_LEVEL, performanceStatisticsLevel));
+        setPerformanceStatisticsPort(configuration.getInt(PROPERTY_PERFORMANCE_STATISTICS_PORT, performanceStatisticsPort));
 
         computeDefaultIterativeSearchParameters();
 
         setIterativeSearchByPaging(configuration.getBoolean(PROPERTY_ITERATIVE_SEARCH_BY_PAGING, iterativeSearchByPaging));
         setIterativeSearchByPagingBatchSize(configuration.getInt(PROPERTY_ITERATIVE_SEARCH_BY_PAGING_BATCH_SIZE, iterativeSearchByPagingBatchSize));
+        setIterativeSearchByPagingKeyset(configuration.getBoolean(PROPERTY_ITERATIVE_SEARCH_BY_PAGING_KEYSET, iterativeSearchByPagingKeyset));
+        setPartialUpdates(configuration.getBoolean(PROPERTY_PARTIAL_UPDATES, partialUpdates));
+        setGetObjectsBatchSize(configuration.getInt(PROPERTY_GET_OBJECTS_BATCH_SIZE, getObjectsBatchSize));
+        setParsingThreads(configuration.getInt(PROPERTY_PARSING_THREADS, parsingThreads));
+        setSearchParsingPipeline(configuration.getBoolean(PROPERTY_SEARCH_PARSING_PIPELINE, searchParsingPipeline));
+        setSearchParsingPipelineSize(configuration.getInt(PROPERTY_SEARCH_PARSING_PIPELINE_SIZE, searchParsingPipelineSize));
+        setSearchParsingOrdered(configuration.getBoolean(PROPERTY_SEARCH_PARSING_ORDERED, searchParsingOrdered));
+        setCountCacheTimeToLive(configuration.getLong(PROPERTY_COUNT_CACHE_TIME_TO_LIVE, countCacheTimeToLive));
+        setCountCacheMaxEntries(configuration.getInt(PROPERTY_COUNT_CACHE_MAX_ENTRIES, countCacheMaxEntries));
+        setQueryPlanCacheMaxEntries(configuration.getInt(PROPERTY_QUERY_PLAN_CACHE_MAX_ENTRIES, queryPlanCacheMaxEntries));
+        setLookupTableCacheTimeToLive(configuration.getLong(PROPERTY_LOOKUP_TABLE_CACHE_TIME_TO_LIVE, lookupTableCacheTimeToLive));
+        setLookupTableCacheMaxEntries(configuration.getInt(PROPERTY_LOOKUP_TABLE_CACHE_MAX_ENTRIES, lookupTableCacheMaxEntries));
+        setLookupTableCacheMaxRows(configuration.getInt(PROPERTY_LOOKUP_TABLE_CACHE_MAX_ROWS, lookupTableCacheMaxRows));
+        setOidLockStripes(configuration.getInt(PROPERTY_OID_LOCK_STRIPES, oidLockStripes));
+        setOidLockTimeout(configuration.getLong(PROPERTY_OID_LOCK_TIMEOUT, oidLockTimeout));
+        setSequenceBlockSize(configuration.getInt(PROPERTY_SEQUENCE_BLOCK_SIZE, sequenceBlockSize));
+
+        setAuditWriteMode(configuration.getString(PROPERTY_AUDIT_WRITE_MODE, auditWriteMode.value()));
+        setAuditQueueSize(configuration.getInt(PROPERTY_AUDIT_QUEUE_SIZE, auditQueueSize));
+        setAuditBatchSize(configuration.getInt(PROPERTY_AUDIT_BATCH_SIZE, auditBatchSize));
+        setAuditPartitioning(configuration.getBoolean(PROPERTY_AUDIT_PARTITIONING, auditPartitioning));
+        setAuditResolvedObjectsCacheSize(configuration.getInt(PROPERTY_AUDIT_RESOLVED_OBJECTS_CACHE_SIZE,
+                auditResolvedObjectsCacheSize));
 
         setIgnoreOrgClosure(configuration.getBoolean(PROPERTY_IGNORE_ORG_CLOSURE, false));
+        setOrgHierarchyIndex(configuration.getBoolean(PROPERTY_ORG_HIERARCHY_INDEX, orgHierarchyIndex));
+        setOrgHierarchyIndexMaxAge(configuration.getLong(PROPERTY_ORG_HIERARCHY_INDEX_MAX_AGE, orgHierarchyIndexMaxAge));
+        setOrgClosureParallelRebuild(configuration.getBoolean(PROPERTY_ORG_CLOSURE_PARALLEL_REBUILD, orgClosureParallelRebuild));
+        setPromotedExtensionItems(configuration.getString(PROPERTY_PROMOTED_EXTENSION_ITEMS, null));
+        setPromotedExtensionItemsBackfill(configuration.getBoolean(PROPERTY_PROMOTED_EXTENSION_ITEMS_BACKFILL, promotedExtensionItemsBackfill));
+        setOrgClosureRebuildThreads(configuration.getInt(PROPERTY_ORG_CLOSURE_REBUILD_THREADS, orgClosureRebuildThreads));
         setOrgClosureStartupAction(configuration.getString(PROPERTY_ORG_CLOSURE_STARTUP_ACTION, OrgClosureManager.StartupAction.REBUILD_IF_NEEDED.toString()));
         setSkipOrgClosureStructureCheck(configuration.getBoolean(PROPERTY_SKIP_ORG_CLOSURE_STRUCTURE_CHECK, false));
         setStopOnOrgClosureStartupFailure(configuration.getBoolean(PROPERTY_STOP_ON_ORG_CLOSURE_STARTUP_FAILURE, true));
@@ -263,6 +376,10 @@ public class SqlRepositoryConfiguration {
             }
         }
 
+        if (getPerformanceStatisticsPort() < 0 || getPerformanceStatisticsPort() > 65535) {
+            throw new RepositoryServiceFactoryException("Performance statistics port must be in interval (0-65535)");
+        }
+
         if (getMinPoolSize() <= 0) {
             throw new RepositoryServiceFactoryException("Min. pool size must be greater than zero.");
         }
@@ -274,6 +391,69 @@ public class SqlRepositoryConfiguration {
         if (getMinPoolSize() > getMaxPoolSize()) {
             throw new RepositoryServiceFactoryException("Max. pool size must be greater than min. pool size.");
         }
+
+        if (getGetObjectsBatchSize() <= 0) {
+            throw new RepositoryServiceFactoryException("Get objects batch size must be greater than zero.");
+        }
+        if (getSearchParsingPipelineSize() <= 0) {
+            throw new RepositoryServiceFactoryException("Search parsing pipeline size must be greater than zero.");
+        }
+        if (getCountCacheTimeToLive() < 0) {
+            throw new RepositoryServiceFactoryException("Count cache time to live must not be negative.");
+        }
+        if (getCountCacheMaxEntries() < 0) {
+            throw new RepositoryServiceFactoryException("Count cache max entries must not be negative.");
+        }
+        if (getQueryPlanCacheMaxEntries() < 0) {
+            throw new RepositoryServiceFactoryException("Query plan cache max entries must not be negative.");
+        }
+        if (getLookupTableCacheTimeToLive() < 0) {
+            throw new RepositoryServiceFactoryException("Lookup table cache time to live must not be negative.");
+        }
+        if (getLookupTableCacheMaxEntries() < 0) {
+            throw new RepositoryServiceFactoryException("Lookup table cache max entries must not be negative.");
+        }
+        if (getLookupTableCacheMaxRows() < 0) {
+            throw new RepositoryServiceFactoryException("Lookup table cache max rows must not be negative.");
+        }
+        if (getOidLockStripes() < 0) {
+            throw new RepositoryServiceFactoryException("Number of OID lock stripes must not be negative.");
+        }
+        if (getOidLockTimeout() < 0) {
+            throw new RepositoryServiceFactoryException("OID lock timeout must not be negative.");
+        }
+        if (getSequenceBlockSize() <= 0) {
+            throw new RepositoryServiceFactoryException("Sequence block size must be greater than zero.");
+        }
+        if (getAuditQueueSize() <= 0) {
+            throw new RepositoryServiceFactoryException("Audit queue size must be positive.");
+        }
+        if (getAuditBatchSize() <= 0) {
+            throw new RepositoryServiceFactoryException("Audit batch size must be positive.");
+        }
+        if (getAuditResolvedObjectsCacheSize() < 0) {
+            throw new RepositoryServiceFactoryException("Audit resolved objects cache size must not be negative.");
+        }
+        Set<String> usedSlots = new HashSet<>();
+        for (Map.Entry<String, String> entry : getPromotedExtensionItems().entrySet()) {
+            if (ROExtPromoted.getSlotType(entry.getValue()) == null) {
+                throw new RepositoryServiceFactoryException("Unknown column '" + entry.getValue() + "' for promoted extension item "
+                        + entry.getKey() + "; use one of " + ROExtPromoted.STRING_SLOTS + ", " + ROExtPromoted.LONG_SLOTS
+                        + ", " + ROExtPromoted.DATE_SLOTS);
+            }
+            if (!usedSlots.add(entry.getValue())) {
+                throw new RepositoryServiceFactoryException("Column '" + entry.getValue() + "' is used for more than one promoted extension item.");
+            }
+        }
+        if (getOrgClosureRebuildThreads() < 0) {
+            throw new RepositoryServiceFactoryException("Number of org closure rebuild threads must not be negative.");
+        }
+        if (getOrgHierarchyIndexMaxAge() < 0) {
+            throw new RepositoryServiceFactoryException("Org hierarchy index max age must not be negative.");
+        }
+        if (isAuditPartitioning() && !isUsingPostgreSQL() && !isUsingOracle()) {
+            throw new RepositoryServiceFactoryException("Audit partitioning is supported only on PostgreSQL and Oracle.");
+        }
     }
 
     private void notNull(String value, String message) throws RepositoryServiceFactoryException {
@@ -472,6 +652,10 @@ public class SqlRepositoryConfiguration {
         this.performanceStatisticsFile = performanceStatisticsFile;
     }
 
+    /**
+     * Level of SQL performance monitor: 0 = none, 1 = statistics collected (default), 10 = statistics are also
+     * dumped on shutdown. See {@link SqlPerformanceMonitor}.
+     */
     public int getPerformanceStatisticsLevel() {
         return performanceStatisticsLevel;
     }
@@ -480,6 +664,18 @@ public class SqlRepositoryConfiguration {
         this.performanceStatisticsLevel = performanceStatisticsLevel;
     }
 
+    /**
+     * Port of HTTP endpoint providing performance statistics in Prometheus text format (/metrics).
+     * Zero (default) means that the endpoint is not started.
+     */
+    public int getPerformanceStatisticsPort() {
+        return performanceStatisticsPort;
+    }
+
+    public void setPerformanceStatisticsPort(int performanceStatisticsPort) {
+        this.performanceStatisticsPort = performanceStatisticsPort;
+    }
+
     public boolean isIterativeSearchByPaging() {
         return iterativeSearchByPaging;
     }
@@ -496,6 +692,265 @@ public class SqlRepositoryConfiguration {
         this.iterativeSearchByPagingBatchSize = iterativeSearchByPagingBatchSize;
     }
 
+    /**
+     * Whether iterative search by paging uses keyset (seek) paging instead of offsets. Offset-based paging
+     * needs to count the objects first, and the cost of fetching a page grows with its offset.
+     * Off by default; keyset paging returns objects in a slightly different order (by OID within equal values
+     * of the ordering items, with nulls last), which some callers might depend on.
+     */
+    public boolean isIterativeSearchByPagingKeyset() {
+        return iterativeSearchByPagingKeyset;
+    }
+
+    public void setIterativeSearchByPagingKeyset(boolean iterativeSearchByPagingKeyset) {
+        this.iterativeSearchByPagingKeyset = iterativeSearchByPagingKeyset;
+    }
+
+    public boolean isPartialUpdates() {
+        return partialUpdates;
+    }
+
+    public void setPartialUpdates(boolean partialUpdates) {
+        this.partialUpdates = partialUpdates;
+    }
+
+    /**
+     * Maximal number of OIDs in one "oid in (...)" query used to fetch multiple objects.
+     */
+    public int getGetObjectsBatchSize() {
+        return getObjectsBatchSize;
+    }
+
+    public void setGetObjectsBatchSize(int getObjectsBatchSize) {
+        this.getObjectsBatchSize = getObjectsBatchSize;
+    }
+
+    /**
+     * Number of threads used to parse fetched objects in parallel. Value of 1 (or less) means parsing
+     * in the calling thread.
+     */
+    public int getParsingThreads() {
+        return parsingThreads;
+    }
+
+    public void setParsingThreads(int parsingThreads) {
+        this.parsingThreads = parsingThreads;
+    }
+
+    /**
+     * Whether objects found by searchObjects and searchObjectsIterative are parsed in parallel (using parsingThreads).
+     * For iterative search this means a pipeline: the calling thread reads rows and hands them over to parsing threads,
+     * and delivers parsed objects to the result handler. Ignored if parsingThreads is 1 or less.
+     */
+    public boolean isSearchParsingPipeline() {
+        return searchParsingPipeline;
+    }
+
+    public void setSearchParsingPipeline(boolean searchParsingPipeline) {
+        this.searchParsingPipeline = searchParsingPipeline;
+    }
+
+    /**
+     * Maximal number of rows read ahead (being parsed or waiting for the handler) in iterative search pipeline.
+     * When reached, reading of rows stops until the handler catches up.
+     */
+    public int getSearchParsingPipelineSize() {
+        return searchParsingPipelineSize;
+    }
+
+    public void setSearchParsingPipelineSize(int searchParsingPipelineSize) {
+        this.searchParsingPipelineSize = searchParsingPipelineSize;
+    }
+
+    /**
+     * Whether iterative search pipeline delivers objects in the order of rows. If false, objects are delivered
+     * as soon as they are parsed - but only for queries without explicit ordering.
+     */
+    public boolean isSearchParsingOrdered() {
+        return searchParsingOrdered;
+    }
+
+    public void setSearchParsingOrdered(boolean searchParsingOrdered) {
+        this.searchParsingOrdered = searchParsingOrdered;
+    }
+
+    /**
+     * How long (in milliseconds) are results of countObjects kept in the count cache. Cached counts are invalidated
+     * by writes of objects of related types done on this node, so this is the maximal time for which changes made
+     * by other nodes in the cluster may not be reflected. Any write of an org clears the whole cache.
+     * Zero (the default) disables the cache; it is meant for deployments that can tolerate counts that are
+     * stale by up to this time, e.g. for paging in GUI lists.
+     */
+    public long getCountCacheTimeToLive() {
+        return countCacheTimeToLive;
+    }
+
+    public void setCountCacheTimeToLive(long countCacheTimeToLive) {
+        this.countCacheTimeToLive = countCacheTimeToLive;
+    }
+
+    /**
+     * Maximal number of entries in the count cache. Least recently used ones are removed first.
+     * Zero disables the cache.
+     */
+    public int getCountCacheMaxEntries() {
+        return countCacheMaxEntries;
+    }
+
+    public void setCountCacheMaxEntries(int countCacheMaxEntries) {
+        this.countCacheMaxEntries = countCacheMaxEntries;
+    }
+
+    /**
+     * Maximal number of query shapes whose HQL translation is kept in the query plan cache. Least recently used
+     * ones are removed first. Zero disables the cache.
+     */
+    public int getQueryPlanCacheMaxEntries() {
+        return queryPlanCacheMaxEntries;
+    }
+
+    public void setQueryPlanCacheMaxEntries(int queryPlanCacheMaxEntries) {
+        this.queryPlanCacheMaxEntries = queryPlanCacheMaxEntries;
+    }
+
+    /**
+     * How long (in milliseconds) are rows of lookup tables kept in the lookup table cache. Cached tables are invalidated
+     * by writes done on this node, so this is the maximal time for which changes made by other nodes in the cluster
+     * may not be reflected. Zero (the default) disables the cache. Rows are matched case sensitively when served
+     * from the cache, so the cache should be enabled only if the database uses case sensitive collation.
+     */
+    public long getLookupTableCacheTimeToLive() {
+        return lookupTableCacheTimeToLive;
+    }
+
+    public void setLookupTableCacheTimeToLive(long lookupTableCacheTimeToLive) {
+        this.lookupTableCacheTimeToLive = lookupTableCacheTimeToLive;
+    }
+
+    /**
+     * Maximal number of lookup tables in the lookup table cache. Least recently used ones are removed first.
+     * Zero disables the cache.
+     */
+    public int getLookupTableCacheMaxEntries() {
+        return lookupTableCacheMaxEntries;
+    }
+
+    public void setLookupTableCacheMaxEntries(int lookupTableCacheMaxEntries) {
+        this.lookupTableCacheMaxEntries = lookupTableCacheMaxEntries;
+    }
+
+    /**
+     * Lookup tables with more rows than this are not cached; their rows are always fetched from the database.
+     */
+    public int getLookupTableCacheMaxRows() {
+        return lookupTableCacheMaxRows;
+    }
+
+    public void setLookupTableCacheMaxRows(int lookupTableCacheMaxRows) {
+        this.lookupTableCacheMaxRows = lookupTableCacheMaxRows;
+    }
+
+    /**
+     * Number of in-memory locks used to serialize writes of objects with the same OID executed on this node
+     * (before they collide in the database). OIDs are mapped to locks by their hash, so the value is a trade-off
+     * between memory and false sharing; it is rounded up to a power of two. Zero (default) disables the locking.
+     */
+    public int getOidLockStripes() {
+        return oidLockStripes;
+    }
+
+    public void setOidLockStripes(int oidLockStripes) {
+        this.oidLockStripes = oidLockStripes;
+    }
+
+    /**
+     * Maximal time (in milliseconds) to wait for an OID lock. After that the operation continues without the lock.
+     */
+    public long getOidLockTimeout() {
+        return oidLockTimeout;
+    }
+
+    public void setOidLockTimeout(long oidLockTimeout) {
+        this.oidLockTimeout = oidLockTimeout;
+    }
+
+    /**
+     * Number of sequence values reserved by this node at once. The values are then handed out from memory,
+     * without touching the sequence object. Values not handed out are returned to the sequence (as unused values)
+     * on clean shutdown; if the node crashes, or if maxUnusedValues of the sequence is too small, they are lost,
+     * creating a gap. The order of values across nodes is not preserved. Default value of 1 means no reservation.
+     */
+    public int getSequenceBlockSize() {
+        return sequenceBlockSize;
+    }
+
+    public void setSequenceBlockSize(int sequenceBlockSize) {
+        this.sequenceBlockSize = sequenceBlockSize;
+    }
+
+    /**
+     * Whether audit records are written synchronously (default) or queued and written in batches. See {@link AuditWriteMode}.
+     */
+    public AuditWriteMode getAuditWriteMode() {
+        return auditWriteMode;
+    }
+
+    public void setAuditWriteMode(AuditWriteMode auditWriteMode) {
+        this.auditWriteMode = auditWriteMode;
+    }
+
+    public void setAuditWriteMode(String auditWriteMode) {
+        this.auditWriteMode = AuditWriteMode.fromValue(auditWriteMode);
+    }
+
+    /**
+     * Capacity of the queue of audit records waiting to be written (in async mode). If the queue is full,
+     * records are written synchronously.
+     */
+    public int getAuditQueueSize() {
+        return auditQueueSize;
+    }
+
+    public void setAuditQueueSize(int auditQueueSize) {
+        this.auditQueueSize = auditQueueSize;
+    }
+
+    /**
+     * Maximal number of audit records written in one transaction (in async mode).
+     */
+    public int getAuditBatchSize() {
+        return auditBatchSize;
+    }
+
+    public void setAuditBatchSize(int auditBatchSize) {
+        this.auditBatchSize = auditBatchSize;
+    }
+
+    /**
+     * Whether audit tables are partitioned by time (PostgreSQL and Oracle only). The partitioned layout has to be
+     * created by the respective script; expired partitions are then dropped during audit cleanup.
+     */
+    public boolean isAuditPartitioning() {
+        return auditPartitioning;
+    }
+
+    public void setAuditPartitioning(boolean auditPartitioning) {
+        this.auditPartitioning = auditPartitioning;
+    }
+
+    /**
+     * How many objects resolved for audit records (initiators, targets, target owners) are kept during one search,
+     * so that they are not loaded again for the following batches of records. Objects needed by the current batch
+     * are kept regardless of this limit.
+     */
+    public int getAuditResolvedObjectsCacheSize() {
+        return auditResolvedObjectsCacheSize;
+    }
+
+    public void setAuditResolvedObjectsCacheSize(int auditResolvedObjectsCacheSize) {
+        this.auditResolvedObjectsCacheSize = auditResolvedObjectsCacheSize;
+    }
+
     public String getDataSource() {
         return dataSource;
     }
@@ -528,6 +983,34 @@ public class SqlRepositoryConfiguration {
         this.useZip = useZip;
     }
 
+    /**
+     * Format used when writing fullObject column. Reading does not depend on this setting,
+     * as the format is recognized from the data.
+     */
+    public FullObjectFormat getFullObjectFormat() {
+        return fullObjectFormat;
+    }
+
+    public void setFullObjectFormat(String fullObjectFormat) {
+        this.fullObjectFormat = FullObjectFormat.fromValue(fullObjectFormat);
+    }
+
+    public boolean isFullObjectReencodeOnStartup() {
+        return fullObjectReencodeOnStartup;
+    }
+
+    public void setFullObjectReencodeOnStartup(boolean fullObjectReencodeOnStartup) {
+        this.fullObjectReencodeOnStartup = fullObjectReencodeOnStartup;
+    }
+
+    public int getFullObjectReencodeBatchSize() {
+        return fullObjectReencodeBatchSize;
+    }
+
+    public void setFullObjectReencodeBatchSize(int fullObjectReencodeBatchSize) {
+        this.fullObjectReencodeBatchSize = fullObjectReencodeBatchSize;
+    }
+
     public boolean isIgnoreOrgClosure() {
         return ignoreOrgClosure;
     }
@@ -536,6 +1019,106 @@ public class SqlRepositoryConfiguration {
         this.ignoreOrgClosure = value;
     }
 
+    /**
+     * Whether org hierarchy questions (isAnySubordinate, org filters) are answered using node-local in-memory index
+     * instead of querying the closure table. See {@link com.evolveum.midpoint.repo.sql.helpers.OrgHierarchyIndex}.
+     */
+    public boolean isOrgHierarchyIndex() {
+        return orgHierarchyIndex;
+    }
+
+    public void setOrgHierarchyIndex(boolean orgHierarchyIndex) {
+        this.orgHierarchyIndex = orgHierarchyIndex;
+    }
+
+    /**
+     * Time (in milliseconds) after which the org hierarchy index is re-loaded from the database; 0 means never.
+     * Should be set in clustered deployments, as changes made by other nodes are not propagated to the index.
+     */
+    public long getOrgHierarchyIndexMaxAge() {
+        return orgHierarchyIndexMaxAge;
+    }
+
+    public void setOrgHierarchyIndexMaxAge(long orgHierarchyIndexMaxAge) {
+        this.orgHierarchyIndexMaxAge = orgHierarchyIndexMaxAge;
+    }
+
+    /**
+     * Whether the org closure table is checked and rebuilt by computing the closure in memory (in parallel)
+     * and bulk-loading it into a shadow table that then replaces the content of the closure table.
+     * Otherwise the closure is recomputed org-by-org in a single long transaction.
+     */
+    public boolean isOrgClosureParallelRebuild() {
+        return orgClosureParallelRebuild;
+    }
+
+    public void setOrgClosureParallelRebuild(boolean orgClosureParallelRebuild) {
+        this.orgClosureParallelRebuild = orgClosureParallelRebuild;
+    }
+
+    /**
+     * Number of threads used to compute the closure in parallel rebuild; 0 means the number of available processors.
+     */
+    public int getOrgClosureRebuildThreads() {
+        return orgClosureRebuildThreads;
+    }
+
+    public void setOrgClosureRebuildThreads(int orgClosureRebuildThreads) {
+        this.orgClosureRebuildThreads = orgClosureRebuildThreads;
+    }
+
+    /**
+     * Object extension items promoted to dedicated indexed columns, as a map from item name
+     * (either "namespace#localPart" or just "localPart") to column (slot) name. Configured as a comma-separated
+     * list of name=slot pairs, e.g. "http://example.com/p#employeeNumber=string1, hireDate=date1".
+     * Available slots are string1-4, long1-2 and date1-2; promoted items must be single-valued.
+     */
+    public Map<String, String> getPromotedExtensionItems() {
+        return promotedExtensionItems;
+    }
+
+    public void setPromotedExtensionItems(String value) {
+        Map<String, String> items = new LinkedHashMap<>();
+        if (StringUtils.isNotBlank(value)) {
+            for (String pair : value.split(",")) {
+                if (StringUtils.isBlank(pair)) {
+                    continue;
+                }
+                int i = pair.lastIndexOf('=');
+                if (i < 0) {
+                    throw new IllegalArgumentException("Invalid promoted extension item specification '" + pair
+                            + "', expected name=slot");
+                }
+                items.put(pair.substring(0, i).trim(), pair.substring(i + 1).trim());
+            }
+        }
+        this.promotedExtensionItems = Collections.unmodifiableMap(items);
+    }
+
+    /**
+     * Returns the slot the object extension item is promoted to, or null if it is not promoted.
+     */
+    public String getPromotedExtensionSlot(QName itemName) {
+        if (promotedExtensionItems.isEmpty() || itemName == null) {
+            return null;
+        }
+        String slot = promotedExtensionItems.get(RUtil.qnameToString(itemName));
+        return slot != null ? slot : promotedExtensionItems.get(itemName.getLocalPart());
+    }
+
+    /**
+     * Whether promoted extension columns are filled from the generic extension tables at startup
+     * (in the background, in batches). Needed after an item was promoted, as existing objects do not have
+     * values in the new column.
+     */
+    public boolean isPromotedExtensionItemsBackfill() {
+        return promotedExtensionItemsBackfill;
+    }
+
+    public void setPromotedExtensionItemsBackfill(boolean promotedExtensionItemsBackfill) {
+        this.promotedExtensionItemsBackfill = promotedExtensionItemsBackfill;
+    }
+
     public OrgClosureManager.StartupAction getOrgClosureStartupAction() {
         return orgClosureStartupAction;
     }
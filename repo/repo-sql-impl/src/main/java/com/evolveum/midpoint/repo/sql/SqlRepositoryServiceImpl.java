@@ -40,6 +40,7 @@ import com.evolveum.midpoint.schema.*;
 import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.schema.result.OperationResultStatus;
 import com.evolveum.midpoint.schema.util.ObjectQueryUtil;
+import com.evolveum.midpoint.util.Holder;
 import com.evolveum.midpoint.util.exception.ObjectAlreadyExistsException;
 import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
 import com.evolveum.midpoint.util.exception.SchemaException;
@@ -47,6 +48,7 @@ import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.SequenceType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
@@ -68,8 +70,10 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.locks.Lock;
 
 /**
  * @author lazyman
@@ -109,6 +113,18 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
     @Autowired
     private BaseHelper baseHelper;
 
+    @Autowired
+    private CountCache countCache;
+
+    @Autowired
+    private LookupTableCache lookupTableCache;
+
+    @Autowired
+    private OidLockManager oidLockManager;
+
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
     public SqlRepositoryServiceImpl(SqlRepositoryFactory repositoryFactory) {
         super(repositoryFactory);
     }
@@ -138,7 +154,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         subResult.addParam("oid", oid);
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart("getObject");
+        long opHandle = pm.registerOperationStart("getObject", type);
 
         try {
             while (true) {
@@ -154,6 +170,51 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         }
     }
 
+    @Override
+    public <T extends ObjectType> List<PrismObject<T>> getObjects(Class<T> type, Collection<String> oids,
+                                                                  Collection<SelectorOptions<GetOperationOptions>> options,
+                                                                  OperationResult result)
+            throws SchemaException {
+        Validate.notNull(type, "Object type must not be null.");
+        Validate.notNull(oids, "Oids must not be null.");
+        Validate.notNull(result, "Operation result must not be null.");
+
+        List<String> distinctOids = new ArrayList<>(new LinkedHashSet<>(oids));
+        for (String oid : distinctOids) {
+            Validate.notEmpty(oid, "Oid must not be null or empty.");
+        }
+
+        LOGGER.debug("Getting {} object(s) of type '{}'.", distinctOids.size(), type.getSimpleName());
+
+        OperationResult subResult = result.createMinorSubresult(GET_OBJECTS);
+        subResult.addParam("type", type.getName());
+        subResult.addParam("oids", distinctOids.size());
+
+        if (distinctOids.isEmpty()) {
+            subResult.recordSuccess();
+            return new ArrayList<>();
+        }
+
+        final String operation = "getting";
+        int attempt = 1;
+
+        SqlPerformanceMonitor pm = getPerformanceMonitor();
+        long opHandle = pm.registerOperationStart("getObjects", type);
+
+        try {
+            while (true) {
+                try {
+                    return objectRetriever.getObjectsAttempt(type, distinctOids, options, subResult);
+                } catch (RuntimeException ex) {
+                    attempt = baseHelper.logOperationAttempt(null, operation, attempt, ex, subResult);
+                    pm.registerOperationNewTrial(opHandle, attempt);
+                }
+            }
+        } finally {
+            pm.registerOperationFinish(opHandle, attempt);
+        }
+    }
+
     @Override
     public <F extends FocusType> PrismObject<F> searchShadowOwner(String shadowOid, Collection<SelectorOptions<GetOperationOptions>> options, OperationResult result) {
         Validate.notEmpty(shadowOid, "Oid must not be null or empty.");
@@ -226,7 +287,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
 		}
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart("searchObjects");
+        long opHandle = pm.registerOperationStart("searchObjects", type);
 
         final String operation = "searching";
         int attempt = 1;
@@ -276,7 +337,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
 		}
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart("searchContainers");
+        long opHandle = pm.registerOperationStart("searchContainers", type);
 
         final String operation = "searching";
         int attempt = 1;
@@ -355,13 +416,28 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         final String operation = "adding";
         int attempt = 1;
 
+        SqlPerformanceMonitor pm = getPerformanceMonitor();
+        long opHandle = pm.registerOperationStart("addObject", object.getCompileTimeClass());
+
         String oid = object.getOid();
-        while (true) {
-            try {
-                return objectUpdater.addObjectAttempt(object, options, subResult);
-            } catch (RuntimeException ex) {
-                attempt = baseHelper.logOperationAttempt(oid, operation, attempt, ex, subResult);
+        Lock oidLock = oidLockManager.lock(oid);
+        try {
+            while (true) {
+                try {
+                    return objectUpdater.addObjectAttempt(object, options, subResult);
+                } catch (RuntimeException ex) {
+                    attempt = baseHelper.logOperationAttempt(oid, operation, attempt, ex, subResult);
+                    pm.registerOperationNewTrial(opHandle, attempt);
+                }
+            }
+        } finally {
+            if (oid != null && options.isOverwrite()) {
+                discardReservedSequenceValues(object.getCompileTimeClass(), oid);
             }
+            oidLockManager.unlock(oidLock);
+            pm.registerOperationFinish(opHandle, attempt);
+            countCache.invalidate(object.getCompileTimeClass());
+            lookupTableCache.invalidate(object.getCompileTimeClass(), object.getOid());
         }
     }
 
@@ -389,8 +465,9 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         subResult.addParam("oid", oid);
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart("deleteObject");
+        long opHandle = pm.registerOperationStart("deleteObject", type);
 
+        Lock oidLock = oidLockManager.lock(oid);
         try {
             while (true) {
                 try {
@@ -402,12 +479,30 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
                 }
             }
         } finally {
+            discardReservedSequenceValues(type, oid);
+            oidLockManager.unlock(oidLock);
+            countCache.invalidate(type);
+            lookupTableCache.invalidate(type, oid);
             pm.registerOperationFinish(opHandle, attempt);
         }
     }
 
+    // values reserved by this node are based on the old state of the sequence
+    private void discardReservedSequenceValues(Class<? extends ObjectType> type, String oid) {
+        if (SequenceType.class.isAssignableFrom(type)) {
+            sequenceHelper.discardReservedValues(oid);
+        }
+    }
+
     @Override
     public <T extends ObjectType> int countObjects(Class<T> type, ObjectQuery query, OperationResult result) {
+        return countObjects(type, query, null, result);
+    }
+
+    @Override
+    public <T extends ObjectType> int countObjects(Class<T> type, ObjectQuery query,
+                                                  Collection<SelectorOptions<GetOperationOptions>> options,
+                                                  OperationResult result) {
         Validate.notNull(type, "Object type must not be null.");
         Validate.notNull(result, "Operation result must not be null.");
 
@@ -419,10 +514,11 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         OperationResult subResult = result.createMinorSubresult(COUNT_OBJECTS);
         subResult.addParam("type", type.getName());
         subResult.addParam("query", query);
+        subResult.addCollectionOfSerializablesAsParam("options", options);
 
+        ObjectFilter filter = null;
         if (query != null) {
-            ObjectFilter filter = query.getFilter();
-            filter = ObjectQueryUtil.simplify(filter);
+            filter = ObjectQueryUtil.simplify(query.getFilter());
             if (filter instanceof NoneFilter) {
                 subResult.recordSuccess();
                 return 0;
@@ -431,15 +527,41 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
             query.setFilter(filter);
         }
 
+        boolean useCache = countCache.isEnabled();
+        long cacheGeneration = 0;
+        if (useCache) {
+            Integer cached = countCache.get(type, filter);
+            if (cached != null) {
+                LOGGER.trace("Count of {} objects found in the count cache: {}", type.getSimpleName(), cached);
+                subResult.recordSuccess();
+                return cached;
+            }
+            cacheGeneration = countCache.getGeneration();
+        }
+
+        boolean allowEstimate = GetOperationOptions.isAllowEstimatedCount(SelectorOptions.findRootOptions(options));
         final String operation = "counting";
         int attempt = 1;
 
-        while (true) {
-            try {
-                return objectRetriever.countObjectsAttempt(type, query, subResult);
-            } catch (RuntimeException ex) {
-                attempt = baseHelper.logOperationAttempt(null, operation, attempt, ex, subResult);
+        SqlPerformanceMonitor pm = getPerformanceMonitor();
+        long opHandle = pm.registerOperationStart("countObjects", type);
+
+        try {
+            while (true) {
+                try {
+                    Holder<Boolean> estimatedHolder = new Holder<>(false);
+                    int count = objectRetriever.countObjectsAttempt(type, query, allowEstimate, estimatedHolder, subResult);
+                    if (useCache && !estimatedHolder.getValue()) {
+                        countCache.put(type, filter, count, cacheGeneration);
+                    }
+                    return count;
+                } catch (RuntimeException ex) {
+                    attempt = baseHelper.logOperationAttempt(null, operation, attempt, ex, subResult);
+                    pm.registerOperationNewTrial(opHandle, attempt);
+                }
             }
+        } finally {
+            pm.registerOperationFinish(opHandle, attempt);
         }
     }
     public <T extends ObjectType> void modifyObject(Class<T> type, String oid,
@@ -501,8 +623,9 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         int attempt = 1;
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart("modifyObject");
+        long opHandle = pm.registerOperationStart("modifyObject", type);
 
+        Lock oidLock = oidLockManager.lock(oid);
         try {
             while (true) {
                 try {
@@ -514,6 +637,10 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
                 }
             }
         } finally {
+            discardReservedSequenceValues(type, oid);
+            oidLockManager.unlock(oidLock);
+            countCache.invalidate(type);
+            lookupTableCache.invalidate(type, oid);
             pm.registerOperationFinish(opHandle, attempt);
         }
 
@@ -538,7 +665,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         int attempt = 1;
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart("listResourceObjectShadow");
+        long opHandle = pm.registerOperationStart("listResourceObjectShadow", resourceObjectShadowType);
 
         try {
             while (true) {
@@ -700,7 +827,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         subResult.addParam("oid", oid);
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart(GET_VERSION);
+        long opHandle = pm.registerOperationStart(GET_VERSION, type);
 
         final String operation = "getting version";
         int attempt = 1;
@@ -748,6 +875,8 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         if (getConfiguration().isIterativeSearchByPaging()) {
             if (strictlySequential) {
                 objectRetriever.searchObjectsIterativeByPagingStrictlySequential(type, query, handler, options, subResult);
+            } else if (getConfiguration().isIterativeSearchByPagingKeyset()) {
+                objectRetriever.searchObjectsIterativeByKeysetPaging(type, query, handler, options, subResult);
             } else {
                 objectRetriever.searchObjectsIterativeByPaging(type, query, handler, options, subResult);
             }
@@ -793,6 +922,9 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         SqlPerformanceMonitor pm = getPerformanceMonitor();
         long opHandle = pm.registerOperationStart("matchObject");
         try {
+            if (orgHierarchyIndex.isEnabled()) {
+                return orgHierarchyIndex.isAnySubordinate(upperOrgOid, lowerObjectOids);
+            }
             while (true) {
                 try {
                     return objectRetriever.isAnySubordinateAttempt(upperOrgOid, lowerObjectOids);
@@ -820,20 +952,34 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         if (LOGGER.isTraceEnabled())
             LOGGER.trace("Advancing sequence {}", oid);
 
+        Long reservedValue = sequenceHelper.takeReservedValue(oid);
+        if (reservedValue != null) {
+            LOGGER.trace("Returning value {} reserved by this node", reservedValue);
+            result.recordSuccess();
+            return reservedValue;
+        }
+
+        int blockSize = getConfiguration().getSequenceBlockSize();
         int attempt = 1;
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart("advanceSequence");
+        long opHandle = pm.registerOperationStart("advanceSequence", SequenceType.class);
+        Lock oidLock = oidLockManager.lock(oid);
         try {
             while (true) {
                 try {
-                    return sequenceHelper.advanceSequenceAttempt(oid, result);
+                    if (blockSize > 1) {
+                        return sequenceHelper.advanceSequenceAttempt(oid, blockSize, result);
+                    } else {
+                        return sequenceHelper.advanceSequenceAttempt(oid, result);
+                    }
                 } catch (RuntimeException ex) {
                     attempt = baseHelper.logOperationAttempt(oid, "advanceSequence", attempt, ex, null);
                     pm.registerOperationNewTrial(opHandle, attempt);
                 }
             }
         } finally {
+            oidLockManager.unlock(oidLock);
             pm.registerOperationFinish(opHandle, attempt);
         }
 	}
@@ -859,7 +1005,8 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
         int attempt = 1;
 
         SqlPerformanceMonitor pm = getPerformanceMonitor();
-        long opHandle = pm.registerOperationStart("returnUnusedValuesToSequence");
+        long opHandle = pm.registerOperationStart("returnUnusedValuesToSequence", SequenceType.class);
+        Lock oidLock = oidLockManager.lock(oid);
         try {
             while (true) {
                 try {
@@ -871,6 +1018,7 @@ public class SqlRepositoryServiceImpl extends SqlBaseService implements Reposito
                 }
             }
         } finally {
+            oidLockManager.unlock(oidLock);
             pm.registerOperationFinish(opHandle, attempt);
         }
 	}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.data.common.any;
+
+import com.evolveum.midpoint.repo.sql.util.RUtil;
+import org.hibernate.annotations.Index;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Values of extension items promoted to dedicated columns (see promotedExtensionItems configuration property).
+ * One row per object; each promoted item occupies one typed column ("slot"), so that a filter on the item
+ * is a simple indexed lookup instead of a join with the generic extension tables.
+ *
+ * Promoted items are still stored in the generic extension tables as well; this table is only an index.
+ * There is no foreign key to m_object: rows are deleted together with their objects, and a stale row could
+ * only match an OID that does not exist any more.
+ */
+@Entity
+@Table(name = ROExtPromoted.TABLE_NAME)
+@org.hibernate.annotations.Table(appliesTo = ROExtPromoted.TABLE_NAME,
+        indexes = {@Index(name = "iExtPromotedString1", columnNames = "string1"),
+                @Index(name = "iExtPromotedString2", columnNames = "string2"),
+                @Index(name = "iExtPromotedString3", columnNames = "string3"),
+                @Index(name = "iExtPromotedString4", columnNames = "string4"),
+                @Index(name = "iExtPromotedLong1", columnNames = "long1"),
+                @Index(name = "iExtPromotedLong2", columnNames = "long2"),
+                @Index(name = "iExtPromotedDate1", columnNames = "date1"),
+                @Index(name = "iExtPromotedDate2", columnNames = "date2")})
+public class ROExtPromoted {
+
+    public static final String TABLE_NAME = "m_object_ext_promoted";
+
+    public static final List<String> STRING_SLOTS = Collections.unmodifiableList(Arrays.asList("string1", "string2", "string3", "string4"));
+    public static final List<String> LONG_SLOTS = Collections.unmodifiableList(Arrays.asList("long1", "long2"));
+    public static final List<String> DATE_SLOTS = Collections.unmodifiableList(Arrays.asList("date1", "date2"));
+
+    private String ownerOid;
+
+    private String string1;
+    private String string2;
+    private String string3;
+    private String string4;
+    private Long long1;
+    private Long long2;
+    private Timestamp date1;
+    private Timestamp date2;
+
+    public ROExtPromoted() {
+    }
+
+    public ROExtPromoted(String ownerOid) {
+        this.ownerOid = ownerOid;
+    }
+
+    /**
+     * Java type of values stored in given slot (String, Long or Timestamp), or null if there's no such slot.
+     */
+    public static Class<?> getSlotType(String slot) {
+        if (STRING_SLOTS.contains(slot)) {
+            return String.class;
+        } else if (LONG_SLOTS.contains(slot)) {
+            return Long.class;
+        } else if (DATE_SLOTS.contains(slot)) {
+            return Timestamp.class;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Name of the generic extension table column that contains values for given slot type.
+     */
+    public static String getExtensionValueColumn(String slot) {
+        Class<?> type = getSlotType(slot);
+        if (String.class.equals(type)) {
+            return "stringValue";
+        } else if (Long.class.equals(type)) {
+            return "longValue";
+        } else if (Timestamp.class.equals(type)) {
+            return "dateValue";
+        } else {
+            throw new IllegalArgumentException("Unknown promoted extension slot: " + slot);
+        }
+    }
+
+    /**
+     * Name of the generic extension table that contains values for given slot type.
+     */
+    public static String getExtensionTable(String slot) {
+        Class<?> type = getSlotType(slot);
+        if (String.class.equals(type)) {
+            return "m_object_ext_string";
+        } else if (Long.class.equals(type)) {
+            return "m_object_ext_long";
+        } else if (Timestamp.class.equals(type)) {
+            return "m_object_ext_date";
+        } else {
+            throw new IllegalArgumentException("Unknown promoted extension slot: " + slot);
+        }
+    }
+
+    public void setSlotValue(String slot, Object value) {
+        switch (slot) {
+            case "string1": string1 = (String) value; break;
+            case "string2": string2 = (String) value; break;
+            case "string3": string3 = (String) value; break;
+            case "string4": string4 = (String) value; break;
+            case "long1": long1 = (Long) value; break;
+            case "long2": long2 = (Long) value; break;
+            case "date1": date1 = (Timestamp) value; break;
+            case "date2": date2 = (Timestamp) value; break;
+            default: throw new IllegalArgumentException("Unknown promoted extension slot: " + slot);
+        }
+    }
+
+    @Id
+    @Column(name = "owner_oid", length = RUtil.COLUMN_LENGTH_OID)
+    public String getOwnerOid() {
+        return ownerOid;
+    }
+
+    public void setOwnerOid(String ownerOid) {
+        this.ownerOid = ownerOid;
+    }
+
+    public String getString1() {
+        return string1;
+    }
+
+    public void setString1(String string1) {
+        this.string1 = string1;
+    }
+
+    public String getString2() {
+        return string2;
+    }
+
+    public void setString2(String string2) {
+        this.string2 = string2;
+    }
+
+    public String getString3() {
+        return string3;
+    }
+
+    public void setString3(String string3) {
+        this.string3 = string3;
+    }
+
+    public String getString4() {
+        return string4;
+    }
+
+    public void setString4(String string4) {
+        this.string4 = string4;
+    }
+
+    public Long getLong1() {
+        return long1;
+    }
+
+    public void setLong1(Long long1) {
+        this.long1 = long1;
+    }
+
+    public Long getLong2() {
+        return long2;
+    }
+
+    public void setLong2(Long long2) {
+        this.long2 = long2;
+    }
+
+    public Timestamp getDate1() {
+        return date1;
+    }
+
+    public void setDate1(Timestamp date1) {
+        this.date1 = date1;
+    }
+
+    public Timestamp getDate2() {
+        return date2;
+    }
+
+    public void setDate2(Timestamp date2) {
+        this.date2 = date2;
+    }
+
+    @Transient
+    public boolean isEmpty() {
+        return string1 == null && string2 == null && string3 == null && string4 == null
+                && long1 == null && long2 == null && date1 == null && date2 == null;
+    }
+}
@@ -412,7 +412,7 @@ public class RAccessCertificationCase implements Container {
 
     // TODO find appropriate name
     public static AccessCertificationCaseType createJaxb(byte[] fullObject, PrismContext prismContext, boolean removeCampaignRef) throws SchemaException {
-        String xml = RUtil.getXmlFromByteArray(fullObject, false);
+        String xml = RUtil.getXmlFromByteArray(fullObject);
         PrismContainer<AccessCertificationCaseType> caseContainer;
         try {
             // TODO tolerant mode
@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.data.audit.RAuditEventRecord;
+import com.evolveum.midpoint.repo.sql.data.audit.RObjectDeltaOperation;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains monthly partitions of audit tables (if auditPartitioning is switched on). The partitioned layout itself
+ * has to be created by the database administrator using config/sql/midpoint/3.5/postgresql/postgresql-audit-partitioning.sql
+ * or config/sql/midpoint/3.5/oracle/oracle-audit-partitioning.sql.
+ *
+ * PostgreSQL: m_audit_event is partitioned by timestampValue into tables named m_audit_event_YYYY_MM (plus
+ * a default partition). Partitions for the current and next months are created here. Expired partitions
+ * are dropped; deltas of their records are deleted by a single set-based delete, as m_audit_delta has no
+ * timestamp to be partitioned by.
+ *
+ * Oracle: m_audit_event uses monthly interval partitioning, so partitions are created by the database itself;
+ * m_audit_delta is partitioned by reference, so dropping an event partition drops corresponding deltas as well.
+ *
+ * Records in the partially expired (oldest remaining) partition are deleted by the usual cleanup procedure.
+ * Queries containing a condition on timestamp are pruned to relevant partitions by the database.
+ */
+@Component
+public class AuditPartitionManager {
+
+    private static final Trace LOGGER = TraceManager.getTrace(AuditPartitionManager.class);
+
+    public static final String PARTITION_NAME_PREFIX = RAuditEventRecord.TABLE_NAME + "_";
+
+    private static final Pattern PARTITION_NAME_PATTERN = Pattern.compile(
+            Pattern.quote(PARTITION_NAME_PREFIX) + "(\\d{4})_(\\d{2})", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * How many partitions after the current one are created in advance (PostgreSQL).
+     */
+    private static final int PARTITIONS_AHEAD = 2;
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    public boolean isEnabled() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        return configuration.isAuditPartitioning()
+                && (configuration.isUsingPostgreSQL() || configuration.isUsingOracle());
+    }
+
+    /**
+     * Creates partitions needed in near future (if the database does not do that itself) and drops partitions
+     * that contain only records older than minValue.
+     *
+     * @return number of partitions dropped
+     */
+    public int maintainPartitions(Date now, Date minValue) {
+        if (!isEnabled()) {
+            return 0;
+        }
+        if (baseHelper.getConfiguration().isUsingPostgreSQL()) {
+            createPostgreSQLPartitions(now);
+            return dropPostgreSQLPartitions(minValue);
+        } else {
+            return dropOraclePartitions(minValue);
+        }
+    }
+
+    private void createPostgreSQLPartitions(Date now) {
+        List<String> existing = listPostgreSQLPartitions();
+        Date periodStart = getPeriodStart(now);
+        for (int i = 0; i <= PARTITIONS_AHEAD; i++) {
+            Date nextPeriodStart = getNextPeriodStart(periodStart);
+            String name = getPartitionName(periodStart);
+            if (!containsIgnoreCase(existing, name)) {
+                LOGGER.info("Creating audit partition {}", name);
+                try {
+                    execute("create table " + name + " partition of " + RAuditEventRecord.TABLE_NAME
+                            + " for values from ('" + formatTimestamp(periodStart) + "') to ('"
+                            + formatTimestamp(nextPeriodStart) + "')");
+                } catch (RuntimeException ex) {
+                    // e.g. if the default partition already contains records for this period; they stay there
+                    // and will be deleted by the usual cleanup procedure
+                    LOGGER.warn("Couldn't create audit partition {}: {}", name, ex.getMessage(), ex);
+                }
+            }
+            periodStart = nextPeriodStart;
+        }
+    }
+
+    private int dropPostgreSQLPartitions(Date minValue) {
+        List<String> expired = getExpiredPartitions(listPostgreSQLPartitions(), minValue);
+        for (String name : expired) {
+            LOGGER.info("Dropping expired audit partition {}", name);
+            execute("delete from " + RObjectDeltaOperation.TABLE_NAME + " where "
+                            + RObjectDeltaOperation.COLUMN_RECORD_ID + " in (select id from " + name + ")",
+                    "drop table " + name);
+        }
+        return expired.size();
+    }
+
+    private List<String> listPostgreSQLPartitions() {
+        return query("select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid"
+                + " join pg_class p on p.oid = i.inhparent where p.relname = '" + RAuditEventRecord.TABLE_NAME + "'");
+    }
+
+    private int dropOraclePartitions(Date minValue) {
+        Date oldest = getOldestTimestamp();
+        if (oldest == null) {
+            return 0;
+        }
+        int dropped = 0;
+        Date periodStart = getPeriodStart(oldest);
+        while (!getNextPeriodStart(periodStart).after(minValue)) {
+            String sql = "alter table " + RAuditEventRecord.TABLE_NAME + " drop partition for (timestamp '"
+                    + formatTimestamp(periodStart) + "') update global indexes";
+            try {
+                LOGGER.info("Dropping expired audit partition for {}", formatTimestamp(periodStart));
+                execute(sql);
+                dropped++;
+            } catch (RuntimeException ex) {
+                // the partition does not exist (there were no records in this period), or it is the last partition
+                // of the range section that cannot be dropped; its records will be deleted by the usual cleanup
+                LOGGER.debug("Couldn't drop audit partition for {}: {}", formatTimestamp(periodStart), ex.getMessage());
+            }
+            periodStart = getNextPeriodStart(periodStart);
+        }
+        return dropped;
+    }
+
+    /**
+     * Executes given statements in one transaction.
+     */
+    private void execute(final String... statements) {
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            session.doWork(new Work() {
+                @Override
+                public void execute(Connection connection) throws SQLException {
+                    try (Statement s = connection.createStatement()) {
+                        for (String statement : statements) {
+                            LOGGER.trace("Executing {}", statement);
+                            s.execute(statement);
+                        }
+                    }
+                }
+            });
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+
+    private List<String> query(final String sql) {
+        final List<String> rv = new ArrayList<>();
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            session.doWork(new Work() {
+                @Override
+                public void execute(Connection connection) throws SQLException {
+                    try (Statement s = connection.createStatement(); ResultSet rs = s.executeQuery(sql)) {
+                        while (rs.next()) {
+                            rv.add(rs.getString(1));
+                        }
+                    }
+                }
+            });
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+        return rv;
+    }
+
+    private Date getOldestTimestamp() {
+        final List<Timestamp> rv = new ArrayList<>();
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            session.doWork(new Work() {
+                @Override
+                public void execute(Connection connection) throws SQLException {
+                    try (Statement s = connection.createStatement();
+                         ResultSet rs = s.executeQuery("select min(" + RAuditEventRecord.COLUMN_TIMESTAMP + ") from "
+                                 + RAuditEventRecord.TABLE_NAME)) {
+                        if (rs.next()) {
+                            rv.add(rs.getTimestamp(1));
+                        }
+                    }
+                }
+            });
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+        return rv.isEmpty() ? null : rv.get(0);
+    }
+
+    /**
+     * Returns partitions (of those named according to our convention) that contain only records older than minValue.
+     */
+    public static List<String> getExpiredPartitions(Collection<String> partitionNames, Date minValue) {
+        List<String> rv = new ArrayList<>();
+        for (String name : partitionNames) {
+            Date periodStart = getPeriodStart(name);
+            if (periodStart != null && !getNextPeriodStart(periodStart).after(minValue)) {
+                rv.add(name);
+            }
+        }
+        return rv;
+    }
+
+    public static String getPartitionName(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        return String.format("%s%04d_%02d", PARTITION_NAME_PREFIX,
+                calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1);
+    }
+
+    /**
+     * Start of the period covered by the partition with given name, or null if the name does not follow
+     * our naming convention (e.g. the default partition).
+     */
+    public static Date getPeriodStart(String partitionName) {
+        Matcher matcher = PARTITION_NAME_PATTERN.matcher(partitionName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)) - 1, 1);
+        return calendar.getTime();
+    }
+
+    public static Date getPeriodStart(Date date) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTime();
+    }
+
+    public static Date getNextPeriodStart(Date periodStart) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(periodStart);
+        calendar.add(Calendar.MONTH, 1);
+        return calendar.getTime();
+    }
+
+    private static String formatTimestamp(Date date) {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(date);
+    }
+
+    private static boolean containsIgnoreCase(Collection<String> names, String name) {
+        for (String n : names) {
+            if (n.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.repo.sql.AuditWriteMode;
+import com.evolveum.midpoint.repo.sql.SqlPerformanceMonitor;
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.data.audit.RAuditEventRecord;
+import com.evolveum.midpoint.repo.sql.data.audit.RObjectDeltaOperation;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Writes audit records in batches (group commit) in a background thread. Used in {@link AuditWriteMode#ASYNC} mode.
+ *
+ * Records are converted to their repository form by the caller, so later changes of the original records do not
+ * matter. The queue is bounded (auditQueueSize); if it is full, the caller writes the record itself. Each batch
+ * (up to auditBatchSize records) is written in one transaction: all event rows first, then all delta rows,
+ * so that the inserts into each table can be batched by JDBC driver (hibernate.jdbc.batch_size). If a batch
+ * cannot be written, its records are written one by one, so that a single bad record does not prevent others
+ * from being stored.
+ *
+ * On shutdown, no more records are accepted and the queue is written out before the writer stops.
+ */
+@Component
+public class AuditWriter {
+
+    private static final Trace LOGGER = TraceManager.getTrace(AuditWriter.class);
+
+    private static final String OPERATION_WRITE_BATCH = "auditBatch";
+    private static final long POLL_INTERVAL = 100L;
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    // queueing is done under read lock, stopping under write lock; so no record can be queued after the writer stops
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private final Object flushMonitor = new Object();
+
+    private volatile BlockingQueue<RAuditEventRecord> queue;
+    private Thread thread;
+    private volatile boolean stopping;
+
+    private final AtomicLong pending = new AtomicLong();        // records queued or being written
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public boolean isAsync() {
+        return !stopping && getConfiguration().getAuditWriteMode() == AuditWriteMode.ASYNC;
+    }
+
+    /**
+     * Queues the record to be written. Returns false if the record cannot be queued (the queue is full
+     * or the writer is stopping); in that case the caller is responsible for writing the record.
+     */
+    public boolean enqueue(RAuditEventRecord record) {
+        stateLock.readLock().lock();
+        try {
+            if (stopping) {
+                return false;
+            }
+            BlockingQueue<RAuditEventRecord> currentQueue = getQueue();
+            pending.incrementAndGet();
+            if (!currentQueue.offer(record)) {
+                recordProcessed(1);
+                rejected.incrementAndGet();
+                LOGGER.debug("Audit queue is full ({} records), the record will be written synchronously", currentQueue.size());
+                return false;
+            }
+            return true;
+        } finally {
+            stateLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until all records queued so far are written (or failed to be written).
+     */
+    public void flush() throws InterruptedException {
+        synchronized (flushMonitor) {
+            while (pending.get() > 0) {
+                flushMonitor.wait(POLL_INTERVAL);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stateLock.writeLock().lock();
+        try {
+            stopping = true;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        Thread currentThread;
+        synchronized (this) {
+            currentThread = thread;
+        }
+        if (currentThread == null) {
+            return;
+        }
+        LOGGER.info("Stopping audit writer, {} record(s) waiting to be written", queue.size());
+        try {
+            currentThread.join();
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for audit writer to finish, {} record(s) were not written", queue.size());
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("Audit writer stopped; records written: {}, failed: {}, written synchronously because of full queue: {}",
+                written.get(), failed.get(), rejected.get());
+    }
+
+    public int getQueueDepth() {
+        BlockingQueue<RAuditEventRecord> currentQueue = queue;
+        return currentQueue != null ? currentQueue.size() : 0;
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private BlockingQueue<RAuditEventRecord> getQueue() {
+        BlockingQueue<RAuditEventRecord> currentQueue = queue;
+        if (currentQueue != null) {
+            return currentQueue;
+        }
+        synchronized (this) {
+            if (queue == null) {
+                queue = new ArrayBlockingQueue<>(getConfiguration().getAuditQueueSize());
+                registerMetrics();
+                thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        writeQueuedRecords();
+                    }
+                }, "AuditWriter");
+                thread.setDaemon(true);
+                thread.start();
+                LOGGER.info("Audit writer started (queue size {}, batch size {})",
+                        getConfiguration().getAuditQueueSize(), getConfiguration().getAuditBatchSize());
+            }
+            return queue;
+        }
+    }
+
+    private void registerMetrics() {
+        SqlPerformanceMonitor pm = baseHelper.getPerformanceMonitor();
+        pm.registerGauge("midpoint_repository_audit_queue_depth", "gauge", "Number of audit records waiting to be written.",
+                new SqlPerformanceMonitor.Gauge() {
+                    @Override
+                    public long getValue() {
+                        return getQueueDepth();
+                    }
+                });
+        pm.registerGauge("midpoint_repository_audit_records_written_total", "counter", "Number of audit records written by the audit writer.",
+                new SqlPerformanceMonitor.Gauge() {
+                    @Override
+                    public long getValue() {
+                        return written.get();
+                    }
+                });
+        pm.registerGauge("midpoint_repository_audit_records_failed_total", "counter", "Number of audit records the audit writer could not write.",
+                new SqlPerformanceMonitor.Gauge() {
+                    @Override
+                    public long getValue() {
+                        return failed.get();
+                    }
+                });
+        pm.registerGauge("midpoint_repository_audit_records_rejected_total", "counter", "Number of audit records written synchronously because the queue was full.",
+                new SqlPerformanceMonitor.Gauge() {
+                    @Override
+                    public long getValue() {
+                        return rejected.get();
+                    }
+                });
+    }
+
+    private void writeQueuedRecords() {
+        List<RAuditEventRecord> batch = new ArrayList<>();
+        while (true) {
+            RAuditEventRecord first;
+            try {
+                first = queue.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                LOGGER.debug("Audit writer was interrupted, continuing");
+                continue;
+            }
+            if (first == null) {
+                if (stopping) {
+                    // no records can be queued after stopping flag is set, so the queue is definitely empty
+                    break;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, Math.max(getConfiguration().getAuditBatchSize(), 1) - 1);
+            try {
+                writeBatch(batch);
+            } catch (Throwable t) {
+                // we must not end the thread, as nobody would write the records any more
+                LoggingUtils.logUnexpectedException(LOGGER, "Unexpected exception while writing audit records", t);
+            } finally {
+                recordProcessed(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void recordProcessed(int count) {
+        if (pending.addAndGet(-count) == 0) {
+            synchronized (flushMonitor) {
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void writeBatch(List<RAuditEventRecord> batch) {
+        SqlPerformanceMonitor pm = baseHelper.getPerformanceMonitor();
+        long opHandle = pm.registerOperationStart(OPERATION_WRITE_BATCH);
+        int attempt = 1;
+        try {
+            while (true) {
+                try {
+                    writeBatchAttempt(batch);
+                    written.addAndGet(batch.size());
+                    LOGGER.trace("Written {} audit record(s)", batch.size());
+                    return;
+                } catch (RuntimeException ex) {
+                    attempt = baseHelper.logOperationAttempt(null, "auditing", attempt, ex, null);
+                    pm.registerOperationNewTrial(opHandle, attempt);
+                }
+            }
+        } catch (RuntimeException ex) {
+            if (batch.size() == 1) {
+                failed.incrementAndGet();
+                LoggingUtils.logUnexpectedException(LOGGER, "Couldn't write audit record {}", ex, batch.get(0));
+                return;
+            }
+            LoggingUtils.logUnexpectedException(LOGGER, "Couldn't write batch of {} audit records, writing them one by one",
+                    ex, batch.size());
+            for (RAuditEventRecord record : batch) {
+                try {
+                    writeBatchAttempt(Collections.singletonList(record));
+                    written.incrementAndGet();
+                } catch (RuntimeException ex1) {
+                    failed.incrementAndGet();
+                    LoggingUtils.logUnexpectedException(LOGGER, "Couldn't write audit record {}", ex1, record);
+                }
+            }
+        } finally {
+            pm.registerOperationFinish(opHandle, attempt);
+        }
+    }
+
+    private void writeBatchAttempt(List<RAuditEventRecord> batch) {
+        List<Set<RObjectDeltaOperation>> deltas = new ArrayList<>(batch.size());
+        for (RAuditEventRecord record : batch) {
+            deltas.add(record.getDeltas());
+            // the original set is kept aside, so it is not attached to the session (and can be used in next attempt)
+            record.setDeltas(new HashSet<RObjectDeltaOperation>());
+        }
+
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            for (RAuditEventRecord record : batch) {
+                session.save(record);
+            }
+            session.flush();
+            for (int i = 0; i < batch.size(); i++) {
+                for (RObjectDeltaOperation delta : deltas.get(i)) {
+                    delta.setRecord(batch.get(i));
+                    delta.setRecordId(null);            // the record gets new ID in each attempt
+                    session.save(delta);
+                }
+            }
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setDeltas(deltas.get(i));
+            }
+        }
+    }
+
+    private SqlRepositoryConfiguration getConfiguration() {
+        return baseHelper.getConfiguration();
+    }
+}
@@ -188,6 +188,10 @@ public class BaseHelper {
 		throw new SystemException(ex.getMessage(), ex);
 	}
 
+	public SqlPerformanceMonitor getPerformanceMonitor() {
+		return repositoryFactory.getPerformanceMonitor();
+	}
+
 	public int logOperationAttempt(String oid, String operation, int attempt, RuntimeException ex,
 			OperationResult result) {
 
@@ -199,6 +203,7 @@ public class BaseHelper {
 			if (serializationTextFound) {
 				LOGGER.error("Transaction serialization-related problem (e.g. deadlock) was probably not caught correctly!", ex);
 			}
+			getPerformanceMonitor().registerOperationAttemptFailure(false, false);
 			throw ex;
 		}
 
@@ -215,7 +220,10 @@ public class BaseHelper {
 					attempt, LOCKING_MAX_ATTEMPTS, ex.getClass().getSimpleName(), ex.getMessage()});
 		}
 
-		if (attempt >= LOCKING_MAX_ATTEMPTS) {
+		boolean willRetry = attempt < LOCKING_MAX_ATTEMPTS;
+		getPerformanceMonitor().registerOperationAttemptFailure(true, willRetry);
+
+		if (!willRetry) {
 			LOGGER.error("A serialization-related problem occurred, maximum attempts (" + attempt + ") reached.", ex);
 			if (ex != null && result != null) {
 				result.recordFatalError("A serialization-related problem occurred.", ex);
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.OrgType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Results of countObjects, keyed by object type and (simplified) filter.
+ *
+ * Entries are invalidated by writes of objects of related types (the type itself, its supertypes and subtypes)
+ * executed on this node. Writes of orgs invalidate all entries, as they change the org closure used by org filters
+ * of any type. Changes made by other nodes are not visible here, so entries also expire after countCacheTimeToLive.
+ *
+ * Count that was being computed while an invalidation occurred is not stored, as it could reflect the state before
+ * the write.
+ *
+ * So, in a cluster, a count can be stale by up to countCacheTimeToLive. This is why the cache is disabled
+ * unless the time to live is explicitly configured.
+ */
+@Component
+public class CountCache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(CountCache.class);
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > getConfiguration().getCountCacheMaxEntries();
+        }
+    };
+
+    private long generation;        // incremented on each invalidation
+    private long hits;
+    private long misses;
+
+    public boolean isEnabled() {
+        SqlRepositoryConfiguration configuration = getConfiguration();
+        return configuration.getCountCacheTimeToLive() > 0 && configuration.getCountCacheMaxEntries() > 0;
+    }
+
+    /**
+     * Returns current generation; it has to be obtained before counting and passed to {@link #put}.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized Integer get(Class<? extends ObjectType> type, ObjectFilter filter) {
+        Key key = new Key(type, filter);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.count;
+    }
+
+    public synchronized void put(Class<? extends ObjectType> type, ObjectFilter filter, int count, long generationBefore) {
+        if (generationBefore != generation) {
+            LOGGER.trace("Not caching count of {} because of concurrent invalidation", type.getSimpleName());
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + getConfiguration().getCountCacheTimeToLive();
+        entries.put(new Key(type, filter != null ? filter.clone() : null), new Entry(count, expiresAt));
+    }
+
+    public synchronized void invalidate(Class<? extends ObjectType> type) {
+        generation++;
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (type == null || ObjectType.class.equals(type) || OrgType.class.isAssignableFrom(type)) {
+            entries.clear();
+            return;
+        }
+        Iterator<Key> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+            Class<? extends ObjectType> cachedType = iterator.next().type;
+            if (cachedType.isAssignableFrom(type) || type.isAssignableFrom(cachedType)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private SqlRepositoryConfiguration getConfiguration() {
+        return baseHelper.getConfiguration();
+    }
+
+    private static class Key {
+        private final Class<? extends ObjectType> type;
+        private final ObjectFilter filter;
+
+        private Key(Class<? extends ObjectType> type, ObjectFilter filter) {
+            this.type = type;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return type.equals(key.type) && (filter != null ? filter.equals(key.filter, true) : key.filter == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + (filter != null ? filter.hashCode() : 0);
+        }
+    }
+
+    private static class Entry {
+        private final int count;
+        private final long expiresAt;
+
+        private Entry(int count, long expiresAt) {
+            this.count = count;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
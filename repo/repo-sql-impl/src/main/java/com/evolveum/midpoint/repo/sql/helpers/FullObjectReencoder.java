@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.util.FullObjectFormat;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.type.MaterializedBlobType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+/**
+ * Converts fullObject values stored in an older format to the currently configured one
+ * (see {@link SqlRepositoryConfiguration#getFullObjectFormat()}).
+ *
+ * As values of all formats can be read at any time, the conversion is not needed for the repository to work;
+ * it is only a way of getting the space savings for objects that are not modified otherwise. It runs in
+ * a background thread, in small batches (each one in its own transaction), ordered by OID.
+ *
+ * Objects can be modified while the conversion runs. The row is therefore written only if its version is still
+ * the one that was read together with the fullObject; otherwise the row is skipped, as the concurrent modification
+ * has already stored the new content (in the configured format).
+ *
+ * It is started on repository startup if fullObjectReencodeOnStartup is set.
+ */
+@Component
+public class FullObjectReencoder {
+
+    private static final Trace LOGGER = TraceManager.getTrace(FullObjectReencoder.class);
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    private volatile boolean stopRequested;
+    private Thread thread;
+
+    @PostConstruct
+    public void initialize() {
+        if (!baseHelper.getConfiguration().isFullObjectReencodeOnStartup()) {
+            return;
+        }
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reencodeAll();
+                } catch (RuntimeException ex) {
+                    LoggingUtils.logUnexpectedException(LOGGER, "Couldn't re-encode full objects", ex);
+                }
+            }
+        }, "FullObjectReencoder");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopRequested = true;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Re-encodes all objects not stored in the configured format. Returns the number of re-encoded objects.
+     */
+    public int reencodeAll() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        FullObjectFormat targetFormat = configuration.getFullObjectFormat();
+        int batchSize = Math.max(configuration.getFullObjectReencodeBatchSize(), 1);
+
+        LOGGER.info("Starting re-encoding of full objects to '{}' format", targetFormat.getValue());
+        long start = System.currentTimeMillis();
+        String lastOid = "";
+        int processed = 0, reencoded = 0, skipped = 0;
+        while (!stopRequested) {
+            Session session = null;
+            try {
+                session = baseHelper.beginTransaction();
+                Query query = session.createQuery("select o.oid, o.fullObject, o.version from RObject o where o.oid > :lastOid order by o.oid");
+                query.setString("lastOid", lastOid);
+                query.setMaxResults(batchSize);
+                List<Object[]> rows = query.list();
+                if (rows.isEmpty()) {
+                    session.getTransaction().commit();
+                    break;
+                }
+                for (Object[] row : rows) {
+                    String oid = (String) row[0];
+                    byte[] fullObject = (byte[]) row[1];
+                    int version = ((Number) row[2]).intValue();
+                    lastOid = oid;
+                    processed++;
+                    if (fullObject == null || FullObjectFormat.detect(fullObject) == targetFormat) {
+                        continue;
+                    }
+                    byte[] converted = RUtil.getByteArrayFromXml(RUtil.getXmlFromByteArray(fullObject), targetFormat);
+                    Query update = session.createSQLQuery("update m_object set fullObject = :fullObject "
+                            + "where oid = :oid and version = :version");
+                    update.setParameter("fullObject", converted, MaterializedBlobType.INSTANCE);
+                    update.setString("oid", oid);
+                    update.setInteger("version", version);
+                    if (update.executeUpdate() == 0) {
+                        // modified (or deleted) since we read it; the new content must not be overwritten
+                        LOGGER.debug("Object {} changed since it was read (version {}), not re-encoding it", oid, version);
+                        skipped++;
+                        continue;
+                    }
+                    reencoded++;
+                }
+                session.getTransaction().commit();
+                LOGGER.debug("Re-encoding of full objects: {} objects processed, {} re-encoded, {} skipped so far",
+                        processed, reencoded, skipped);
+            } catch (RuntimeException ex) {
+                baseHelper.rollbackTransaction(session, ex, null, false);
+                throw ex;
+            } finally {
+                baseHelper.cleanupSessionAndResult(session, null);
+            }
+        }
+        LOGGER.info("Re-encoding of full objects {}: {} objects processed, {} re-encoded, {} skipped because of concurrent "
+                + "modification in {} ms", stopRequested ? "was interrupted" : "finished", processed, reencoded, skipped,
+                System.currentTimeMillis() - start);
+        return reencoded;
+    }
+}
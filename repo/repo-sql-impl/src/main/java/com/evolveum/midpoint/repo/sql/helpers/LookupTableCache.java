@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.LookupTableRowType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.LookupTableType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Rows of lookup tables, keyed by table OID. Each cached table has sorted indexes on key, value and normalized label,
+ * so that exact and prefix searches (e.g. GUI autocomplete, translation of codes in mappings) are answered from memory.
+ *
+ * Entries are invalidated by writes of lookup tables executed on this node. Changes made by other nodes are not visible
+ * here, so entries also expire after lookupTableCacheTimeToLive. Tables larger than lookupTableCacheMaxRows are not
+ * cached; only the fact that they are too large is remembered.
+ *
+ * Table that was being loaded while an invalidation occurred is not stored, as it could reflect the state before
+ * the write.
+ *
+ * Note that string comparisons done here are case sensitive, regardless of the database collation. That's why
+ * the cache is disabled by default (lookupTableCacheTimeToLive = 0); it should be turned on only for databases
+ * with case sensitive collation, otherwise searches could return fewer rows than the database would.
+ */
+@Component
+public class LookupTableCache {
+
+    private static final Trace LOGGER = TraceManager.getTrace(LookupTableCache.class);
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > getConfiguration().getLookupTableCacheMaxEntries();
+        }
+    };
+
+    private long generation;        // incremented on each invalidation
+    private long hits;
+    private long misses;
+
+    public boolean isEnabled() {
+        SqlRepositoryConfiguration configuration = getConfiguration();
+        return configuration.getLookupTableCacheTimeToLive() > 0 && configuration.getLookupTableCacheMaxEntries() > 0;
+    }
+
+    /**
+     * Returns current generation; it has to be obtained before loading the table and passed to {@link #put}.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the entry for given table, or null if it is not cached. Entry with no table means that the table
+     * is too large to be cached.
+     */
+    public synchronized Entry get(String oid) {
+        Entry entry = entries.get(oid);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(oid);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry;
+    }
+
+    /**
+     * Stores the rows of given table (null if it is too large).
+     */
+    public synchronized Entry put(String oid, List<LookupTableRowType> rows, long generationBefore) {
+        Entry entry = new Entry(rows != null ? new CachedTable(rows) : null,
+                System.currentTimeMillis() + getConfiguration().getLookupTableCacheTimeToLive());
+        if (generationBefore != generation) {
+            LOGGER.trace("Not caching lookup table {} because of concurrent invalidation", oid);
+            return entry;
+        }
+        entries.put(oid, entry);
+        return entry;
+    }
+
+    public synchronized void invalidate(Class<? extends ObjectType> type, String oid) {
+        if (type != null && !type.isAssignableFrom(LookupTableType.class)) {
+            return;
+        }
+        generation++;
+        if (oid != null) {
+            entries.remove(oid);
+        } else {
+            entries.clear();
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private SqlRepositoryConfiguration getConfiguration() {
+        return baseHelper.getConfiguration();
+    }
+
+    public static class Entry {
+        private final CachedTable table;
+        private final long expiresAt;
+
+        private Entry(CachedTable table, long expiresAt) {
+            this.table = table;
+            this.expiresAt = expiresAt;
+        }
+
+        public CachedTable getTable() {
+            return table;
+        }
+    }
+
+    /**
+     * Immutable set of rows with indexes. Returned rows are shared, so they have to be cloned before use.
+     */
+    public static class CachedTable {
+
+        private final List<LookupTableRowType> rows;                                 // ordered by ID
+        private final NavigableMap<String, List<LookupTableRowType>> byKey;
+        private final NavigableMap<String, List<LookupTableRowType>> byValue;
+        private final NavigableMap<String, List<LookupTableRowType>> byLabelNorm;
+
+        private CachedTable(List<LookupTableRowType> rows) {
+            this.rows = new ArrayList<>(rows);
+            Collections.sort(this.rows, ID_COMPARATOR);
+            byKey = new TreeMap<>();
+            byValue = new TreeMap<>();
+            byLabelNorm = new TreeMap<>();
+            for (LookupTableRowType row : this.rows) {
+                index(byKey, row.getKey(), row);
+                index(byValue, row.getValue(), row);
+                index(byLabelNorm, row.getLabel() != null ? row.getLabel().getNorm() : null, row);
+            }
+        }
+
+        private static void index(NavigableMap<String, List<LookupTableRowType>> index, String value, LookupTableRowType row) {
+            if (value == null) {
+                return;
+            }
+            List<LookupTableRowType> list = index.get(value);
+            if (list == null) {
+                list = new ArrayList<>(1);
+                index.put(value, list);
+            }
+            list.add(row);
+        }
+
+        public int size() {
+            return rows.size();
+        }
+
+        /**
+         * Returns all rows (column == null), or rows whose column value is equal to, starts with, or contains the value.
+         * Column is one of "key", "value", "label" (the value is then expected to be normalized).
+         */
+        public List<LookupTableRowType> find(String column, String value, boolean prefix, boolean substring) {
+            if (column == null) {
+                return rows;
+            }
+            NavigableMap<String, List<LookupTableRowType>> index = getIndex(column);
+            Collection<List<LookupTableRowType>> matching;
+            if ((prefix || substring) && containsWildcard(value)) {
+                // LIKE wildcards in the value are interpreted just like in the database
+                Pattern pattern = likeToPattern(value, substring);
+                matching = new ArrayList<>();
+                for (Map.Entry<String, List<LookupTableRowType>> entry : index.entrySet()) {
+                    if (pattern.matcher(entry.getKey()).matches()) {
+                        matching.add(entry.getValue());
+                    }
+                }
+            } else if (substring) {
+                matching = new ArrayList<>();
+                for (Map.Entry<String, List<LookupTableRowType>> entry : index.entrySet()) {
+                    if (entry.getKey().contains(value)) {
+                        matching.add(entry.getValue());
+                    }
+                }
+            } else if (prefix) {
+                matching = index.subMap(value, true, value + Character.MAX_VALUE, false).values();
+            } else {
+                List<LookupTableRowType> exact = index.get(value);
+                matching = exact != null ? Collections.singletonList(exact) : Collections.<List<LookupTableRowType>>emptyList();
+            }
+            List<LookupTableRowType> rv = new ArrayList<>();
+            for (List<LookupTableRowType> list : matching) {
+                rv.addAll(list);
+            }
+            Collections.sort(rv, ID_COMPARATOR);
+            return rv;
+        }
+
+        private static boolean containsWildcard(String value) {
+            return value.indexOf('%') >= 0 || value.indexOf('_') >= 0;
+        }
+
+        private static Pattern likeToPattern(String value, boolean substring) {
+            StringBuilder sb = new StringBuilder();
+            if (substring) {
+                sb.append(".*");
+            }
+            int start = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '%' || c == '_') {
+                    sb.append(Pattern.quote(value.substring(start, i)));
+                    sb.append(c == '%' ? ".*" : ".");
+                    start = i + 1;
+                }
+            }
+            sb.append(Pattern.quote(value.substring(start)));
+            sb.append(".*");
+            return Pattern.compile(sb.toString(), Pattern.DOTALL);
+        }
+
+        private NavigableMap<String, List<LookupTableRowType>> getIndex(String column) {
+            switch (column) {
+                case "key": return byKey;
+                case "value": return byValue;
+                case "label": return byLabelNorm;
+                default: throw new IllegalArgumentException("Unsupported lookup table column: " + column);
+            }
+        }
+
+        public static boolean isSupportedColumn(String column) {
+            return "key".equals(column) || "value".equals(column) || "label".equals(column);
+        }
+
+        public static Comparator<LookupTableRowType> getComparator(String column) {
+            switch (column) {
+                case "key":
+                    return new StringComparator() {
+                        @Override
+                        protected String value(LookupTableRowType row) {
+                            return row.getKey();
+                        }
+                    };
+                case "value":
+                    return new StringComparator() {
+                        @Override
+                        protected String value(LookupTableRowType row) {
+                            return row.getValue();
+                        }
+                    };
+                case "label":
+                    return new Comparator<LookupTableRowType>() {
+                        @Override
+                        public int compare(LookupTableRowType o1, LookupTableRowType o2) {
+                            PolyStringType l1 = o1.getLabel();
+                            PolyStringType l2 = o2.getLabel();
+                            int rv = compareNullsFirst(l1 != null ? l1.getOrig() : null, l2 != null ? l2.getOrig() : null);
+                            return rv != 0 ? rv : compareNullsFirst(l1 != null ? l1.getNorm() : null, l2 != null ? l2.getNorm() : null);
+                        }
+                    };
+                default:
+                    throw new IllegalArgumentException("Unsupported lookup table column: " + column);
+            }
+        }
+
+        private static int compareNullsFirst(String s1, String s2) {
+            if (s1 == null) {
+                return s2 == null ? 0 : -1;
+            }
+            return s2 == null ? 1 : s1.compareTo(s2);
+        }
+
+        private static abstract class StringComparator implements Comparator<LookupTableRowType> {
+            @Override
+            public int compare(LookupTableRowType o1, LookupTableRowType o2) {
+                return compareNullsFirst(value(o1), value(o2));
+            }
+
+            protected abstract String value(LookupTableRowType row);
+        }
+
+        private static final Comparator<LookupTableRowType> ID_COMPARATOR = new Comparator<LookupTableRowType>() {
+            @Override
+            public int compare(LookupTableRowType o1, LookupTableRowType o2) {
+                return Long.compare(o1.getId(), o2.getId());
+            }
+        };
+    }
+}
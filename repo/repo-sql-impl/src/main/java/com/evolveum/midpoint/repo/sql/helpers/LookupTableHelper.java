@@ -24,6 +24,7 @@ import com.evolveum.midpoint.prism.path.*;
 import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.polystring.PrismDefaultPolyStringNormalizer;
 import com.evolveum.midpoint.prism.query.ObjectPaging;
+import com.evolveum.midpoint.prism.query.OrderDirection;
 import com.evolveum.midpoint.repo.sql.data.common.RLookupTable;
 import com.evolveum.midpoint.repo.sql.data.common.RObject;
 import com.evolveum.midpoint.repo.sql.data.common.id.RContainerId;
@@ -52,6 +53,8 @@ import org.springframework.stereotype.Component;
 import javax.xml.namespace.QName;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -72,6 +75,12 @@ public class LookupTableHelper {
     @Autowired
     private GeneralHelper generalHelper;
 
+    @Autowired
+    private LookupTableCache lookupTableCache;
+
+    @Autowired
+    private BaseHelper baseHelper;
+
     public void addLookupTableRows(Session session, RObject object, boolean deleteBeforeAdd) {
         if (!(object instanceof RLookupTable)) {
             return;
@@ -212,6 +221,20 @@ public class LookupTableHelper {
 
         GetOperationOptions getOption = findLookupTableGetOption(options);
         RelationalValueSearchQuery queryDef = getOption == null ? null : getOption.getRelationalValueSearchQuery();
+        if (lookupTableCache.isEnabled() && isCacheable(queryDef)) {
+            LookupTableCache.Entry entry = lookupTableCache.get(object.getOid());
+            if (entry == null) {
+                entry = loadLookupTableToCache(object.getOid(), session);
+            }
+            if (entry.getTable() != null) {
+                List<LookupTableRowType> jaxbRows = ((LookupTableType) object.asObjectable()).getRow();
+                for (LookupTableRowType row : findRowsInCache(entry.getTable(), queryDef)) {
+                    jaxbRows.add(row.clone());
+                }
+                return;
+            }
+        }
+
         Criteria criteria = setupLookupTableRowsQuery(session, queryDef, object.getOid());
         if (queryDef != null && queryDef.getPaging() != null) {
             ObjectPaging paging = queryDef.getPaging();
@@ -223,12 +246,8 @@ public class LookupTableHelper {
                 criteria.setMaxResults(paging.getMaxSize());
             }
 
-            ItemPath orderByPath = paging.getOrderBy();
-            if (paging.getDirection() != null && orderByPath != null && !orderByPath.isEmpty()) {
-                if (orderByPath.size() > 1 || !(orderByPath.first() instanceof NameItemPathSegment)) {
-                    throw new SchemaException("OrderBy has to consist of just one naming segment");
-                }
-                String orderBy = ((NameItemPathSegment) (orderByPath.first())).getName().getLocalPart();
+            String orderBy = getOrderBy(paging);
+            if (orderBy != null) {
                 switch (paging.getDirection()) {
                     case ASCENDING:
                         criteria.addOrder(Order.asc(orderBy));
@@ -253,23 +272,110 @@ public class LookupTableHelper {
         }
     }
 
+    private String getOrderBy(ObjectPaging paging) throws SchemaException {
+        ItemPath orderByPath = paging.getOrderBy();
+        if (paging.getDirection() == null || orderByPath == null || orderByPath.isEmpty()) {
+            return null;
+        }
+        if (orderByPath.size() > 1 || !(orderByPath.first() instanceof NameItemPathSegment)) {
+            throw new SchemaException("OrderBy has to consist of just one naming segment");
+        }
+        return ((NameItemPathSegment) (orderByPath.first())).getName().getLocalPart();
+    }
+
+    private boolean isCacheable(RelationalValueSearchQuery queryDef) throws SchemaException {
+        if (queryDef == null) {
+            return true;
+        }
+        if (isSearching(queryDef) && !LookupTableCache.CachedTable.isSupportedColumn(queryDef.getColumn().getLocalPart())) {
+            return false;
+        }
+        String orderBy = queryDef.getPaging() != null ? getOrderBy(queryDef.getPaging()) : null;
+        return orderBy == null || LookupTableCache.CachedTable.isSupportedColumn(orderBy);
+    }
+
+    private boolean isSearching(RelationalValueSearchQuery queryDef) {
+        return queryDef != null
+                && queryDef.getColumn() != null
+                && queryDef.getSearchType() != null
+                && StringUtils.isNotEmpty(queryDef.getSearchValue());
+    }
+
+    private LookupTableCache.Entry loadLookupTableToCache(String oid, Session session) {
+        long generation = lookupTableCache.getGeneration();
+        int maxRows = baseHelper.getConfiguration().getLookupTableCacheMaxRows();
+        Criteria criteria = setupLookupTableRowsQuery(session, null, oid);
+        criteria.setMaxResults(maxRows + 1);
+        List<RLookupTableRow> rows = criteria.list();
+        if (rows.size() > maxRows) {
+            LOGGER.debug("Lookup table {} has more than {} rows, it will not be cached", oid, maxRows);
+            return lookupTableCache.put(oid, null, generation);
+        }
+        List<LookupTableRowType> jaxbRows = new ArrayList<>(rows.size());
+        for (RLookupTableRow row : rows) {
+            jaxbRows.add(row.toJAXB());
+        }
+        LOGGER.debug("Loaded {} rows of lookup table {} into the cache", jaxbRows.size(), oid);
+        return lookupTableCache.put(oid, jaxbRows, generation);
+    }
+
+    private List<LookupTableRowType> findRowsInCache(LookupTableCache.CachedTable table, RelationalValueSearchQuery queryDef)
+            throws SchemaException {
+        List<LookupTableRowType> rows;
+        if (isSearching(queryDef)) {
+            String column = queryDef.getColumn().getLocalPart();
+            String value = queryDef.getSearchValue();
+            if (LookupTableRowType.F_LABEL.equals(queryDef.getColumn())) {
+                value = normalize(value);
+            }
+            switch (queryDef.getSearchType()) {
+                case EXACT:
+                    rows = table.find(column, value, false, false);
+                    break;
+                case STARTS_WITH:
+                    rows = table.find(column, value, true, false);
+                    break;
+                case SUBSTRING:
+                    rows = table.find(column, value, false, true);
+                    break;
+                default:
+                    throw new IllegalStateException("Unsupported search type: " + queryDef.getSearchType());
+            }
+        } else {
+            rows = table.find(null, null, false, false);
+        }
+        ObjectPaging paging = queryDef != null ? queryDef.getPaging() : null;
+        if (paging == null) {
+            return rows;
+        }
+        String orderBy = getOrderBy(paging);
+        if (orderBy != null) {
+            rows = new ArrayList<>(rows);
+            Comparator<LookupTableRowType> comparator = LookupTableCache.CachedTable.getComparator(orderBy);
+            Collections.sort(rows, paging.getDirection() == OrderDirection.DESCENDING ? Collections.reverseOrder(comparator) : comparator);
+        }
+        int from = paging.getOffset() != null ? Math.min(paging.getOffset(), rows.size()) : 0;
+        int to = paging.getMaxSize() != null ? Math.min(from + paging.getMaxSize(), rows.size()) : rows.size();
+        return rows.subList(from, to);
+    }
+
+    private String normalize(String value) {
+        PolyString poly = new PolyString(value);
+        poly.recompute(new PrismDefaultPolyStringNormalizer());
+        return poly.getNorm();
+    }
+
     private Criteria setupLookupTableRowsQuery(Session session, RelationalValueSearchQuery queryDef, String oid) {
         Criteria criteria = session.createCriteria(RLookupTableRow.class);
         criteria.add(Restrictions.eq("ownerOid", oid));
 
-        if (queryDef != null
-                && queryDef.getColumn() != null
-                && queryDef.getSearchType() != null
-                && StringUtils.isNotEmpty(queryDef.getSearchValue())) {
+        if (isSearching(queryDef)) {
 
             String param = queryDef.getColumn().getLocalPart();
             String value = queryDef.getSearchValue();
             if (LookupTableRowType.F_LABEL.equals(queryDef.getColumn())) {
                 param = "label.norm";
-
-                PolyString poly = new PolyString(value);
-                poly.recompute(new PrismDefaultPolyStringNormalizer());
-                value = poly.getNorm();
+                value = normalize(value);
             }
             switch (queryDef.getSearchType()) {
                 case EXACT:
@@ -57,6 +57,7 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.LookupTableType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ShadowType;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.UserType;
+import org.apache.commons.lang.StringUtils;
 import org.hibernate.Criteria;
 import org.hibernate.LockMode;
 import org.hibernate.LockOptions;
@@ -66,13 +67,24 @@ import org.hibernate.ScrollMode;
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.criterion.Restrictions;
+import org.hibernate.transform.ResultTransformer;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.xml.namespace.QName;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author lazyman, mederly
@@ -102,9 +114,17 @@ public class ObjectRetriever {
     @Autowired
     private NameResolutionHelper nameResolutionHelper;
 
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
+    @Autowired
+    private QueryPlanCache queryPlanCache;
+
     @Autowired
     private PrismContext prismContext;
 
+    private ExecutorService parsingExecutor;
+
     public <T extends ObjectType> PrismObject<T> getObjectAttempt(Class<T> type, String oid,
                                                                   Collection<SelectorOptions<GetOperationOptions>> options,
                                                                   OperationResult result)
@@ -140,6 +160,153 @@ public class ObjectRetriever {
         return objectType;
     }
 
+    /**
+     * Fetches objects in batches of "oid in (...)" queries. Objects of each batch are parsed in parallel.
+     * OIDs that are not found (or point to objects of a different type) are skipped.
+     */
+    public <T extends ObjectType> List<PrismObject<T>> getObjectsAttempt(Class<T> type, List<String> oids,
+                                                                        Collection<SelectorOptions<GetOperationOptions>> options,
+                                                                        OperationResult result)
+            throws SchemaException {
+        LOGGER_PERFORMANCE.debug("> get objects {}, {} oid(s)", type.getSimpleName(), oids.size());
+        Map<String, PrismObject<T>> objects = new HashMap<>();
+
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+
+            int batchSize = getConfiguration().getGetObjectsBatchSize();
+            ColumnProjection columnProjection = ColumnProjection.create(type, options);
+            for (int i = 0; i < oids.size(); i += batchSize) {
+                List<String> batch = oids.subList(i, Math.min(i + batchSize, oids.size()));
+                Query query = session.createQuery("select " + getObjectProjection(columnProjection) + " from "
+                        + ClassMapper.getHQLType(type) + " as o where o.oid in (:oids)");
+                query.setParameterList("oids", batch);
+                query.setResultTransformer(getObjectResultTransformer(columnProjection));
+                List<GetObjectResult> loaded = query.list();
+                LOGGER.trace("Got {} object(s) for {} oid(s)", loaded.size(), batch.size());
+
+                List<PrismObject<T>> parsed = parseLoadedObjects(loaded, options);
+                for (int j = 0; j < loaded.size(); j++) {
+                    PrismObject<T> prismObject = postProcessLoadedObject(loaded.get(j), parsed.get(j), type, options,
+                            session, result);
+                    objects.put(prismObject.getOid(), prismObject);
+                }
+            }
+
+            session.getTransaction().commit();
+        } catch (SchemaException ex) {
+            baseHelper.rollbackTransaction(session, ex, "Schema error while getting objects. Reason: "
+                    + ex.getMessage(), result, true);
+            throw ex;
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralException(ex, session, result);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, result);
+        }
+
+        List<PrismObject<T>> rv = new ArrayList<>(objects.size());
+        for (String oid : oids) {
+            PrismObject<T> object = objects.get(oid);
+            if (object != null) {
+                rv.add(object);
+            }
+        }
+        return rv;
+    }
+
+    private String getObjectProjection(ColumnProjection columnProjection) {
+        if (columnProjection != null) {
+            return StringUtils.join(columnProjection.getProjectionElements("o"), ", ");
+        }
+        return "o.fullObject, o.stringsCount, o.longsCount, o.datesCount, o.referencesCount, o.polysCount, o.booleansCount";
+    }
+
+    private ResultTransformer getObjectResultTransformer(ColumnProjection columnProjection) {
+        return columnProjection != null ? columnProjection.getResultTransformer() : GetObjectResult.RESULT_TRANSFORMER;
+    }
+
+    /**
+     * Parses loaded objects using parsing executor (if configured). Returned list corresponds to the input one.
+     */
+    private <T extends ObjectType> List<PrismObject<T>> parseLoadedObjects(List<GetObjectResult> loaded,
+            final Collection<SelectorOptions<GetOperationOptions>> options) throws SchemaException {
+        List<PrismObject<T>> rv = new ArrayList<>(loaded.size());
+        ExecutorService executor = loaded.size() > 1 ? getParsingExecutor() : null;
+        if (executor == null) {
+            for (GetObjectResult object : loaded) {
+                rv.add(this.<T>parseLoadedObject(object, options));
+            }
+            return rv;
+        }
+
+        List<Future<PrismObject<T>>> futures = new ArrayList<>(loaded.size());
+        for (final GetObjectResult object : loaded) {
+            futures.add(executor.submit(new Callable<PrismObject<T>>() {
+                @Override
+                public PrismObject<T> call() throws SchemaException {
+                    return parseLoadedObject(object, options);
+                }
+            }));
+        }
+        try {
+            for (Future<PrismObject<T>> future : futures) {
+                rv.add(getParsedObject(future));
+            }
+        } finally {
+            for (Future<PrismObject<T>> future : futures) {
+                future.cancel(false);           // no-op for completed ones
+            }
+        }
+        return rv;
+    }
+
+    private <R> R getParsedObject(Future<R> future) throws SchemaException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SystemException("Interrupted while waiting for objects to be parsed", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SchemaException) {
+                throw (SchemaException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new SystemException("Couldn't parse object: " + cause.getMessage(), cause);
+            }
+        }
+    }
+
+    private synchronized ExecutorService getParsingExecutor() {
+        int threads = getConfiguration().getParsingThreads();
+        if (threads <= 1) {
+            return null;
+        }
+        if (parsingExecutor == null) {
+            parsingExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "RepositoryObjectParser-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return parsingExecutor;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (parsingExecutor != null) {
+            parsingExecutor.shutdownNow();
+            parsingExecutor = null;
+        }
+    }
+
     public <T extends ObjectType> PrismObject<T> getObjectInternal(Session session, Class<T> type, String oid,
 			Collection<SelectorOptions<GetOperationOptions>> options,
 			boolean lockForUpdate, OperationResult operationResult)
@@ -181,7 +348,15 @@ public class ObjectRetriever {
 		}
 
 		GetObjectResult fullObject = null;
-		if (!lockForUpdate) {
+		ColumnProjection columnProjection = !lockForUpdate ? ColumnProjection.create(type, options) : null;
+		if (columnProjection != null) {
+			Query query = session.createQuery("select " + getObjectProjection(columnProjection) + " from "
+					+ ClassMapper.getHQLType(type) + " as o where o.oid = :oid");
+			query.setString("oid", oid);
+			query.setResultTransformer(columnProjection.getResultTransformer());
+
+			fullObject = (GetObjectResult) query.uniqueResult();
+		} else if (!lockForUpdate) {
 			Query query = session.getNamedQuery("get.object");
 			query.setString("oid", oid);
 			query.setResultTransformer(GetObjectResult.RESULT_TRANSFORMER);
@@ -317,6 +492,15 @@ public class ObjectRetriever {
     }
 
     public <T extends ObjectType> int countObjectsAttempt(Class<T> type, ObjectQuery query, OperationResult result) {
+        return countObjectsAttempt(type, query, false, new Holder<>(false), result);
+    }
+
+    /**
+     * If an estimate is allowed and can be obtained from database statistics, it is returned and the estimatedHolder
+     * is set to true.
+     */
+    public <T extends ObjectType> int countObjectsAttempt(Class<T> type, ObjectQuery query, boolean allowEstimate,
+                                                          Holder<Boolean> estimatedHolder, OperationResult result) {
         LOGGER_PERFORMANCE.debug("> count objects {}", new Object[]{type.getSimpleName()});
 
         int count = 0;
@@ -326,16 +510,22 @@ public class ObjectRetriever {
             Class<? extends RObject> hqlType = ClassMapper.getHQLTypeClass(type);
 
             session = baseHelper.beginReadOnlyTransaction();
-            Number longCount;
+            Number longCount = null;
             if (query == null || query.getFilter() == null) {
-                // this is 5x faster than count with 3 inner joins, it can probably improved also for queries which
-                // filters uses only properties from concrete entities like RUser, RRole by improving interpreter [lazyman]
-                SQLQuery sqlQuery = session.createSQLQuery("SELECT COUNT(*) FROM " + RUtil.getTableName(hqlType));
-                longCount = (Number) sqlQuery.uniqueResult();
+                if (allowEstimate) {
+                    longCount = estimateRowCount(session, RUtil.getTableName(hqlType));
+                    estimatedHolder.setValue(longCount != null);
+                }
+                if (longCount == null) {
+                    // this is 5x faster than count with 3 inner joins, it can probably improved also for queries which
+                    // filters uses only properties from concrete entities like RUser, RRole by improving interpreter [lazyman]
+                    SQLQuery sqlQuery = session.createSQLQuery("SELECT COUNT(*) FROM " + RUtil.getTableName(hqlType));
+                    longCount = (Number) sqlQuery.uniqueResult();
+                }
             } else {
                 RQuery rQuery;
                 if (isUseNewQueryInterpreter(query)) {
-                    QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext);
+                    QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext, orgHierarchyIndex, queryPlanCache);
                     rQuery = engine.interpret(query, type, null, true, session);
                 } else {
                     QueryEngine engine = new QueryEngine(getConfiguration(), prismContext);
@@ -358,6 +548,31 @@ public class ObjectRetriever {
     }
 
 
+    /**
+     * Returns number of rows in given table as estimated by the database (from its statistics), or null if
+     * the estimate is not available. Tables without statistics (e.g. never analyzed) are considered unknown.
+     */
+    private Number estimateRowCount(Session session, String tableName) {
+        SqlRepositoryConfiguration config = getConfiguration();
+        String sql;
+        if (config.isUsingPostgreSQL()) {
+            sql = "select reltuples from pg_class where relname = :tableName and relkind = 'r'";
+        } else if (config.isUsingMySQL()) {
+            sql = "select table_rows from information_schema.tables where table_schema = database() and table_name = :tableName";
+        } else if (config.isUsingOracle()) {
+            sql = "select num_rows from user_tables where table_name = upper(:tableName)";
+        } else if (config.isUsingSQLServer()) {
+            sql = "select sum(rows) from sys.partitions where object_id = object_id(:tableName) and index_id in (0, 1)";
+        } else {
+            return null;
+        }
+        SQLQuery query = session.createSQLQuery(sql);
+        query.setString("tableName", tableName);
+        Number estimate = (Number) query.uniqueResult();
+        LOGGER.trace("Estimated number of rows in {}: {}", tableName, estimate);
+        return estimate != null && estimate.longValue() > 0 ? estimate : null;
+    }
+
     public <T extends ObjectType> SearchResultList<PrismObject<T>> searchObjectsAttempt(Class<T> type, ObjectQuery query,
                                                                                         Collection<SelectorOptions<GetOperationOptions>> options,
                                                                                         OperationResult result) throws SchemaException {
@@ -368,7 +583,7 @@ public class ObjectRetriever {
             RQuery rQuery;
 
             if (isUseNewQueryInterpreter(query)) {
-                QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext);
+                QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext, orgHierarchyIndex, queryPlanCache);
                 rQuery = engine.interpret(query, type, options, false, session);
             } else {
                 QueryEngine engine = new QueryEngine(getConfiguration(), prismContext);
@@ -395,7 +610,15 @@ public class ObjectRetriever {
 			Collection<SelectorOptions<GetOperationOptions>> options,
 			Session session, OperationResult result) throws SchemaException {
 		List<PrismObject<T>> rv = new ArrayList<>();
-		if (objects != null) {
+		if (objects == null) {
+			return rv;
+		}
+		if (getConfiguration().isSearchParsingPipeline()) {
+			List<PrismObject<T>> parsed = parseLoadedObjects(objects, options);
+			for (int i = 0; i < objects.size(); i++) {
+				rv.add(postProcessLoadedObject(objects.get(i), parsed.get(i), type, options, session, result));
+			}
+		} else {
 			for (GetObjectResult object : objects) {
 				PrismObject<T> prismObject = updateLoadedObject(object, type, options, session, result);
 				rv.add(prismObject);
@@ -418,7 +641,7 @@ public class ObjectRetriever {
         try {
             session = baseHelper.beginReadOnlyTransaction();
 
-            QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext);
+            QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext, orgHierarchyIndex, queryPlanCache);
             RQuery rQuery = engine.interpret(query, type, options, false, session);
 
             List<GetContainerableResult> items = rQuery.list();
@@ -447,11 +670,28 @@ public class ObjectRetriever {
 			Collection<SelectorOptions<GetOperationOptions>> options,
 			Session session, OperationResult operationResult) throws SchemaException {
 
-        String xml = RUtil.getXmlFromByteArray(result.getFullObject(), getConfiguration().isUseZip());
+        PrismObject<T> prismObject = parseLoadedObject(result, options);
+        return postProcessLoadedObject(result, prismObject, type, options, session, operationResult);
+    }
+
+    /**
+     * Parses the object from fullObject column (or creates it from projected columns). Does not need the session,
+     * so it can be executed in any thread. If only selected items are requested, other ones are skipped while parsing.
+     */
+    private <T extends ObjectType> PrismObject<T> parseLoadedObject(GetObjectResult result,
+            Collection<SelectorOptions<GetOperationOptions>> options) throws SchemaException {
+        if (result.isColumnsOnly()) {
+            return result.getColumnProjection().createObject(result.getColumnValues(), prismContext);
+        }
+        String xml = RUtil.getXmlFromByteArray(result.getFullObject());
         PrismObject<T> prismObject;
         try {
             // "Postel mode": be tolerant what you read. We need this to tolerate (custom) schema changes
 			ParsingContext parsingContext = ParsingContext.forMode(XNodeProcessorEvaluationMode.COMPAT);
+            List<ItemPath> itemsToInclude = GetOperationOptions.getRetrieveOnlyPaths(options);
+            if (itemsToInclude != null) {
+                parsingContext.setItemsToInclude(itemsToInclude);
+            }
             prismObject = prismContext.parseObject(xml, parsingContext);
 			// TODO enable if needed
 //			if (parsingContext.hasWarnings()) {
@@ -466,8 +706,19 @@ public class ObjectRetriever {
             LOGGER.debug("Couldn't parse object because of unexpected exception ({}):\nObject: {}", e, xml);
             throw e;
         }
+        return prismObject;
+    }
 
-        if (FocusType.class.isAssignableFrom(prismObject.getCompileTimeClass())) {
+    /**
+     * Loads the data stored outside of fullObject column and validates the object.
+     */
+    private <T extends ObjectType> PrismObject<T> postProcessLoadedObject(GetObjectResult result, PrismObject<T> prismObject,
+            Class<T> type, Collection<SelectorOptions<GetOperationOptions>> options, Session session,
+            OperationResult operationResult) throws SchemaException {
+
+        if (result.isColumnsOnly()) {
+            // nothing stored outside of the projected columns was requested
+        } else if (FocusType.class.isAssignableFrom(prismObject.getCompileTimeClass())) {
             if (SelectorOptions.hasToLoadPath(FocusType.F_JPEG_PHOTO, options)) {
                 //todo improve, use user.hasPhoto flag and take options into account [lazyman]
                 //this is called only when options contains INCLUDE user/jpegPhoto
@@ -513,6 +764,9 @@ public class ObjectRetriever {
                                                  PrismObject object, Session session) throws SchemaException {
 
         PrismContainer attributes = object.findContainer(ShadowType.F_ATTRIBUTES);
+        if (attributes == null) {
+            return;         // not retrieved
+        }
 
         Query query = session.getNamedQuery("getDefinition." + anyValueType.getSimpleName());
         query.setParameter("oid", object.getOid());
@@ -630,7 +884,7 @@ public class ObjectRetriever {
             session = baseHelper.beginReadOnlyTransaction();
             RQuery rQuery;
             if (isUseNewQueryInterpreter(query)) {
-                QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext);
+                QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext, orgHierarchyIndex, queryPlanCache);
                 rQuery = engine.interpret(query, type, options, false, session);
             } else {
                 QueryEngine engine = new QueryEngine(getConfiguration(), prismContext);
@@ -640,12 +894,19 @@ public class ObjectRetriever {
             ScrollableResults results = rQuery.scroll(ScrollMode.FORWARD_ONLY);
             try {
                 Iterator<GetObjectResult> iterator = new ScrollableResultsIterator(results);
-                while (iterator.hasNext()) {
-                    GetObjectResult object = iterator.next();
+                ExecutorService executor = getConfiguration().isSearchParsingPipeline() ? getParsingExecutor() : null;
+                if (executor != null) {
+                    boolean ordered = getConfiguration().isSearchParsingOrdered()
+                            || (query != null && query.getPaging() != null && query.getPaging().hasOrdering());
+                    handleObjectsInPipeline(iterator, executor, ordered, type, handler, options, session, result);
+                } else {
+                    while (iterator.hasNext()) {
+                        GetObjectResult object = iterator.next();
 
-                    PrismObject<T> prismObject = updateLoadedObject(object, type, options, session, result);
-                    if (!handler.handle(prismObject, result)) {
-                        break;
+                        PrismObject<T> prismObject = updateLoadedObject(object, type, options, session, result);
+                        if (!handler.handle(prismObject, result)) {
+                            break;
+                        }
                     }
                 }
             } finally {
@@ -662,6 +923,106 @@ public class ObjectRetriever {
         }
     }
 
+    /**
+     * Reads rows in the current thread and submits them to parsing executor, keeping at most searchParsingPipelineSize
+     * of them in flight. Parsed objects are post-processed (this needs the session) and passed to the handler
+     * also in the current thread - either in the order of rows or in the order of parsing completion.
+     */
+    private <T extends ObjectType> void handleObjectsInPipeline(Iterator<GetObjectResult> iterator, ExecutorService executor,
+                                                                boolean ordered, Class<T> type, ResultHandler<T> handler,
+                                                                Collection<SelectorOptions<GetOperationOptions>> options,
+                                                                Session session, OperationResult result)
+            throws SchemaException {
+        int maxSize = getConfiguration().getSearchParsingPipelineSize();
+        ParsingPipeline<T> pipeline = new ParsingPipeline<>(executor, ordered, options);
+        try {
+            boolean stop = false;
+            while (!stop && iterator.hasNext()) {
+                pipeline.submit(iterator.next());
+                if (pipeline.size() >= maxSize) {
+                    stop = !handleParsedObject(pipeline.take(), type, handler, options, session, result);
+                }
+            }
+            while (!stop && pipeline.size() > 0) {
+                stop = !handleParsedObject(pipeline.take(), type, handler, options, session, result);
+            }
+        } finally {
+            pipeline.cancel();
+        }
+    }
+
+    private <T extends ObjectType> boolean handleParsedObject(ParsedObject<T> parsed, Class<T> type, ResultHandler<T> handler,
+                                                              Collection<SelectorOptions<GetOperationOptions>> options,
+                                                              Session session, OperationResult result) throws SchemaException {
+        PrismObject<T> prismObject = postProcessLoadedObject(parsed.loaded, parsed.object, type, options, session, result);
+        return handler.handle(prismObject, result);
+    }
+
+    private static class ParsedObject<T extends ObjectType> {
+        private final GetObjectResult loaded;
+        private final PrismObject<T> object;
+
+        private ParsedObject(GetObjectResult loaded, PrismObject<T> object) {
+            this.loaded = loaded;
+            this.object = object;
+        }
+    }
+
+    /**
+     * Objects being parsed by the executor. Not thread safe: it is used only by the thread that reads the rows.
+     */
+    private class ParsingPipeline<T extends ObjectType> {
+
+        private final Deque<Future<ParsedObject<T>>> pending = new ArrayDeque<>();
+        private final ExecutorService executor;
+        private final CompletionService<ParsedObject<T>> completionService;      // only for unordered delivery
+        private final Collection<SelectorOptions<GetOperationOptions>> options;
+
+        private ParsingPipeline(ExecutorService executor, boolean ordered,
+                                Collection<SelectorOptions<GetOperationOptions>> options) {
+            this.executor = executor;
+            this.options = options;
+            this.completionService = ordered ? null : new ExecutorCompletionService<ParsedObject<T>>(executor);
+        }
+
+        void submit(final GetObjectResult loaded) {
+            Callable<ParsedObject<T>> task = new Callable<ParsedObject<T>>() {
+                @Override
+                public ParsedObject<T> call() throws SchemaException {
+                    return new ParsedObject<>(loaded, ObjectRetriever.this.<T>parseLoadedObject(loaded, options));
+                }
+            };
+            pending.addLast(completionService != null ? completionService.submit(task) : executor.submit(task));
+        }
+
+        int size() {
+            return pending.size();
+        }
+
+        ParsedObject<T> take() throws SchemaException {
+            Future<ParsedObject<T>> future;
+            if (completionService == null) {
+                future = pending.removeFirst();
+            } else {
+                try {
+                    future = completionService.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SystemException("Interrupted while waiting for objects to be parsed", e);
+                }
+                pending.remove(future);
+            }
+            return getParsedObject(future);
+        }
+
+        void cancel() {
+            for (Future<ParsedObject<T>> future : pending) {
+                future.cancel(false);
+            }
+            pending.clear();
+        }
+    }
+
     public <T extends ObjectType> void searchObjectsIterativeByPaging(Class<T> type, ObjectQuery query,
                                                                       ResultHandler<T> handler,
                                                                       Collection<SelectorOptions<GetOperationOptions>> options,
@@ -714,6 +1075,65 @@ main:       while (remaining > 0) {
         }
     }
 
+    /**
+     * Paged search using keyset (seek) paging: each page is requested as "objects after the last one returned",
+     * using the values of ordering items and OID of that object. Any ordering supported by the query interpreter
+     * can be used; OID is added as the last ordering item. So the cost of a page does not depend on its position,
+     * and no count is needed. Offset and max size of the original query (if any) are respected.
+     */
+    public <T extends ObjectType> void searchObjectsIterativeByKeysetPaging(Class<T> type, ObjectQuery query,
+                                                                            ResultHandler<T> handler,
+                                                                            Collection<SelectorOptions<GetOperationOptions>> options,
+                                                                            OperationResult result)
+            throws SchemaException {
+
+        try {
+            ObjectQuery pagedQuery = query != null ? query.clone() : new ObjectQuery();
+            ObjectPaging originalPaging = pagedQuery.getPaging();
+            final int batchSize = getConfiguration().getIterativeSearchByPagingBatchSize();
+
+            ObjectPaging paging = ObjectPaging.createEmptyPaging();
+            Integer remaining = null;
+            if (originalPaging != null) {
+                if (originalPaging.hasOrdering()) {
+                    paging.setOrdering(originalPaging.getOrderingInstructions());
+                }
+                paging.setOffset(originalPaging.getOffset());
+                remaining = originalPaging.getMaxSize();
+            }
+            paging.setKeyset(true);
+            pagedQuery.setPaging(paging);
+
+main:       while (remaining == null || remaining > 0) {
+                int pageSize = remaining != null && remaining < batchSize ? remaining : batchSize;
+                paging.setMaxSize(pageSize);
+
+                List<PrismObject<T>> objects = repositoryService.searchObjects(type, pagedQuery, options, result);
+
+                for (PrismObject<T> object : objects) {
+                    if (!handler.handle(object, result)) {
+                        break main;
+                    }
+                }
+
+                if (objects.size() < pageSize) {
+                    break;
+                }
+                if (remaining != null) {
+                    remaining -= objects.size();
+                }
+                paging.setOffset(null);
+                paging.setAfterObject(objects.get(objects.size() - 1));
+            }
+        } finally {
+            if (result != null && result.isUnknown()) {
+                result.computeStatus();
+            }
+            result.setSummarizeSuccesses(true);
+            result.summarize();
+        }
+    }
+
     /**
      * Strictly-sequential version of paged search.
      *
@@ -815,7 +1235,7 @@ main:       for (;;) {
 			final Query query;
 			final boolean isMidpointQuery = request.getImplementationLevelQuery() == null;
 			if (isMidpointQuery) {
-				QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext);
+				QueryEngine2 engine = new QueryEngine2(getConfiguration(), prismContext, orgHierarchyIndex);
 				RQueryImpl rQuery = (RQueryImpl) engine.interpret(request.getQuery(), request.getType(), null, false, session);
 				query = rQuery.getQuery();
 				implementationLevelQuery = query.getQueryString();
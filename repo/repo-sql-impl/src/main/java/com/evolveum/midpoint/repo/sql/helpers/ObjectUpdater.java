@@ -21,6 +21,7 @@ import com.evolveum.midpoint.prism.PrismContext;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismObjectDefinition;
 import com.evolveum.midpoint.prism.PrismReference;
+import com.evolveum.midpoint.prism.SerializationOptions;
 import com.evolveum.midpoint.prism.delta.ItemDelta;
 import com.evolveum.midpoint.prism.delta.ObjectDelta;
 import com.evolveum.midpoint.prism.delta.ReferenceDelta;
@@ -96,6 +97,12 @@ public class ObjectUpdater {
     @Autowired
     private OrgClosureManager closureManager;
 
+    @Autowired
+    private PartialUpdateHelper partialUpdateHelper;
+
+    @Autowired
+    private PromotedExtensionHelper promotedExtensionHelper;
+
     @Autowired
     private PrismContext prismContext;
 
@@ -134,6 +141,7 @@ public class ObjectUpdater {
                 oid = nonOverwriteAddObjectAttempt(object, rObject, originalOid, session, closureContext);
             }
             session.getTransaction().commit();
+            closureManager.onTransactionCommitted(closureContext);
 
             LOGGER.trace("Saved object '{}' with oid '{}'", new Object[]{
                     object.getCompileTimeClass().getSimpleName(), oid});
@@ -201,6 +209,7 @@ public class ObjectUpdater {
         RObject merged = (RObject) session.merge(rObject);
         lookupTableHelper.addLookupTableRows(session, rObject, oldObject != null);
         caseHelper.addCertificationCampaignCases(session, rObject, oldObject != null);
+        promotedExtensionHelper.updatePromotedValues(session, merged.getOid(), object, oldObject != null);
 
         if (closureManager.isEnabled()) {
             OrgClosureManager.Operation operation;
@@ -234,23 +243,12 @@ public class ObjectUpdater {
         LOGGER.debug("Updating full object xml column start.");
         savedObject.setVersion(Integer.toString(object.getVersion()));
 
-        // Deep cloning for object transformation - we don't want to return object "changed" by save.
-        // Its' because we're removing some properties during save operation and if save fails,
-        // overwrite attempt (for example using object importer) might try to delete existing object
-        // and then try to save this object one more time.
-        String xml = prismContext.serializeObjectToString(savedObject, PrismContext.LANG_XML);
-        savedObject = prismContext.parseObject(xml);
-
-        if (FocusType.class.isAssignableFrom(savedObject.getCompileTimeClass())) {
-            savedObject.removeProperty(FocusType.F_JPEG_PHOTO);
-        } else if (LookupTableType.class.equals(savedObject.getCompileTimeClass())) {
-            savedObject.removeContainer(LookupTableType.F_ROW);
-        } else if (AccessCertificationCampaignType.class.equals(savedObject.getCompileTimeClass())) {
-            savedObject.removeContainer(AccessCertificationCampaignType.F_CASE);
-        }
-
-        xml = prismContext.serializeObjectToString(savedObject, PrismContext.LANG_XML);
-        byte[] fullObject = RUtil.getByteArrayFromXml(xml, getConfiguration().isUseZip());
+        // Items stored in separate tables (or not stored at all) are left out during serialization. The object itself
+        // is not changed, because if save fails, overwrite attempt (for example using object importer) might try
+        // to delete existing object and then try to save this object one more time.
+        String xml = prismContext.serializeObjectToString(savedObject, PrismContext.LANG_XML,
+                createFullObjectSerializationOptions(savedObject.getCompileTimeClass()));
+        byte[] fullObject = RUtil.getByteArrayFromXml(xml, getConfiguration().getFullObjectFormat());
 
         if (LOGGER.isTraceEnabled()) LOGGER.trace("Storing full object\n{}", xml);
 
@@ -259,6 +257,18 @@ public class ObjectUpdater {
         LOGGER.debug("Updating full object xml column finish.");
     }
 
+    private SerializationOptions createFullObjectSerializationOptions(Class<? extends ObjectType> type) {
+        if (FocusType.class.isAssignableFrom(type)) {
+            return SerializationOptions.createItemsToSkip(new ItemPath(FocusType.F_JPEG_PHOTO));
+        } else if (LookupTableType.class.equals(type)) {
+            return SerializationOptions.createItemsToSkip(new ItemPath(LookupTableType.F_ROW));
+        } else if (AccessCertificationCampaignType.class.equals(type)) {
+            return SerializationOptions.createItemsToSkip(new ItemPath(AccessCertificationCampaignType.F_CASE));
+        } else {
+            return null;
+        }
+    }
+
     protected SqlRepositoryConfiguration getConfiguration() {
         return baseHelper.getConfiguration();
     }
@@ -289,6 +299,7 @@ public class ObjectUpdater {
         String oid = (String) session.save(rObject);
         lookupTableHelper.addLookupTableRows(session, rObject, false);
         caseHelper.addCertificationCampaignCases(session, rObject, false);
+        promotedExtensionHelper.updatePromotedValues(session, oid, object, false);
 
         if (closureManager.isEnabled()) {
             Collection<ReferenceDelta> modifications = createAddParentRefDelta(object);
@@ -327,8 +338,10 @@ public class ObjectUpdater {
             if (AccessCertificationCampaignType.class.equals(type)) {
                 caseHelper.deleteCertificationCampaignCases(session, oid);
             }
+            promotedExtensionHelper.deletePromotedValues(session, oid);
 
             session.getTransaction().commit();
+            closureManager.onTransactionCommitted(closureContext);
         } catch (ObjectNotFoundException ex) {
             baseHelper.rollbackTransaction(session, ex, result, true);
             throw ex;
@@ -398,6 +411,8 @@ public class ObjectUpdater {
                 if (closureManager.isEnabled()) {
                     originalObject = prismObject.clone();
                 }
+                PartialUpdateHelper.Context partialUpdateContext = getConfiguration().isPartialUpdates() ?
+                        partialUpdateHelper.prepare(type, prismObject, modifications) : null;
                 ItemDelta.applyTo(modifications, prismObject);
                 if (LOGGER.isTraceEnabled()) {
                     LOGGER.trace("OBJECT after:\n{}", prismObject.debugDump());
@@ -406,14 +421,23 @@ public class ObjectUpdater {
                 // We have to test prismObject at this place, because updateFullObject (below) removes photo property from the prismObject.
                 boolean shouldPhotoBeRemoved = containsFocusPhotoModification && ((FocusType) prismObject.asObjectable()).getJpegPhoto() == null;
 
-                // merge and update object
-                LOGGER.trace("Translating JAXB to data type.");
-                RObject rObject = createDataObjectFromJAXB(prismObject, PrismIdentifierGenerator.Operation.MODIFY);
-                rObject.setVersion(rObject.getVersion() + 1);
-
-                updateFullObject(rObject, prismObject);
-                LOGGER.trace("Starting merge.");
-                session.merge(rObject);
+                if (partialUpdateContext != null) {
+                    // only rows affected by the modifications are touched; main row gets new version and fullObject
+                    LOGGER.trace("Starting partial update.");
+                    RObject rObject = partialUpdateHelper.execute(session, partialUpdateContext, type, prismObject);
+                    rObject.setVersion(rObject.getVersion() + 1);
+                    updateFullObject(rObject, prismObject);
+                } else {
+                    // merge and update object
+                    LOGGER.trace("Translating JAXB to data type.");
+                    RObject rObject = createDataObjectFromJAXB(prismObject, PrismIdentifierGenerator.Operation.MODIFY);
+                    rObject.setVersion(rObject.getVersion() + 1);
+
+                    updateFullObject(rObject, prismObject);
+                    LOGGER.trace("Starting merge.");
+                    session.merge(rObject);
+                }
+                promotedExtensionHelper.updatePromotedValues(session, oid, prismObject, true);
                 if (closureManager.isEnabled()) {
                     closureManager.updateOrgClosure(originalObject, modifications, session, oid, type, OrgClosureManager.Operation.MODIFY, closureContext);
                 }
@@ -438,6 +462,7 @@ public class ObjectUpdater {
             LOGGER.trace("Before commit...");
             session.getTransaction().commit();
             LOGGER.trace("Committed!");
+            closureManager.onTransactionCommitted(closureContext);
         } catch (ObjectNotFoundException ex) {
             baseHelper.rollbackTransaction(session, ex, result, true);
             throw ex;
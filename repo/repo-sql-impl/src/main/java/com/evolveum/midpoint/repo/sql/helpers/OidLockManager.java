@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-memory locks that serialize writes of objects with the same OID executed on this node.
+ *
+ * Without them, concurrent modifications of the same object collide in the database and all but one of them
+ * are retried after a (randomized, exponentially growing) wait - see {@link BaseHelper#logOperationAttempt}.
+ * Waiting for a lock is much cheaper. The database remains the authority: the lock is only an optimization,
+ * so if it cannot be obtained in oidLockTimeout, the operation continues without it.
+ *
+ * Each operation holds at most one lock at a time (and the lock is reentrant), so the locks cannot deadlock.
+ * Number of locks is taken from oidLockStripes; if it is changed at runtime, the locks are re-created.
+ */
+@Component
+public class OidLockManager {
+
+    private static final Trace LOGGER = TraceManager.getTrace(OidLockManager.class);
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    private volatile ReentrantLock[] locks;
+
+    /**
+     * Acquires the lock for given OID. Returns null if locking is disabled, OID is not known, or the lock
+     * could not be acquired in time. The returned lock has to be released using {@link #unlock(Lock)}.
+     */
+    public Lock lock(String oid) {
+        ReentrantLock[] currentLocks = getLocks();
+        if (currentLocks == null || oid == null) {
+            return null;
+        }
+        ReentrantLock lock = currentLocks[getIndex(oid, currentLocks.length)];
+        if (lock.tryLock()) {
+            return lock;
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(baseHelper.getConfiguration().getOidLockTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        long waitTime = System.nanoTime() - start;
+        baseHelper.getPerformanceMonitor().registerOperationLockWait(waitTime, acquired);
+        if (!acquired) {
+            LOGGER.debug("Couldn't acquire lock for OID {} in {} ms, continuing without it", oid, waitTime / 1000000L);
+            return null;
+        }
+        LOGGER.trace("Lock for OID {} acquired after {} ms", oid, waitTime / 1000000L);
+        return lock;
+    }
+
+    public void unlock(Lock lock) {
+        if (lock != null) {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock[] getLocks() {
+        int stripes = baseHelper.getConfiguration().getOidLockStripes();
+        ReentrantLock[] currentLocks = locks;
+        if (stripes <= 0) {
+            return null;
+        }
+        if (currentLocks == null || currentLocks.length < stripes || currentLocks.length >= 2 * stripes) {
+            synchronized (this) {
+                currentLocks = locks;
+                if (currentLocks == null || currentLocks.length < stripes || currentLocks.length >= 2 * stripes) {
+                    currentLocks = createLocks(stripes);
+                    locks = currentLocks;
+                }
+            }
+        }
+        return currentLocks;
+    }
+
+    private ReentrantLock[] createLocks(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        LOGGER.debug("Creating {} OID locks", size);
+        ReentrantLock[] rv = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            rv[i] = new ReentrantLock();
+        }
+        return rv;
+    }
+
+    private int getIndex(String oid, int size) {
+        int h = oid.hashCode();
+        h ^= h >>> 16;
+        return h & (size - 1);
+    }
+}
@@ -92,6 +92,9 @@ public class OrgClosureManager {
 	@Autowired
 	private BaseHelper baseHelper;
 
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
     private static boolean DUMP_TABLES = false;
     private static final boolean COUNT_CLOSURE_RECORDS = false;
     static final String CLOSURE_TABLE_NAME = "m_org_closure";
@@ -134,11 +137,20 @@ public class OrgClosureManager {
 
         List<ReferenceDelta> deltas = filterParentRefDeltas(modifications);
 
+        if (closureContext != null) {
+            closureContext.recordChanges = true;
+        }
         switch (operation) {
             case ADD:
+                if (closureContext != null) {
+                    closureContext.addedOid = oid;
+                }
                 handleAdd(oid, deltas, closureContext, session);
                 break;
             case DELETE:
+                if (closureContext != null) {
+                    closureContext.deletedOid = oid;
+                }
                 handleDelete(oid, closureContext, session);
                 break;
             case MODIFY:
@@ -209,6 +221,18 @@ public class OrgClosureManager {
         return ctx;
     }
 
+    /**
+     * Called after the transaction in which the closure was updated has been successfully committed.
+     * Propagates the change into the org hierarchy index.
+     */
+    public void onTransactionCommitted(Context closureContext) {
+        if (closureContext == null || !closureContext.recordChanges || !orgHierarchyIndex.isEnabled()) {
+            return;
+        }
+        orgHierarchyIndex.applyChange(closureContext.addedOid, closureContext.removedEdges,
+                closureContext.addedEdges, closureContext.deletedOid);
+    }
+
     // may cause implicit commit!!! (in H2)
     public void cleanUpAfterOperation(Context closureContext, Session session) {
         if (closureContext == null) {
@@ -374,6 +398,10 @@ public class OrgClosureManager {
             result.recordWarning("Neither 'check' nor 'rebuild' option was requested.");
             return;         // nothing to do here
         }
+        if (baseHelper.getConfiguration().isOrgClosureParallelRebuild()) {
+            checkAndOrRebuildParallel(check, rebuild, stopOnFailure, quickCheckOnly, result);
+            return;
+        }
         Session session = baseHelper.getSessionFactory().openSession();
         Context context = null;
         boolean rebuilt = false;
@@ -414,6 +442,7 @@ public class OrgClosureManager {
             if (rebuilt) {
                 session.getTransaction().commit();
                 LOGGER.info("Recomputed org closure table was successfully committed into database.");
+                orgHierarchyIndex.invalidate();
             } else {
                 // if !rebuilt, we either didn't do any modifications (in quick check mode)
                 // or we did, but we want them to disappear (although this wish is a bit strange...)
@@ -435,6 +464,53 @@ public class OrgClosureManager {
         }
     }
 
+    private void checkAndOrRebuildParallel(boolean check, boolean rebuild, boolean stopOnFailure, boolean quickCheckOnly,
+                                           OperationResult result) {
+        OrgClosureRebuilder rebuilder = new OrgClosureRebuilder(this, baseHelper);
+        try {
+            if (quickCheckOnly) {
+                if (check) {
+                    int problems = quickCheck();
+                    if (problems == 0) {
+                        LOGGER.debug("Org closure quick test passed.");
+                        return;
+                    }
+                    LOGGER.warn("Content of M_ORG_CLOSURE table is not consistent with the content of M_ORG one. Missing OIDs: {}", problems);
+                    if (!rebuild && stopOnFailure) {
+                        throw new IllegalStateException("Content of M_ORG_CLOSURE table is not consistent with the content of M_ORG one. Missing OIDs: " + problems);
+                    }
+                }
+                if (rebuild) {
+                    rebuilder.store(rebuilder.compute());
+                    orgHierarchyIndex.invalidate();
+                    result.recordSuccess();
+                }
+            } else {
+                List existingEntries = check ? readClosureTable() : null;
+                OrgClosureRebuilder.Closure closure = rebuilder.compute();
+                if (rebuild) {
+                    rebuilder.store(closure);
+                    orgHierarchyIndex.invalidate();
+                    LOGGER.info("Recomputed org closure table was successfully committed into database.");
+                }
+                if (check) {
+                    compareOrgClosureTables(existingEntries, closure.getEntries(), rebuild, result);
+                    if (stopOnFailure && result.isError()) {
+                        throw new IllegalStateException(result.getMessage());
+                    }
+                } else {
+                    result.recordSuccess();
+                }
+            }
+        } catch (RuntimeException e) {
+            LoggingUtils.logException(LOGGER, "Exception during check and/or recomputation of closure table", e);
+            result.recordFatalError("Exception during check and/or recomputation of closure table: " + e.getMessage(), e);
+            if (stopOnFailure) {
+                throw e;
+            }
+        }
+    }
+
     //endregion
 
     //region Rebuilding or checking org closure
@@ -525,6 +601,42 @@ public class OrgClosureManager {
         return rv;
     }
 
+    private int quickCheck() {
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            int problems = quickCheck(session);
+            session.getTransaction().commit();
+            return problems;
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+            throw new IllegalStateException("Shouldn't get here");
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+
+    private List readClosureTable() {
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            LOGGER.info("Reading from existing org closure table");
+            List entries = session.createSQLQuery("SELECT descendant_oid, ancestor_oid, val from " + CLOSURE_TABLE_NAME)
+                    .addScalar("descendant_oid", StringType.INSTANCE)
+                    .addScalar("ancestor_oid", StringType.INSTANCE)
+                    .addScalar("val", IntegerType.INSTANCE)
+                    .list();
+            session.getTransaction().commit();
+            LOGGER.info("{} entries read", entries.size());
+            return entries;
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+            throw new IllegalStateException("Shouldn't get here");
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+
     private int quickCheck(Session session) {
         Query q = session.createSQLQuery(
                 "select count(m_org.oid) as problems from m_org left join m_org_closure cl " +
@@ -567,7 +679,7 @@ public class OrgClosureManager {
             } else {
                 parent = livingParents.iterator().next();
             }
-            addEdgeSimple(oid, parent, session);
+            addEdgeSimple(oid, parent, context, session);
         } else {
             addParentEdges(oid, livingParents, context, session);
         }
@@ -604,8 +716,9 @@ public class OrgClosureManager {
     }
 
     // we expect that the link oid->parent does not exist yet and the parent exists
-    private void addEdgeSimple(String oid, String parent, Session session) {
+    private void addEdgeSimple(String oid, String parent, Context context, Session session) {
         if (parent != null) {
+            recordEdges(context, Collections.singletonList(new Edge(oid, parent)), true);
             long start = System.currentTimeMillis();
             Query addToClosureQuery = session.createSQLQuery(
                     "insert into "+ CLOSURE_TABLE_NAME +" (descendant_oid, ancestor_oid, val) " +
@@ -629,6 +742,7 @@ public class OrgClosureManager {
     private void addIndependentEdges(List<Edge> edges, Context context, Session session) {
         long start = System.currentTimeMillis();
         LOGGER.trace("===================== ADD INDEPENDENT EDGES: {} ================", edges);
+        recordEdges(context, edges, true);
 
         if (!edges.isEmpty()) {
             // for unknown reason, queries in the form of
@@ -872,6 +986,7 @@ public class OrgClosureManager {
     private void removeIndependentEdges(List<Edge> edges, Context context, Session session) {
         long start = System.currentTimeMillis();
         LOGGER.trace("===================== REMOVE INDEPENDENT EDGES: {} ================", edges);
+        recordEdges(context, edges, false);
 
         if (!edges.isEmpty()) {
             // for the reason for this decomposition, see addIndependentEdges
@@ -987,7 +1102,13 @@ public class OrgClosureManager {
 
     //region Misc
 
-    private void lockClosureTable(Session session) {
+    private void recordEdges(Context context, List<Edge> edges, boolean added) {
+        if (context != null && context.recordChanges) {
+            (added ? context.addedEdges : context.removedEdges).addAll(edges);
+        }
+    }
+
+    void lockClosureTable(Session session) {
         long start = System.currentTimeMillis();
         LOGGER.trace("Locking closure table");
         if (isH2()) {
@@ -1417,6 +1538,13 @@ public class OrgClosureManager {
 
     public static class Context {
         String temporaryTableName;
+
+        // changes of org structure, to be applied to org hierarchy index after commit
+        boolean recordChanges;
+        String addedOid;
+        String deletedOid;
+        final List<Edge> addedEdges = new ArrayList<>();
+        final List<Edge> removedEdges = new ArrayList<>();
     }
     //endregion
 
@@ -0,0 +1,502 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.repo.sql.data.common.other.RObjectType;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Recomputes the org closure table without org-by-org SQL processing (used if orgClosureParallelRebuild is set):
+ *
+ * 1. Orgs and parentOrgRef edges between them are loaded in one read-only transaction.
+ * 2. The closure (number of paths between each descendant and ancestor) is computed in memory. Orgs are processed
+ *    level by level (in topological order), orgs at the same level in parallel.
+ * 3. The closure is stored into a shadow table using JDBC batches, in a sequence of short transactions.
+ *    Each rebuild uses its own shadow table (with the creation time and a random number in its name), so rebuilds
+ *    started concurrently on different nodes do not interfere. Shadow tables left by crashed rebuilds are dropped
+ *    when a later rebuild starts.
+ * 4. The content of the closure table is replaced by the content of the shadow table in one transaction,
+ *    holding the closure table lock. Orgs and parent references are read again in that transaction; if they differ
+ *    from the ones read in step 1 (i.e. the org structure was changed in the meantime, by any node), the closure
+ *    is re-computed in that transaction instead.
+ *
+ * So the closure table is locked only for a short time, and the rebuild can run while the repository is in use.
+ */
+class OrgClosureRebuilder {
+
+    private static final Trace LOGGER = TraceManager.getTrace(OrgClosureRebuilder.class);
+
+    // followed by creation time (8 hex digits, seconds) and a random number (4 hex digits), so the name fits
+    // into 30 characters (the limit of older Oracle versions)
+    static final String SHADOW_TABLE_NAME_PREFIX = "m_org_closure_rb_";
+
+    // shadow tables older than this are considered to be left over by crashed or aborted rebuilds
+    private static final long STALE_SHADOW_TABLE_AGE = 24 * 3600L;
+
+    private static final int JDBC_BATCH_SIZE = 1000;
+    private static final int ROWS_PER_TRANSACTION = 50000;
+
+    // levels smaller than this are computed in the calling thread
+    private static final int MIN_PARALLEL_LEVEL_SIZE = 100;
+
+    private final OrgClosureManager closureManager;
+    private final BaseHelper baseHelper;
+
+    OrgClosureRebuilder(OrgClosureManager closureManager, BaseHelper baseHelper) {
+        this.closureManager = closureManager;
+        this.baseHelper = baseHelper;
+    }
+
+    /**
+     * Computed closure: for each org (by index) its ancestors (by index) with the number of paths.
+     */
+    static class Closure {
+        private final List<String> oids;
+        private final Map<Integer, Integer>[] ancestors;
+        private final int size;
+        private final OrgStructure structure;       // the structure the closure was computed from
+
+        private Closure(OrgStructure structure, Map<Integer, Integer>[] ancestors) {
+            this.structure = structure;
+            this.oids = structure.oids;
+            this.ancestors = ancestors;
+            int s = 0;
+            for (Map<Integer, Integer> a : ancestors) {
+                s += a.size();
+            }
+            this.size = s;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Entries in the form of [descendant_oid, ancestor_oid, val] (the same as read from the closure table).
+         */
+        List<Object[]> getEntries() {
+            List<Object[]> rv = new ArrayList<>(size);
+            for (int i = 0; i < ancestors.length; i++) {
+                for (Map.Entry<Integer, Integer> entry : ancestors[i].entrySet()) {
+                    rv.add(new Object[] { oids.get(i), oids.get(entry.getKey()), entry.getValue() });
+                }
+            }
+            return rv;
+        }
+    }
+
+    /**
+     * Orgs and parentOrgRef edges between them, as read from the repository.
+     */
+    private static class OrgStructure {
+        private final List<String> oids;
+        private final List<Object[]> edges;         // [child oid, parent oid]
+
+        private OrgStructure(List<String> oids, List<Object[]> edges) {
+            this.oids = oids;
+            this.edges = edges;
+        }
+
+        boolean isSameAs(OrgStructure other) {
+            return oids.size() == other.oids.size() && edges.size() == other.edges.size()
+                    && new HashSet<>(oids).equals(new HashSet<>(other.oids))
+                    && getEdgeSet().equals(other.getEdgeSet());
+        }
+
+        private Set<List<Object>> getEdgeSet() {
+            Set<List<Object>> rv = new HashSet<>(edges.size() * 2);
+            for (Object[] edge : edges) {
+                rv.add(Arrays.asList(edge));
+            }
+            return rv;
+        }
+    }
+
+    Closure compute() {
+        long start = System.currentTimeMillis();
+        OrgStructure structure = null;
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            structure = loadStructure(session);
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+        Closure closure = compute(structure);
+        LOGGER.info("Org closure computed: {} entries in {} ms", closure.size(), System.currentTimeMillis() - start);
+        return closure;
+    }
+
+    /**
+     * Replaces the content of the closure table with the computed closure.
+     */
+    void store(Closure closure) {
+        dropStaleShadowTables();
+        String shadowTableName = SHADOW_TABLE_NAME_PREFIX + String.format("%08x%04x",
+                System.currentTimeMillis() / 1000L, new SecureRandom().nextInt(0x10000));
+        createShadowTable(shadowTableName);
+        try {
+            fillShadowTable(shadowTableName, closure);
+            swap(shadowTableName, closure);
+        } finally {
+            dropShadowTable(shadowTableName);
+        }
+    }
+
+    private OrgStructure loadStructure(Session session) {
+        List<String> oids = session.createQuery("select o.oid from ROrg o").list();
+        Query edgesQuery = session.createQuery("select ref.ownerOid, ref.targetOid from RObjectReference ref"
+                + " join ref.owner as owner where ref.referenceType = 0 and owner.objectTypeClass = :orgType");
+        edgesQuery.setParameter("orgType", RObjectType.ORG);
+        List<Object[]> edges = edgesQuery.list();
+        LOGGER.info("Loaded {} orgs and {} parent references", oids.size(), edges.size());
+        return new OrgStructure(oids, edges);
+    }
+
+    private Closure compute(OrgStructure structure) {
+        List<String> oids = structure.oids;
+        Map<String, Integer> indices = new HashMap<>(oids.size() * 2);
+        for (int i = 0; i < oids.size(); i++) {
+            indices.put(oids.get(i), i);
+        }
+
+        // edges pointing to non-existing orgs are ignored; multiple references to the same parent count as one edge
+        List<Set<Integer>> parents = new ArrayList<>(oids.size());
+        List<Set<Integer>> children = new ArrayList<>(oids.size());
+        for (int i = 0; i < oids.size(); i++) {
+            parents.add(new HashSet<Integer>());
+            children.add(new HashSet<Integer>());
+        }
+        for (Object[] edge : structure.edges) {
+            Integer child = indices.get((String) edge[0]);
+            Integer parent = indices.get((String) edge[1]);
+            if (child != null && parent != null) {
+                parents.get(child).add(parent);
+                children.get(parent).add(child);
+            }
+        }
+
+        List<List<Integer>> levels = computeLevels(oids, parents, children);
+        Map<Integer, Integer>[] ancestors = computeAncestors(oids.size(), parents, levels);
+        return new Closure(structure, ancestors);
+    }
+
+    // orgs at level N have all their parents at levels < N
+    private List<List<Integer>> computeLevels(List<String> oids, List<Set<Integer>> parents, List<Set<Integer>> children) {
+        int[] remainingParents = new int[oids.size()];
+        List<Integer> current = new ArrayList<>();
+        for (int i = 0; i < oids.size(); i++) {
+            remainingParents[i] = parents.get(i).size();
+            if (remainingParents[i] == 0) {
+                current.add(i);
+            }
+        }
+        List<List<Integer>> levels = new ArrayList<>();
+        int processed = 0;
+        while (!current.isEmpty()) {
+            levels.add(current);
+            processed += current.size();
+            List<Integer> next = new ArrayList<>();
+            for (Integer org : current) {
+                for (Integer child : children.get(org)) {
+                    if (--remainingParents[child] == 0) {
+                        next.add(child);
+                    }
+                }
+            }
+            current = next;
+        }
+        if (processed != oids.size()) {
+            List<String> inCycle = new ArrayList<>();
+            for (int i = 0; i < oids.size() && inCycle.size() < 10; i++) {
+                if (remainingParents[i] > 0) {
+                    inCycle.add(oids.get(i));
+                }
+            }
+            throw new IllegalStateException("Org structure contains a cycle; " + (oids.size() - processed)
+                    + " org(s) cannot be processed, e.g. " + inCycle);
+        }
+        LOGGER.debug("Org structure has {} levels", levels.size());
+        return levels;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Integer>[] computeAncestors(int size, final List<Set<Integer>> parents, List<List<Integer>> levels) {
+        final Map<Integer, Integer>[] ancestors = new Map[size];
+        int threads = baseHelper.getConfiguration().getOrgClosureRebuildThreads();
+        if (threads == 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            int processed = 0;
+            for (List<Integer> level : levels) {
+                if (executor == null || level.size() < MIN_PARALLEL_LEVEL_SIZE) {
+                    computeAncestors(level, parents, ancestors);
+                } else {
+                    // the whole level must be done before the next one starts (Future.get also makes results visible)
+                    List<Future<?>> futures = new ArrayList<>();
+                    int chunkSize = (level.size() + threads - 1) / threads;
+                    for (int from = 0; from < level.size(); from += chunkSize) {
+                        final List<Integer> chunk = level.subList(from, Math.min(from + chunkSize, level.size()));
+                        futures.add(executor.submit(new Callable<Void>() {
+                            @Override
+                            public Void call() {
+                                computeAncestors(chunk, parents, ancestors);
+                                return null;
+                            }
+                        }));
+                    }
+                    for (Future<?> future : futures) {
+                        waitFor(future);
+                    }
+                }
+                int tenthsBefore = processed * 10 / size;
+                processed += level.size();
+                if (processed * 10 / size > tenthsBefore) {          // reporting each 10 %
+                    LOGGER.info("Org closure computation: {} organizations processed (out of {})", processed, size);
+                }
+            }
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        return ancestors;
+    }
+
+    private static void computeAncestors(List<Integer> orgs, List<Set<Integer>> parents, Map<Integer, Integer>[] ancestors) {
+        for (Integer org : orgs) {
+            Map<Integer, Integer> paths = new HashMap<>();
+            paths.put(org, 1);
+            for (Integer parent : parents.get(org)) {
+                for (Map.Entry<Integer, Integer> entry : ancestors[parent].entrySet()) {
+                    Integer existing = paths.get(entry.getKey());
+                    paths.put(entry.getKey(), existing != null ? existing + entry.getValue() : entry.getValue());
+                }
+            }
+            ancestors[org] = paths;
+        }
+    }
+
+    private static void waitFor(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing org closure", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Couldn't compute org closure: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void createShadowTable(String shadowTableName) {
+        LOGGER.debug("Creating table {}", shadowTableName);
+        execute("create table " + shadowTableName + " (\n" +
+                "  descendant_oid VARCHAR(36) NOT NULL,\n" +
+                "  ancestor_oid   VARCHAR(36) NOT NULL,\n" +
+                "  val            INTEGER     NOT NULL\n" +
+                ")");
+    }
+
+    private void dropShadowTable(String shadowTableName) {
+        try {
+            execute("drop table " + shadowTableName);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Couldn't drop table {}, please drop it manually: {}", shadowTableName, e.getMessage(), e);
+        }
+    }
+
+    private void dropStaleShadowTables() {
+        List<String> tableNames;
+        try {
+            tableNames = listShadowTables();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Couldn't look for shadow tables left over by previous org closure rebuilds: {}", e.getMessage(), e);
+            return;
+        }
+        long now = System.currentTimeMillis() / 1000L;
+        for (String tableName : tableNames) {
+            String suffix = tableName.substring(SHADOW_TABLE_NAME_PREFIX.length());
+            long created;
+            try {
+                created = Long.parseLong(suffix.substring(0, Math.min(8, suffix.length())), 16);
+            } catch (NumberFormatException e) {
+                LOGGER.debug("Ignoring table {} (not a shadow table of org closure rebuild)", tableName);
+                continue;
+            }
+            if (now - created > STALE_SHADOW_TABLE_AGE) {
+                LOGGER.info("Dropping table {} left over by a previous org closure rebuild", tableName);
+                dropShadowTable(tableName);
+            }
+        }
+    }
+
+    private List<String> listShadowTables() {
+        final List<String> rv = new ArrayList<>();
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            session.doWork(new Work() {
+                @Override
+                public void execute(Connection connection) throws SQLException {
+                    DatabaseMetaData metaData = connection.getMetaData();
+                    String pattern = SHADOW_TABLE_NAME_PREFIX.replace("_", metaData.getSearchStringEscape() + "_") + "%";
+                    Set<String> seen = new HashSet<>();
+                    // stored names are upper case in some databases (H2, Oracle)
+                    for (String casedPattern : Arrays.asList(pattern, pattern.toUpperCase())) {
+                        try (ResultSet tables = metaData.getTables(null, null, casedPattern, new String[] { "TABLE" })) {
+                            while (tables.next()) {
+                                String tableName = tables.getString("TABLE_NAME");
+                                if (tableName.toLowerCase().startsWith(SHADOW_TABLE_NAME_PREFIX) && seen.add(tableName)) {
+                                    rv.add(tableName);
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+        return rv;
+    }
+
+    private void fillShadowTable(String shadowTableName, Closure closure) {
+        List<Object[]> entries = closure.getEntries();
+        for (int from = 0; from < entries.size(); from += ROWS_PER_TRANSACTION) {
+            List<Object[]> part = entries.subList(from, Math.min(from + ROWS_PER_TRANSACTION, entries.size()));
+            Session session = null;
+            try {
+                session = baseHelper.beginTransaction();
+                insert(session, shadowTableName, part);
+                session.getTransaction().commit();
+            } catch (RuntimeException ex) {
+                baseHelper.handleGeneralRuntimeException(ex, session, null);
+            } finally {
+                baseHelper.cleanupSessionAndResult(session, null);
+            }
+            LOGGER.info("Org closure rebuild: {} entries stored (out of {})", from + part.size(), entries.size());
+        }
+    }
+
+    private void swap(String shadowTableName, Closure closure) {
+        long start = System.currentTimeMillis();
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            closureManager.lockClosureTable(session);
+            // read while holding the lock, so that all changes committed before (by any node) are seen
+            OrgStructure structure = loadStructure(session);
+            session.createSQLQuery("delete from " + OrgClosureManager.CLOSURE_TABLE_NAME).executeUpdate();
+            if (structure.isSameAs(closure.structure)) {
+                int count = session.createSQLQuery("insert into " + OrgClosureManager.CLOSURE_TABLE_NAME
+                        + " (descendant_oid, ancestor_oid, val) select descendant_oid, ancestor_oid, val from "
+                        + shadowTableName).executeUpdate();
+                LOGGER.debug("Copied {} entries from {}", count, shadowTableName);
+            } else {
+                // the computed closure is outdated; we have to compute it again while holding the lock
+                LOGGER.info("Org structure was changed during closure rebuild; computing the closure again");
+                insert(session, OrgClosureManager.CLOSURE_TABLE_NAME, compute(structure).getEntries());
+            }
+            session.getTransaction().commit();
+            LOGGER.info("Content of org closure table was replaced in {} ms", System.currentTimeMillis() - start);
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+
+    private void insert(Session session, final String tableName, final List<Object[]> entries) {
+        session.doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "insert into " + tableName + " (descendant_oid, ancestor_oid, val) values (?, ?, ?)")) {
+                    int batched = 0;
+                    for (Object[] entry : entries) {
+                        statement.setString(1, (String) entry[0]);
+                        statement.setString(2, (String) entry[1]);
+                        statement.setInt(3, (Integer) entry[2]);
+                        statement.addBatch();
+                        if (++batched == JDBC_BATCH_SIZE) {
+                            statement.executeBatch();
+                            batched = 0;
+                        }
+                    }
+                    if (batched > 0) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+        });
+    }
+
+    private void execute(final String sql) {
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+            session.doWork(new Work() {
+                @Override
+                public void execute(Connection connection) throws SQLException {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute(sql);
+                    }
+                }
+            });
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+    }
+}
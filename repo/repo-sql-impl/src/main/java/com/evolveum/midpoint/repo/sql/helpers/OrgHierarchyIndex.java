@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.data.common.other.RObjectType;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-local in-memory copy of the org hierarchy (orgs and parentOrgRef edges between them), used to answer
+ * ancestor/descendant questions without querying m_org_closure. Contains the same information as the closure table:
+ * an org is its own ancestor, and only edges between existing orgs are considered.
+ *
+ * The index is loaded from the database on first use. It is then updated incrementally by {@link OrgClosureManager}
+ * after each committed change of the org structure made by this node, and re-loaded after closure rebuild.
+ * Changes made by other nodes are not seen; for clustered deployments orgHierarchyIndexMaxAge should be set,
+ * so that the index is re-loaded periodically.
+ *
+ * Each change creates a new (immutable) version of the index, so readers never block. Transitive lookups are
+ * memoized per version.
+ */
+@Component
+public class OrgHierarchyIndex {
+
+    private static final Trace LOGGER = TraceManager.getTrace(OrgHierarchyIndex.class);
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    private volatile Version current;
+
+    // incremented on each change, so a load that overlapped with a change can be detected
+    private final AtomicLong changeCount = new AtomicLong();
+
+    // version numbers are unique during the lifetime of this object (even across re-loads)
+    private final AtomicLong versionCounter = new AtomicLong();
+
+    public boolean isEnabled() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        return configuration.isOrgHierarchyIndex() && !configuration.isIgnoreOrgClosure();
+    }
+
+    /**
+     * Returns true if any of the lowerObjectOids is a descendant of upperOrgOid (or is upperOrgOid itself).
+     */
+    public boolean isAnySubordinate(String upperOrgOid, Collection<String> lowerObjectOids) {
+        Version version = getVersion();
+        for (String lowerOid : lowerObjectOids) {
+            if (version.getAncestors(lowerOid).contains(upperOrgOid)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * All ancestors of the org, including the org itself. Empty if the org does not exist.
+     */
+    public Set<String> getAncestors(String oid) {
+        return getVersion().getAncestors(oid);
+    }
+
+    /**
+     * All descendants of the org, including the org itself. Empty if the org does not exist.
+     */
+    public Set<String> getDescendants(String oid) {
+        return getVersion().getDescendants(oid);
+    }
+
+    public long getVersionNumber() {
+        return getVersion().number;
+    }
+
+    /**
+     * Applies a committed change of the org structure. Order of application: added org, removed edges, added edges,
+     * deleted org (this covers adding, modifying and deleting an org).
+     */
+    public void applyChange(String addedOid, Collection<OrgClosureManager.Edge> removedEdges,
+                            Collection<OrgClosureManager.Edge> addedEdges, String deletedOid) {
+        synchronized (this) {
+            changeCount.incrementAndGet();
+            Version version = current;
+            if (version == null) {
+                return;         // nothing to update; will be loaded when needed
+            }
+            Map<String, Set<String>> parents = copy(version.parents);
+            Map<String, Set<String>> children = copy(version.children);
+            if (addedOid != null && !parents.containsKey(addedOid)) {
+                parents.put(addedOid, new HashSet<String>());
+                children.put(addedOid, new HashSet<String>());
+            }
+            if (removedEdges != null) {
+                for (OrgClosureManager.Edge edge : removedEdges) {
+                    removeEdge(parents, children, edge.getDescendant(), edge.getAncestor());
+                }
+            }
+            if (addedEdges != null) {
+                for (OrgClosureManager.Edge edge : addedEdges) {
+                    addEdge(parents, children, edge.getDescendant(), edge.getAncestor());
+                }
+            }
+            if (deletedOid != null && parents.containsKey(deletedOid)) {
+                for (String parent : new HashSet<>(parents.get(deletedOid))) {
+                    removeEdge(parents, children, deletedOid, parent);
+                }
+                for (String child : new HashSet<>(children.get(deletedOid))) {
+                    removeEdge(parents, children, child, deletedOid);
+                }
+                parents.remove(deletedOid);
+                children.remove(deletedOid);
+            }
+            current = new Version(versionCounter.incrementAndGet(), version.loadedAt, parents, children);
+            LOGGER.trace("Org hierarchy index updated to version {}", current.number);
+        }
+    }
+
+    /**
+     * Discards the index; it will be re-loaded on next use.
+     */
+    public void invalidate() {
+        synchronized (this) {
+            changeCount.incrementAndGet();
+            current = null;
+        }
+        LOGGER.debug("Org hierarchy index invalidated");
+    }
+
+    private Version getVersion() {
+        Version version = current;
+        long maxAge = baseHelper.getConfiguration().getOrgHierarchyIndexMaxAge();
+        if (version != null && (maxAge <= 0 || System.currentTimeMillis() - version.loadedAt <= maxAge)) {
+            return version;
+        }
+        long changesBefore = changeCount.get();
+        Version loaded = load();
+        synchronized (this) {
+            if (changeCount.get() == changesBefore) {
+                current = loaded;
+            } else {
+                // the structure changed while we were loading; let's use what we've got but don't remember it
+                LOGGER.debug("Org structure changed while loading org hierarchy index, it will be re-loaded on next use");
+                current = null;
+            }
+        }
+        return loaded;
+    }
+
+    private Version load() {
+        long start = System.currentTimeMillis();
+        Map<String, Set<String>> parents = new HashMap<>();
+        Map<String, Set<String>> children = new HashMap<>();
+
+        Session session = null;
+        try {
+            session = baseHelper.beginReadOnlyTransaction();
+            List<String> orgs = session.createQuery("select o.oid from ROrg o").list();
+            for (String oid : orgs) {
+                parents.put(oid, new HashSet<String>());
+                children.put(oid, new HashSet<String>());
+            }
+            Query edgesQuery = session.createQuery("select ref.ownerOid, ref.targetOid from RObjectReference ref"
+                    + " join ref.owner as owner where ref.referenceType = 0 and owner.objectTypeClass = :orgType");
+            edgesQuery.setParameter("orgType", RObjectType.ORG);
+            List<Object[]> edges = edgesQuery.list();
+            for (Object[] edge : edges) {
+                addEdge(parents, children, (String) edge[0], (String) edge[1]);
+            }
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+        LOGGER.debug("Org hierarchy index loaded: {} orgs in {} ms", parents.size(), System.currentTimeMillis() - start);
+        return new Version(versionCounter.incrementAndGet(), System.currentTimeMillis(), parents, children);
+    }
+
+    // edges pointing from or to non-existing orgs are ignored (the same as in closure table)
+    private static void addEdge(Map<String, Set<String>> parents, Map<String, Set<String>> children,
+                                String child, String parent) {
+        if (parents.containsKey(child) && parents.containsKey(parent)) {
+            parents.get(child).add(parent);
+            children.get(parent).add(child);
+        }
+    }
+
+    private static void removeEdge(Map<String, Set<String>> parents, Map<String, Set<String>> children,
+                                   String child, String parent) {
+        if (parents.containsKey(child)) {
+            parents.get(child).remove(parent);
+        }
+        if (children.containsKey(parent)) {
+            children.get(parent).remove(child);
+        }
+    }
+
+    // changes of org structure are rare compared to reads, so copying the whole structure is acceptable
+    private static Map<String, Set<String>> copy(Map<String, Set<String>> map) {
+        Map<String, Set<String>> rv = new HashMap<>(map.size() * 2);
+        for (Map.Entry<String, Set<String>> entry : map.entrySet()) {
+            rv.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        }
+        return rv;
+    }
+
+    private static class Version {
+
+        private final long number;
+        private final long loadedAt;
+        private final Map<String, Set<String>> parents;
+        private final Map<String, Set<String>> children;
+
+        private final Map<String, Set<String>> ancestorsCache = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> descendantsCache = new ConcurrentHashMap<>();
+
+        private Version(long number, long loadedAt, Map<String, Set<String>> parents, Map<String, Set<String>> children) {
+            this.number = number;
+            this.loadedAt = loadedAt;
+            this.parents = parents;
+            this.children = children;
+        }
+
+        private Set<String> getAncestors(String oid) {
+            return getClosure(oid, parents, ancestorsCache);
+        }
+
+        private Set<String> getDescendants(String oid) {
+            return getClosure(oid, children, descendantsCache);
+        }
+
+        private Set<String> getClosure(String oid, Map<String, Set<String>> edges, Map<String, Set<String>> cache) {
+            if (oid == null || !edges.containsKey(oid)) {
+                return Collections.emptySet();
+            }
+            Set<String> rv = cache.get(oid);
+            if (rv != null) {
+                return rv;
+            }
+            rv = new HashSet<>();
+            Deque<String> toVisit = new ArrayDeque<>();
+            toVisit.add(oid);
+            while (!toVisit.isEmpty()) {
+                String current = toVisit.poll();
+                if (rv.add(current)) {
+                    toVisit.addAll(edges.get(current));
+                }
+            }
+            rv = Collections.unmodifiableSet(rv);
+            cache.put(oid, rv);
+            return rv;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.prism.PrismContainer;
+import com.evolveum.midpoint.prism.PrismContainerValue;
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.delta.ItemDelta;
+import com.evolveum.midpoint.prism.path.IdItemPathSegment;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.prism.path.ItemPathSegment;
+import com.evolveum.midpoint.prism.path.NameItemPathSegment;
+import com.evolveum.midpoint.repo.sql.data.common.RObject;
+import com.evolveum.midpoint.repo.sql.data.common.container.RAssignment;
+import com.evolveum.midpoint.repo.sql.data.common.id.RContainerId;
+import com.evolveum.midpoint.repo.sql.data.common.other.RAssignmentOwner;
+import com.evolveum.midpoint.repo.sql.util.ClassMapper;
+import com.evolveum.midpoint.repo.sql.util.DtoTranslationException;
+import com.evolveum.midpoint.repo.sql.util.IdGeneratorResult;
+import com.evolveum.midpoint.repo.sql.util.PrismIdentifierGenerator;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
+import com.evolveum.midpoint.util.QNameUtil;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AbstractRoleType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.AssignmentType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.namespace.QName;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Translates modifications of object into targeted updates of individual rows, instead of merging the whole
+ * RObject (which makes hibernate to diff and rewrite all child collections).
+ *
+ * Currently only assignments and inducements (m_assignment table with its references and extension values)
+ * are supported: whole values may be added or deleted, and existing values (identified by container id)
+ * may be modified. The main row is updated only in its version and fullObject columns.
+ *
+ * If modifications contain anything else, the caller has to use the standard merge path.
+ */
+@Component
+public class PartialUpdateHelper {
+
+    private static final Trace LOGGER = TraceManager.getTrace(PartialUpdateHelper.class);
+
+    @Autowired
+    private PrismContext prismContext;
+
+    // how many modifications went which way; for diagnostics and tests
+    private final AtomicLong partialUpdateCount = new AtomicLong();
+    private final AtomicLong fallbackCount = new AtomicLong();
+
+    /**
+     * Returns a context for the partial update or null if the modifications cannot be applied this way.
+     * Must be called before modifications are applied to the object.
+     */
+    public <T extends ObjectType> Context prepare(Class<T> type, PrismObject<T> object,
+                                                  Collection<? extends ItemDelta> modifications) {
+        Context ctx = createContext(type, object, modifications);
+        if (ctx == null) {
+            fallbackCount.incrementAndGet();
+        }
+        return ctx;
+    }
+
+    private <T extends ObjectType> Context createContext(Class<T> type, PrismObject<T> object,
+                                                         Collection<? extends ItemDelta> modifications) {
+        if (!FocusType.class.isAssignableFrom(type) || modifications.isEmpty()) {
+            return null;
+        }
+
+        Context ctx = new Context();
+        for (ItemDelta delta : modifications) {
+            ItemPath path = delta.getPath();
+            if (path == null || path.isEmpty()) {
+                return null;
+            }
+            QName itemName = getFirstName(path);
+            RAssignmentOwner owner = getAssignmentOwner(type, itemName);
+            if (owner == null) {
+                return null;
+            }
+            if (path.size() == 1) {
+                if (delta.isReplace()) {
+                    // we would have to know all the values present in the database; let's use the standard way
+                    return null;
+                }
+                continue;
+            }
+            ItemPathSegment second = path.getSegments().get(1);
+            if (!(second instanceof IdItemPathSegment) || ((IdItemPathSegment) second).getId() == null) {
+                return null;
+            }
+            ctx.modifiedIds.add(((IdItemPathSegment) second).getId());
+        }
+
+        collectIds(object, FocusType.F_ASSIGNMENT, ctx.idsBefore);
+        if (AbstractRoleType.class.isAssignableFrom(type)) {
+            collectIds(object, AbstractRoleType.F_INDUCEMENT, ctx.idsBefore);
+        }
+        if (ctx.idsBefore.contains(null)) {
+            return null;            // should not occur for objects stored in repository
+        }
+        return ctx;
+    }
+
+    /**
+     * Loads (managed) RObject for given object, updates rows for assignments/inducements changed by modifications
+     * and returns the RObject. Modifications must be already applied to the object.
+     * Caller is responsible for updating the version and fullObject of the returned RObject.
+     */
+    public <T extends ObjectType> RObject execute(Session session, Context ctx, Class<T> type, PrismObject<T> object)
+            throws DtoTranslationException {
+
+        PrismIdentifierGenerator generator = new PrismIdentifierGenerator();
+        IdGeneratorResult generatorResult = generator.generate(object, PrismIdentifierGenerator.Operation.MODIFY);
+
+        Map<Long, RAssignmentOwner> idsAfter = new HashMap<>();
+        Map<Long, AssignmentType> valuesAfter = new HashMap<>();
+        collectValues(object, FocusType.F_ASSIGNMENT, RAssignmentOwner.FOCUS, idsAfter, valuesAfter);
+        if (AbstractRoleType.class.isAssignableFrom(type)) {
+            collectValues(object, AbstractRoleType.F_INDUCEMENT, RAssignmentOwner.ABSTRACT_ROLE, idsAfter, valuesAfter);
+        }
+
+        Set<Long> toDelete = new HashSet<>();
+        Set<Long> toInsert = new HashSet<>();
+        for (Long id : ctx.idsBefore) {
+            if (!idsAfter.containsKey(id)) {
+                toDelete.add(id);
+            } else if (ctx.modifiedIds.contains(id)) {
+                toDelete.add(id);
+                toInsert.add(id);
+            }
+        }
+        for (Long id : idsAfter.keySet()) {
+            if (!ctx.idsBefore.contains(id)) {
+                toInsert.add(id);
+            }
+        }
+        LOGGER.trace("Partial update of {}: assignment rows to delete: {}, to insert: {}", object, toDelete, toInsert);
+
+        RObject rObject = (RObject) session.get(ClassMapper.getHQLTypeClass(type), object.getOid());
+
+        for (Long id : toDelete) {
+            Object row = session.get(RAssignment.class, new RContainerId(RUtil.toInteger(id), object.getOid()));
+            if (row != null) {
+                session.delete(row);
+            } else {
+                LOGGER.debug("Assignment/inducement row {} for {} was not found in the repository", id, object);
+            }
+        }
+        if (!toDelete.isEmpty() && !toInsert.isEmpty()) {
+            // rows being re-inserted have the same primary keys; hibernate would otherwise execute inserts first
+            session.flush();
+        }
+
+        T objectType = object.asObjectable();
+        for (Long id : toInsert) {
+            RAssignment rAssignment = new RAssignment(rObject, idsAfter.get(id));
+            RAssignment.copyFromJAXB(valuesAfter.get(id), rAssignment, objectType, prismContext, generatorResult);
+            rAssignment.setTransient(true);
+            session.save(rAssignment);
+        }
+        partialUpdateCount.incrementAndGet();
+        return rObject;
+    }
+
+    /**
+     * Number of modifications executed as partial updates.
+     */
+    public long getPartialUpdateCount() {
+        return partialUpdateCount.get();
+    }
+
+    /**
+     * Number of modifications that were examined by {@link #prepare} but had to use the standard merge path.
+     */
+    public long getFallbackCount() {
+        return fallbackCount.get();
+    }
+
+    private RAssignmentOwner getAssignmentOwner(Class<? extends ObjectType> type, QName itemName) {
+        if (QNameUtil.match(FocusType.F_ASSIGNMENT, itemName)) {
+            return RAssignmentOwner.FOCUS;
+        } else if (AbstractRoleType.class.isAssignableFrom(type) && QNameUtil.match(AbstractRoleType.F_INDUCEMENT, itemName)) {
+            return RAssignmentOwner.ABSTRACT_ROLE;
+        } else {
+            return null;
+        }
+    }
+
+    private QName getFirstName(ItemPath path) {
+        ItemPathSegment first = path.first();
+        return first instanceof NameItemPathSegment ? ((NameItemPathSegment) first).getName() : null;
+    }
+
+    private void collectIds(PrismObject<?> object, QName containerName, Set<Long> ids) {
+        PrismContainer<?> container = object.findContainer(containerName);
+        if (container == null) {
+            return;
+        }
+        for (PrismContainerValue<?> value : container.getValues()) {
+            ids.add(value.getId());
+        }
+    }
+
+    private void collectValues(PrismObject<?> object, QName containerName, RAssignmentOwner owner,
+                               Map<Long, RAssignmentOwner> ids, Map<Long, AssignmentType> values) {
+        PrismContainer<AssignmentType> container = object.findContainer(containerName);
+        if (container == null) {
+            return;
+        }
+        for (PrismContainerValue<AssignmentType> value : container.getValues()) {
+            ids.put(value.getId(), owner);
+            values.put(value.getId(), value.asContainerable(AssignmentType.class));
+        }
+    }
+
+    public static class Context {
+        private final Set<Long> idsBefore = new HashSet<>();
+        private final Set<Long> modifiedIds = new HashSet<>();
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.prism.Item;
+import com.evolveum.midpoint.prism.PrismContainer;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.PrismProperty;
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.data.common.any.RAnyConverter;
+import com.evolveum.midpoint.repo.sql.data.common.any.ROExtPromoted;
+import com.evolveum.midpoint.repo.sql.data.common.type.RObjectExtensionType;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintains m_object_ext_promoted table, i.e. copies of values of object extension items that are promoted
+ * to dedicated columns (promotedExtensionItems configuration property). The values are written in the same
+ * transaction as the object itself, so the table is always consistent with the generic extension tables
+ * for objects stored after the promotion was configured. Objects stored earlier are filled in by {@link #backfill()},
+ * run in the background at startup if promotedExtensionItemsBackfill is set (or by re-indexing them).
+ */
+@Component
+public class PromotedExtensionHelper {
+
+    private static final Trace LOGGER = TraceManager.getTrace(PromotedExtensionHelper.class);
+
+    // objects processed in one backfill transaction; also keeps "in" lists within the limit of Oracle (1000)
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    private Thread backfillThread;
+    private volatile boolean stopping;
+
+    /**
+     * Starts the backfill (if configured) in a background thread, so the startup is not delayed by it.
+     * Until it is finished, searches using promoted columns can miss objects stored before the promotion.
+     */
+    @PostConstruct
+    public void initialize() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        if (configuration.isPromotedExtensionItemsBackfill() && !configuration.getPromotedExtensionItems().isEmpty()) {
+            backfillThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        backfill();
+                    } catch (RuntimeException ex) {
+                        LoggingUtils.logUnexpectedException(LOGGER, "Couldn't fill in promoted extension columns", ex);
+                    }
+                }
+            }, "PromotedExtensionBackfill");
+            backfillThread.setDaemon(true);
+            backfillThread.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        Thread currentThread = backfillThread;
+        if (currentThread == null) {
+            return;
+        }
+        try {
+            currentThread.join();           // at most one batch is to be finished
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return !baseHelper.getConfiguration().getPromotedExtensionItems().isEmpty();
+    }
+
+    /**
+     * Writes promoted values of the object. If the object existed before (modify, overwriting add), its row
+     * is replaced, so values that were removed from the object are cleared.
+     */
+    public <T extends ObjectType> void updatePromotedValues(Session session, String oid, PrismObject<T> object,
+                                                            boolean existing) throws SchemaException {
+        if (!isEnabled()) {
+            return;
+        }
+        ROExtPromoted row = new ROExtPromoted(oid);
+        PrismContainer<?> extension = object.findContainer(ObjectType.F_EXTENSION);
+        if (extension != null && extension.getValue() != null) {
+            for (Item<?, ?> item : extension.getValue().getItems()) {
+                String slot = baseHelper.getConfiguration().getPromotedExtensionSlot(item.getElementName());
+                if (slot == null || !(item instanceof PrismProperty) || item.isEmpty()) {
+                    continue;
+                }
+                if (item.size() > 1) {
+                    throw new SchemaException("Promoted extension item " + item.getElementName()
+                            + " must be single-valued, but it has " + item.size() + " values in " + object);
+                }
+                Object value = RAnyConverter.getAggregatedRepoObject(((PrismProperty<?>) item).getRealValue());
+                Class<?> slotType = ROExtPromoted.getSlotType(slot);
+                if (value != null && !slotType.isAssignableFrom(value.getClass())) {
+                    throw new SchemaException("Value of promoted extension item " + item.getElementName()
+                            + " is of type " + value.getClass().getSimpleName() + ", but column '" + slot
+                            + "' holds " + slotType.getSimpleName() + " values");
+                }
+                row.setSlotValue(slot, value);
+            }
+        }
+        if (row.isEmpty()) {
+            if (existing) {
+                deletePromotedValues(session, oid);
+            }
+        } else {
+            session.merge(row);
+        }
+    }
+
+    public void deletePromotedValues(Session session, String oid) {
+        if (!isEnabled()) {
+            return;
+        }
+        Query query = session.createQuery("delete ROExtPromoted where ownerOid = :oid");
+        query.setString("oid", oid);
+        query.executeUpdate();
+    }
+
+    /**
+     * Fills in promoted columns from the generic extension tables, for all objects. Objects having values
+     * of a promoted item are processed in batches of BACKFILL_BATCH_SIZE (ordered by OID), each batch
+     * in its own transaction. Only columns of items that have values in the generic tables are written.
+     * Returns the number of rows created.
+     */
+    public int backfill() {
+        Map<String, String> items = baseHelper.getConfiguration().getPromotedExtensionItems();
+        LOGGER.info("Filling in promoted extension columns for {}", items);
+        long start = System.currentTimeMillis();
+        int created = 0;
+        for (Map.Entry<String, String> entry : items.entrySet()) {
+            String lastOid = null;
+            int updated = 0;
+            boolean more = true;
+            while (more) {
+                if (stopping) {
+                    LOGGER.info("Filling in promoted extension columns was stopped ({} rows created)", created);
+                    return created;
+                }
+                BackfillBatchResult batchResult = backfillBatch(entry.getKey(), entry.getValue(), lastOid);
+                created += batchResult.created;
+                updated += batchResult.updated;
+                lastOid = batchResult.lastOid;
+                more = batchResult.more;
+            }
+            LOGGER.debug("Promoted extension item {}: {} rows updated", entry.getKey(), updated);
+        }
+        LOGGER.info("Promoted extension columns filled in {} ms ({} rows created)", System.currentTimeMillis() - start, created);
+        return created;
+    }
+
+    private static class BackfillBatchResult {
+        private int created;
+        private int updated;
+        private String lastOid;
+        private boolean more;
+    }
+
+    // afterOid is null for the first batch
+    private BackfillBatchResult backfillBatch(String itemName, String slot, String afterOid) {
+        BackfillBatchResult batchResult = new BackfillBatchResult();
+        String extTable = ROExtPromoted.getExtensionTable(slot);
+        String valueColumn = ROExtPromoted.getExtensionValueColumn(slot);
+        // items specified without namespace match any namespace
+        String nameCondition = itemName.contains("#") ? "e.eName = :name" : "e.eName like :name";
+        String name = itemName.contains("#") ? itemName : "%#" + itemName;
+        String extCondition = "e.ownerType = :ownerType and " + nameCondition;
+
+        Session session = null;
+        try {
+            session = baseHelper.beginTransaction();
+
+            // no empty string as the initial value: Oracle treats it as null
+            Query select = session.createSQLQuery("select distinct e.owner_oid from " + extTable + " e where "
+                    + extCondition + (afterOid != null ? " and e.owner_oid > :afterOid" : "") + " order by e.owner_oid");
+            setExtensionParameters(select, name);
+            if (afterOid != null) {
+                select.setString("afterOid", afterOid);
+            }
+            select.setMaxResults(BACKFILL_BATCH_SIZE);
+            List<String> oids = select.list();
+
+            if (!oids.isEmpty()) {
+                Query insert = session.createSQLQuery("insert into " + ROExtPromoted.TABLE_NAME + " (owner_oid)"
+                        + " select distinct e.owner_oid from " + extTable + " e where " + extCondition
+                        + " and e.owner_oid in (:oids)"
+                        + " and not exists (select 1 from " + ROExtPromoted.TABLE_NAME + " p where p.owner_oid = e.owner_oid)");
+                setExtensionParameters(insert, name);
+                insert.setParameterList("oids", oids);
+                batchResult.created = insert.executeUpdate();
+
+                String ownerCondition = "e.owner_oid = " + ROExtPromoted.TABLE_NAME + ".owner_oid and " + extCondition;
+                Query update = session.createSQLQuery("update " + ROExtPromoted.TABLE_NAME + " set " + slot
+                        + " = (select max(e." + valueColumn + ") from " + extTable + " e where " + ownerCondition + ")"
+                        + " where owner_oid in (:oids)"
+                        + " and exists (select 1 from " + extTable + " e where " + ownerCondition + ")");
+                setExtensionParameters(update, name);
+                update.setParameterList("oids", oids);
+                batchResult.updated = update.executeUpdate();
+
+                batchResult.lastOid = oids.get(oids.size() - 1);
+                batchResult.more = oids.size() == BACKFILL_BATCH_SIZE;
+            }
+            session.getTransaction().commit();
+        } catch (RuntimeException ex) {
+            baseHelper.handleGeneralRuntimeException(ex, session, null);
+        } finally {
+            baseHelper.cleanupSessionAndResult(session, null);
+        }
+        return batchResult;
+    }
+
+    private void setExtensionParameters(Query query, String name) {
+        query.setParameter("ownerType", RObjectExtensionType.EXTENSION.ordinal());
+        query.setString("name", name);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.helpers;
+
+import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.query2.QueryPlan;
+import com.evolveum.midpoint.repo.sql.query2.QueryShape;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Translations of queries (HQL text and parameter bindings), keyed by query shape, i.e. by the query with
+ * string values parameterized out. Shapes that cannot be parameterized are remembered as well, so that
+ * the analysis is not repeated for them.
+ *
+ * Everything that influences the translation besides the query itself (promoted extension items, version
+ * of the org hierarchy index for queries with org filters) is part of the shape, so entries never need
+ * to be invalidated. The least recently used entries are evicted when queryPlanCacheMaxEntries is reached;
+ * setting it to 0 disables the cache.
+ */
+@Component
+public class QueryPlanCache {
+
+    @Autowired
+    private BaseHelper baseHelper;
+
+    private final LinkedHashMap<QueryShape, Entry> entries = new LinkedHashMap<QueryShape, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<QueryShape, Entry> eldest) {
+            return size() > baseHelper.getConfiguration().getQueryPlanCacheMaxEntries();
+        }
+    };
+
+    private long hits;
+    private long misses;
+    private long notCacheable;
+
+    public boolean isEnabled() {
+        SqlRepositoryConfiguration configuration = baseHelper.getConfiguration();
+        return configuration.getQueryPlanCacheMaxEntries() > 0;
+    }
+
+    /**
+     * Returns the entry for given shape, or null if the shape is not known. Entry with no plan means
+     * that the shape is not cacheable.
+     */
+    public synchronized Entry get(QueryShape shape) {
+        Entry entry = entries.get(shape);
+        if (entry == null) {
+            misses++;
+        } else if (entry.plan == null) {
+            notCacheable++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    public synchronized Entry put(QueryShape shape, QueryPlan plan) {
+        Entry entry = new Entry(plan);
+        entries.put(shape, entry);
+        return entry;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Number of lookups of shapes that are known not to be cacheable.
+     */
+    public synchronized long getNotCacheable() {
+        return notCacheable;
+    }
+
+    /**
+     * Fraction of lookups that were served from the cache (0 if there were none).
+     */
+    public synchronized double getHitRatio() {
+        long lookups = hits + misses + notCacheable;
+        return lookups > 0 ? (double) hits / lookups : 0.0;
+    }
+
+    public synchronized void resetStatistics() {
+        hits = 0;
+        misses = 0;
+        notCacheable = 0;
+    }
+
+    public static class Entry {
+        private final QueryPlan plan;
+
+        private Entry(QueryPlan plan) {
+            this.plan = plan;
+        }
+
+        public QueryPlan getPlan() {
+            return plan;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.util.logging.LoggingUtils;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.SequenceType;
@@ -33,8 +34,14 @@ import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author mederly
@@ -54,13 +61,101 @@ public class SequenceHelper {
     private static final Trace LOGGER = TraceManager.getTrace(SqlRepositoryServiceImpl.class);
     private static final Trace LOGGER_PERFORMANCE = TraceManager.getTrace(SqlRepositoryServiceImpl.PERFORMANCE_LOG_NAME);
 
+    // values reserved by this node (sequence OID -> values in the order they are to be handed out)
+    private final Map<String, LinkedList<Long>> reservedValues = new HashMap<>();
+
+    /**
+     * Returns a value reserved by this node for given sequence, or null if there is none.
+     */
+    public synchronized Long takeReservedValue(String oid) {
+        LinkedList<Long> values = reservedValues.get(oid);
+        if (values == null) {
+            return null;
+        }
+        Long value = values.removeFirst();
+        if (values.isEmpty()) {
+            reservedValues.remove(oid);
+        }
+        return value;
+    }
+
+    private synchronized void addReservedValues(String oid, Collection<Long> values) {
+        LinkedList<Long> existing = reservedValues.get(oid);
+        if (existing == null) {
+            existing = new LinkedList<>();
+            reservedValues.put(oid, existing);
+        }
+        existing.addAll(values);
+    }
+
+    /**
+     * Forgets the values reserved by this node for given sequence. To be called when the sequence is modified
+     * or deleted, as the reserved values need not be valid for the new state of the sequence (e.g. counter
+     * or maxCounter were changed).
+     */
+    public synchronized void discardReservedValues(String oid) {
+        LinkedList<Long> values = reservedValues.remove(oid);
+        if (values != null) {
+            LOGGER.debug("Discarded values {} reserved by this node for sequence {}", values, oid);
+        }
+    }
+
+    public synchronized int getReservedValuesCount(String oid) {
+        LinkedList<Long> values = reservedValues.get(oid);
+        return values != null ? values.size() : 0;
+    }
+
+    /**
+     * Gives the values reserved by this node back to their sequences (as unused values), so that no gaps
+     * are created on clean shutdown. Values that do not fit into maxUnusedValues of the sequence are lost.
+     */
+    @PreDestroy
+    public void returnReservedValues() {
+        Map<String, LinkedList<Long>> toReturn;
+        synchronized (this) {
+            toReturn = new HashMap<>(reservedValues);
+            reservedValues.clear();
+        }
+        for (Map.Entry<String, LinkedList<Long>> entry : toReturn.entrySet()) {
+            OperationResult result = new OperationResult(SequenceHelper.class.getName() + ".returnReservedValues");
+            try {
+                returnUnusedValuesToSequenceAttempt(entry.getKey(), entry.getValue(), result);
+            } catch (ObjectNotFoundException | SchemaException | RuntimeException e) {
+                LoggingUtils.logException(LOGGER, "Couldn't return reserved values {} to sequence {}", e,
+                        entry.getValue(), entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Reserves a block of up to blockSize values for this node; returns the first one and keeps the others
+     * for subsequent calls (see {@link #takeReservedValue(String)}).
+     */
+    public long advanceSequenceAttempt(String oid, int blockSize, OperationResult result) throws ObjectNotFoundException,
+            SchemaException, SerializationRelatedException {
+        List<Long> values = reserveValuesAttempt(oid, blockSize, result);
+        if (values.size() > 1) {
+            addReservedValues(oid, values.subList(1, values.size()));
+        }
+        return values.get(0);
+    }
+
     public long advanceSequenceAttempt(String oid, OperationResult result) throws ObjectNotFoundException,
             SchemaException, SerializationRelatedException {
+        return reserveValuesAttempt(oid, 1, result).get(0);
+    }
 
-        long returnValue;
+    /**
+     * Takes up to count values from the sequence: unused values first, then a contiguous block from the counter
+     * (not crossing maxCounter). At least one value is always returned.
+     */
+    private List<Long> reserveValuesAttempt(String oid, int count, OperationResult result) throws ObjectNotFoundException,
+            SchemaException, SerializationRelatedException {
 
-        LOGGER.debug("Advancing sequence with oid '{}'.", oid);
-        LOGGER_PERFORMANCE.debug("> advance sequence, oid={}", oid);
+        List<Long> returnValues = new ArrayList<>(count);
+
+        LOGGER.debug("Advancing sequence with oid '{}' (values requested: {}).", oid, count);
+        LOGGER_PERFORMANCE.debug("> advance sequence, oid={}, count={}", oid, count);
 
         Session session = null;
         try {
@@ -73,36 +168,38 @@ public class SequenceHelper {
             SequenceType sequence = prismObject.asObjectable();
 
             if (!sequence.getUnusedValues().isEmpty()) {
-                returnValue = sequence.getUnusedValues().remove(0);
+                while (!sequence.getUnusedValues().isEmpty() && returnValues.size() < count) {
+                    returnValues.add(sequence.getUnusedValues().remove(0));
+                }
             } else {
                 long counter = sequence.getCounter() != null ? sequence.getCounter() : 0L;
                 long maxCounter = sequence.getMaxCounter() != null ? sequence.getMaxCounter() : Long.MAX_VALUE;
                 boolean allowRewind = Boolean.TRUE.equals(sequence.isAllowRewind());
 
-                if (counter < maxCounter) {
-                    returnValue = counter;
-                    sequence.setCounter(counter + 1);
-                } else if (counter == maxCounter) {
-                    returnValue = counter;
-                    if (allowRewind) {
-                        sequence.setCounter(0L);
-                    } else {
-                        sequence.setCounter(counter + 1);       // will produce exception during next run
-                    }
-                } else {        // i.e. counter > maxCounter
+                if (counter > maxCounter) {
                     if (allowRewind) {          // shouldn't occur but...
                         LOGGER.warn("Sequence {} overflown with allowRewind set to true. Rewinding.", oid);
-                        returnValue = 0;
-                        sequence.setCounter(1L);
+                        counter = 0;
                     } else {
                         // TODO some better exception...
                         throw new SystemException("No (next) value available from sequence " + oid + ". Current counter = " + sequence.getCounter() + ", max value = " + sequence.getMaxCounter());
                     }
                 }
+                long last = maxCounter - counter < count - 1 ? maxCounter : counter + count - 1;        // avoiding overflow
+                for (long value = counter; value - 1 != last; value++) {        // terminates also for last = Long.MAX_VALUE
+                    returnValues.add(value);
+                }
+                if (last < maxCounter) {
+                    sequence.setCounter(last + 1);
+                } else if (allowRewind) {
+                    sequence.setCounter(0L);
+                } else {
+                    sequence.setCounter(last + 1);       // will produce exception during next run
+                }
             }
 
             if (LOGGER.isTraceEnabled()) {
-                LOGGER.trace("Return value = {}, OBJECT after:\n{}", returnValue, prismObject.debugDump());
+                LOGGER.trace("Return values = {}, OBJECT after:\n{}", returnValues, prismObject.debugDump());
             }
 
             // merge and update object
@@ -117,7 +214,7 @@ public class SequenceHelper {
             session.getTransaction().commit();
             LOGGER.trace("Committed!");
 
-            return returnValue;
+            return returnValues;
         } catch (ObjectNotFoundException ex) {
             baseHelper.rollbackTransaction(session, ex, result, true);
             throw ex;
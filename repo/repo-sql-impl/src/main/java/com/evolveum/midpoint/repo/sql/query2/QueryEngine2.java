@@ -18,8 +18,11 @@ package com.evolveum.midpoint.repo.sql.query2;
 
 import com.evolveum.midpoint.prism.Containerable;
 import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
 import com.evolveum.midpoint.prism.query.ObjectQuery;
 import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.helpers.OrgHierarchyIndex;
+import com.evolveum.midpoint.repo.sql.helpers.QueryPlanCache;
 import com.evolveum.midpoint.repo.sql.query.QueryException;
 import com.evolveum.midpoint.repo.sql.query.RQuery;
 import com.evolveum.midpoint.repo.sql.query2.hqm.HibernateQuery;
@@ -28,11 +31,14 @@ import com.evolveum.midpoint.repo.sql.query2.hqm.RootHibernateQuery;
 import com.evolveum.midpoint.repo.sql.util.GetObjectResult;
 import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.SelectorOptions;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
 import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
 import org.hibernate.Criteria;
 import org.hibernate.Session;
 import org.hibernate.criterion.Projections;
 
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -40,21 +46,77 @@ import java.util.Collection;
  */
 public class QueryEngine2 {
 
+    private static final Trace LOGGER = TraceManager.getTrace(QueryEngine2.class);
+
     private SqlRepositoryConfiguration repoConfiguration;
     private PrismContext prismContext;
+    private OrgHierarchyIndex orgHierarchyIndex;
+    private QueryPlanCache queryPlanCache;
 
     public QueryEngine2(SqlRepositoryConfiguration config, PrismContext prismContext) {
+        this(config, prismContext, null);
+    }
+
+    public QueryEngine2(SqlRepositoryConfiguration config, PrismContext prismContext, OrgHierarchyIndex orgHierarchyIndex) {
+        this(config, prismContext, orgHierarchyIndex, null);
+    }
+
+    public QueryEngine2(SqlRepositoryConfiguration config, PrismContext prismContext, OrgHierarchyIndex orgHierarchyIndex,
+                        QueryPlanCache queryPlanCache) {
         this.repoConfiguration = config;
         this.prismContext = prismContext;
+        this.orgHierarchyIndex = orgHierarchyIndex;
+        this.queryPlanCache = queryPlanCache;
     }
 
     public RQuery interpret(ObjectQuery query, Class<? extends Containerable> type,
                             Collection<SelectorOptions<GetOperationOptions>> options,
                             boolean countingObjects, Session session) throws QueryException {
 
-        QueryInterpreter2 interpreter = new QueryInterpreter2(repoConfiguration);
+        if (queryPlanCache != null && queryPlanCache.isEnabled()) {
+            QueryShape shape = createShape(query, type, options, countingObjects);
+            QueryPlanCache.Entry entry = queryPlanCache.get(shape);
+            if (entry == null) {
+                entry = queryPlanCache.put(shape, createPlan(shape, type, options, countingObjects, session));
+            }
+            if (entry.getPlan() != null) {
+                ObjectPaging paging = query != null ? query.getPaging() : null;
+                return new RQueryImpl(entry.getPlan().createQuery(session, shape.getValues(), paging), null);
+            }
+        }
+
+        QueryInterpreter2 interpreter = new QueryInterpreter2(repoConfiguration, orgHierarchyIndex);
         RootHibernateQuery hibernateQuery = interpreter.interpret(query, type, options, prismContext, countingObjects, session);
 
         return new RQueryImpl(hibernateQuery.getAsHqlQuery(session), hibernateQuery);
     }
+
+    private QueryShape createShape(ObjectQuery query, Class<? extends Containerable> type,
+                                   Collection<SelectorOptions<GetOperationOptions>> options, boolean countingObjects) {
+        QueryShape shape = QueryShape.create(query, type, options, countingObjects);
+        // org filters are translated using the current content of the org hierarchy index (if it's used)
+        Long orgIndexVersion = null;
+        if (shape.containsOrgFilter() && orgHierarchyIndex != null && orgHierarchyIndex.isEnabled()) {
+            orgIndexVersion = orgHierarchyIndex.getVersionNumber();
+        }
+        return shape.withEnvironment(Arrays.asList(repoConfiguration.getPromotedExtensionItems(), orgIndexVersion));
+    }
+
+    /**
+     * Translates the masked query and creates a plan from it. Returns null if the shape is not cacheable.
+     * Problems with the masked query are not reported here; the original query is interpreted in such cases.
+     */
+    private QueryPlan createPlan(QueryShape shape, Class<? extends Containerable> type,
+                                 Collection<SelectorOptions<GetOperationOptions>> options, boolean countingObjects,
+                                 Session session) {
+        try {
+            QueryInterpreter2 interpreter = new QueryInterpreter2(repoConfiguration, orgHierarchyIndex);
+            RootHibernateQuery hibernateQuery = interpreter.interpret(shape.getMaskedQuery(), type, options, prismContext,
+                    countingObjects, session);
+            return QueryPlan.create(hibernateQuery, shape.getValues().size());
+        } catch (QueryException|RuntimeException e) {
+            LOGGER.debug("Couldn't create query plan, the query will not be cached: {}", e.getMessage(), e);
+            return null;
+        }
+    }
 }
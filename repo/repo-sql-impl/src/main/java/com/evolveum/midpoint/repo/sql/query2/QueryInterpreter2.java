@@ -24,7 +24,11 @@ import com.evolveum.midpoint.prism.polystring.PolyString;
 import com.evolveum.midpoint.prism.query.*;
 import com.evolveum.midpoint.repo.sql.ObjectPagingAfterOid;
 import com.evolveum.midpoint.repo.sql.SqlRepositoryConfiguration;
+import com.evolveum.midpoint.repo.sql.data.common.RObject;
 import com.evolveum.midpoint.repo.sql.data.common.embedded.RPolyString;
+import com.evolveum.midpoint.repo.sql.data.common.enums.SchemaEnum;
+import com.evolveum.midpoint.repo.sql.data.common.type.RObjectExtensionType;
+import com.evolveum.midpoint.repo.sql.helpers.OrgHierarchyIndex;
 import com.evolveum.midpoint.repo.sql.query.QueryException;
 import com.evolveum.midpoint.repo.sql.query2.definition.*;
 import com.evolveum.midpoint.repo.sql.query2.hqm.ProjectionElement;
@@ -37,18 +41,25 @@ import com.evolveum.midpoint.repo.sql.query2.matcher.StringMatcher;
 import com.evolveum.midpoint.repo.sql.query2.resolution.ItemPathResolver;
 import com.evolveum.midpoint.repo.sql.query2.resolution.ProperDataSearchResult;
 import com.evolveum.midpoint.repo.sql.query2.restriction.*;
+import com.evolveum.midpoint.repo.sql.util.ColumnProjection;
 import com.evolveum.midpoint.repo.sql.util.GetContainerableResult;
 import com.evolveum.midpoint.repo.sql.util.GetObjectResult;
+import com.evolveum.midpoint.repo.sql.util.RUtil;
 import com.evolveum.midpoint.schema.GetOperationOptions;
 import com.evolveum.midpoint.schema.SelectorOptions;
 import com.evolveum.midpoint.util.logging.Trace;
 import com.evolveum.midpoint.util.logging.TraceManager;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
 import org.apache.commons.lang.Validate;
 import org.hibernate.Session;
 
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -95,15 +106,28 @@ public class QueryInterpreter2 {
     }
 
     private SqlRepositoryConfiguration repoConfiguration;
+    private OrgHierarchyIndex orgHierarchyIndex;
 
     public QueryInterpreter2(SqlRepositoryConfiguration repoConfiguration) {
+        this(repoConfiguration, null);
+    }
+
+    public QueryInterpreter2(SqlRepositoryConfiguration repoConfiguration, OrgHierarchyIndex orgHierarchyIndex) {
         this.repoConfiguration = repoConfiguration;
+        this.orgHierarchyIndex = orgHierarchyIndex;
     }
 
     public SqlRepositoryConfiguration getRepoConfiguration() {
         return repoConfiguration;
     }
 
+    /**
+     * Org hierarchy index to be used for interpreting org filters; null if not available.
+     */
+    public OrgHierarchyIndex getOrgHierarchyIndex() {
+        return orgHierarchyIndex;
+    }
+
     public RootHibernateQuery interpret(ObjectQuery query, Class<? extends Containerable> type,
                                         Collection<SelectorOptions<GetOperationOptions>> options, PrismContext prismContext,
                                         boolean countingObjects, Session session) throws QueryException {
@@ -122,8 +146,16 @@ public class QueryInterpreter2 {
 
         RootHibernateQuery hibernateQuery = context.getHibernateQuery();
 
+        ColumnProjection columnProjection = !countingObjects && context.isObject()
+                ? ColumnProjection.create((Class<? extends ObjectType>) type, options) : null;
+
         if (countingObjects) {
             hibernateQuery.addProjectionElement(new ProjectionElement("count(*)"));
+        } else if (columnProjection != null) {
+            for (String element : columnProjection.getProjectionElements(hibernateQuery.getPrimaryEntityAlias())) {
+                hibernateQuery.addProjectionElement(new ProjectionElement(element));
+            }
+            hibernateQuery.setResultTransformer(columnProjection.getResultTransformer());
         } else {
             String rootAlias = hibernateQuery.getPrimaryEntityAlias();
             hibernateQuery.addProjectionElement(new ProjectionElement(rootAlias + ".fullObject"));
@@ -231,6 +263,10 @@ public class QueryInterpreter2 {
             }
             // TODO can't be unified?
             if (propDefRes.getTargetDefinition() instanceof JpaAnyPropertyDefinition) {
+                String promotedSlot = findPromotedExtensionSlot(valFilter, propDefRes);
+                if (promotedSlot != null) {
+                    return new PromotedExtensionRestriction(context, valFilter, propDefRes.getEntityDefinition(), parent, promotedSlot);
+                }
                 return new AnyPropertyRestriction(context, valFilter, propDefRes.getEntityDefinition(), parent, propDefRes.getLinkDefinition());
             } else {
                 return new PropertyRestriction(context, valFilter, propDefRes.getEntityDefinition(), parent, propDefRes.getLinkDefinition());
@@ -243,6 +279,21 @@ public class QueryInterpreter2 {
         }
     }
 
+    // returns the column to be used if the filter is on object extension item that is promoted to a dedicated column
+    private String findPromotedExtensionSlot(PropertyValueFilter filter, ProperDataSearchResult<JpaPropertyDefinition> propDefRes) {
+        if (!(propDefRes.getLinkDefinition() instanceof JpaAnyPropertyLinkDefinition)) {
+            return null;
+        }
+        JpaAnyPropertyLinkDefinition linkDefinition = (JpaAnyPropertyLinkDefinition) propDefRes.getLinkDefinition();
+        if (linkDefinition.getOwnerType() != RObjectExtensionType.EXTENSION
+                || !RObject.class.isAssignableFrom(propDefRes.getEntityDefinition().getJpaClass())
+                || filter.getFullPath().size() != 2) {
+            return null;
+        }
+        String slot = repoConfiguration.getPromotedExtensionSlot(linkDefinition.getItemName());
+        return slot != null && PromotedExtensionRestriction.isApplicable(filter, slot) ? slot : null;
+    }
+
     private void interpretPagingAndSorting(InterpretationContext context, ObjectQuery query, boolean countingObjects) throws QueryException {
         RootHibernateQuery hibernateQuery = context.getHibernateQuery();
         String rootAlias = hibernateQuery.getPrimaryEntityAlias();
@@ -290,16 +341,134 @@ public class QueryInterpreter2 {
             hibernateQuery.setMaxResults(paging.getMaxSize());
         }
 
+        if (paging.isKeyset()) {
+            updateKeysetPagingAndSorting(context, paging);
+            return;
+        }
+
         if (!paging.hasOrdering()) {
             return;
         }
 
         for (ObjectOrdering ordering : paging.getOrderingInstructions()) {
-            addOrdering(context, ordering);
+            ResolvedOrdering resolved = resolveOrdering(context, ordering);
+            if (resolved == null) {
+                LOGGER.error("Unknown path '" + ordering.getOrderBy() + "', couldn't find definition for it, "
+                        + "list will not be ordered by it.");
+                continue;
+            }
+            hibernateQuery.addOrdering(resolved.hqlPath, resolved.direction);
+        }
+    }
+
+    /**
+     * Keyset (seek) paging: ordering is made total by adding OID as the last item and by putting nulls last;
+     * if "after" key is present, only rows following it are selected, i.e. (for orderings p1..pn with key
+     * values v1..vn and OID o):
+     *
+     *   (p1 after v1) or (p1 = v1 and p2 after v2) or ... or (p1 = v1 and ... and pn = vn and oid > o)
+     *
+     * where "p after v" means "p > v or p is null" for ascending order ("p < v or p is null" for descending one),
+     * and it is never true for v being null. Equality to null value means "p is null".
+     *
+     * Orderings by unknown paths are ignored (together with their key values), just like in offset-based paging.
+     */
+    private void updateKeysetPagingAndSorting(InterpretationContext context, ObjectPaging paging) throws QueryException {
+        RootHibernateQuery hibernateQuery = context.getHibernateQuery();
+        String oidPath = hibernateQuery.getPrimaryEntityAlias() + ".oid";
+
+        List<ResolvedOrdering> orderings = new ArrayList<>();
+        for (ObjectOrdering ordering : paging.getOrderingInstructions()) {
+            ResolvedOrdering resolved = resolveOrdering(context, ordering);
+            if (resolved == null) {
+                LOGGER.error("Unknown path '" + ordering.getOrderBy() + "', couldn't find definition for it, "
+                        + "list will not be ordered by it.");
+            }
+            orderings.add(resolved);            // null is kept to match the positions of 'after' key values
+        }
+
+        if (paging.hasAfterKey()) {
+            List<Object> values = paging.getAfterOrderingValues();
+            if (values == null || values.size() != orderings.size()) {
+                throw new QueryException("Keyset paging: there are " + orderings.size() + " ordering instruction(s) but "
+                        + "'after' key contains these values: " + values);
+            }
+            List<Condition> alternatives = new ArrayList<>();
+            List<Condition> equalities = new ArrayList<>();
+            for (int i = 0; i < orderings.size(); i++) {
+                ResolvedOrdering ordering = orderings.get(i);
+                if (ordering == null) {
+                    continue;
+                }
+                Object value = getKeysetValue(ordering, values.get(i));
+                if (value != null) {
+                    String operator = ordering.direction == OrderDirection.DESCENDING ? "<" : ">";
+                    Condition after = hibernateQuery.createOr(
+                            hibernateQuery.createSimpleComparisonCondition(ordering.hqlPath, value, operator),
+                            hibernateQuery.createIsNull(ordering.hqlPath));
+                    alternatives.add(createKeysetAlternative(hibernateQuery, equalities, after));
+                    equalities.add(hibernateQuery.createEq(ordering.hqlPath, value));
+                } else {
+                    equalities.add(hibernateQuery.createIsNull(ordering.hqlPath));
+                }
+            }
+            Condition afterOid = hibernateQuery.createSimpleComparisonCondition(oidPath, paging.getAfterOid(), ">");
+            alternatives.add(createKeysetAlternative(hibernateQuery, equalities, afterOid));
+            if (alternatives.size() == 1) {
+                hibernateQuery.addCondition(alternatives.get(0));
+            } else {
+                hibernateQuery.addCondition(hibernateQuery.createOr(alternatives.toArray(new Condition[alternatives.size()])));
+            }
         }
+
+        for (ResolvedOrdering ordering : orderings) {
+            if (ordering == null) {
+                continue;
+            }
+            hibernateQuery.addOrdering(ordering.hqlPath, ordering.direction, true);
+        }
+        hibernateQuery.addOrdering(oidPath, OrderDirection.ASCENDING);
     }
 
-    private void addOrdering(InterpretationContext context, ObjectOrdering ordering) throws QueryException {
+    private Condition createKeysetAlternative(RootHibernateQuery hibernateQuery, List<Condition> equalities, Condition last) {
+        if (equalities.isEmpty()) {
+            return last;
+        }
+        List<Condition> conjuncts = new ArrayList<>(equalities);
+        conjuncts.add(last);
+        return hibernateQuery.createAnd(conjuncts);
+    }
+
+    private Object getKeysetValue(ResolvedOrdering ordering, Object value) throws QueryException {
+        if (value == null) {
+            return null;
+        }
+        if (ordering.definition.isPolyString()) {
+            if (value instanceof PolyString) {
+                return ((PolyString) value).getOrig();
+            } else if (value instanceof PolyStringType) {
+                return ((PolyStringType) value).getOrig();
+            }
+        }
+        if (value instanceof QName && String.class.equals(ordering.definition.getJaxbClass())) {
+            return RUtil.qnameToString((QName) value);
+        }
+        if (ordering.definition.isEnumerated() && value instanceof Enum) {
+            Class repoType = ordering.definition.getJpaClass();
+            if (SchemaEnum.class.isAssignableFrom(repoType)) {
+                return RUtil.getRepoEnumValue(value, repoType);
+            }
+            for (Object constant : repoType.getEnumConstants()) {
+                if (((Enum) constant).name().equals(((Enum) value).name())) {
+                    return constant;
+                }
+            }
+            throw new QueryException("Unknown enum value '" + value + "', which is type of '" + value.getClass() + "'.");
+        }
+        return value;
+    }
+
+    private ResolvedOrdering resolveOrdering(InterpretationContext context, ObjectOrdering ordering) throws QueryException {
 
         ItemPath orderByPath = ordering.getOrderBy();
 
@@ -307,9 +476,7 @@ public class QueryInterpreter2 {
         ProperDataSearchResult<JpaDataNodeDefinition> result = context.getItemPathResolver().findProperDataDefinition(
                 context.getRootEntityDefinition(), orderByPath, null, JpaDataNodeDefinition.class);
         if (result == null) {
-            LOGGER.error("Unknown path '" + orderByPath + "', couldn't find definition for it, "
-                    + "list will not be ordered by it.");
-            return;
+            return null;
         }
         JpaDataNodeDefinition targetDefinition = result.getLinkDefinition().getTargetDefinition();
         if (targetDefinition instanceof JpaAnyContainerDefinition) {
@@ -333,20 +500,20 @@ public class QueryInterpreter2 {
             hqlPropertyPath += ".orig";
         }
 
-        RootHibernateQuery hibernateQuery = context.getHibernateQuery();
-        if (ordering.getDirection() != null) {
-            switch (ordering.getDirection()) {
-                case ASCENDING:
-                    hibernateQuery.addOrdering(hqlPropertyPath, OrderDirection.ASCENDING);
-                    break;
-                case DESCENDING:
-                    hibernateQuery.addOrdering(hqlPropertyPath, OrderDirection.DESCENDING);
-                    break;
-            }
-        } else {
-            hibernateQuery.addOrdering(hqlPropertyPath, OrderDirection.ASCENDING);
-        }
+        OrderDirection direction = ordering.getDirection() != null ? ordering.getDirection() : OrderDirection.ASCENDING;
+        return new ResolvedOrdering(hqlPropertyPath, orderByDefinition, direction);
+    }
+
+    private static class ResolvedOrdering {
+        private final String hqlPath;
+        private final JpaPropertyDefinition definition;
+        private final OrderDirection direction;
 
+        private ResolvedOrdering(String hqlPath, JpaPropertyDefinition definition, OrderDirection direction) {
+            this.hqlPath = hqlPath;
+            this.definition = definition;
+            this.direction = direction;
+        }
     }
 
     public <T extends Object> Matcher<T> findMatcher(T value) {
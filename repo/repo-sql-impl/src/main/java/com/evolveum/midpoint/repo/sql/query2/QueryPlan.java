@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.query2;
+
+import com.evolveum.midpoint.prism.query.ObjectPaging;
+import com.evolveum.midpoint.repo.sql.query2.hqm.QueryParameterValue;
+import com.evolveum.midpoint.repo.sql.query2.hqm.RootHibernateQuery;
+import com.evolveum.midpoint.util.logging.Trace;
+import com.evolveum.midpoint.util.logging.TraceManager;
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.transform.ResultTransformer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translation of a query shape (see {@link QueryShape}): HQL text and parameters. Parameters are either constants,
+ * or they are taken from the values of the actual query (possibly with a constant prefix and suffix,
+ * e.g. for substring filters).
+ *
+ * The plan is immutable and can be used by many threads at once.
+ */
+public class QueryPlan {
+
+    private static final Trace LOGGER = TraceManager.getTrace(QueryPlan.class);
+
+    private final String hqlText;
+    private final List<Parameter> parameters;
+    private final boolean firstResultUsed;
+    private final boolean maxResultsUsed;
+    private final ResultTransformer resultTransformer;
+
+    private QueryPlan(String hqlText, List<Parameter> parameters, boolean firstResultUsed, boolean maxResultsUsed,
+                      ResultTransformer resultTransformer) {
+        this.hqlText = hqlText;
+        this.parameters = parameters;
+        this.firstResultUsed = firstResultUsed;
+        this.maxResultsUsed = maxResultsUsed;
+        this.resultTransformer = resultTransformer;
+    }
+
+    /**
+     * Creates a plan from the translation of a masked query. Returns null if the translation cannot be reused
+     * for other values, i.e. if some of the values were not passed to the parameters unchanged, or they
+     * were put directly into the HQL text.
+     */
+    public static QueryPlan create(RootHibernateQuery maskedHibernateQuery, int valuesCount) {
+        String hqlText = maskedHibernateQuery.getAsHqlText(0);      // this fills-in the parameters
+        if (QueryShape.containsMark(hqlText)) {
+            LOGGER.trace("Query is not cacheable, value is present in HQL text: {}", hqlText);
+            return null;
+        }
+        List<Parameter> parameters = new ArrayList<>();
+        BitSet usedValues = new BitSet(valuesCount);
+        for (Map.Entry<String, QueryParameterValue> entry : maskedHibernateQuery.getParameters().entrySet()) {
+            QueryParameterValue parameterValue = entry.getValue();
+            Object value = parameterValue.getValue();
+            if (value instanceof Collection) {
+                for (Object item : (Collection) value) {
+                    if (item instanceof String && QueryShape.containsMark((String) item)) {
+                        LOGGER.trace("Query is not cacheable, value is used in collection parameter {}", entry.getKey());
+                        return null;
+                    }
+                }
+            }
+            Object[] placeholder;
+            try {
+                placeholder = value instanceof String ? QueryShape.parsePlaceholder((String) value) : null;
+            } catch (IllegalArgumentException e) {
+                LOGGER.trace("Query is not cacheable, value of parameter {} was changed: {}", entry.getKey(), e.getMessage());
+                return null;
+            }
+            if (placeholder == null) {
+                parameters.add(new Parameter(entry.getKey(), parameterValue, -1, null, null));
+            } else {
+                int index = (Integer) placeholder[1];
+                usedValues.set(index);
+                parameters.add(new Parameter(entry.getKey(), parameterValue, index, (String) placeholder[0], (String) placeholder[2]));
+            }
+        }
+        if (usedValues.cardinality() != valuesCount) {
+            LOGGER.trace("Query is not cacheable, only {} of {} values were found in parameters", usedValues.cardinality(), valuesCount);
+            return null;
+        }
+        return new QueryPlan(hqlText, Collections.unmodifiableList(parameters),
+                maskedHibernateQuery.getFirstResult() != null, maskedHibernateQuery.getMaxResults() != null,
+                maskedHibernateQuery.getResultTransformer());
+    }
+
+    public String getHqlText() {
+        return hqlText;
+    }
+
+    public Query createQuery(Session session, List<String> values, ObjectPaging paging) {
+        LOGGER.trace("HQL text from query plan:\n{}", hqlText);
+        Query query = session.createQuery(hqlText);
+        for (Parameter parameter : parameters) {
+            RootHibernateQuery.setParameter(query, parameter.name, parameter.getValue(values));
+        }
+        if (firstResultUsed) {
+            query.setFirstResult(paging.getOffset());
+        }
+        if (maxResultsUsed) {
+            query.setMaxResults(paging.getMaxSize());
+        }
+        if (resultTransformer != null) {
+            query.setResultTransformer(resultTransformer);
+        }
+        return query;
+    }
+
+    private static class Parameter {
+        private final String name;
+        private final QueryParameterValue constantValue;
+        private final int valueIndex;           // -1 for constants
+        private final String prefix;
+        private final String suffix;
+
+        private Parameter(String name, QueryParameterValue constantValue, int valueIndex, String prefix, String suffix) {
+            this.name = name;
+            this.constantValue = constantValue;
+            this.valueIndex = valueIndex;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        private QueryParameterValue getValue(List<String> values) {
+            if (valueIndex < 0) {
+                return constantValue;
+            }
+            return new QueryParameterValue(prefix + values.get(valueIndex) + suffix, constantValue.getType());
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.query2;
+
+import com.evolveum.midpoint.prism.Containerable;
+import com.evolveum.midpoint.prism.PrismPropertyValue;
+import com.evolveum.midpoint.prism.PrismValue;
+import com.evolveum.midpoint.prism.query.ExistsFilter;
+import com.evolveum.midpoint.prism.query.LogicalFilter;
+import com.evolveum.midpoint.prism.query.ObjectFilter;
+import com.evolveum.midpoint.prism.query.ObjectPaging;
+import com.evolveum.midpoint.prism.query.ObjectQuery;
+import com.evolveum.midpoint.prism.query.OrgFilter;
+import com.evolveum.midpoint.prism.query.PropertyValueFilter;
+import com.evolveum.midpoint.prism.query.TypeFilter;
+import com.evolveum.midpoint.repo.sql.ObjectPagingAfterOid;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Structural shape of a query, used as a key in the query plan cache. It is the query with (non-empty) string
+ * values replaced by positional placeholders: string values of property filters, "after OID" of ObjectPagingAfterOid
+ * and keyset paging, and string "after" values of keyset paging. Offset and maximum size of paging are not
+ * part of the shape either, only their presence is. All other values (numbers, polystrings, references,
+ * OIDs in InOid and Org filters, ...) are kept.
+ *
+ * Queries of the same shape are translated to the same HQL text; the replaced values are bound to the query
+ * parameters according to the plan (see {@link QueryPlan}).
+ *
+ * Placeholders contain mixed-case letters, a non-ASCII letter, control characters and leading/trailing spaces,
+ * so that any transformation of a value by the interpreter (case conversion, normalization, trimming) is detected
+ * and the shape is marked as not cacheable.
+ */
+public class QueryShape {
+
+    static final char MARK = '\u0001';
+    private static final String PLACEHOLDER_START = " " + MARK + "Qq#";
+    private static final String PLACEHOLDER_END = "#Zz\u00e9" + MARK + " ";
+
+    private final Class<? extends Containerable> type;
+    private final boolean countingObjects;
+    private final String options;
+    private final ObjectFilter filter;
+    private final ObjectPaging paging;
+    private final List<?> environment;
+
+    private final ObjectQuery maskedQuery;
+    private final List<String> values;
+    private final boolean containsOrgFilter;
+
+    private QueryShape(Class<? extends Containerable> type, boolean countingObjects, String options,
+                       ObjectQuery maskedQuery, List<?> environment, List<String> values, boolean containsOrgFilter) {
+        this.type = type;
+        this.countingObjects = countingObjects;
+        this.options = options;
+        this.filter = maskedQuery != null ? maskedQuery.getFilter() : null;
+        this.paging = maskedQuery != null ? maskedQuery.getPaging() : null;
+        this.environment = environment;
+        this.maskedQuery = maskedQuery;
+        this.values = values;
+        this.containsOrgFilter = containsOrgFilter;
+    }
+
+    public static QueryShape create(ObjectQuery query, Class<? extends Containerable> type, Object options,
+                                    boolean countingObjects) {
+        Masker masker = new Masker();
+        ObjectQuery maskedQuery = null;
+        if (query != null) {
+            maskedQuery = query.clone();
+            if (maskedQuery.getFilter() != null) {
+                masker.mask(maskedQuery.getFilter());
+            }
+            if (maskedQuery.getPaging() != null) {
+                masker.mask(maskedQuery.getPaging());
+            }
+        }
+        return new QueryShape(type, countingObjects, options != null ? options.toString() : null, maskedQuery,
+                null, masker.values, masker.containsOrgFilter);
+    }
+
+    /**
+     * Returns the shape with given information about the environment the query is interpreted in
+     * (configuration or data that influence the translation).
+     */
+    public QueryShape withEnvironment(List<?> environment) {
+        return new QueryShape(type, countingObjects, options, maskedQuery, environment, values, containsOrgFilter);
+    }
+
+    public ObjectQuery getMaskedQuery() {
+        return maskedQuery;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public boolean containsOrgFilter() {
+        return containsOrgFilter;
+    }
+
+    static String placeholder(int index) {
+        return PLACEHOLDER_START + index + PLACEHOLDER_END;
+    }
+
+    static boolean containsMark(String text) {
+        return text != null && text.indexOf(MARK) >= 0;
+    }
+
+    /**
+     * Finds a placeholder in the text. Returns {prefix, index, suffix} or null if there is none.
+     * Throws IllegalArgumentException if there is something that resembles a placeholder (e.g. a transformed one)
+     * or more than one placeholder.
+     */
+    static Object[] parsePlaceholder(String text) {
+        if (!containsMark(text)) {
+            return null;
+        }
+        int start = text.indexOf(PLACEHOLDER_START);
+        int end = start >= 0 ? text.indexOf(PLACEHOLDER_END, start + PLACEHOLDER_START.length()) : -1;
+        if (end < 0) {
+            throw new IllegalArgumentException("Damaged placeholder in '" + text + "'");
+        }
+        String prefix = text.substring(0, start);
+        String suffix = text.substring(end + PLACEHOLDER_END.length());
+        if (containsMark(prefix) || containsMark(suffix)) {
+            throw new IllegalArgumentException("More than one placeholder in '" + text + "'");
+        }
+        int index;
+        try {
+            index = Integer.parseInt(text.substring(start + PLACEHOLDER_START.length(), end));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Damaged placeholder in '" + text + "'", e);
+        }
+        return new Object[] { prefix, index, suffix };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        QueryShape that = (QueryShape) o;
+        return type.equals(that.type)
+                && countingObjects == that.countingObjects
+                && (options != null ? options.equals(that.options) : that.options == null)
+                && (filter != null ? filter.equals(that.filter, true) : that.filter == null)
+                && (paging != null ? paging.equals(that.paging, true) : that.paging == null)
+                && (environment != null ? environment.equals(that.environment) : that.environment == null);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type.hashCode();
+        result = 31 * result + (countingObjects ? 1 : 0);
+        result = 31 * result + (options != null ? options.hashCode() : 0);
+        result = 31 * result + (filter != null ? filter.hashCode() : 0);
+        result = 31 * result + (paging != null ? paging.hashCode() : 0);
+        result = 31 * result + (environment != null ? environment.hashCode() : 0);
+        return result;
+    }
+
+    private static class Masker {
+
+        private final List<String> values = new ArrayList<>();
+        private boolean containsOrgFilter;
+
+        private void mask(ObjectFilter filter) {
+            if (filter instanceof LogicalFilter) {
+                for (ObjectFilter condition : ((LogicalFilter) filter).getConditions()) {
+                    mask(condition);
+                }
+            } else if (filter instanceof ExistsFilter) {
+                if (((ExistsFilter) filter).getFilter() != null) {
+                    mask(((ExistsFilter) filter).getFilter());
+                }
+            } else if (filter instanceof TypeFilter) {
+                if (((TypeFilter) filter).getFilter() != null) {
+                    mask(((TypeFilter) filter).getFilter());
+                }
+            } else if (filter instanceof OrgFilter) {
+                containsOrgFilter = true;
+            } else if (filter instanceof PropertyValueFilter) {
+                List<? extends PrismValue> filterValues = ((PropertyValueFilter<?>) filter).getValues();
+                if (filterValues != null) {
+                    for (PrismValue value : filterValues) {
+                        if (value instanceof PrismPropertyValue) {
+                            PrismPropertyValue<Object> propertyValue = (PrismPropertyValue<Object>) value;
+                            if (propertyValue.getValue() instanceof String) {
+                                propertyValue.setValue(replace((String) propertyValue.getValue()));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        private void mask(ObjectPaging paging) {
+            if (paging.getOffset() != null) {
+                paging.setOffset(0);
+            }
+            if (paging.getMaxSize() != null) {
+                paging.setMaxSize(0);
+            }
+            if (paging instanceof ObjectPagingAfterOid) {
+                ObjectPagingAfterOid pagingAfterOid = (ObjectPagingAfterOid) paging;
+                pagingAfterOid.setOidGreaterThan(replace(pagingAfterOid.getOidGreaterThan()));
+            }
+            if (paging.isKeyset() && paging.getAfterOid() != null) {
+                List<Object> afterValues = null;
+                if (paging.getAfterOrderingValues() != null) {
+                    afterValues = new ArrayList<>();
+                    for (Object afterValue : paging.getAfterOrderingValues()) {
+                        afterValues.add(afterValue instanceof String ? replace((String) afterValue) : afterValue);
+                    }
+                }
+                paging.setAfter(replace(paging.getAfterOid()), afterValues);
+            }
+        }
+
+        // empty strings are kept, as the interpreter might treat them in a special way
+        private String replace(String value) {
+            if (StringUtils.isEmpty(value)) {
+                return value;
+            }
+            values.add(value);
+            return placeholder(values.size() - 1);
+        }
+    }
+}
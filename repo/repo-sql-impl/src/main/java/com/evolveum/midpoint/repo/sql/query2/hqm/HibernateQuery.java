@@ -60,10 +60,12 @@ public abstract class HibernateQuery {
     class Ordering {
         String byProperty;
         OrderDirection direction;
+        boolean nullsLast;
 
-        public Ordering(String byProperty, OrderDirection direction) {
+        public Ordering(String byProperty, OrderDirection direction, boolean nullsLast) {
             this.byProperty = byProperty;
             this.direction = direction;
+            this.nullsLast = nullsLast;
         }
     }
 
@@ -135,6 +137,9 @@ public abstract class HibernateQuery {
                         default: throw new IllegalStateException("Unknown ordering: " + ordering.direction);
                     }
                 }
+                if (ordering.nullsLast) {
+                    sb.append(" nulls last");
+                }
             }
         }
         return sb.toString();
@@ -196,7 +201,15 @@ public abstract class HibernateQuery {
     }
 
     public void addOrdering(String propertyPath, OrderDirection direction) {
-        orderingList.add(new Ordering(propertyPath, direction));
+        addOrdering(propertyPath, direction, false);
+    }
+
+    /**
+     * @param nullsLast if true, null values are placed after all other ones regardless of the direction
+     *                  (if the database does not support this directly, hibernate dialect emulates it)
+     */
+    public void addOrdering(String propertyPath, OrderDirection direction, boolean nullsLast) {
+        orderingList.add(new Ordering(propertyPath, direction, nullsLast));
     }
 
     public abstract RootHibernateQuery getRootQuery();
@@ -85,23 +85,7 @@ public class RootHibernateQuery extends HibernateQuery {
         LOGGER.trace("HQL text generated:\n{}", text);
         Query query = session.createQuery(text);
         for (Map.Entry<String,QueryParameterValue> parameter : parameters.entrySet()) {
-            String name = parameter.getKey();
-            QueryParameterValue parameterValue = parameter.getValue();
-            LOGGER.trace("Parameter {} = {}", name, parameterValue.debugDump());
-
-            if (parameterValue.getValue() instanceof Collection) {
-                if (parameterValue.getType() != null) {
-                    query.setParameterList(name, (Collection) parameterValue.getValue(), parameterValue.getType());
-                } else {
-                    query.setParameterList(name, (Collection) parameterValue.getValue());
-                }
-            } else {
-                if (parameterValue.getType() != null) {
-                    query.setParameter(name, parameterValue.getValue(), parameterValue.getType());
-                } else {
-                    query.setParameter(name, parameterValue.getValue());
-                }
-            }
+            setParameter(query, parameter.getKey(), parameter.getValue());
         }
         if (maxResults != null) {
             query.setMaxResults(maxResults);
@@ -115,6 +99,24 @@ public class RootHibernateQuery extends HibernateQuery {
         return query;
     }
 
+    public static void setParameter(Query query, String name, QueryParameterValue parameterValue) {
+        LOGGER.trace("Parameter {} = {}", name, parameterValue.debugDump());
+
+        if (parameterValue.getValue() instanceof Collection) {
+            if (parameterValue.getType() != null) {
+                query.setParameterList(name, (Collection) parameterValue.getValue(), parameterValue.getType());
+            } else {
+                query.setParameterList(name, (Collection) parameterValue.getValue());
+            }
+        } else {
+            if (parameterValue.getType() != null) {
+                query.setParameter(name, parameterValue.getValue(), parameterValue.getType());
+            } else {
+                query.setParameter(name, parameterValue.getValue());
+            }
+        }
+    }
+
     @Override
     public RootHibernateQuery getRootQuery() {
         return this;
@@ -128,10 +130,22 @@ public class RootHibernateQuery extends HibernateQuery {
         this.firstResult = offset;
     }
 
+    public Integer getMaxResults() {
+        return maxResults;
+    }
+
+    public Integer getFirstResult() {
+        return firstResult;
+    }
+
     public void setResultTransformer(ResultTransformer resultTransformer) {
         this.resultTransformer = resultTransformer;
     }
 
+    public ResultTransformer getResultTransformer() {
+        return resultTransformer;
+    }
+
     public Condition createIsNull(String propertyPath) {
         return new IsNullCondition(this, propertyPath);
     }
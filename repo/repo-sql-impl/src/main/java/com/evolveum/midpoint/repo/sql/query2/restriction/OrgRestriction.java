@@ -18,17 +18,27 @@ package com.evolveum.midpoint.repo.sql.query2.restriction;
 
 import com.evolveum.midpoint.prism.query.OrgFilter;
 import com.evolveum.midpoint.repo.sql.data.common.other.RReferenceOwner;
+import com.evolveum.midpoint.repo.sql.helpers.OrgHierarchyIndex;
 import com.evolveum.midpoint.repo.sql.query.QueryException;
 import com.evolveum.midpoint.repo.sql.query2.InterpretationContext;
 import com.evolveum.midpoint.repo.sql.query2.definition.JpaEntityDefinition;
 import com.evolveum.midpoint.repo.sql.query2.hqm.RootHibernateQuery;
 import com.evolveum.midpoint.repo.sql.query2.hqm.condition.Condition;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * @author lazyman
  */
 public class OrgRestriction extends Restriction<OrgFilter> {
 
+    /**
+     * Maximum number of org OIDs (taken from org hierarchy index) that are put directly into the query.
+     * For larger sets the closure table is used, as very long IN lists are not handled well by databases.
+     */
+    private static final int MAX_INLINED_OIDS = 100;
+
     public OrgRestriction(InterpretationContext context, OrgFilter filter, JpaEntityDefinition baseEntityDefinition, Restriction parent) {
         super(context, filter, baseEntityDefinition, parent);
     }
@@ -50,7 +60,16 @@ public class OrgRestriction extends Restriction<OrgFilter> {
             throw new QueryException("No oid specified in organization reference " + filter.getOrgRef().debugDump());
         }
 
-        String orgOidParamName = hibernateQuery.addParameter("orgOid", filter.getOrgRef().getOid());
+        String orgOid = filter.getOrgRef().getOid();
+        OrgHierarchyIndex index = getContext().getInterpreter().getOrgHierarchyIndex();
+        if (index != null && index.isEnabled()) {
+            Condition condition = interpretUsingIndex(index, orgOid, hibernateQuery);
+            if (condition != null) {
+                return condition;
+            }
+        }
+
+        String orgOidParamName = hibernateQuery.addParameter("orgOid", orgOid);
         String oidQueryText;    // oid in ...
         switch (filter.getScope()) {
             case ONE_LEVEL:
@@ -81,4 +100,31 @@ public class OrgRestriction extends Restriction<OrgFilter> {
         }
         return hibernateQuery.createIn(getBaseHqlEntity().getHqlPath() + ".oid", oidQueryText);
     }
+
+    // returns null if the index cannot be used for this filter
+    private Condition interpretUsingIndex(OrgHierarchyIndex index, String orgOid, RootHibernateQuery hibernateQuery) {
+        switch (filter.getScope()) {
+            case ANCESTORS:
+                Set<String> ancestors = new HashSet<>(index.getAncestors(orgOid));
+                ancestors.remove(orgOid);
+                if (ancestors.isEmpty() || ancestors.size() > MAX_INLINED_OIDS) {
+                    return null;
+                }
+                return hibernateQuery.createIn(getBaseHqlEntity().getHqlPath() + ".oid", ancestors);
+            case SUBTREE:
+                Set<String> descendants = index.getDescendants(orgOid);
+                if (descendants.isEmpty() || descendants.size() > MAX_INLINED_OIDS) {
+                    return null;
+                }
+                String descendantsParamName = hibernateQuery.addParameter("orgOids", descendants);
+                return hibernateQuery.createIn(getBaseHqlEntity().getHqlPath() + ".oid",
+                        "select ref.ownerOid " +
+                            "from RObjectReference ref " +
+                        "where " +
+                            "ref.referenceType = " + nameOf(RReferenceOwner.OBJECT_PARENT_ORG) + " and " +
+                            "ref.targetOid in (:" + descendantsParamName + ")");
+            default:
+                return null;
+        }
+    }
 }
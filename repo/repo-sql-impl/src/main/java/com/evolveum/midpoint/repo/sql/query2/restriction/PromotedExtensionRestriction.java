@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.query2.restriction;
+
+import com.evolveum.midpoint.prism.PrismPropertyValue;
+import com.evolveum.midpoint.prism.PrismValue;
+import com.evolveum.midpoint.prism.query.EqualFilter;
+import com.evolveum.midpoint.prism.query.GreaterFilter;
+import com.evolveum.midpoint.prism.query.LessFilter;
+import com.evolveum.midpoint.prism.query.PropertyValueFilter;
+import com.evolveum.midpoint.repo.sql.data.common.any.RAnyConverter;
+import com.evolveum.midpoint.repo.sql.data.common.any.ROExtPromoted;
+import com.evolveum.midpoint.repo.sql.query.QueryException;
+import com.evolveum.midpoint.repo.sql.query2.InterpretationContext;
+import com.evolveum.midpoint.repo.sql.query2.definition.JpaEntityDefinition;
+import com.evolveum.midpoint.repo.sql.query2.hqm.RootHibernateQuery;
+import com.evolveum.midpoint.repo.sql.query2.hqm.condition.Condition;
+
+/**
+ * Filter on an object extension item that is promoted to a dedicated column (see promotedExtensionItems
+ * configuration property). Instead of joining the generic extension table it is translated to
+ *
+ *   oid in (select p.ownerOid from ROExtPromoted p where p.[slot] [op] :value)
+ *
+ * Only simple comparisons with a single constant value and without matching rule are supported;
+ * other filters on promoted items go through {@link AnyPropertyRestriction}.
+ */
+public class PromotedExtensionRestriction extends ItemValueRestriction<PropertyValueFilter> {
+
+    private final String slot;
+
+    public PromotedExtensionRestriction(InterpretationContext context, PropertyValueFilter filter, JpaEntityDefinition baseEntityDefinition,
+                                        Restriction parent, String slot) {
+        super(context, filter, baseEntityDefinition, parent);
+        this.slot = slot;
+    }
+
+    /**
+     * Returns true if the filter can be evaluated using given slot.
+     */
+    public static boolean isApplicable(PropertyValueFilter filter, String slot) {
+        if (!(filter instanceof EqualFilter || filter instanceof GreaterFilter || filter instanceof LessFilter)) {
+            return false;
+        }
+        if (filter.getRightHandSidePath() != null || filter.getMatchingRule() != null
+                || filter.getValues() == null || filter.getValues().size() != 1) {
+            return false;
+        }
+        Object value = getAggregatedValue(filter);
+        return value != null && ROExtPromoted.getSlotType(slot).isAssignableFrom(value.getClass());
+    }
+
+    @Override
+    public Condition interpret() throws QueryException {
+        // the extension table is not joined, so there's no item path resolution here
+        return interpretInternal();
+    }
+
+    @Override
+    public Condition interpretInternal() throws QueryException {
+        RootHibernateQuery hibernateQuery = getContext().getHibernateQuery();
+        String valueParamName = hibernateQuery.addParameter("promotedValue", getAggregatedValue(filter));
+        String operator = findOperationForFilter(filter).symbol();
+        return hibernateQuery.createIn(getBaseHqlEntity().getHqlPath() + ".oid",
+                "select p.ownerOid from ROExtPromoted p where p." + slot + " " + operator + " :" + valueParamName);
+    }
+
+    private static Object getAggregatedValue(PropertyValueFilter filter) {
+        PrismValue value = filter.getSingleValue();
+        if (!(value instanceof PrismPropertyValue)) {
+            return null;
+        }
+        return RAnyConverter.getAggregatedRepoObject(((PrismPropertyValue) value).getValue());
+    }
+}
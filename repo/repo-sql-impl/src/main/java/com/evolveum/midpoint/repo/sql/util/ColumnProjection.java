@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.util;
+
+import com.evolveum.midpoint.prism.PrismContext;
+import com.evolveum.midpoint.prism.PrismObject;
+import com.evolveum.midpoint.prism.path.ItemPath;
+import com.evolveum.midpoint.repo.sql.data.common.RObject;
+import com.evolveum.midpoint.repo.sql.data.common.embedded.RActivation;
+import com.evolveum.midpoint.repo.sql.data.common.embedded.RPolyString;
+import com.evolveum.midpoint.repo.sql.data.common.other.RObjectType;
+import com.evolveum.midpoint.schema.GetOperationOptions;
+import com.evolveum.midpoint.schema.SelectorOptions;
+import com.evolveum.midpoint.schema.constants.ObjectTypes;
+import com.evolveum.midpoint.util.exception.SchemaException;
+import com.evolveum.midpoint.util.exception.SystemException;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ActivationType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.FocusType;
+import com.evolveum.midpoint.xml.ns._public.common.common_3.ObjectType;
+import org.hibernate.transform.BasicTransformerAdapter;
+import org.hibernate.transform.ResultTransformer;
+
+import javax.xml.namespace.QName;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Projection used to answer "retrieve only these items" requests (see GetOperationOptions.retrieveIncludedOnly)
+ * directly from indexed columns, without reading and parsing fullObject. It can be used only if all the requested
+ * items are column-backed: object name and (for focal objects) those activation items that are stored
+ * in embedded columns (see {@link RActivation}).
+ *
+ * The whole activation container cannot be served this way, because some of its items (e.g. lockoutStatus
+ * or lockoutExpirationTimestamp) have no columns; such requests are answered from fullObject. Column-backed
+ * activation items are always loaded together, because all their columns are in the same row anyway.
+ */
+public class ColumnProjection implements Serializable {
+
+    private static final List<QName> ACTIVATION_COLUMN_ITEMS = Arrays.asList(
+            ActivationType.F_ADMINISTRATIVE_STATUS, ActivationType.F_EFFECTIVE_STATUS,
+            ActivationType.F_VALID_FROM, ActivationType.F_VALID_TO, ActivationType.F_VALIDITY_STATUS,
+            ActivationType.F_DISABLE_TIMESTAMP, ActivationType.F_ENABLE_TIMESTAMP,
+            ActivationType.F_ARCHIVE_TIMESTAMP, ActivationType.F_VALIDITY_CHANGE_TIMESTAMP,
+            ActivationType.F_DISABLE_REASON);
+
+    private static final int OID = 0;
+    private static final int VERSION = 1;
+    private static final int OBJECT_TYPE_CLASS = 2;
+
+    private boolean name;
+    private boolean activation;
+
+    private ColumnProjection() {
+    }
+
+    /**
+     * Returns the projection if only column-backed items are requested by the options, null otherwise.
+     */
+    public static ColumnProjection create(Class<? extends ObjectType> type,
+                                          Collection<SelectorOptions<GetOperationOptions>> options) {
+        List<ItemPath> paths = GetOperationOptions.getRetrieveOnlyPaths(options);
+        return paths != null ? createForPaths(type, paths) : null;
+    }
+
+    /**
+     * Returns the projection for given items or null if some of them are not column-backed.
+     */
+    public static ColumnProjection createForPaths(Class<? extends ObjectType> type, Collection<ItemPath> paths) {
+        ColumnProjection projection = new ColumnProjection();
+        for (ItemPath path : paths) {
+            if (path.equivalent(new ItemPath(ObjectType.F_NAME))) {
+                projection.name = true;
+            } else if (FocusType.class.isAssignableFrom(type) && isActivationPath(path)) {
+                projection.activation = true;
+            } else {
+                return null;
+            }
+        }
+        return projection;
+    }
+
+    private static boolean isActivationPath(ItemPath path) {
+        for (QName item : ACTIVATION_COLUMN_ITEMS) {
+            if (path.equivalent(new ItemPath(FocusType.F_ACTIVATION, item))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> getProjectionElements(String alias) {
+        List<String> elements = new ArrayList<>();
+        elements.add(alias + ".oid");
+        elements.add(alias + ".version");
+        elements.add(alias + "." + RObject.F_OBJECT_TYPE_CLASS);
+        if (name) {
+            elements.add(alias + ".name");
+        }
+        if (activation) {
+            elements.add(alias + ".activation");
+        }
+        return elements;
+    }
+
+    public ResultTransformer getResultTransformer() {
+        return new BasicTransformerAdapter() {
+
+            @Override
+            public Object transformTuple(Object[] tuple, String[] aliases) {
+                return new GetObjectResult(ColumnProjection.this, tuple);
+            }
+        };
+    }
+
+    /**
+     * Creates (incomplete) object from the values of projected columns.
+     */
+    public <T extends ObjectType> PrismObject<T> createObject(Object[] values, PrismContext prismContext)
+            throws SchemaException {
+        ObjectTypes objectType = ClassMapper.getObjectTypeForHQLType((RObjectType) values[OBJECT_TYPE_CLASS]);
+        ObjectType object;
+        try {
+            object = objectType.getClassDefinition().newInstance();
+        } catch (InstantiationException | IllegalAccessException ex) {
+            throw new SystemException("Couldn't instantiate " + objectType.getClassDefinition() + ": " + ex.getMessage(), ex);
+        }
+        prismContext.adopt(object);
+
+        object.setOid((String) values[OID]);
+        object.setVersion(String.valueOf(values[VERSION]));
+        int i = OBJECT_TYPE_CLASS + 1;
+        if (name) {
+            object.setName(RPolyString.copyToJAXB((RPolyString) values[i++]));
+        }
+        if (activation) {
+            RActivation rActivation = (RActivation) values[i++];
+            if (rActivation != null) {
+                ActivationType activationType = new ActivationType();
+                RActivation.copyToJAXB(rActivation, activationType, prismContext);
+                ((FocusType) object).setActivation(activationType);
+            }
+        }
+        return (PrismObject<T>) object.asPrismObject();
+    }
+}
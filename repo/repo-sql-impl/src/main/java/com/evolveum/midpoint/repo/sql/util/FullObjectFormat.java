@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2010-2016 Evolveum
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.evolveum.midpoint.repo.sql.util;
+
+import com.evolveum.midpoint.util.exception.SystemException;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Encoding of the serialized (XML) form of objects stored in fullObject columns.
+ *
+ * Legacy formats (PLAIN and GZIP) are stored without any header, exactly as before. Newer formats are stored
+ * with a 4-byte header: 0x00, 'M', 'P', format id. The header cannot be confused with the legacy formats,
+ * as XML text never starts with 0x00 and GZIP stream always starts with 0x1f 0x8b. So the format of each value
+ * is recognized when reading, regardless of the currently configured one.
+ *
+ * If the dictionary of a dictionary-based format has to be changed, a new format (with a new id) has to be created,
+ * because existing values need the original dictionary to be read.
+ */
+public enum FullObjectFormat {
+
+    /**
+     * UTF-8 encoded XML, no header.
+     */
+    PLAIN("plain", (byte) 0),
+
+    /**
+     * GZIP compressed UTF-8 encoded XML, no header. This is what "useZip" option produces.
+     */
+    GZIP("gzip", (byte) 0),
+
+    /**
+     * Raw deflate (fast level) with a preset dictionary containing strings typical for midPoint objects.
+     */
+    DEFLATE_DICT_V1("deflate", (byte) 1);
+
+    private static final Charset UTF8 = Charset.forName("utf-8");
+
+    private static final byte[] HEADER_PREFIX = new byte[] { 0x00, 'M', 'P' };
+    private static final int HEADER_LENGTH = HEADER_PREFIX.length + 1;
+
+    // Deflate uses the last 32K of the dictionary; the most frequent strings should be at its end.
+    private static final byte[] DICTIONARY_V1 = (
+            "<c:description></c:description><c:documentation></c:documentation><c:extension></c:extension>"
+            + "<c:trigger id=\"\"><c:timestamp></c:timestamp><c:handlerUri></c:handlerUri></c:trigger>"
+            + "<c:inducement id=\"\"><c:construction><c:resourceRef oid=\"\" type=\"c:ResourceType\"/>"
+            + "<c:kind>account</c:kind><c:intent>default</c:intent><c:attribute><c:ref>ri:</c:ref>"
+            + "<c:outbound><c:strength>strong</c:strength><c:source><c:path>$user/</c:path></c:source>"
+            + "<c:expression><c:script><c:code></c:code></c:script></c:expression></c:outbound></c:attribute>"
+            + "</c:construction></c:inducement><c:authorization id=\"\"><c:action>"
+            + "http://midpoint.evolveum.com/xml/ns/public/security/authorization-model-3#</c:action></c:authorization>"
+            + "<c:credentials><c:password><c:value><t:encryptedData><t:encryptionMethod>"
+            + "<t:algorithm>http://www.w3.org/2001/04/xmlenc#aes128-cbc</t:algorithm></t:encryptionMethod>"
+            + "<t:keyInfo><t:keyName></t:keyName></t:keyInfo><t:cipherData><t:cipherValue></t:cipherValue>"
+            + "</t:cipherData></t:encryptedData></c:value></c:password></c:credentials>"
+            + "<c:resourceRef oid=\"\" type=\"c:ResourceType\"/><c:objectClass>ri:AccountObjectClass</c:objectClass>"
+            + "<c:kind>account</c:kind><c:intent>default</c:intent><c:exists>true</c:exists>"
+            + "<c:iteration>0</c:iteration><c:iterationToken/><c:synchronizationSituation>linked</c:synchronizationSituation>"
+            + "<c:synchronizationSituationDescription><c:situation>linked</c:situation><c:timestamp></c:timestamp>"
+            + "<c:chanel>http://midpoint.evolveum.com/xml/ns/public/provisioning/channels-3#</c:chanel>"
+            + "</c:synchronizationSituationDescription><c:attributes><icfs:uid></icfs:uid><icfs:name></icfs:name>"
+            + "</c:attributes><c:givenName><t:orig></t:orig><t:norm></t:norm></c:givenName>"
+            + "<c:familyName><t:orig></t:orig><t:norm></t:norm></c:familyName>"
+            + "<c:fullName><t:orig></t:orig><t:norm></t:norm></c:fullName><c:emailAddress></c:emailAddress>"
+            + "<c:employeeNumber></c:employeeNumber><c:linkRef oid=\"\" type=\"c:ShadowType\"/>"
+            + "<c:parentOrgRef oid=\"\" relation=\"org:default\" type=\"c:OrgType\"/>"
+            + "<c:roleMembershipRef oid=\"\" relation=\"org:default\" type=\"c:RoleType\"/>"
+            + "<c:activation><c:administrativeStatus>enabled</c:administrativeStatus>"
+            + "<c:effectiveStatus>enabled</c:effectiveStatus><c:enableTimestamp></c:enableTimestamp>"
+            + "</c:activation><c:metadata><c:requestTimestamp></c:requestTimestamp><c:requestorRef oid=\"\" type=\"c:UserType\"/>"
+            + "<c:createTimestamp></c:createTimestamp><c:creatorRef oid=\"\" type=\"c:UserType\"/>"
+            + "<c:createChannel>http://midpoint.evolveum.com/xml/ns/public/model/channels-3#user</c:createChannel>"
+            + "<c:modifyTimestamp></c:modifyTimestamp><c:modifierRef oid=\"\" type=\"c:UserType\"/>"
+            + "<c:modifyChannel>http://midpoint.evolveum.com/xml/ns/public/gui/channels-3#user</c:modifyChannel>"
+            + "</c:metadata><c:assignment id=\"\"><c:targetRef oid=\"\" relation=\"org:default\" type=\"c:RoleType\"/>"
+            + "</c:assignment><c:name><t:orig></t:orig><t:norm></t:norm></c:name>"
+            + " xmlns=\"http://midpoint.evolveum.com/xml/ns/public/common/common-3\""
+            + " xmlns:c=\"http://midpoint.evolveum.com/xml/ns/public/common/common-3\""
+            + " xmlns:icfs=\"http://midpoint.evolveum.com/xml/ns/public/connector/icf-1/resource-schema-3\""
+            + " xmlns:org=\"http://midpoint.evolveum.com/xml/ns/public/common/org-3\""
+            + " xmlns:q=\"http://prism.evolveum.com/xml/ns/public/query-3\""
+            + " xmlns:ri=\"http://midpoint.evolveum.com/xml/ns/public/resource/instance-3\""
+            + " xmlns:t=\"http://prism.evolveum.com/xml/ns/public/types-3\""
+            + " xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\""
+            + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\" oid=\"\" version=\"\">").getBytes(UTF8);
+
+    private final String value;
+    private final byte id;
+
+    FullObjectFormat(String value, byte id) {
+        this.value = value;
+        this.id = id;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static FullObjectFormat fromValue(String value) {
+        for (FullObjectFormat format : values()) {
+            if (format.value.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown full object format: " + value);
+    }
+
+    public byte[] encode(String xml) {
+        try {
+            switch (this) {
+                case PLAIN:
+                    return xml.getBytes(UTF8);
+                case GZIP:
+                    return gzip(xml.getBytes(UTF8));
+                case DEFLATE_DICT_V1:
+                    return deflate(xml.getBytes(UTF8), DICTIONARY_V1);
+                default:
+                    throw new IllegalStateException("Unsupported full object format: " + this);
+            }
+        } catch (Exception ex) {
+            throw new SystemException("Couldn't save full xml object, reason: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Determines the format of stored data. Data without recognizable header are considered to be PLAIN.
+     */
+    public static FullObjectFormat detect(byte[] data) {
+        if (data.length >= 2 && data[0] == (byte) 0x1f && data[1] == (byte) 0x8b) {
+            return GZIP;
+        }
+        if (data.length >= HEADER_LENGTH && data[0] == HEADER_PREFIX[0] && data[1] == HEADER_PREFIX[1]
+                && data[2] == HEADER_PREFIX[2]) {
+            byte id = data[HEADER_PREFIX.length];
+            for (FullObjectFormat format : values()) {
+                if (format.id != 0 && format.id == id) {
+                    return format;
+                }
+            }
+            throw new SystemException("Couldn't read data from full object column, unknown format id " + id);
+        }
+        return PLAIN;
+    }
+
+    public static String decode(byte[] data) {
+        try {
+            FullObjectFormat format = detect(data);
+            switch (format) {
+                case PLAIN:
+                    return new String(data, UTF8);
+                case GZIP:
+                    return new String(gunzip(data), UTF8);
+                case DEFLATE_DICT_V1:
+                    return new String(inflate(data, DICTIONARY_V1), UTF8);
+                default:
+                    throw new IllegalStateException("Unsupported full object format: " + format);
+            }
+        } catch (SystemException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new SystemException("Couldn't read data from full object column, reason: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        try {
+            gzip.write(data);
+        } finally {
+            gzip.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+        GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data));
+        try {
+            IOUtils.copy(gzip, out);
+        } finally {
+            IOUtils.closeQuietly(gzip);
+        }
+        return out.toByteArray();
+    }
+
+    private byte[] deflate(byte[] data, byte[] dictionary) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + HEADER_LENGTH + 16);
+            out.write(HEADER_PREFIX, 0, HEADER_PREFIX.length);
+            out.write(id);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, byte[] dictionary) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(dictionary);
+            // raw inflater needs an extra dummy byte at the end of the input
+            byte[] input = new byte[data.length - HEADER_LENGTH + 1];
+            System.arraycopy(data, HEADER_LENGTH, input, 0, data.length - HEADER_LENGTH);
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Truncated or corrupted data");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
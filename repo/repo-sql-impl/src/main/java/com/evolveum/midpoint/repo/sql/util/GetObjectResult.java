@@ -32,6 +32,10 @@ public class GetObjectResult implements Serializable {
     private Short polysCount;
     private Short booleansCount;
 
+    // used instead of fullObject if the object is to be created from projected columns only
+    private ColumnProjection columnProjection;
+    private Object[] columnValues;
+
     public GetObjectResult(Object[] values) {
         this((byte[]) values[0],
                 values.length > 1 ? (Short) values[1] : null,
@@ -57,6 +61,11 @@ public class GetObjectResult implements Serializable {
         this.booleansCount = booleansCount;
     }
 
+    public GetObjectResult(ColumnProjection columnProjection, Object[] columnValues) {
+        this.columnProjection = columnProjection;
+        this.columnValues = columnValues;
+    }
+
     public Short[] getCountProjection() {
         return new Short[]{getStringsCount(), getLongsCount(), getDatesCount(),
                 getReferencesCount(), getPolysCount(), getBooleansCount()};
@@ -66,6 +75,18 @@ public class GetObjectResult implements Serializable {
         return fullObject;
     }
 
+    public boolean isColumnsOnly() {
+        return columnProjection != null;
+    }
+
+    public ColumnProjection getColumnProjection() {
+        return columnProjection;
+    }
+
+    public Object[] getColumnValues() {
+        return columnValues;
+    }
+
     public Short getStringsCount() {
         if (stringsCount == null) {
             stringsCount = 0;
@@ -49,7 +49,6 @@ import com.evolveum.midpoint.xml.ns._public.common.common_3.OperationResultType;
 import com.evolveum.prism.xml.ns._public.types_3.PolyStringType;
 
 import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.Validate;
 import org.hibernate.SessionFactory;
@@ -63,15 +62,11 @@ import javax.persistence.Table;
 import javax.xml.bind.JAXBException;
 import javax.xml.namespace.QName;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * @author lazyman
@@ -439,50 +434,23 @@ public final class RUtil {
     }
 
     public static byte[] getByteArrayFromXml(String xml, boolean compress) {
-        byte[] array;
-
-        GZIPOutputStream gzip = null;
-        try {
-            if (compress) {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                gzip = new GZIPOutputStream(out);
-                gzip.write(xml.getBytes("utf-8"));
-                gzip.close();
-                out.close();
-
-                array = out.toByteArray();
-            } else {
-                array = xml.getBytes("utf-8");
-            }
-        } catch (Exception ex) {
-            throw new SystemException("Couldn't save full xml object, reason: " + ex.getMessage(), ex);
-        } finally {
-            IOUtils.closeQuietly(gzip);
-        }
+        return getByteArrayFromXml(xml, compress ? FullObjectFormat.GZIP : FullObjectFormat.PLAIN);
+    }
 
-        return array;
+    public static byte[] getByteArrayFromXml(String xml, FullObjectFormat format) {
+        return format.encode(xml);
     }
 
+    /**
+     * The format of the data is determined from the data itself; the "compressed" flag is kept only
+     * for compatibility reasons.
+     */
     public static String getXmlFromByteArray(byte[] array, boolean compressed) {
-        String xml;
-
-        GZIPInputStream gzip = null;
-        try {
-            if (compressed) {
-                ByteArrayOutputStream out = new ByteArrayOutputStream();
-                gzip = new GZIPInputStream(new ByteArrayInputStream(array));
-                IOUtils.copy(gzip, out);
-                xml = new String(out.toByteArray(), "utf-8");
-            } else {
-                xml = new String(array, "utf-8");
-            }
-        } catch (Exception ex) {
-            throw new SystemException("Couldn't read data from full object column, reason: " + ex.getMessage(), ex);
-        } finally {
-            IOUtils.closeQuietly(gzip);
-        }
+        return getXmlFromByteArray(array);
+    }
 
-        return xml;
+    public static String getXmlFromByteArray(byte[] array) {
+        return FullObjectFormat.decode(array);
     }
 
     public static OrgFilter findOrgFilter(ObjectQuery query) {
@@ -27,6 +27,8 @@ import org.apache.commons.lang.StringUtils;
 
 import com.evolveum.midpoint.audit.api.AuditEventRecord;
 import com.evolveum.midpoint.audit.api.AuditEventStage;
+import com.evolveum.midpoint.audit.api.AuditReferenceResolution;
+import com.evolveum.midpoint.audit.api.AuditResultHandler;
 import com.evolveum.midpoint.audit.api.AuditService;
 import com.evolveum.midpoint.prism.PrismObject;
 import com.evolveum.midpoint.prism.PrismPropertyValue;
@@ -415,4 +417,10 @@ public class DummyAuditService implements AuditService, DebugDumpable {
 		return null;
 	}
 
+	@Override
+	public void searchRecordsIterative(String query, Map<String, Object> params, AuditResultHandler handler,
+			AuditReferenceResolution resolution) {
+		// queries are not supported by the dummy audit service (the same as in listRecords)
+	}
+
 }
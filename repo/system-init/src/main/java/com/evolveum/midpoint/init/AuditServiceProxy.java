@@ -17,6 +17,8 @@
 package com.evolveum.midpoint.init;
 
 import com.evolveum.midpoint.audit.api.AuditEventRecord;
+import com.evolveum.midpoint.audit.api.AuditReferenceResolution;
+import com.evolveum.midpoint.audit.api.AuditResultHandler;
 import com.evolveum.midpoint.audit.api.AuditService;
 import com.evolveum.midpoint.audit.spi.AuditServiceRegistry;
 import com.evolveum.midpoint.prism.PrismContainerValue;
@@ -39,6 +41,7 @@ import com.evolveum.midpoint.schema.result.OperationResult;
 import com.evolveum.midpoint.task.api.LightweightIdentifier;
 import com.evolveum.midpoint.task.api.LightweightIdentifierGenerator;
 import com.evolveum.midpoint.task.api.Task;
+import com.evolveum.midpoint.util.Holder;
 import com.evolveum.midpoint.util.exception.ObjectNotFoundException;
 import com.evolveum.midpoint.util.exception.SchemaException;
 import com.evolveum.midpoint.util.logging.Trace;
@@ -236,4 +239,26 @@ public class AuditServiceProxy implements AuditService, AuditServiceRegistry {
 		}
 		return result;
 	}
+
+	@Override
+	public void searchRecordsIterative(String query, Map<String, Object> params, final AuditResultHandler handler,
+			AuditReferenceResolution resolution) {
+		final Holder<Boolean> stopped = new Holder<>(false);
+		AuditResultHandler stopDetectingHandler = new AuditResultHandler() {
+			@Override
+			public boolean handle(AuditEventRecord record) {
+				boolean cont = handler.handle(record);
+				if (!cont) {
+					stopped.setValue(true);
+				}
+				return cont;
+			}
+		};
+		for (AuditService service : services) {
+			service.searchRecordsIterative(query, params, stopDetectingHandler, resolution);
+			if (stopped.getValue()) {
+				return;
+			}
+		}
+	}
 }
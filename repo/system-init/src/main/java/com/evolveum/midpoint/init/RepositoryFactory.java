@@ -136,6 +136,7 @@ public class RepositoryFactory implements ApplicationContextAware, RuntimeConfig
             try {
                 Class<RepositoryServiceFactory> clazz = (Class<RepositoryServiceFactory>) Class.forName(REPOSITORY_FACTORY_CACHE_CLASS);
                 cacheFactory = getFactoryBean(clazz);
+                cacheFactory.init(getCurrentConfiguration());
                 //TODO decompose this dependency, remove class casting !!!
                 RepositoryCache repositoryCache = (RepositoryCache) cacheFactory.getRepositoryService();
                 repositoryCache.setRepository(getRepositoryService(), prismContext);